@@ -0,0 +1,25 @@
+package com.arjunsk.codekrypt.di.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Entry point of benchmarks.jar. Runs JMH with the given arguments, and writes the results as JSON
+ * to {@value #DEFAULT_RESULT_FILE} unless a result format or file is given (-rf, -rff), so runs of
+ * different commits can be compared.
+ */
+public final class BenchmarkMain {
+
+  public static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+  private BenchmarkMain() {}
+
+  public static void main(String[] args) throws Exception {
+    List<String> jmhArgs = new ArrayList<>(Arrays.asList(args));
+    if (!jmhArgs.contains("-rf") && !jmhArgs.contains("-rff")) {
+      jmhArgs.addAll(Arrays.asList("-rf", "json", "-rff", DEFAULT_RESULT_FILE));
+    }
+    org.openjdk.jmh.Main.main(jmhArgs.toArray(new String[0]));
+  }
+}
@@ -0,0 +1,117 @@
+package com.arjunsk.codekrypt.di.benchmarks;
+
+import com.arjunsk.codekrypt.di.core.CodekryptInjector;
+import com.arjunsk.codekrypt.di.core.InjectorConfig;
+import java.io.IOException;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Container bootstrap of independent chains of beans, each with a slow @PostConstruct.
+ *
+ * <p>Created one after another, startup grows with the bean count (chains * chainLength *
+ * postConstructMillis). Created in parallel, it follows the critical path (chainLength *
+ * postConstructMillis).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class BootstrapBenchmark {
+
+  @Param({"16"})
+  private int chains;
+
+  @Param({"4"})
+  private int chainLength;
+
+  @Param({"10"})
+  private int postConstructMillis;
+
+  // 0 creates the beans on the calling thread.
+  @Param({"0", "16"})
+  private int threads;
+
+  private Path codeBase;
+  private ExecutorService executor;
+  private URLClassLoader classLoader;
+  private Class<?> mainClass;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    SyntheticComponents codeBase = new SyntheticComponents();
+    String packageName = SyntheticComponents.BASE_PACKAGE;
+    for (int chain = 0; chain < chains; chain++) {
+      for (int link = 0; link < chainLength; link++) {
+        String dependency =
+            link == 0 ? "" : "@Autowire private Bean" + chain + "_" + (link - 1) + " previous;\n";
+        codeBase.add(
+            packageName,
+            "Bean" + chain + "_" + link,
+            "import com.arjunsk.codekrypt.di.annotation.*;\n"
+                + "@Component\n"
+                + "public class Bean"
+                + chain
+                + "_"
+                + link
+                + " {\n"
+                + dependency
+                + "@PostConstruct public void warmUp() throws Exception { Thread.sleep("
+                + postConstructMillis
+                + "); }\n"
+                + "}");
+      }
+    }
+    this.codeBase = codeBase.compile();
+
+    if (threads > 0) {
+      executor = Executors.newFixedThreadPool(threads);
+    }
+  }
+
+  @Setup(Level.Invocation)
+  public void newClassLoader() throws Exception {
+    classLoader = SyntheticComponents.classLoader(codeBase);
+    mainClass = classLoader.loadClass(SyntheticComponents.MAIN_CLASS);
+  }
+
+  @Benchmark
+  public void run() {
+    InjectorConfig config = new InjectorConfig();
+    if (executor != null) {
+      config.withExecutor(executor);
+    }
+    CodekryptInjector.run(mainClass, config);
+  }
+
+  @TearDown(Level.Invocation)
+  public void closeClassLoader() throws IOException {
+    classLoader.close();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    if (executor != null) {
+      executor.shutdown();
+    }
+    SyntheticComponents.delete(codeBase);
+  }
+}
@@ -0,0 +1,131 @@
+package com.arjunsk.codekrypt.di.benchmarks;
+
+import com.arjunsk.codekrypt.di.annotation.Autowire;
+import com.arjunsk.codekrypt.di.core.BeanManager;
+import com.arjunsk.codekrypt.di.core.Container;
+import com.arjunsk.codekrypt.di.core.InjectorConfig;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Creation of many tenant containers, each with its own service and repository: as child
+ * containers of a parent holding the shared 64 KB cache, vs as standalone containers, each with
+ * its own copy of the cache. The heap retained by each batch is printed at the end of the trial.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ChildContainerBenchmark {
+
+  private static final List<Class<?>> TENANT_COMPONENTS =
+      Arrays.asList(TenantRepository.class, TenantService.class);
+
+  @Param({"1000"})
+  private int tenantCount;
+
+  @Param({"child", "standalone"})
+  private String layout;
+
+  private final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+
+  private Container parent;
+  private final List<Container> tenants = new ArrayList<>();
+
+  private long heapBeforeRun;
+  private long retainedHeapTotal;
+  private int runCount;
+
+  @Setup(Level.Invocation)
+  public void setUp() {
+    BeanManager beanManager = new BeanManager();
+    beanManager.registerComponents(Arrays.asList(SharedCache.class));
+    parent = new Container(beanManager);
+    parent.getBean(SharedCache.class);
+    heapBeforeRun = usedHeap();
+  }
+
+  @Benchmark
+  public List<Container> createTenants() {
+    for (int i = 0; i < tenantCount; i++) {
+      tenants.add("child".equals(layout) ? createChild() : createStandalone());
+    }
+    return tenants;
+  }
+
+  private Container createChild() {
+    Container child = parent.createChild(TENANT_COMPONENTS, new InjectorConfig());
+    child.getBean(TenantService.class);
+    return child;
+  }
+
+  private Container createStandalone() {
+    BeanManager beanManager = new BeanManager();
+    List<Class<?>> componentClasses = new ArrayList<>(TENANT_COMPONENTS);
+    componentClasses.add(SharedCache.class);
+    beanManager.registerComponents(componentClasses);
+    Container container = new Container(beanManager);
+    container.getBean(TenantService.class);
+    return container;
+  }
+
+  @TearDown(Level.Invocation)
+  public void tearDown() {
+    retainedHeapTotal += usedHeap() - heapBeforeRun;
+    runCount++;
+    for (Container tenant : tenants) {
+      tenant.close();
+    }
+    tenants.clear();
+    parent.close();
+  }
+
+  @TearDown(Level.Trial)
+  public void printRetainedHeap() {
+    System.out.printf(
+        "%nRetained heap per %d tenants (%s): %d KB%n",
+        tenantCount, layout, retainedHeapTotal / runCount / 1024);
+  }
+
+  private long usedHeap() {
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return memoryBean.getHeapMemoryUsage().getUsed();
+  }
+
+  public static class SharedCache {
+    private final byte[] entries = new byte[64 * 1024];
+
+    public int size() {
+      return entries.length;
+    }
+  }
+
+  public static class TenantRepository {}
+
+  public static class TenantService {
+
+    @Autowire private SharedCache cache;
+
+    @Autowire private TenantRepository repository;
+  }
+}
@@ -0,0 +1,71 @@
+package com.arjunsk.codekrypt.di.benchmarks;
+
+import com.arjunsk.codekrypt.di.core.BeanHandle;
+import com.arjunsk.codekrypt.di.core.BeanManager;
+import com.arjunsk.codekrypt.di.core.Container;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Typed lookups of a created singleton: resolving through BeanManager every time, vs the cached
+ * handles of a Container.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContainerBenchmark {
+
+  private BeanManager beanManager;
+  private Container container;
+  private BeanHandle<Engine> engineHandle;
+
+  @Setup
+  public void setUp() {
+    beanManager = new BeanManager();
+    beanManager.registerComponents(Arrays.asList(PetrolEngine.class, ElectricEngine.class));
+    container = new Container(beanManager);
+    engineHandle = container.getHandle(Engine.class, "ElectricEngine");
+
+    // Create the singleton up front, so only the lookup is measured.
+    engineHandle.get();
+  }
+
+  @Benchmark
+  public Object beanManager() {
+    return beanManager.getBeanInstance(Engine.class, null, "ElectricEngine");
+  }
+
+  @Benchmark
+  public Object containerGetBean() {
+    return container.getBean(Engine.class, "ElectricEngine");
+  }
+
+  @Benchmark
+  public Object containerGetBeanByClass() {
+    return container.getBean(ElectricEngine.class);
+  }
+
+  @Benchmark
+  public Object beanHandle() {
+    return engineHandle.get();
+  }
+
+  public interface Engine {}
+
+  public static class PetrolEngine implements Engine {}
+
+  public static class ElectricEngine implements Engine {}
+}
@@ -0,0 +1,74 @@
+package com.arjunsk.codekrypt.di.benchmarks;
+
+import com.arjunsk.codekrypt.di.core.BeanManager;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Concurrent lookups of already created singletons, from 1 to 64 threads. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContentionBenchmark {
+
+  private BeanManager beanManager;
+
+  @Setup
+  public void setUp() {
+    beanManager = new BeanManager();
+    beanManager.registerComponents(Arrays.asList(EngineImpl.class, WheelImpl.class));
+
+    // Create the singletons up front, so only the lookup path is measured.
+    lookup();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Object threads01() {
+    return lookup();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public Object threads04() {
+    return lookup();
+  }
+
+  @Benchmark
+  @Threads(16)
+  public Object threads16() {
+    return lookup();
+  }
+
+  @Benchmark
+  @Threads(64)
+  public Object threads64() {
+    return lookup();
+  }
+
+  private Object lookup() {
+    beanManager.getBeanInstance(Engine.class, "engine", null);
+    return beanManager.getBeanInstance(Wheel.class, "wheel", null);
+  }
+
+  public interface Engine {}
+
+  public interface Wheel {}
+
+  public static class EngineImpl implements Engine {}
+
+  public static class WheelImpl implements Wheel {}
+}
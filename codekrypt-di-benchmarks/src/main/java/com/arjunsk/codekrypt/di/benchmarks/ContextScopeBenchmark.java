@@ -0,0 +1,117 @@
+package com.arjunsk.codekrypt.di.benchmarks;
+
+import com.arjunsk.codekrypt.di.annotation.Autowire;
+import com.arjunsk.codekrypt.di.annotation.Scope;
+import com.arjunsk.codekrypt.di.core.BeanManager;
+import com.arjunsk.codekrypt.di.scope.ScopeContext;
+import com.arjunsk.codekrypt.di.scope.ThreadScope;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Request scoped beans: a request bean with a context scoped and a singleton dependency, fetched
+ * through the context scope vs the thread scope.
+ *
+ * <p>The request benchmarks open a context (or use the thread), fetch the bean and close it. The
+ * get benchmarks fetch it again from one of many live contexts. Run with -prof gc for the
+ * allocations per request.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class ContextScopeBenchmark {
+
+  @Param({"1000", "1000000"})
+  private int contextCount;
+
+  private BeanManager beanManager;
+  private ThreadScope threadScope;
+  private ScopeContext[] contexts;
+  private Callable<Object> fetchRequest;
+  private int next;
+
+  @Setup
+  public void setUp() throws Exception {
+    beanManager = new BeanManager();
+    beanManager.registerComponents(
+        Arrays.asList(Engine.class, Trace.class, Request.class, ThreadRequest.class));
+    threadScope = (ThreadScope) beanManager.getScope(Scope.THREAD);
+    fetchRequest = () -> beanManager.getBeanInstance(Request.class, "request", null);
+
+    // Live contexts, each holding its request bean.
+    contexts = new ScopeContext[contextCount];
+    for (int i = 0; i < contextCount; i++) {
+      contexts[i] = beanManager.newContext();
+      contexts[i].call(fetchRequest);
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    for (ScopeContext context : contexts) {
+      context.close();
+    }
+  }
+
+  @Benchmark
+  public Object contextRequest() throws Exception {
+    try (ScopeContext context = beanManager.newContext()) {
+      return context.call(fetchRequest);
+    }
+  }
+
+  @Benchmark
+  public Object threadRequest() {
+    try {
+      return beanManager.getBeanInstance(ThreadRequest.class, "request", null);
+    } finally {
+      threadScope.clear();
+    }
+  }
+
+  @Benchmark
+  public Object contextGet() throws Exception {
+    ScopeContext context = contexts[next];
+    next = next + 1 == contexts.length ? 0 : next + 1;
+    return context.call(fetchRequest);
+  }
+
+  public static class Engine {}
+
+  @Scope(Scope.CONTEXT)
+  public static class Trace {}
+
+  @Scope(Scope.CONTEXT)
+  public static class Request {
+
+    @Autowire public Engine engine;
+
+    @Autowire public Trace trace;
+  }
+
+  @Scope(Scope.THREAD)
+  public static class ThreadTrace {}
+
+  @Scope(Scope.THREAD)
+  public static class ThreadRequest {
+
+    @Autowire public Engine engine;
+
+    @Autowire public ThreadTrace trace;
+  }
+}
@@ -0,0 +1,125 @@
+package com.arjunsk.codekrypt.di.benchmarks;
+
+import com.arjunsk.codekrypt.di.core.CodekryptInjector;
+import com.arjunsk.codekrypt.di.core.Container;
+import com.arjunsk.codekrypt.di.core.InjectorConfig;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Startup of a chain of services, each behind its own interface, without the runtime compaction.
+ * After each startup, the heap retained by the container is measured before and after
+ * compacting it, and both are printed at the end of the trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FootprintBenchmark {
+
+  @Param({"10000"})
+  private int serviceCount;
+
+  private final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+
+  private Path codeBase;
+  private URLClassLoader classLoader;
+  private Class<?> mainClass;
+  private Container container;
+
+  private long heapBeforeRun;
+  private long retainedBeforeCompactTotal;
+  private long retainedAfterCompactTotal;
+  private int runCount;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    SyntheticComponents codeBase = new SyntheticComponents();
+    for (int i = 0; i < serviceCount; i++) {
+      String packageName = SyntheticComponents.packageOf(i);
+      String dependency =
+          i == 0
+              ? ""
+              : "@Autowire public "
+                  + SyntheticComponents.packageOf(i - 1)
+                  + ".Api"
+                  + (i - 1)
+                  + " previous;\n";
+      codeBase.add(packageName, "Api" + i, "public interface Api" + i + " {}");
+      codeBase.add(
+          packageName,
+          "Service" + i,
+          "import com.arjunsk.codekrypt.di.annotation.*;\n"
+              + "@Component\n"
+              + "public class Service"
+              + i
+              + " implements Api"
+              + i
+              + " {\n"
+              + dependency
+              + "}");
+    }
+    this.codeBase = codeBase.compile();
+  }
+
+  @Setup(Level.Invocation)
+  public void newClassLoader() throws Exception {
+    classLoader = SyntheticComponents.classLoader(codeBase);
+    mainClass = classLoader.loadClass(SyntheticComponents.MAIN_CLASS);
+    heapBeforeRun = usedHeap();
+  }
+
+  @Benchmark
+  public Container run() {
+    container = CodekryptInjector.run(mainClass, new InjectorConfig().withCompactRuntime(false));
+    return container;
+  }
+
+  @TearDown(Level.Invocation)
+  public void measureRetainedHeap() throws IOException {
+    retainedBeforeCompactTotal += usedHeap() - heapBeforeRun;
+    container.getBeanManager().compact(true);
+    retainedAfterCompactTotal += usedHeap() - heapBeforeRun;
+    runCount++;
+
+    container.close();
+    container = null;
+    classLoader.close();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    System.out.printf(
+        "%nRetained heap per startup of %d services: %d KB, %d KB once compacted%n",
+        serviceCount,
+        retainedBeforeCompactTotal / runCount / 1024,
+        retainedAfterCompactTotal / runCount / 1024);
+    SyntheticComponents.delete(codeBase);
+  }
+
+  private long usedHeap() {
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return memoryBean.getHeapMemoryUsage().getUsed();
+  }
+}
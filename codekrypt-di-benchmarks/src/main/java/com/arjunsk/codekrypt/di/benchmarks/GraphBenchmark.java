@@ -0,0 +1,98 @@
+package com.arjunsk.codekrypt.di.benchmarks;
+
+import com.arjunsk.codekrypt.di.core.BeanManager;
+import com.arjunsk.codekrypt.di.core.ComponentDiscovery;
+import com.arjunsk.codekrypt.di.core.DependencyGraph;
+import com.arjunsk.codekrypt.di.core.DependencyGraph.BeanNode;
+import com.arjunsk.codekrypt.di.utils.ClassObjectUtils;
+import java.io.IOException;
+import java.net.URLClassLoader;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Warm container of wide, deep and qualified graphs: lookups of a created bean, from 1 and from 4
+ * threads, and re-injection of all the @Autowire fields of Root.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphBenchmark {
+
+  @Param({SyntheticGraph.WIDE, SyntheticGraph.DEEP, SyntheticGraph.QUALIFIED})
+  private String shape;
+
+  @Param({"100", "1000"})
+  private int size;
+
+  private SyntheticGraph graph;
+  private URLClassLoader classLoader;
+  private BeanManager beanManager;
+  private Class<?> lookupType;
+  private String lookupQualifier;
+  private Class<?> rootClass;
+  private Object root;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    graph = SyntheticGraph.compile(shape, size);
+    classLoader = SyntheticComponents.classLoader(graph.getRoot());
+    Set<Class<?>> componentClasses =
+        ComponentDiscovery.findComponents(classLoader.loadClass(SyntheticComponents.MAIN_CLASS));
+
+    // Create every bean up front, dependencies first, so only the warm paths are measured.
+    beanManager = new BeanManager();
+    beanManager.registerComponents(componentClasses);
+    for (List<BeanNode> wave : DependencyGraph.build(componentClasses, beanManager).getWaves()) {
+      for (BeanNode node : wave) {
+        beanManager.getBeanInstance(node.getBeanClass(), node.getBeanClass().getName(), null);
+      }
+    }
+
+    lookupType = classLoader.loadClass(graph.getLookupType());
+    lookupQualifier = graph.getLookupQualifier();
+    rootClass = classLoader.loadClass(SyntheticGraph.ROOT_CLASS);
+    root = beanManager.getBeanInstance(rootClass, "root", null);
+  }
+
+  @Benchmark
+  public Object lookup() {
+    return beanManager.getBeanInstance(lookupType, "service", lookupQualifier);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public Object concurrentLookup() {
+    return beanManager.getBeanInstance(lookupType, "service", lookupQualifier);
+  }
+
+  @Benchmark
+  public Object injectRoot() {
+    ClassObjectUtils.invokeAutowire(beanManager, rootClass, root);
+    return root;
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    classLoader.close();
+    SyntheticComponents.delete(graph.getRoot());
+  }
+}
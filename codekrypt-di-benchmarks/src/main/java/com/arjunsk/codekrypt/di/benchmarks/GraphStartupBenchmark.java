@@ -0,0 +1,70 @@
+package com.arjunsk.codekrypt.di.benchmarks;
+
+import com.arjunsk.codekrypt.di.core.CodekryptInjector;
+import java.io.IOException;
+import java.net.URLClassLoader;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cold container startup of wide, deep and qualified graphs: discovery, resolution, ordering and
+ * creation of every bean.
+ *
+ * <p>Every invocation uses a fresh class loader, so the classes are loaded from disk each time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+public class GraphStartupBenchmark {
+
+  @Param({SyntheticGraph.WIDE, SyntheticGraph.DEEP, SyntheticGraph.QUALIFIED})
+  private String shape;
+
+  @Param({"100", "1000"})
+  private int size;
+
+  private SyntheticGraph graph;
+  private URLClassLoader classLoader;
+  private Class<?> mainClass;
+
+  @Setup(Level.Trial)
+  public void compile() throws IOException {
+    graph = SyntheticGraph.compile(shape, size);
+  }
+
+  @Setup(Level.Invocation)
+  public void newClassLoader() throws Exception {
+    classLoader = SyntheticComponents.classLoader(graph.getRoot());
+    mainClass = classLoader.loadClass(SyntheticComponents.MAIN_CLASS);
+  }
+
+  @Benchmark
+  public void run() {
+    CodekryptInjector.run(mainClass);
+  }
+
+  @TearDown(Level.Invocation)
+  public void closeClassLoader() throws IOException {
+    classLoader.close();
+  }
+
+  @TearDown(Level.Trial)
+  public void delete() throws IOException {
+    SyntheticComponents.delete(graph.getRoot());
+  }
+}
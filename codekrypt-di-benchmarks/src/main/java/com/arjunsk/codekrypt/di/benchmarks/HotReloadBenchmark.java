@@ -0,0 +1,112 @@
+package com.arjunsk.codekrypt.di.benchmarks;
+
+import com.arjunsk.codekrypt.di.core.CodekryptInjector;
+import com.arjunsk.codekrypt.di.core.Container;
+import com.arjunsk.codekrypt.di.core.InjectorConfig;
+import com.arjunsk.codekrypt.di.listener.ReloadReport;
+import java.io.IOException;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Hot reload of a few services in a chain of services, each behind its own interface, so that
+ * only the next service of each changed one is rewired. The latency follows the number of
+ * changed classes, not the number of services.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HotReloadBenchmark {
+
+  @Param({"100", "10000"})
+  private int serviceCount;
+
+  @Param({"1", "10"})
+  private int changedCount;
+
+  private Path codeBase;
+  private URLClassLoader classLoader;
+  private Container container;
+  private List<Path> changedFiles;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    SyntheticComponents codeBase = new SyntheticComponents();
+    for (int i = 0; i < serviceCount; i++) {
+      String packageName = SyntheticComponents.packageOf(i);
+      String dependency =
+          i == 0
+              ? ""
+              : "@Autowire public "
+                  + SyntheticComponents.packageOf(i - 1)
+                  + ".Api"
+                  + (i - 1)
+                  + " previous;\n";
+      codeBase.add(packageName, "Api" + i, "public interface Api" + i + " {}");
+      codeBase.add(
+          packageName,
+          "Service" + i,
+          "import com.arjunsk.codekrypt.di.annotation.*;\n"
+              + "@Component\n"
+              + "public class Service"
+              + i
+              + " implements Api"
+              + i
+              + " {\n"
+              + dependency
+              + "}");
+    }
+    this.codeBase = codeBase.compile();
+
+    // The changed services are spread over the chain.
+    Path classesDir = SyntheticComponents.classesDir(this.codeBase);
+    changedFiles = new ArrayList<>();
+    for (int c = 0; c < changedCount; c++) {
+      int i = c * (serviceCount / changedCount);
+      changedFiles.add(
+          classesDir.resolve(
+              SyntheticComponents.packageOf(i).replace('.', '/') + "/Service" + i + ".class"));
+    }
+
+    classLoader = SyntheticComponents.classLoader(this.codeBase);
+    container =
+        CodekryptInjector.run(
+            classLoader.loadClass(SyntheticComponents.MAIN_CLASS),
+            new InjectorConfig().withHotReload(true));
+  }
+
+  @Benchmark
+  public ReloadReport reload() {
+    ReloadReport report = container.getHotReloader().reload(changedFiles);
+    if (!report.isSuccess()) {
+      throw new IllegalStateException("Reload failed", report.getFailure());
+    }
+    return report;
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    container.close();
+    classLoader.close();
+    SyntheticComponents.delete(codeBase);
+  }
+}
@@ -0,0 +1,123 @@
+package com.arjunsk.codekrypt.di.benchmarks;
+
+import com.arjunsk.codekrypt.di.annotation.Autowire;
+import com.arjunsk.codekrypt.di.core.BeanManager;
+import com.arjunsk.codekrypt.di.injection.BeanFactory;
+import com.arjunsk.codekrypt.di.injection.FieldInjector;
+import com.arjunsk.codekrypt.di.injection.GeneratedInjectionStrategy;
+import com.arjunsk.codekrypt.di.injection.InjectionStrategy;
+import com.arjunsk.codekrypt.di.injection.ReflectiveInjectionStrategy;
+import com.arjunsk.codekrypt.di.utils.ClassObjectUtils;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Bean instantiation and field injection, through reflection or generated classes. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InjectionBenchmark {
+
+  @Param({"reflective", "generated"})
+  public String strategy;
+
+  private final Object[] noArgs = new Object[0];
+  private final Object[] constructorArgs = {new Engine(), new Wheel()};
+  private final Car car = new Car();
+  private final Engine engine = new Engine();
+  private final Garage garage = new Garage();
+
+  private BeanManager beanManager;
+  private BeanFactory noArgFactory;
+  private BeanFactory constructorFactory;
+  private FieldInjector publicFieldInjector;
+  private FieldInjector privateFieldInjector;
+
+  @Setup
+  public void setUp() throws Exception {
+    InjectionStrategy injectionStrategy =
+        "generated".equals(strategy)
+            ? new GeneratedInjectionStrategy()
+            : new ReflectiveInjectionStrategy();
+
+    beanManager = new BeanManager();
+    beanManager.registerComponents(Arrays.asList(Engine.class, Wheel.class, Garage.class));
+    beanManager.setInjectionStrategy(injectionStrategy);
+
+    // Create the singletons up front, so only the injection is measured.
+    autowireBean();
+
+    noArgFactory = injectionStrategy.getBeanFactory(Engine.class.getConstructor());
+    constructorFactory =
+        injectionStrategy.getBeanFactory(Car.class.getConstructor(Engine.class, Wheel.class));
+    publicFieldInjector = injectionStrategy.getFieldInjector(Car.class.getField("engine"));
+    privateFieldInjector =
+        injectionStrategy.getFieldInjector(Car.class.getDeclaredField("spareEngine"));
+  }
+
+  @Benchmark
+  public Object newInstanceNoArgs() {
+    return noArgFactory.newInstance(noArgs);
+  }
+
+  @Benchmark
+  public Object newInstanceConstructor() {
+    return constructorFactory.newInstance(constructorArgs);
+  }
+
+  @Benchmark
+  public Object injectPublicField() {
+    publicFieldInjector.inject(car, engine);
+    return car;
+  }
+
+  @Benchmark
+  public Object injectPrivateField() {
+    privateFieldInjector.inject(car, engine);
+    return car;
+  }
+
+  /** All the @Autowire fields of a bean, with their metadata and bean lookups. */
+  @Benchmark
+  public Object autowireBean() {
+    ClassObjectUtils.invokeAutowire(beanManager, Garage.class, garage);
+    return garage;
+  }
+
+  public static class Engine {}
+
+  public static class Wheel {}
+
+  public static class Car {
+
+    public Engine engine;
+
+    private Engine spareEngine;
+
+    public Car() {}
+
+    public Car(Engine engine, Wheel wheel) {
+      this.engine = engine;
+    }
+  }
+
+  public static class Garage {
+
+    @Autowire public Engine engine;
+
+    @Autowire private Wheel wheel;
+  }
+}
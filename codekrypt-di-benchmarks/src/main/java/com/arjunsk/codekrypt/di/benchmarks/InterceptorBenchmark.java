@@ -0,0 +1,99 @@
+package com.arjunsk.codekrypt.di.benchmarks;
+
+import com.arjunsk.codekrypt.di.annotation.Interceptor;
+import com.arjunsk.codekrypt.di.core.BeanManager;
+import com.arjunsk.codekrypt.di.intercept.Invocation;
+import com.arjunsk.codekrypt.di.intercept.MethodInterceptor;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of a call through zero, one and five pass-through interceptors. Run it with "-prof gc" to
+ * check that the intercepted calls do not allocate: the arguments stay in the reused invocation
+ * of the thread, and the small sums are boxed from the Integer cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InterceptorBenchmark {
+
+  private PlainCalculator plain;
+  private OneInterceptorCalculator oneInterceptor;
+  private FiveInterceptorsCalculator fiveInterceptors;
+
+  private int left = 1;
+  private int right = 2;
+
+  @Setup
+  public void setUp() {
+    BeanManager beanManager = new BeanManager();
+    beanManager.registerComponents(
+        Arrays.asList(
+            PassThrough.class,
+            PlainCalculator.class,
+            OneInterceptorCalculator.class,
+            FiveInterceptorsCalculator.class));
+    plain = (PlainCalculator) beanManager.getBeanInstance(PlainCalculator.class, null, null);
+    oneInterceptor =
+        (OneInterceptorCalculator)
+            beanManager.getBeanInstance(OneInterceptorCalculator.class, null, null);
+    fiveInterceptors =
+        (FiveInterceptorsCalculator)
+            beanManager.getBeanInstance(FiveInterceptorsCalculator.class, null, null);
+  }
+
+  @Benchmark
+  public int zeroInterceptors() {
+    return plain.add(left, right);
+  }
+
+  @Benchmark
+  public int oneInterceptor() {
+    return oneInterceptor.add(left, right);
+  }
+
+  @Benchmark
+  public int fiveInterceptors() {
+    return fiveInterceptors.add(left, right);
+  }
+
+  public static class PassThrough implements MethodInterceptor {
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      return invocation.proceed();
+    }
+  }
+
+  public static class PlainCalculator {
+
+    public int add(int a, int b) {
+      return a + b;
+    }
+  }
+
+  @Interceptor(PassThrough.class)
+  public static class OneInterceptorCalculator extends PlainCalculator {}
+
+  @Interceptor({
+    PassThrough.class,
+    PassThrough.class,
+    PassThrough.class,
+    PassThrough.class,
+    PassThrough.class
+  })
+  public static class FiveInterceptorsCalculator extends PlainCalculator {}
+}
@@ -0,0 +1,123 @@
+package com.arjunsk.codekrypt.di.benchmarks;
+
+import com.arjunsk.codekrypt.di.core.CodekryptInjector;
+import com.arjunsk.codekrypt.di.core.InjectorConfig;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Startup of a chain of services holding 16 KB each, with only the entry point used, eager vs
+ * with every bean lazy. The heap retained by each startup is printed at the end of the trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class LazyBenchmark {
+
+  private static final String ENTRY_CLASS = SyntheticComponents.BASE_PACKAGE + ".Entry";
+
+  @Param({"1000"})
+  private int serviceCount;
+
+  @Param({"false", "true"})
+  private boolean lazyInit;
+
+  private final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+
+  private Path codeBase;
+  private URLClassLoader classLoader;
+  private Class<?> mainClass;
+  private Class<?> entryClass;
+
+  private long heapBeforeRun;
+  private long retainedHeapTotal;
+  private int runCount;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    SyntheticComponents codeBase = new SyntheticComponents();
+    String packageName = SyntheticComponents.BASE_PACKAGE;
+    for (int i = 0; i < serviceCount; i++) {
+      String dependency = i == 0 ? "" : "@Autowire public Service" + (i - 1) + " previous;\n";
+      codeBase.add(
+          packageName,
+          "Service" + i,
+          "import com.arjunsk.codekrypt.di.annotation.*;\n"
+              + "@Component\n"
+              + "public class Service"
+              + i
+              + " {\n"
+              + dependency
+              + "private final byte[] cache = new byte[16 * 1024];\n"
+              + "public int size() { return cache.length; }\n"
+              + "}");
+    }
+    codeBase.add(
+        packageName,
+        "Entry",
+        "import com.arjunsk.codekrypt.di.annotation.*;\n"
+            + "@Component\n"
+            + "public class Entry {\n"
+            + "@Autowire public Service"
+            + (serviceCount - 1)
+            + " service;\n"
+            + "}");
+    this.codeBase = codeBase.compile();
+  }
+
+  @Setup(Level.Invocation)
+  public void newClassLoader() throws Exception {
+    classLoader = SyntheticComponents.classLoader(codeBase);
+    mainClass = classLoader.loadClass(SyntheticComponents.MAIN_CLASS);
+    entryClass = classLoader.loadClass(ENTRY_CLASS);
+    heapBeforeRun = usedHeap();
+  }
+
+  @Benchmark
+  public Object run() {
+    return CodekryptInjector.run(mainClass, new InjectorConfig().withLazyInit(lazyInit))
+        .getBean(entryClass);
+  }
+
+  @TearDown(Level.Invocation)
+  public void measureRetainedHeap() throws IOException {
+    retainedHeapTotal += usedHeap() - heapBeforeRun;
+    runCount++;
+    classLoader.close();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    System.out.printf(
+        "%nRetained heap per startup (lazyInit=%s): %d KB%n",
+        lazyInit, retainedHeapTotal / runCount / 1024);
+    SyntheticComponents.delete(codeBase);
+  }
+
+  private long usedHeap() {
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return memoryBean.getHeapMemoryUsage().getUsed();
+  }
+}
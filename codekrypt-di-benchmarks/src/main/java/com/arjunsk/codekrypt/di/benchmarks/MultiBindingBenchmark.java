@@ -0,0 +1,92 @@
+package com.arjunsk.codekrypt.di.benchmarks;
+
+import com.arjunsk.codekrypt.di.annotation.Autowire;
+import com.arjunsk.codekrypt.di.annotation.Order;
+import com.arjunsk.codekrypt.di.core.BeanManager;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A pipeline of handlers injected as a List: fetching all the implementations, and dispatching
+ * through the injected List. Run with -prof gc to check neither allocates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MultiBindingBenchmark {
+
+  private BeanManager beanManager;
+  private Pipeline pipeline;
+
+  @Setup
+  public void setUp() {
+    beanManager = new BeanManager();
+    beanManager.registerComponents(
+        Arrays.asList(
+            FirstHandler.class, SecondHandler.class, ThirdHandler.class, Pipeline.class));
+    pipeline = (Pipeline) beanManager.getBeanInstance(Pipeline.class, "pipeline", null);
+  }
+
+  @Benchmark
+  public Object getBeanInstances() {
+    return beanManager.getBeanInstances(Handler.class);
+  }
+
+  @Benchmark
+  public int dispatch() {
+    return pipeline.handle(1);
+  }
+
+  public interface Handler {
+    int handle(int value);
+  }
+
+  @Order(1)
+  public static class FirstHandler implements Handler {
+    @Override
+    public int handle(int value) {
+      return value + 1;
+    }
+  }
+
+  @Order(2)
+  public static class SecondHandler implements Handler {
+    @Override
+    public int handle(int value) {
+      return value * 2;
+    }
+  }
+
+  public static class ThirdHandler implements Handler {
+    @Override
+    public int handle(int value) {
+      return value - 3;
+    }
+  }
+
+  public static class Pipeline {
+
+    @Autowire private List<Handler> handlers;
+
+    public int handle(int value) {
+      for (int i = 0; i < handlers.size(); i++) {
+        value = handlers.get(i).handle(value);
+      }
+      return value;
+    }
+  }
+}
@@ -0,0 +1,73 @@
+package com.arjunsk.codekrypt.di.benchmarks;
+
+import com.arjunsk.codekrypt.di.annotation.Autowire;
+import com.arjunsk.codekrypt.di.annotation.Scope;
+import com.arjunsk.codekrypt.di.core.BeanManager;
+import com.arjunsk.codekrypt.di.core.Provider;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * An injected Provider, bound once to its bean, compared with looking the bean up through the
+ * BeanManager on every call.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProviderBenchmark {
+
+  private BeanManager beanManager;
+  private Client client;
+
+  @Setup
+  public void setUp() {
+    beanManager = new BeanManager();
+    beanManager.registerComponents(
+        Arrays.asList(SingletonBean.class, PrototypeBean.class, Client.class));
+    client = (Client) beanManager.getBeanInstance(Client.class, "client", null);
+  }
+
+  @Benchmark
+  public Object singletonProvider() {
+    return client.singletonProvider.get();
+  }
+
+  @Benchmark
+  public Object singletonLookup() {
+    return beanManager.getBeanInstance(SingletonBean.class, "singletonBean", null);
+  }
+
+  @Benchmark
+  public Object prototypeProvider() {
+    return client.prototypeProvider.get();
+  }
+
+  @Benchmark
+  public Object prototypeLookup() {
+    return beanManager.getBeanInstance(PrototypeBean.class, "prototypeBean", null);
+  }
+
+  public static class SingletonBean {}
+
+  @Scope(Scope.PROTOTYPE)
+  public static class PrototypeBean {}
+
+  public static class Client {
+
+    @Autowire private Provider<SingletonBean> singletonProvider;
+
+    @Autowire private Provider<PrototypeBean> prototypeProvider;
+  }
+}
@@ -0,0 +1,106 @@
+package com.arjunsk.codekrypt.di.benchmarks;
+
+import com.arjunsk.codekrypt.di.core.BeanManager;
+import com.arjunsk.codekrypt.di.core.ComponentDiscovery;
+import java.io.IOException;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Warm interface-to-implementation resolution through BeanManager, as the component count grows.
+ *
+ * <p>Every component implements its own interface, and {@value #QUALIFIED_IMPLS} more components
+ * implement a shared interface, which needs a qualifier to resolve.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResolutionBenchmark {
+
+  private static final int QUALIFIED_IMPLS = 5;
+
+  @Param({"100", "1000", "10000"})
+  private int componentCount;
+
+  private Path codeBase;
+  private URLClassLoader classLoader;
+  private BeanManager beanManager;
+  private Class<?> uniqueInterface;
+  private Class<?> sharedInterface;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    SyntheticComponents codeBase = new SyntheticComponents();
+    String basePackage = SyntheticComponents.BASE_PACKAGE;
+    for (int i = 0; i < componentCount; i++) {
+      String packageName = SyntheticComponents.packageOf(i);
+      codeBase.add(packageName, "Service" + i, "public interface Service" + i + " {}");
+      codeBase.add(
+          packageName,
+          "Component" + i,
+          "@com.arjunsk.codekrypt.di.annotation.Component\n"
+              + "public class Component"
+              + i
+              + " implements Service"
+              + i
+              + " {}");
+    }
+    codeBase.add(basePackage, "Shared", "public interface Shared {}");
+    for (int i = 0; i < QUALIFIED_IMPLS; i++) {
+      codeBase.add(
+          basePackage,
+          "SharedImpl" + i,
+          "@com.arjunsk.codekrypt.di.annotation.Component\n"
+              + "public class SharedImpl"
+              + i
+              + " implements Shared {}");
+    }
+    this.codeBase = codeBase.compile();
+
+    classLoader = SyntheticComponents.classLoader(this.codeBase);
+    Set<Class<?>> componentClasses =
+        ComponentDiscovery.findComponents(classLoader.loadClass(SyntheticComponents.MAIN_CLASS));
+
+    beanManager = new BeanManager();
+    beanManager.registerComponents(componentClasses);
+
+    int target = componentCount / 2;
+    uniqueInterface =
+        classLoader.loadClass(SyntheticComponents.packageOf(target) + ".Service" + target);
+    sharedInterface = classLoader.loadClass(basePackage + ".Shared");
+  }
+
+  @Benchmark
+  public Object resolveUnique() {
+    return beanManager.getBeanInstance(uniqueInterface, "service", null);
+  }
+
+  @Benchmark
+  public Object resolveQualified() {
+    return beanManager.getBeanInstance(sharedInterface, "shared", "SharedImpl3");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    classLoader.close();
+    SyntheticComponents.delete(codeBase);
+  }
+}
@@ -0,0 +1,85 @@
+package com.arjunsk.codekrypt.di.benchmarks;
+
+import com.arjunsk.codekrypt.di.core.ClassScanner;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cold ClassScanner run over a large class path, laid out as a class directory or as a jar.
+ *
+ * <p>Every invocation uses a fresh class loader. Divide classCount by the score for classes/ms.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ScannerBenchmark {
+
+  @Param({"50000"})
+  private int classCount;
+
+  // One in componentEvery classes is a @Component.
+  @Param({"10"})
+  private int componentEvery;
+
+  @Param({"directory", "jar"})
+  private String layout;
+
+  private Path root;
+  private URL classPath;
+  private URLClassLoader classLoader;
+
+  @Setup(Level.Trial)
+  public void writeClasses() throws IOException {
+    root = Files.createTempDirectory("codekrypt-scanner");
+    if ("jar".equals(layout)) {
+      Path jarFile = root.resolve("classes.jar");
+      SyntheticClassFiles.writeJar(jarFile, classCount, componentEvery);
+      classPath = jarFile.toUri().toURL();
+    } else {
+      Path classesDir = Files.createDirectories(root.resolve("classes"));
+      SyntheticClassFiles.writeDirectory(classesDir, classCount, componentEvery);
+      classPath = classesDir.toUri().toURL();
+    }
+  }
+
+  @Setup(Level.Invocation)
+  public void newClassLoader() {
+    classLoader = new URLClassLoader(new URL[] {classPath}, getClass().getClassLoader());
+  }
+
+  @Benchmark
+  public Set<Class<?>> scan() {
+    return new ClassScanner(SyntheticClassFiles.BASE_PACKAGE, classLoader).getLocatedClasses();
+  }
+
+  @TearDown(Level.Invocation)
+  public void closeClassLoader() throws IOException {
+    classLoader.close();
+  }
+
+  @TearDown(Level.Trial)
+  public void delete() throws IOException {
+    SyntheticComponents.delete(root);
+  }
+}
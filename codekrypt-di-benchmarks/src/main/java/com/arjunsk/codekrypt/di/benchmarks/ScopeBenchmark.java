@@ -0,0 +1,87 @@
+package com.arjunsk.codekrypt.di.benchmarks;
+
+import com.arjunsk.codekrypt.di.annotation.Autowire;
+import com.arjunsk.codekrypt.di.annotation.Pooled;
+import com.arjunsk.codekrypt.di.annotation.Reset;
+import com.arjunsk.codekrypt.di.annotation.Scope;
+import com.arjunsk.codekrypt.di.core.BeanManager;
+import com.arjunsk.codekrypt.di.scope.BeanPool;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Fetch of a request bean with a 4 KB buffer and 2 dependencies, fresh or pooled. */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScopeBenchmark {
+
+  private BeanManager beanManager;
+
+  @Setup
+  public void setUp() {
+    beanManager = new BeanManager();
+    beanManager.registerComponents(
+        Arrays.asList(Engine.class, Wheel.class, Request.class, PooledRequest.class));
+  }
+
+  @TearDown
+  public void tearDown() {
+    BeanPool beanPool = beanManager.getBeanPool(PooledRequest.class);
+    System.out.printf(
+        "%nPool hits: %d, misses: %d%n", beanPool.getHits(), beanPool.getMisses());
+  }
+
+  @Benchmark
+  public Object singleton() {
+    return beanManager.getBeanInstance(Engine.class, "engine", null);
+  }
+
+  @Benchmark
+  public Object prototype() {
+    return beanManager.getBeanInstance(Request.class, "request", null);
+  }
+
+  @Benchmark
+  public Object pooledPrototype() {
+    Object request = beanManager.getBeanInstance(PooledRequest.class, "request", null);
+    beanManager.releaseBeanInstance(request);
+    return request;
+  }
+
+  public static class Engine {}
+
+  public static class Wheel {}
+
+  @Scope(Scope.PROTOTYPE)
+  public static class Request {
+
+    @Autowire public Engine engine;
+
+    @Autowire public Wheel wheel;
+
+    public final byte[] buffer = new byte[4096];
+  }
+
+  @Scope(Scope.PROTOTYPE)
+  @Pooled(maxSize = 4)
+  public static class PooledRequest extends Request {
+
+    @Reset
+    public void reset() {
+      Arrays.fill(buffer, (byte) 0);
+    }
+  }
+}
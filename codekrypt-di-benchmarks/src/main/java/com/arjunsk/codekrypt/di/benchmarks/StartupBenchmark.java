@@ -0,0 +1,75 @@
+package com.arjunsk.codekrypt.di.benchmarks;
+
+import com.arjunsk.codekrypt.di.core.ComponentDiscovery;
+import com.arjunsk.codekrypt.di.core.ComponentIndex;
+import java.io.IOException;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cold component discovery, by scanning the class directory vs reading the build-time index.
+ *
+ * <p>Every invocation uses a fresh class loader, so the classes are loaded from disk each time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+public class StartupBenchmark {
+
+  @Param({"1000", "10000"})
+  private int componentCount;
+
+  @Param({"scan", "index"})
+  private String discovery;
+
+  private Path codeBase;
+  private URLClassLoader classLoader;
+  private Class<?> mainClass;
+
+  @Setup(Level.Trial)
+  public void compile() throws IOException {
+    codeBase = SyntheticComponents.compile(componentCount);
+    System.setProperty(
+        ComponentIndex.IGNORE_INDEX_PROPERTY, String.valueOf("scan".equals(discovery)));
+  }
+
+  @Setup(Level.Invocation)
+  public void newClassLoader() throws Exception {
+    classLoader = SyntheticComponents.classLoader(codeBase);
+    mainClass = classLoader.loadClass(SyntheticComponents.MAIN_CLASS);
+  }
+
+  @Benchmark
+  public Set<Class<?>> findComponents() {
+    return ComponentDiscovery.findComponents(mainClass);
+  }
+
+  @TearDown(Level.Invocation)
+  public void closeClassLoader() throws IOException {
+    classLoader.close();
+  }
+
+  @TearDown(Level.Trial)
+  public void delete() throws IOException {
+    System.clearProperty(ComponentIndex.IGNORE_INDEX_PROPERTY);
+    SyntheticComponents.delete(codeBase);
+  }
+}
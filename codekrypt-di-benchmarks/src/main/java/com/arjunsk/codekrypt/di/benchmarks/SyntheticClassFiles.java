@@ -0,0 +1,107 @@
+package com.arjunsk.codekrypt.di.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Writes minimal class files directly, for class paths too large to generate through javac.
+ *
+ * <p>Every {@code componentEvery}-th class is annotated with @Component, the others are plain.
+ */
+public final class SyntheticClassFiles {
+
+  public static final String BASE_PACKAGE = "bench.scanned";
+
+  private static final int CLASSES_PER_PACKAGE = 500;
+  private static final String COMPONENT_DESCRIPTOR =
+      "Lcom/arjunsk/codekrypt/di/annotation/Component;";
+
+  private SyntheticClassFiles() {}
+
+  /** Writes the classes into a class directory. */
+  public static void writeDirectory(Path classesDir, int classCount, int componentEvery)
+      throws IOException {
+    for (int i = 0; i < classCount; i++) {
+      Path classFile = classesDir.resolve(internalName(i) + ".class");
+      Files.createDirectories(classFile.getParent());
+      Files.write(classFile, classFile(internalName(i), i % componentEvery == 0));
+    }
+  }
+
+  /** Writes the classes into a jar. */
+  public static void writeJar(Path jarFile, int classCount, int componentEvery)
+      throws IOException {
+    try (OutputStream out = Files.newOutputStream(jarFile);
+        JarOutputStream jar = new JarOutputStream(out)) {
+      String currentDir = null;
+      for (int i = 0; i < classCount; i++) {
+        String name = internalName(i);
+        String dir = name.substring(0, name.lastIndexOf('/') + 1);
+        if (!dir.equals(currentDir)) {
+          jar.putNextEntry(new JarEntry(dir));
+          jar.closeEntry();
+          currentDir = dir;
+        }
+        jar.putNextEntry(new JarEntry(name + ".class"));
+        jar.write(classFile(name, i % componentEvery == 0));
+        jar.closeEntry();
+      }
+    }
+  }
+
+  private static String internalName(int index) {
+    return BASE_PACKAGE.replace('.', '/') + "/p" + (index / CLASSES_PER_PACKAGE) + "/C" + index;
+  }
+
+  private static byte[] classFile(String internalName, boolean component) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(0xCAFEBABE);
+    out.writeShort(0); // minor
+    out.writeShort(52); // major, Java 8
+
+    // Constant pool.
+    out.writeShort(7);
+    utf8(out, internalName); // #1
+    out.writeByte(7); // #2 Class #1
+    out.writeShort(1);
+    utf8(out, "java/lang/Object"); // #3
+    out.writeByte(7); // #4 Class #3
+    out.writeShort(3);
+    utf8(out, "RuntimeVisibleAnnotations"); // #5
+    utf8(out, COMPONENT_DESCRIPTOR); // #6
+
+    out.writeShort(0x0021); // public super
+    out.writeShort(2); // this
+    out.writeShort(4); // super
+    out.writeShort(0); // interfaces
+    out.writeShort(0); // fields
+    out.writeShort(0); // methods
+
+    if (component) {
+      out.writeShort(1);
+      out.writeShort(5);
+      out.writeInt(6);
+      out.writeShort(1); // num_annotations
+      out.writeShort(6); // type_index
+      out.writeShort(0); // num_element_value_pairs
+    } else {
+      out.writeShort(0);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static void utf8(DataOutputStream out, String value) throws IOException {
+    byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+    out.writeByte(1);
+    out.writeShort(utf8.length);
+    out.write(utf8);
+  }
+}
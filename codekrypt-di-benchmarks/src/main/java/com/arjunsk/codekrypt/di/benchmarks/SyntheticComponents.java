@@ -0,0 +1,135 @@
+package com.arjunsk.codekrypt.di.benchmarks;
+
+import com.arjunsk.codekrypt.di.processor.ComponentIndexProcessor;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaCompiler.CompilationTask;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/** Writes and compiles a synthetic code base of @Component classes for the benchmarks. */
+public final class SyntheticComponents {
+
+  public static final String BASE_PACKAGE = "bench.synthetic";
+  public static final String MAIN_CLASS = BASE_PACKAGE + ".BenchMain";
+
+  private static final int CLASSES_PER_PACKAGE = 100;
+
+  private final Path root;
+  private final Path sourceDir;
+  private final List<Path> sources = new ArrayList<>();
+
+  public SyntheticComponents() throws IOException {
+    this.root = Files.createTempDirectory("codekrypt-benchmarks");
+    this.sourceDir = Files.createDirectories(root.resolve("src"));
+    add(BASE_PACKAGE, "BenchMain", "public class BenchMain {}");
+  }
+
+  /**
+   * Generates the components, and a plain class next to each of them, and compiles them.
+   *
+   * @param componentCount number of @Component classes.
+   * @return root directory of the code base.
+   */
+  public static Path compile(int componentCount) throws IOException {
+    SyntheticComponents codeBase = new SyntheticComponents();
+    for (int i = 0; i < componentCount; i++) {
+      codeBase.add(
+          packageOf(i),
+          "Component" + i,
+          "@com.arjunsk.codekrypt.di.annotation.Component\n"
+              + "public class Component"
+              + i
+              + " {}");
+      codeBase.add(packageOf(i), "Model" + i, "public class Model" + i + " {}");
+    }
+    return codeBase.compile();
+  }
+
+  /** Package of the i-th generated class, so that packages stay reasonably small. */
+  public static String packageOf(int index) {
+    return BASE_PACKAGE + ".p" + (index / CLASSES_PER_PACKAGE);
+  }
+
+  /**
+   * Adds a source file to the code base.
+   *
+   * @param packageName package of the class.
+   * @param className simple name of the class.
+   * @param body source, without the package declaration.
+   */
+  public SyntheticComponents add(String packageName, String className, String body)
+      throws IOException {
+    Path packageDir = Files.createDirectories(sourceDir.resolve(packageName.replace('.', '/')));
+    Path source = packageDir.resolve(className + ".java");
+    String content = "package " + packageName + ";\n\n" + body + "\n";
+    Files.write(source, content.getBytes(StandardCharsets.UTF_8));
+    sources.add(source);
+    return this;
+  }
+
+  /**
+   * Compiles the code base with the {@link ComponentIndexProcessor}.
+   *
+   * @param options extra compiler options, eg processor options.
+   * @return root directory of the code base.
+   */
+  public Path compile(String... options) throws IOException {
+    Path classesDir = Files.createDirectories(classesDir(root));
+
+    List<String> compilerOptions =
+        new ArrayList<>(
+            Arrays.asList(
+                "-d", classesDir.toString(), "-classpath", System.getProperty("java.class.path")));
+    compilerOptions.addAll(Arrays.asList(options));
+
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    try (StandardJavaFileManager fileManager =
+        compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+      CompilationTask task =
+          compiler.getTask(
+              null,
+              fileManager,
+              null,
+              compilerOptions,
+              null,
+              fileManager.getJavaFileObjectsFromPaths(sources));
+      task.setProcessors(Collections.singletonList(new ComponentIndexProcessor()));
+      if (!task.call()) {
+        throw new IllegalStateException("Unable to compile synthetic components");
+      }
+    }
+    return root;
+  }
+
+  /** Classes directory of a compiled code base. */
+  public static Path classesDir(Path root) {
+    return root.resolve("classes");
+  }
+
+  /** Class loader over a compiled code base, delegating to the benchmark class loader. */
+  public static URLClassLoader classLoader(Path root) throws IOException {
+    URL classes = classesDir(root).toUri().toURL();
+    return new URLClassLoader(new URL[] {classes}, SyntheticComponents.class.getClassLoader());
+  }
+
+  /** Deletes a code base. */
+  public static void delete(Path root) throws IOException {
+    try (Stream<Path> paths = Files.walk(root)) {
+      for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+        Files.delete(path);
+      }
+    }
+  }
+}
@@ -0,0 +1,149 @@
+package com.arjunsk.codekrypt.di.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * A compiled synthetic component graph of a given shape, with a {@code Root} component on top.
+ *
+ * <ul>
+ *   <li>{@code wide}: Root @Autowire-s size independent services.
+ *   <li>{@code deep}: a chain of size services, each one @Autowire-s the previous one, and Root
+ *       the last one.
+ *   <li>{@code qualified}: size / {@value #IMPLS_PER_INTERFACE} interfaces with {@value
+ *       #IMPLS_PER_INTERFACE} implementations each, and Root @Autowire-s one of each with a
+ *       @Qualifier.
+ * </ul>
+ */
+public final class SyntheticGraph {
+
+  public static final String WIDE = "wide";
+  public static final String DEEP = "deep";
+  public static final String QUALIFIED = "qualified";
+
+  public static final String ROOT_CLASS = SyntheticComponents.BASE_PACKAGE + ".Root";
+
+  private static final int IMPLS_PER_INTERFACE = 10;
+
+  private final Path root;
+  private final String lookupType;
+  private final String lookupQualifier;
+
+  private SyntheticGraph(Path root, String lookupType, String lookupQualifier) {
+    this.root = root;
+    this.lookupType = lookupType;
+    this.lookupQualifier = lookupQualifier;
+  }
+
+  /**
+   * Generates and compiles a graph.
+   *
+   * @param shape wide, deep or qualified.
+   * @param size number of services, not counting Root.
+   */
+  public static SyntheticGraph compile(String shape, int size) throws IOException {
+    SyntheticComponents codeBase = new SyntheticComponents();
+    StringBuilder rootFields = new StringBuilder();
+    int target = size / 2;
+    String lookupType = serviceName(target);
+    String lookupQualifier = null;
+
+    switch (shape) {
+      case WIDE:
+        for (int i = 0; i < size; i++) {
+          addService(codeBase, i, "");
+          rootFields.append(autowire(i, null));
+        }
+        break;
+
+      case DEEP:
+        for (int i = 0; i < size; i++) {
+          addService(codeBase, i, i == 0 ? "" : autowire(i - 1, null));
+        }
+        rootFields.append(autowire(size - 1, null));
+        break;
+
+      case QUALIFIED:
+        for (int i = 0; i < size / IMPLS_PER_INTERFACE; i++) {
+          String packageName = SyntheticComponents.packageOf(i);
+          codeBase.add(packageName, "Service" + i, "public interface Service" + i + " {}");
+          for (int k = 0; k < IMPLS_PER_INTERFACE; k++) {
+            codeBase.add(
+                packageName,
+                "Service" + i + "Impl" + k,
+                "@com.arjunsk.codekrypt.di.annotation.Component\n"
+                    + "public class Service"
+                    + i
+                    + "Impl"
+                    + k
+                    + " implements Service"
+                    + i
+                    + " {}");
+          }
+          rootFields.append(autowire(i, "Service" + i + "Impl" + (i % IMPLS_PER_INTERFACE)));
+        }
+        int group = target / IMPLS_PER_INTERFACE;
+        lookupType = serviceName(group);
+        lookupQualifier = "Service" + group + "Impl" + (IMPLS_PER_INTERFACE - 1);
+        break;
+
+      default:
+        throw new IllegalArgumentException("Unknown graph shape: " + shape);
+    }
+
+    codeBase.add(
+        SyntheticComponents.BASE_PACKAGE,
+        "Root",
+        "@com.arjunsk.codekrypt.di.annotation.Component\npublic class Root {\n" + rootFields + "}");
+    return new SyntheticGraph(codeBase.compile(), lookupType, lookupQualifier);
+  }
+
+  /** Service{i} interface, and its single Service{i}Impl component. */
+  private static void addService(SyntheticComponents codeBase, int index, String fields)
+      throws IOException {
+    String packageName = SyntheticComponents.packageOf(index);
+    codeBase.add(packageName, "Service" + index, "public interface Service" + index + " {}");
+    codeBase.add(
+        packageName,
+        "Service" + index + "Impl",
+        "@com.arjunsk.codekrypt.di.annotation.Component\n"
+            + "public class Service"
+            + index
+            + "Impl implements Service"
+            + index
+            + " {\n"
+            + fields
+            + "}");
+  }
+
+  private static String autowire(int index, String qualifier) {
+    return "@com.arjunsk.codekrypt.di.annotation.Autowire "
+        + (qualifier == null
+            ? ""
+            : "@com.arjunsk.codekrypt.di.annotation.Qualifier(\"" + qualifier + "\") ")
+        + "private "
+        + serviceName(index)
+        + " service"
+        + index
+        + ";\n";
+  }
+
+  private static String serviceName(int index) {
+    return SyntheticComponents.packageOf(index) + ".Service" + index;
+  }
+
+  /** Root directory of the compiled code base. */
+  public Path getRoot() {
+    return root;
+  }
+
+  /** Interface looked up by the benchmarks, in the middle of the graph. */
+  public String getLookupType() {
+    return lookupType;
+  }
+
+  /** Qualifier of the looked up interface, null if it has a single implementation. */
+  public String getLookupQualifier() {
+    return lookupQualifier;
+  }
+}
@@ -0,0 +1,114 @@
+package com.arjunsk.codekrypt.di.benchmarks;
+
+import com.arjunsk.codekrypt.di.core.CodekryptInjector;
+import com.arjunsk.codekrypt.di.core.InjectorConfig;
+import com.arjunsk.codekrypt.di.core.WiringPlan;
+import com.arjunsk.codekrypt.di.core.WiringPlanGenerator;
+import com.arjunsk.codekrypt.di.injection.GeneratedInjectionStrategy;
+import com.arjunsk.codekrypt.di.injection.ReflectiveInjectionStrategy;
+import com.arjunsk.codekrypt.di.processor.ComponentIndexProcessor;
+import java.io.IOException;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cold container startup of chained beans: discovery through the component index, resolution and
+ * ordering at startup (validating the graph, or trusting the compile-time validation), vs
+ * executing the ahead-of-time wiring plan.
+ *
+ * <p>Every invocation uses a fresh class loader, so the classes are loaded from disk each time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+public class WiringPlanBenchmark {
+
+  @Param({"100", "1000"})
+  private int beanCount;
+
+  @Param({"index", "validated", "plan"})
+  private String wiring;
+
+  @Param({"generated", "reflective"})
+  private String strategy;
+
+  private Path codeBase;
+  private URLClassLoader classLoader;
+  private Class<?> mainClass;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    SyntheticComponents codeBase = new SyntheticComponents();
+    String packageName = SyntheticComponents.BASE_PACKAGE;
+    for (int i = 0; i < beanCount; i++) {
+      String dependency = i == 0 ? "" : "@Autowire private Bean" + (i - 1) + " previous;\n";
+      codeBase.add(
+          packageName,
+          "Bean" + i,
+          "import com.arjunsk.codekrypt.di.annotation.*;\n"
+              + "@Component\n"
+              + "public class Bean"
+              + i
+              + " {\n"
+              + dependency
+              + "@PostConstruct public void init() {}\n"
+              + "}");
+    }
+    this.codeBase =
+        "index".equals(wiring)
+            ? codeBase.compile("-A" + ComponentIndexProcessor.VALIDATE_OPTION + "=false")
+            : codeBase.compile();
+
+    try (URLClassLoader generatorLoader = SyntheticComponents.classLoader(this.codeBase)) {
+      WiringPlanGenerator.generate(
+          generatorLoader.loadClass(SyntheticComponents.MAIN_CLASS),
+          SyntheticComponents.classesDir(this.codeBase));
+    }
+    System.setProperty(WiringPlan.IGNORE_PLAN_PROPERTY, String.valueOf(!"plan".equals(wiring)));
+  }
+
+  @Setup(Level.Invocation)
+  public void newClassLoader() throws Exception {
+    classLoader = SyntheticComponents.classLoader(codeBase);
+    mainClass = classLoader.loadClass(SyntheticComponents.MAIN_CLASS);
+  }
+
+  @Benchmark
+  public void run() {
+    CodekryptInjector.run(
+        mainClass,
+        new InjectorConfig()
+            .withInjectionStrategy(
+                "generated".equals(strategy)
+                    ? new GeneratedInjectionStrategy()
+                    : new ReflectiveInjectionStrategy()));
+  }
+
+  @TearDown(Level.Invocation)
+  public void closeClassLoader() throws IOException {
+    classLoader.close();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    System.clearProperty(WiringPlan.IGNORE_PLAN_PROPERTY);
+    SyntheticComponents.delete(codeBase);
+  }
+}
@@ -0,0 +1,18 @@
+package com.arjunsk.codekrypt.di.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Registers the @Component only when all the classes are on the class path. They are given by
+ * name, and looked up as class files, so neither they nor an excluded component are loaded.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ConditionalOnClass {
+
+  /** Binary names of the classes, eg "com.example.Client$Builder". */
+  String[] value();
+}
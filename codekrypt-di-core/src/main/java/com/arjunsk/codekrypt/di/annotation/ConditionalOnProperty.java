@@ -0,0 +1,24 @@
+package com.arjunsk.codekrypt.di.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Registers the @Component only when a property has a value. Properties come from
+ * InjectorConfig.withProperty, else from the System Properties.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ConditionalOnProperty {
+
+  /** Property name. */
+  String name();
+
+  /** Expected value. If empty, any value but "false" matches. */
+  String havingValue() default "";
+
+  /** Whether the component is registered when the property is not set. */
+  boolean matchIfMissing() default false;
+}
@@ -0,0 +1,22 @@
+package com.arjunsk.codekrypt.di.annotation;
+
+import com.arjunsk.codekrypt.di.intercept.MethodInterceptor;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Wraps the public methods of a @Component (or one public method) in a chain of interceptors,
+ * eg for timing, retry or caching. The interceptors are beans, called in the declared order, the
+ * ones of the class before the ones of the method.
+ *
+ * <p>The bean is injected as a generated subclass delegating to it, so it must be public, not
+ * final, and have no public final methods. Calls from the bean to itself are not intercepted.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Interceptor {
+
+  Class<? extends MethodInterceptor>[] value();
+}
@@ -0,0 +1,17 @@
+package com.arjunsk.codekrypt.di.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Delays the creation of a bean until it is first used.
+ *
+ * <p>On a @Component, the bean is not created at startup. On an @Autowire field or constructor
+ * parameter, the bean injected there is not created before its first use. Either way, the
+ * injection point receives a proxy, which creates the real bean on its first method call.
+ */
+@Target({ElementType.TYPE, ElementType.FIELD, ElementType.PARAMETER})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Lazy {}
@@ -0,0 +1,17 @@
+package com.arjunsk.codekrypt.di.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Position of a @Component in the List, Set and Map injected with all the implementations of an
+ * interface. Lower values come first. Components without @Order come last, and ties are ordered by
+ * class name.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Order {
+  int value();
+}
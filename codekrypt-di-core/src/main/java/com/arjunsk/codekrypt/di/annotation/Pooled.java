@@ -0,0 +1,21 @@
+package com.arjunsk.codekrypt.di.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Added to prototype @Component which are expensive to create. Released instances are kept in a
+ * bounded pool and handed out again, instead of creating and wiring a new one.
+ *
+ * <p>Instances are returned to the pool with BeanManager.releaseBeanInstance, after their @Reset
+ * functions are called.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Pooled {
+
+  /** Maximum number of idle instances kept. Extra released instances are dropped. */
+  int maxSize() default 16;
+}
@@ -12,4 +12,12 @@ import java.lang.annotation.Target;
  */
 @Target(ElementType.METHOD)
 @Retention(RetentionPolicy.RUNTIME)
-public @interface PostConstruct {}
+public @interface PostConstruct {
+
+  /**
+   * Runs the @PostConstruct methods of the bean on the init executor instead of holding the
+   * startup, eg for an I/O bound warmup. Its dependents still wait for it, and
+   * Container.getReadiness() completes once it is done.
+   */
+  boolean async() default false;
+}
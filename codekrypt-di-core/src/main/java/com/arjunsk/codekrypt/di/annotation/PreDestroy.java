@@ -0,0 +1,16 @@
+package com.arjunsk.codekrypt.di.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Function calls which will be called when the Container is closed, before the ones of the
+ * bean's dependencies. Only singletons are destroyed.
+ *
+ * <p>The function will be public void.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface PreDestroy {}
@@ -0,0 +1,21 @@
+package com.arjunsk.codekrypt.di.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Registers the @Component only when one of the profiles is active. A profile starting with "!"
+ * matches when that profile is not active.
+ *
+ * <p>Active profiles come from InjectorConfig.withProfiles, else from the
+ * "codekrypt.profiles.active" System Property (comma separated), else "default". Excluded
+ * components are never loaded.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Profile {
+
+  String[] value();
+}
@@ -0,0 +1,31 @@
+package com.arjunsk.codekrypt.di.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Lifetime of the instances of a @Component. Without it, the component is a singleton.
+ *
+ * <p>The value is one of the built-in scopes below, or the name of a custom scope registered on
+ * the InjectorConfig.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Scope {
+
+  /** One instance, shared by every injection point. */
+  String SINGLETON = "singleton";
+
+  /** A new instance for every injection point and every lookup. */
+  String PROTOTYPE = "prototype";
+
+  /** One instance per thread. */
+  String THREAD = "thread";
+
+  /** One instance per context, eg per request, whatever the threads serving it. */
+  String CONTEXT = "context";
+
+  String value();
+}
@@ -0,0 +1,341 @@
+package com.arjunsk.codekrypt.di.core;
+
+import com.arjunsk.codekrypt.di.annotation.Interceptor;
+import com.arjunsk.codekrypt.di.annotation.Lazy;
+import com.arjunsk.codekrypt.di.annotation.Pooled;
+import com.arjunsk.codekrypt.di.annotation.PostConstruct;
+import com.arjunsk.codekrypt.di.annotation.PreDestroy;
+import com.arjunsk.codekrypt.di.annotation.Reset;
+import com.arjunsk.codekrypt.di.annotation.Scope;
+import com.arjunsk.codekrypt.di.intercept.MethodInterceptor;
+import com.arjunsk.codekrypt.di.utils.ClassObjectUtils;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Injection metadata of a bean class: its constructor, @Autowire points, lifecycle methods,
+ * interceptors and scope.
+ *
+ * <p>It is computed once per class, with reflection, and cached against the class itself, so
+ * classes of different class loaders never share (or leak) a definition.
+ */
+public final class BeanDefinition {
+
+  private static final ClassValue<BeanDefinition> beanDefinitions =
+      new ClassValue<BeanDefinition>() {
+        @Override
+        protected BeanDefinition computeValue(Class<?> type) {
+          return new BeanDefinition(type);
+        }
+      };
+
+  private final Class<?> beanClass;
+
+  // @Autowire constructor, else the empty constructor. Null if the class has neither.
+  private final Constructor<?> constructor;
+
+  private final List<InjectionPoint> constructorParameters;
+
+  // @Autowire fields of the class and of all its Super Classes.
+  private final List<InjectionPoint> fields;
+
+  // @PostConstruct methods, the ones of the Super Classes first.
+  private final List<Method> postConstructMethods;
+
+  // @PreDestroy methods, the ones of the Super Classes first.
+  private final List<Method> preDestroyMethods;
+
+  // @Scope value, singleton by default.
+  private final String scope;
+
+  // @Pooled max size, 0 if the bean is not pooled.
+  private final int poolSize;
+
+  // @Reset methods, the ones of the Super Classes first.
+  private final List<Method> resetMethods;
+
+  // @Lazy component, not created at startup.
+  private final boolean lazy;
+
+  // Public methods -> their @Interceptor classes, the ones of the class first.
+  private final Map<Method, List<Class<? extends MethodInterceptor>>> interceptorBindings;
+
+  private BeanDefinition(Class<?> beanClass) {
+    this.beanClass = beanClass;
+
+    // 1. Constructor, and its parameters.
+    Constructor<?> autowireConstructor = ClassObjectUtils.getAutowireConstructor(beanClass);
+    this.constructor =
+        autowireConstructor != null ? autowireConstructor : getEmptyConstructor(beanClass);
+
+    InjectionPoint[] parameterPoints = new InjectionPoint[0];
+    if (autowireConstructor != null) {
+      Parameter[] parameters = autowireConstructor.getParameters();
+      parameterPoints = new InjectionPoint[parameters.length];
+      for (int i = 0; i < parameters.length; i++) {
+        parameterPoints[i] =
+            new InjectionPoint(
+                parameters[i].getType(),
+                null,
+                ClassObjectUtils.getQualifier(parameters[i]),
+                parameters[i].isAnnotationPresent(Lazy.class),
+                ClassObjectUtils.getMultiBindingType(parameters[i].getParameterizedType()),
+                ClassObjectUtils.getProviderType(parameters[i].getParameterizedType()),
+                null);
+      }
+    }
+    this.constructorParameters = Collections.unmodifiableList(Arrays.asList(parameterPoints));
+
+    // 2. @Autowire fields.
+    List<Field> autowireFields = ClassObjectUtils.getAutowireFields(beanClass);
+    InjectionPoint[] fieldPoints = new InjectionPoint[autowireFields.size()];
+    for (int i = 0; i < fieldPoints.length; i++) {
+      Field field = autowireFields.get(i);
+      fieldPoints[i] =
+          new InjectionPoint(
+              field.getType(),
+              field.getName(),
+              ClassObjectUtils.getQualifier(field),
+              field.isAnnotationPresent(Lazy.class),
+              ClassObjectUtils.getMultiBindingType(field.getGenericType()),
+              ClassObjectUtils.getProviderType(field.getGenericType()),
+              field);
+    }
+    this.fields = Collections.unmodifiableList(Arrays.asList(fieldPoints));
+
+    // 3. Lifecycle methods.
+    this.postConstructMethods = getLifecycleMethods(beanClass, PostConstruct.class);
+    this.preDestroyMethods = getLifecycleMethods(beanClass, PreDestroy.class);
+    this.resetMethods = getLifecycleMethods(beanClass, Reset.class);
+
+    // 4. Scope, and pooling of prototypes.
+    Scope scopeAnnotation = beanClass.getAnnotation(Scope.class);
+    this.scope = scopeAnnotation != null ? scopeAnnotation.value() : Scope.SINGLETON;
+
+    Pooled pooled = beanClass.getAnnotation(Pooled.class);
+    if (pooled != null && !Scope.PROTOTYPE.equals(scope)) {
+      throw new IllegalArgumentException(
+          "Only prototype beans can be pooled: " + beanClass.getName());
+    }
+    this.poolSize = pooled != null ? pooled.maxSize() : 0;
+    this.lazy = beanClass.isAnnotationPresent(Lazy.class);
+
+    // 5. Interceptors of the public methods.
+    this.interceptorBindings = getInterceptorBindings(beanClass);
+  }
+
+  private static Map<Method, List<Class<? extends MethodInterceptor>>> getInterceptorBindings(
+      Class<?> beanClass) {
+    Interceptor classInterceptor = beanClass.getAnnotation(Interceptor.class);
+    Map<Method, List<Class<? extends MethodInterceptor>>> bindings = new LinkedHashMap<>();
+    for (Method method : beanClass.getMethods()) {
+      if (Modifier.isStatic(method.getModifiers())
+          || method.isBridge()
+          || method.getDeclaringClass() == Object.class) {
+        continue;
+      }
+      Interceptor methodInterceptor = method.getAnnotation(Interceptor.class);
+      List<Class<? extends MethodInterceptor>> interceptorClasses = new ArrayList<>();
+      if (classInterceptor != null) {
+        interceptorClasses.addAll(Arrays.asList(classInterceptor.value()));
+      }
+      if (methodInterceptor != null) {
+        interceptorClasses.addAll(Arrays.asList(methodInterceptor.value()));
+      }
+      if (!interceptorClasses.isEmpty()) {
+        bindings.put(method, Collections.unmodifiableList(interceptorClasses));
+      }
+    }
+    return Collections.unmodifiableMap(bindings);
+  }
+
+  private static List<Method> getLifecycleMethods(
+      Class<?> beanClass, Class<? extends Annotation> annotationClass) {
+    List<Method> lifecycleMethods =
+        ClassObjectUtils.getLifecycleMethods(beanClass, annotationClass);
+    for (Method lifecycleMethod : lifecycleMethods) {
+      lifecycleMethod.setAccessible(true);
+    }
+    return Collections.unmodifiableList(lifecycleMethods);
+  }
+
+  /**
+   * Get the definition of a bean class, computing it on first use.
+   *
+   * @param beanClass Bean Class.
+   * @throws IllegalArgumentException if the class has more than 1 @Autowire constructor.
+   */
+  public static BeanDefinition of(Class<?> beanClass) {
+    return beanDefinitions.get(beanClass);
+  }
+
+  /**
+   * Drops the cached definition of a bean class, eg once its singleton is created. It is computed
+   * again if needed.
+   *
+   * @param beanClass Bean Class.
+   */
+  public static void release(Class<?> beanClass) {
+    beanDefinitions.remove(beanClass);
+  }
+
+  private static Constructor<?> getEmptyConstructor(Class<?> beanClass) {
+    try {
+      return beanClass.getDeclaredConstructor();
+    } catch (NoSuchMethodException ex) {
+      return null;
+    }
+  }
+
+  public Class<?> getBeanClass() {
+    return beanClass;
+  }
+
+  public Constructor<?> getConstructor() {
+    return constructor;
+  }
+
+  public List<InjectionPoint> getConstructorParameters() {
+    return constructorParameters;
+  }
+
+  public List<InjectionPoint> getFields() {
+    return fields;
+  }
+
+  public List<Method> getPostConstructMethods() {
+    return postConstructMethods;
+  }
+
+  public List<Method> getPreDestroyMethods() {
+    return preDestroyMethods;
+  }
+
+  public String getScope() {
+    return scope;
+  }
+
+  public boolean isSingleton() {
+    return Scope.SINGLETON.equals(scope);
+  }
+
+  /**
+   * Whether the bean is thread or context scoped, so it lives shorter than the beans it is
+   * injected in: they get a proxy, fetching the bean of the current thread or context on each
+   * call.
+   */
+  public boolean isScopedProxy() {
+    return Scope.THREAD.equals(scope) || Scope.CONTEXT.equals(scope);
+  }
+
+  public boolean isPooled() {
+    return poolSize > 0;
+  }
+
+  public int getPoolSize() {
+    return poolSize;
+  }
+
+  public List<Method> getResetMethods() {
+    return resetMethods;
+  }
+
+  public boolean isLazy() {
+    return lazy;
+  }
+
+  /** Get the intercepted public methods, and their interceptors, the outermost first. */
+  public Map<Method, List<Class<? extends MethodInterceptor>>> getInterceptorBindings() {
+    return interceptorBindings;
+  }
+
+  public boolean isIntercepted() {
+    return !interceptorBindings.isEmpty();
+  }
+
+  /** A constructor parameter or field to inject. */
+  public static final class InjectionPoint {
+
+    private final Class<?> type;
+
+    // Field name, used to pick an implementation by name. Null for constructor parameters.
+    private final String name;
+
+    private final String qualifier;
+
+    // @Lazy injection point, which receives a proxy.
+    private final boolean lazy;
+
+    // Bean type of a List/Set/Map point, which receives all its implementations. Else null.
+    private final Class<?> multiBindingType;
+
+    // Bean type of a Provider/Supplier point, which receives a Provider of the bean. Else null.
+    private final Class<?> providerType;
+
+    // Null for constructor parameters.
+    private final Field field;
+
+    InjectionPoint(
+        Class<?> type,
+        String name,
+        String qualifier,
+        boolean lazy,
+        Class<?> multiBindingType,
+        Class<?> providerType,
+        Field field) {
+      this.type = type;
+      this.name = name;
+      this.qualifier = qualifier;
+      this.lazy = lazy;
+      this.multiBindingType = multiBindingType;
+      this.providerType = providerType;
+      this.field = field;
+    }
+
+    public Class<?> getType() {
+      return type;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public String getQualifier() {
+      return qualifier;
+    }
+
+    public boolean isLazy() {
+      return lazy;
+    }
+
+    public boolean isMultiBinding() {
+      return multiBindingType != null;
+    }
+
+    public Class<?> getMultiBindingType() {
+      return multiBindingType;
+    }
+
+    public boolean isProvider() {
+      return providerType != null;
+    }
+
+    public Class<?> getProviderType() {
+      return providerType;
+    }
+
+    public Field getField() {
+      return field;
+    }
+  }
+}
@@ -0,0 +1,86 @@
+package com.arjunsk.codekrypt.di.core;
+
+/**
+ * Cached lookup of one bean type (and qualifier) in a {@link Container}.
+ *
+ * <p>The implementation class is resolved on the first fetch. Singletons are then kept in the
+ * handle, so fetching them again is a field read: no resolution and no map lookup. Beans of the
+ * other scopes are fetched from the container every time.
+ *
+ * <p>A hot reload of the container bumps its reload generation: the handle then resolves its
+ * bean again, so held handles never return a destroyed singleton.
+ *
+ * @param <T> Bean type.
+ */
+public final class BeanHandle<T> implements Provider<T> {
+
+  private final Container container;
+  private final Class<T> beanClass;
+  private final String qualifier;
+
+  // Set on the first fetch, and replaced after each reload. One object, so that its fields are
+  // always consistent.
+  private volatile Resolution<T> resolution;
+
+  BeanHandle(Container container, Class<T> beanClass, String qualifier) {
+    this.container = container;
+    this.beanClass = beanClass;
+    this.qualifier = qualifier;
+  }
+
+  /**
+   * Fetch the bean. Lazy beans are created here, on first fetch.
+   *
+   * @throws IllegalStateException if the container is closed.
+   */
+  @Override
+  public T get() {
+    container.checkOpen();
+    int reloadGeneration = container.getReloadGeneration();
+    Resolution<T> current = resolution;
+    if (current != null && current.reloadGeneration == reloadGeneration) {
+      if (current.singleton != null) {
+        return current.singleton;
+      }
+      return beanClass.cast(
+          container.getBeanManager().getBeanInstance(current.implementationClass, null, null));
+    }
+
+    // 1. Resolve the implementation class, once per reload generation.
+    BeanManager beanManager = container.getBeanManager();
+    Class<?> implementationClass = beanManager.getImplementationClass(beanClass, null, qualifier);
+
+    // 2. Fetch the bean, and keep it if it's a singleton.
+    T instance = beanClass.cast(beanManager.getBeanInstance(implementationClass, null, null));
+    resolution =
+        new Resolution<>(
+            reloadGeneration,
+            implementationClass,
+            beanManager.isSingleton(implementationClass) ? instance : null);
+    return instance;
+  }
+
+  public Class<T> getBeanClass() {
+    return beanClass;
+  }
+
+  public String getQualifier() {
+    return qualifier;
+  }
+
+  /** The implementation class, and its singleton, as resolved in a reload generation. */
+  private static final class Resolution<T> {
+
+    private final int reloadGeneration;
+    private final Class<?> implementationClass;
+
+    // Null for the other scopes.
+    private final T singleton;
+
+    private Resolution(int reloadGeneration, Class<?> implementationClass, T singleton) {
+      this.reloadGeneration = reloadGeneration;
+      this.implementationClass = implementationClass;
+      this.singleton = singleton;
+    }
+  }
+}
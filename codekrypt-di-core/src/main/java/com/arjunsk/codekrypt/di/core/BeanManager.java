@@ -1,34 +1,544 @@
 package com.arjunsk.codekrypt.di.core;
 
+import com.arjunsk.codekrypt.di.annotation.Scope;
+import com.arjunsk.codekrypt.di.core.BeanDefinition.InjectionPoint;
+import com.arjunsk.codekrypt.di.core.DependencyGraph.BeanNode;
+import com.arjunsk.codekrypt.di.core.WiringPlan.PlannedBean;
+import com.arjunsk.codekrypt.di.core.WiringPlan.PlannedInjection;
+import com.arjunsk.codekrypt.di.exceptions.BeanDestroyException;
 import com.arjunsk.codekrypt.di.exceptions.BeanFetchException;
+import com.arjunsk.codekrypt.di.exceptions.BeanInjectException;
+import com.arjunsk.codekrypt.di.injection.GeneratedInjectionStrategy;
+import com.arjunsk.codekrypt.di.injection.InjectionStrategy;
+import com.arjunsk.codekrypt.di.injection.InterceptorProxyFactory;
+import com.arjunsk.codekrypt.di.injection.LazyProxyFactory;
+import com.arjunsk.codekrypt.di.intercept.Intercepted;
+import com.arjunsk.codekrypt.di.intercept.MethodInterceptor;
+import com.arjunsk.codekrypt.di.listener.BeanTiming;
+import com.arjunsk.codekrypt.di.listener.ContainerListener;
+import com.arjunsk.codekrypt.di.scope.BeanPool;
+import com.arjunsk.codekrypt.di.scope.BeanScope;
+import com.arjunsk.codekrypt.di.scope.ContextScope;
+import com.arjunsk.codekrypt.di.scope.ScopeContext;
+import com.arjunsk.codekrypt.di.scope.ThreadScope;
+import com.arjunsk.codekrypt.di.utils.ClassObjectUtils;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
-/** Will manage the beans and there relationships. */
+/**
+ * Will manage the beans and there relationships.
+ *
+ * <p>Singletons are safe to fetch from multiple threads. Reads of created singletons are
+ * lock-free, and each singleton is created once, by the first thread asking for it, while
+ * independent singletons can be created at the same time.
+ *
+ * <p>Beans of the other scopes are created on demand, fully wired: prototypes on every fetch (or
+ * taken from their pool if @Pooled), thread scoped ones once per thread, context scoped ones once
+ * per ScopeContext, and custom scoped ones through their registered BeanScope.
+ *
+ * <p>A Bean Manager can have a parent, frozen once it has children. Types bound by a parent's
+ * components resolve to the parent's beans first, so heavy shared singletons are created once.
+ * The child only creates and destroys the beans of its own components.
+ */
 public class BeanManager {
 
-  // This Map will hold the Class and its corresponding Interface/Class name.
-  private final Map<Class<?>, Class<?>> beanInheritanceMap;
+  // This Index will hold the Interface/Class and its corresponding Implementation classes.
+  private volatile ResolutionIndex resolutionIndex;
 
-  // This Map will hold the Class and its corresponding Singleton Instance.
-  private final Map<Class<?>, Object> classInstancesMap;
+  // Resolves the types bound by its components first. Null for a root Bean Manager.
+  private final BeanManager parent;
+
+  // Set once the Bean Manager has children: its components can no longer change.
+  private volatile boolean frozen;
+
+  private static final Object[] NO_ARGS = new Object[0];
+
+  /** Default time given to the @PreDestroy methods of a bean, before moving on without it. */
+  public static final long DEFAULT_PRE_DESTROY_TIMEOUT_MILLIS = 30_000;
+
+  // Instantiates the beans and injects their fields.
+  private volatile InjectionStrategy injectionStrategy;
+
+  // This Map will hold the Class and its corresponding Singleton Instance. While a Singleton is
+  // being created, it holds a BeanCreation instead.
+  private final ConcurrentMap<Class<?>, Object> classInstancesMap;
+
+  // The Singletons created at startup, once compacted. They are no longer in classInstancesMap.
+  private volatile FrozenBeans frozenBeans = FrozenBeans.EMPTY;
+
+  // The Singleton classes, in creation order, to destroy the beans the dependency graph cannot
+  // order. A class created again (eg after a hot reload) is in it twice.
+  private final Queue<Class<?>> creationOrder = new ConcurrentLinkedQueue<>();
+
+  // This Map will hold the Scope name and its BeanScope, for the non singleton/prototype scopes.
+  private final ConcurrentMap<String, BeanScope> scopesMap;
+
+  // This Map will hold the @Pooled Class and its pool of idle instances.
+  private final ConcurrentMap<Class<?>, BeanPool> beanPoolsMap;
+
+  // This Map will hold the Interface/Class and all its Singleton Instances, for the List/Set/Map
+  // injection points.
+  private final ConcurrentMap<Class<?>, MultiBinding> multiBindingsMap;
+
+  // Creates the proxies injected in place of lazy beans.
+  private final LazyProxyFactory lazyProxyFactory;
+
+  // Wraps the beans with @Interceptor methods.
+  private final InterceptorProxyFactory interceptorProxyFactory;
+
+  // Whether all the beans are lazy, not only the @Lazy ones.
+  private volatile boolean lazyInit;
+
+  // Receives the bean creation timings. Null if nothing is timed.
+  private volatile ContainerListener listener;
+
+  // Runs the @PreDestroy methods. By default, on the calling thread.
+  private volatile Executor destroyExecutor = Runnable::run;
+
+  private volatile long preDestroyTimeoutNanos =
+      TimeUnit.MILLISECONDS.toNanos(DEFAULT_PRE_DESTROY_TIMEOUT_MILLIS);
+
+  // Runs the async @PostConstruct methods. Null for the default one.
+  private volatile Executor initExecutor;
+
+  // Initializes the singletons created at startup. Null once the startup is done.
+  private volatile ReadinessBarrier readinessBarrier;
+
+  // Completes once the @PostConstruct methods of the singletons created at startup are done.
+  private volatile CompletableFuture<Void> readiness = CompletableFuture.completedFuture(null);
 
   public BeanManager() {
-    this.beanInheritanceMap = new HashMap<>();
-    this.classInstancesMap = new HashMap<>();
+    this(null);
+  }
+
+  /**
+   * Child Bean Manager. It shares the injection strategy and proxy factories of its parent, so
+   * their generated classes are reused.
+   *
+   * @param parent parent Bean Manager, or null for a root one.
+   */
+  public BeanManager(BeanManager parent) {
+    this.parent = parent;
+    this.resolutionIndex = new ResolutionIndex(Collections.emptySet());
+    this.classInstancesMap = new ConcurrentHashMap<>();
+    this.injectionStrategy =
+        parent != null ? parent.injectionStrategy : new GeneratedInjectionStrategy();
+    this.scopesMap = new ConcurrentHashMap<>();
+    this.beanPoolsMap = new ConcurrentHashMap<>();
+    this.multiBindingsMap = new ConcurrentHashMap<>();
+    this.lazyProxyFactory = parent != null ? parent.lazyProxyFactory : new LazyProxyFactory();
+    this.interceptorProxyFactory =
+        parent != null
+            ? parent.interceptorProxyFactory
+            : new InterceptorProxyFactory(
+                type -> BeanDefinition.of(type).getInterceptorBindings().keySet());
+
+    scopesMap.put(Scope.THREAD, new ThreadScope());
+    // Contexts are shared with the children, so one context serves the whole hierarchy.
+    if (parent == null) {
+      scopesMap.put(Scope.CONTEXT, new ContextScope());
+    }
+  }
+
+  public BeanManager getParent() {
+    return parent;
+  }
+
+  /** Freezes the components, eg before creating children. Registering components then fails. */
+  public void freeze() {
+    this.frozen = true;
+  }
+
+  public boolean isFrozen() {
+    return frozen;
+  }
+
+  public InjectionStrategy getInjectionStrategy() {
+    return injectionStrategy;
+  }
+
+  public void setInjectionStrategy(InjectionStrategy injectionStrategy) {
+    this.injectionStrategy = injectionStrategy;
+  }
+
+  public boolean isLazyInit() {
+    return lazyInit;
+  }
+
+  /**
+   * Makes every bean lazy: created on its first use instead of at startup.
+   *
+   * @param lazyInit whether all the beans are lazy.
+   */
+  public void setLazyInit(boolean lazyInit) {
+    this.lazyInit = lazyInit;
+  }
+
+  public ContainerListener getListener() {
+    return listener;
+  }
+
+  /**
+   * Times the bean creations and singleton lookups, and reports them to the listener.
+   *
+   * @param listener Container Listener, or null to time nothing.
+   */
+  public void setListener(ContainerListener listener) {
+    this.listener = listener;
+  }
+
+  public Executor getDestroyExecutor() {
+    return destroyExecutor;
+  }
+
+  /**
+   * Executor running the @PreDestroy methods on close. Independent beans are destroyed in
+   * parallel on it. If it no longer accepts tasks, the beans are destroyed on the calling thread.
+   *
+   * @param destroyExecutor Executor for bean teardown.
+   */
+  public void setDestroyExecutor(Executor destroyExecutor) {
+    this.destroyExecutor = destroyExecutor;
+  }
+
+  /**
+   * Time given to the @PreDestroy methods of a bean: after it, the bean is reported as timed out,
+   * and its dependencies are destroyed without waiting any longer. 0 waits without limit.
+   *
+   * @param timeout timeout per bean.
+   * @param unit unit of the timeout.
+   */
+  public void setPreDestroyTimeout(long timeout, TimeUnit unit) {
+    this.preDestroyTimeoutNanos = unit.toNanos(timeout);
+  }
+
+  public Executor getInitExecutor() {
+    return initExecutor;
+  }
+
+  /**
+   * Executor running the async @PostConstruct methods at startup.
+   *
+   * @param initExecutor Executor for bean initialization, or null for the default one.
+   */
+  public void setInitExecutor(Executor initExecutor) {
+    this.initExecutor = initExecutor;
+  }
+
+  /**
+   * Completes once the @PostConstruct methods of the singletons created at startup are done, or
+   * exceptionally with a BeanInitiateException holding all their failures.
+   */
+  public CompletableFuture<Void> getReadiness() {
+    return readiness;
+  }
+
+  /**
+   * Starts deferring the @PostConstruct methods of the singletons created from now on, until
+   * their dependencies are initialized.
+   *
+   * @param dependencies Bean Class -> its dependencies.
+   */
+  void openReadinessBarrier(Function<Class<?>, Collection<Class<?>>> dependencies) {
+    this.readinessBarrier = new ReadinessBarrier(dependencies, initExecutor);
+  }
+
+  /**
+   * Stops deferring: beans created from now on are initialized inline.
+   *
+   * @return the readiness of the singletons created since openReadinessBarrier.
+   */
+  CompletableFuture<Void> closeReadinessBarrier() {
+    ReadinessBarrier barrier = this.readinessBarrier;
+    this.readinessBarrier = null;
+    if (barrier != null) {
+      readiness = barrier.awaitAll();
+    }
+    return readiness;
+  }
+
+  /**
+   * Whether a bean is created on its first use, instead of at startup.
+   *
+   * @param implementationClass Bean Class.
+   */
+  public boolean isLazy(Class<?> implementationClass) {
+    return lazyInit || BeanDefinition.of(implementationClass).isLazy();
+  }
+
+  /**
+   * Registers a custom scope, used by the beans annotated @Scope(name).
+   *
+   * @param name Scope name.
+   * @param beanScope Scope implementation.
+   */
+  public void registerScope(String name, BeanScope beanScope) {
+    if (Scope.SINGLETON.equals(name) || Scope.PROTOTYPE.equals(name)) {
+      throw new IllegalArgumentException("Cannot replace the " + name + " scope.");
+    }
+    scopesMap.put(name, beanScope);
+  }
+
+  /**
+   * Get a registered scope, eg the built-in ThreadScope to clear it.
+   *
+   * @param name Scope name.
+   * @return the scope, or null if not registered.
+   */
+  public BeanScope getScope(String name) {
+    return scopesMap.get(name);
+  }
+
+  /**
+   * Creates a context of the context scope, eg for a request. Its beans are fetched while it is
+   * bound, see ScopeContext.run.
+   *
+   * @throws IllegalStateException if the context scope was replaced by a custom one.
+   */
+  public ScopeContext newContext() {
+    BeanScope contextScope = findScope(Scope.CONTEXT);
+    if (!(contextScope instanceof ContextScope)) {
+      throw new IllegalStateException("The context scope was replaced by " + contextScope);
+    }
+    return ((ContextScope) contextScope).newContext();
   }
 
-  public void addBeanInheritanceMapping(Class<?> componentClass, Class<?> interfaceClass) {
-    beanInheritanceMap.put(componentClass, interfaceClass);
+  /** Custom scope of this Bean Manager, else of its parents. */
+  private BeanScope findScope(String name) {
+    BeanScope beanScope = scopesMap.get(name);
+    return beanScope != null || parent == null ? beanScope : parent.findScope(name);
   }
 
   /**
-   * Fetch Bean Instance based on the input criteria. (For Beans without constructor injection)
+   * Get the pool of a @Pooled bean class, with its hit/miss counters.
+   *
+   * @param beanClass @Pooled Bean Class.
+   * @return the pool, or null if the class is not pooled.
+   */
+  public BeanPool getBeanPool(Class<?> beanClass) {
+    BeanPool beanPool = beanPoolsMap.get(beanClass);
+    if (beanPool != null) {
+      return beanPool;
+    }
+
+    BeanDefinition beanDefinition = BeanDefinition.of(beanClass);
+    if (!beanDefinition.isPooled()) {
+      return null;
+    }
+    return beanPoolsMap.computeIfAbsent(
+        beanClass, cls -> new BeanPool(beanDefinition.getPoolSize()));
+  }
+
+  /**
+   * Builds the resolution index of the components. Replaces the previously registered components.
+   *
+   * @param componentClasses all the @Component classes.
+   * @throws IllegalStateException if the Bean Manager is frozen.
+   */
+  public void registerComponents(Collection<Class<?>> componentClasses) {
+    registerComponents(new ResolutionIndex(componentClasses));
+  }
+
+  /** Registers a resolution index, possibly shared with other Bean Managers. */
+  void registerComponents(ResolutionIndex resolutionIndex) {
+    if (frozen) {
+      throw new IllegalStateException("Components of a frozen Bean Manager cannot change");
+    }
+    this.resolutionIndex = resolutionIndex;
+    this.frozenBeans = frozenBeans.rebind(resolutionIndex);
+    multiBindingsMap.clear();
+  }
+
+  /**
+   * Moves the singletons created so far into a compact, immutable table, eg once the startup is
+   * done: their instances are kept in an array indexed by bean id, looked up by class or unique
+   * interface without resolution. The map of the singletons then only holds the beans created
+   * later.
+   *
+   * @param releaseMetadata whether to also drop the cached metadata of these beans (definition,
+   *     factory and field injectors), no longer needed once they are created. It is computed again
+   *     if ever needed, eg to destroy them on close.
+   */
+  public void compact(boolean releaseMetadata) {
+    // 1. The created singletons, with the ones compacted before.
+    FrozenBeans previous = frozenBeans;
+    Map<Class<?>, Object> singletons = new LinkedHashMap<>();
+    for (int id = 0; id < previous.size(); id++) {
+      singletons.put(previous.getBeanClass(id), previous.getInstance(id));
+    }
+    for (Map.Entry<Class<?>, Object> entry : classInstancesMap.entrySet()) {
+      if (!(entry.getValue() instanceof BeanCreation)) {
+        singletons.put(entry.getKey(), entry.getValue());
+      }
+    }
+
+    // 2. Publish the table before removing the map entries, so a bean is always found.
+    this.frozenBeans = FrozenBeans.of(singletons, resolutionIndex);
+    for (Map.Entry<Class<?>, Object> singleton : singletons.entrySet()) {
+      classInstancesMap.remove(singleton.getKey(), singleton.getValue());
+    }
+
+    // 3. Drop their metadata.
+    if (releaseMetadata) {
+      for (Class<?> beanClass : singletons.keySet()) {
+        BeanDefinition.release(beanClass);
+        injectionStrategy.release(beanClass);
+      }
+    }
+  }
+
+  /**
+   * Replaces some components by their new versions, and adds new ones, eg on a hot reload. The
+   * singletons of the previous versions must be removed first.
+   *
+   * @param replacedClasses previous version of a component -> its new version.
+   * @param addedClasses new components.
+   * @throws IllegalStateException if the Bean Manager is frozen.
+   */
+  void replaceComponents(
+      Map<Class<?>, Class<?>> replacedClasses, Collection<Class<?>> addedClasses) {
+    registerComponents(resolutionIndex.withChanges(replacedClasses, addedClasses));
+  }
+
+  /**
+   * Removes a created singleton, so that it is created again on its next fetch.
+   *
+   * @param implementationClass Bean Class.
+   * @return the removed singleton, or null if it was not created.
+   * @throws IllegalStateException if the singleton was compacted.
+   */
+  Object removeSingleton(Class<?> implementationClass) {
+    if (frozenBeans.indexOf(implementationClass) >= 0) {
+      throw new IllegalStateException(
+          "Compacted singletons cannot be removed: " + implementationClass.getName());
+    }
+    Object classInstance = classInstancesMap.get(implementationClass);
+    if (classInstance instanceof BeanCreation) {
+      classInstance = ((BeanCreation) classInstance).await();
+    }
+    return classInstance != null && classInstancesMap.remove(implementationClass, classInstance)
+        ? classInstance
+        : null;
+  }
+
+  /**
+   * Get a created singleton, without creating it.
+   *
+   * @param implementationClass Bean Class.
+   * @return the singleton, or null if it is not created (yet).
+   */
+  Object getCreatedSingleton(Class<?> implementationClass) {
+    Object classInstance = getSingleton(implementationClass);
+    return classInstance instanceof BeanCreation ? null : classInstance;
+  }
+
+  /** Calls the @PreDestroy methods of a singleton removed from the Bean Manager. */
+  void destroyBean(Class<?> implementationClass, Object classInstance) {
+    ClassObjectUtils.invokeLifecycle(
+        unwrap(classInstance), BeanDefinition.of(implementationClass).getPreDestroyMethods());
+  }
+
+  /**
+   * Injects an @Autowire field of a created bean again, with the bean it resolves to now.
+   *
+   * @param classInstance created bean.
+   * @param field @Autowire field of its class.
+   */
+  void reinject(Object classInstance, InjectionPoint field) {
+    Object value = getBeanInstance(field);
+    try {
+      injectionStrategy.getFieldInjector(field.getField()).inject(unwrap(classInstance), value);
+    } catch (Exception ex) {
+      throw new BeanInjectException("Unable to Inject bean", ex);
+    }
+  }
+
+  /**
+   * Whether a resolved bean class is a singleton.
+   *
+   * @param implementationClass Bean Class.
+   */
+  public boolean isSingleton(Class<?> implementationClass) {
+    return frozenBeans.indexOf(implementationClass) >= 0
+        || BeanDefinition.of(implementationClass).isSingleton();
+  }
+
+  ResolutionIndex getResolutionIndex() {
+    return resolutionIndex;
+  }
+
+  /**
+   * Whether a type is bound by the components of a parent, and so resolved by it.
+   *
+   * @param type interface/class.
+   */
+  public boolean isBoundByParent(Class<?> type) {
+    return getOwner(type) != this;
+  }
+
+  /**
+   * Get the Bean Manager resolving a type: the top most one whose components bind it, else this
+   * one.
+   */
+  private BeanManager getOwner(Class<?> type) {
+    if (parent == null) {
+      return this;
+    }
+    BeanManager owner = parent.getOwner(type);
+    return owner != parent || parent.resolutionIndex.isBound(type) ? owner : this;
+  }
+
+  /**
+   * Returns Implementation class for an interface/class.
+   *
+   * @param inputClass interface/abstract class/concrete class
+   * @param fieldName @Autowire field name
+   * @param qualifier @Qualifier value
+   * @return Implementation class of the interface.
+   */
+  public Class<?> getImplementationClass(Class<?> inputClass, String fieldName, String qualifier) {
+    return getOwner(inputClass).resolutionIndex.resolve(inputClass, fieldName, qualifier);
+  }
+
+  /**
+   * Returns all the Implementation classes of an interface/class.
+   *
+   * @param inputClass interface/abstract class/concrete class
+   * @return the implementations, ordered by @Order then by name.
+   */
+  public List<Class<?>> getImplementationClasses(Class<?> inputClass) {
+    return getOwner(inputClass).resolutionIndex.resolveAll(inputClass);
+  }
+
+  /**
+   * Fetch Bean Instance based on the input criteria.
    *
    * @param interfaceClass interface of the @Autowire field.
    * @param fieldName Used for match by field name.
@@ -37,112 +547,820 @@ public class BeanManager {
    */
   public <T> Object getBeanInstance(
       Class<T> interfaceClass, final String fieldName, final String qualifier) {
-    return getBeanInstance(interfaceClass, fieldName, qualifier, null, null);
+
+    BeanManager owner = getOwner(interfaceClass);
+    if (owner != this) {
+      return owner.getBeanInstance(interfaceClass, fieldName, qualifier);
+    }
+
+    // Singletons created at startup, by their class or unique interface: no resolution needed.
+    FrozenBeans frozen = frozenBeans;
+    int beanId = frozen.indexOf(interfaceClass);
+    if (beanId >= 0) {
+      return getFrozenInstance(frozen, beanId);
+    }
+    Class<?> implementationClass = resolutionIndex.resolve(interfaceClass, fieldName, qualifier);
+    return getInstance(implementationClass);
   }
 
   /**
-   * Fetch Bean Instance based on the input criteria. (For Beans with constructor injection)
+   * Fetch the Bean Instance to inject in a constructor parameter or field. Lazy beans which are
+   * not created yet are injected as a proxy, which creates the bean on its first method call.
    *
-   * @param interfaceClass interface of the @Autowire field.
-   * @param fieldName Used for match by field name.
-   * @param qualifier Used for match by qualifier name.
-   * @param argClassList list of Classes to instantiate a class with parametrized constructor.
-   * @param argObjectList list of Object to instantiate a class with parametrized constructor.
+   * @param injectionPoint @Autowire constructor parameter or field.
+   * @return Object of bean class, or its proxy.
+   */
+  public Object getBeanInstance(InjectionPoint injectionPoint) {
+    if (parent != null) {
+      BeanManager owner =
+          getOwner(
+              injectionPoint.isMultiBinding()
+                  ? injectionPoint.getMultiBindingType()
+                  : injectionPoint.isProvider()
+                      ? injectionPoint.getProviderType()
+                      : injectionPoint.getType());
+      if (owner != this) {
+        return owner.getBeanInstance(injectionPoint);
+      }
+    }
+    if (injectionPoint.isMultiBinding()) {
+      return getMultiBindingInstance(
+          injectionPoint.getType(), injectionPoint.getMultiBindingType(), injectionPoint.isLazy());
+    }
+    if (injectionPoint.isProvider()) {
+      return getProvider(
+          resolutionIndex.resolve(
+              injectionPoint.getProviderType(),
+              injectionPoint.getName(),
+              injectionPoint.getQualifier()));
+    }
+
+    FrozenBeans frozen = frozenBeans;
+    int beanId = frozen.indexOf(injectionPoint.getType());
+    if (beanId >= 0) {
+      return getFrozenInstance(frozen, beanId);
+    }
+    Class<?> implementationClass =
+        resolutionIndex.resolve(
+            injectionPoint.getType(), injectionPoint.getName(), injectionPoint.getQualifier());
+    return getInjectableInstance(
+        injectionPoint.getType(), implementationClass, injectionPoint.isLazy());
+  }
+
+  /**
+   * Creates a singleton of the ahead-of-time wiring plan, whose injection points are already
+   * resolved. Its dependencies are created first, as they come earlier in the plan.
+   *
+   * @param plannedBean bean of the wiring plan.
    * @return Object of bean class.
    */
-  public <T> Object getBeanInstance(
-      Class<T> interfaceClass,
-      final String fieldName,
-      final String qualifier,
-      List<Class<?>> argClassList,
-      List<Object> argObjectList) {
+  public Object createPlannedBean(PlannedBean plannedBean) {
+    return createSingleton(plannedBean.getBeanClass(), () -> createBean(plannedBean));
+  }
 
-    Class<?> implementationClass = getImplementationClass(interfaceClass, fieldName, qualifier);
+  /**
+   * Get a Provider bound to a bean class: its scope is looked up once, so get() creates or
+   * returns the bean directly.
+   *
+   * @param implementationClass resolved Bean Class.
+   * @throws BeanFetchException if the bean has a custom scope which is not registered.
+   */
+  public Provider<Object> getProvider(Class<?> implementationClass) {
+    // Singleton created at startup: bound to it.
+    FrozenBeans frozen = frozenBeans;
+    int beanId = frozen.indexOf(implementationClass);
+    if (beanId >= 0) {
+      Object classInstance = frozen.getInstance(beanId);
+      return () -> classInstance;
+    }
+
+    BeanDefinition beanDefinition = BeanDefinition.of(implementationClass);
+    String scope = beanDefinition.getScope();
+
+    // Singleton: created on the first get, then kept.
+    if (Scope.SINGLETON.equals(scope)) {
+      return new LazyBean(this, implementationClass);
+    }
+
+    // Prototype: a new bean on every get, or a released one if pooled.
+    if (Scope.PROTOTYPE.equals(scope)) {
+      BeanPool beanPool = getBeanPool(implementationClass);
+      if (beanPool == null) {
+        return () -> createBean(beanDefinition);
+      }
+      return () -> {
+        Object pooledInstance = beanPool.borrow();
+        return pooledInstance != null ? pooledInstance : createBean(beanDefinition);
+      };
+    }
+
+    BeanScope beanScope = getRegisteredScope(beanDefinition);
+    Supplier<Object> beanFactory = () -> createBean(beanDefinition);
+    return () -> beanScope.get(implementationClass, beanFactory);
+  }
+
+  /**
+   * Fetch all the Bean Instances of an interface/class, ordered by @Order then by name.
+   *
+   * @param beanClass interface/class of the beans.
+   * @return immutable List of the beans.
+   */
+  public List<?> getBeanInstances(Class<?> beanClass) {
+    BeanManager owner = getOwner(beanClass);
+    if (owner != this) {
+      return owner.getBeanInstances(beanClass);
+    }
+    return (List<?>) getMultiBindingInstance(List.class, beanClass, false);
+  }
+
+  /**
+   * Fetch all the beans of a type, as the List, Set or Map (by simple class name) to inject. When
+   * they are all singletons, the collections are built once and shared by every injection point.
+   */
+  private Object getMultiBindingInstance(
+      Class<?> collectionType, Class<?> beanClass, boolean lazyInjectionPoint) {
+    MultiBinding multiBinding = multiBindingsMap.get(beanClass);
+    if (multiBinding == null) {
+      List<Class<?>> implementationClasses = resolutionIndex.resolveAll(beanClass);
+      Object[] classInstances = new Object[implementationClasses.size()];
+      boolean allSingletons = true;
+      for (int i = 0; i < classInstances.length; i++) {
+        Class<?> implementationClass = implementationClasses.get(i);
+        classInstances[i] =
+            getInjectableInstance(beanClass, implementationClass, lazyInjectionPoint);
+        allSingletons &= isSingleton(implementationClass);
+      }
+
+      multiBinding = new MultiBinding(implementationClasses, classInstances);
+      // Proxies of lazy points and beans of the other scopes are not shared.
+      if (allSingletons && !lazyInjectionPoint) {
+        MultiBinding raced = multiBindingsMap.putIfAbsent(beanClass, multiBinding);
+        multiBinding = raced != null ? raced : multiBinding;
+      }
+    }
+    return multiBinding.as(collectionType);
+  }
+
+  private Object getInjectableInstance(
+      Class<?> type, Class<?> implementationClass, boolean lazyInjectionPoint) {
+
+    // 1. If Impl class instance already available, return that. (Lock-free)
+    FrozenBeans frozen = frozenBeans;
+    int beanId = frozen.indexOf(implementationClass);
+    if (beanId >= 0) {
+      return getFrozenInstance(frozen, beanId);
+    }
+    Object classInstance = classInstancesMap.get(implementationClass);
+    if (classInstance != null && !(classInstance instanceof BeanCreation)) {
+      ContainerListener listener = this.listener;
+      if (listener != null) {
+        listener.onSingletonLookup(implementationClass, true);
+      }
+      return classInstance;
+    }
+
+    // 2. Thread and context scoped beans get a proxy, resolving the current bean on each call.
+    BeanDefinition beanDefinition = BeanDefinition.of(implementationClass);
+    if (beanDefinition.isScopedProxy()) {
+      Object proxy = lazyProxyFactory.createProxy(type, () -> getInstance(implementationClass));
+      if (proxy == null) {
+        throw new BeanFetchException(
+            String.format(
+                "%s is %s scoped, so it is injected as a proxy, but %s cannot be proxied. "
+                    + "Inject a public interface, or a Provider.",
+                implementationClass.getName(), beanDefinition.getScope(), type.getName()));
+      }
+      return proxy;
+    }
+
+    // 3. Lazy beans get a proxy. Types which cannot be proxied get the bean right away.
+    if (lazyInjectionPoint || isLazy(implementationClass)) {
+      Object proxy = lazyProxyFactory.createProxy(type, new LazyBean(this, implementationClass));
+      if (proxy != null) {
+        return proxy;
+      }
+    }
+
+    return getInstance(implementationClass);
+  }
+
+  private Object getInstance(Class<?> implementationClass) {
+    ContainerListener listener = this.listener;
+
+    // 1. If Impl class instance already available, return that. (Lock-free)
+    FrozenBeans frozen = frozenBeans;
+    int beanId = frozen.indexOf(implementationClass);
+    if (beanId >= 0) {
+      return getFrozenInstance(frozen, beanId);
+    }
+    Object classInstance = classInstancesMap.get(implementationClass);
+    if (classInstance != null && !(classInstance instanceof BeanCreation)) {
+      if (listener != null) {
+        listener.onSingletonLookup(implementationClass, true);
+      }
+      return classInstance;
+    }
+
+    // 2. If another thread is creating it, wait for that thread.
+    if (classInstance != null) {
+      if (listener != null) {
+        listener.onSingletonLookup(implementationClass, false);
+      }
+      return ((BeanCreation) classInstance).await();
+    }
+
+    // 3. Beans of the other scopes are not kept here.
+    BeanDefinition beanDefinition = BeanDefinition.of(implementationClass);
+    if (!beanDefinition.isSingleton()) {
+      return getScopedInstance(beanDefinition);
+    }
+
+    if (listener != null) {
+      listener.onSingletonLookup(implementationClass, false);
+    }
+    return createSingleton(implementationClass, () -> createBean(beanDefinition));
+  }
+
+  private Object getFrozenInstance(FrozenBeans frozen, int beanId) {
+    ContainerListener listener = this.listener;
+    if (listener != null) {
+      listener.onSingletonLookup(frozen.getBeanClass(beanId), true);
+    }
+    return frozen.getInstance(beanId);
+  }
+
+  /** The created singleton of a class, compacted or not. Else null, or its BeanCreation. */
+  private Object getSingleton(Class<?> implementationClass) {
+    FrozenBeans frozen = frozenBeans;
+    int beanId = frozen.indexOf(implementationClass);
+    return beanId >= 0 ? frozen.getInstance(beanId) : classInstancesMap.get(implementationClass);
+  }
+
+  private Object createSingleton(Class<?> implementationClass, Supplier<Object> beanFactory) {
+
+    // 1. Claim the creation of this bean. Only one thread wins the putIfAbsent.
+    BeanCreation creation = new BeanCreation(implementationClass);
+    Object raced = classInstancesMap.putIfAbsent(implementationClass, creation);
+    if (raced != null) {
+      return raced instanceof BeanCreation ? ((BeanCreation) raced).await() : raced;
+    }
 
+    // Errors too: else the guard stays in place, and the waiting threads wait forever.
     Object classInstance;
+    try {
+      classInstance = beanFactory.get();
+    } catch (Throwable ex) {
+      classInstancesMap.remove(implementationClass, creation);
+      creation.fail(ex);
+      throw ex;
+    }
 
-    // 1. If Impl class instance already available, return that.
-    if (classInstancesMap.containsKey(implementationClass)) {
-      classInstance = classInstancesMap.get(implementationClass);
-    } else {
+    // 2. Publish the instance, in place of the creation guard.
+    classInstancesMap.replace(implementationClass, creation, classInstance);
+    creationOrder.add(implementationClass);
+    creation.complete(classInstance);
+    return classInstance;
+  }
 
-      // 2. else, create a new instance and insert into map and return the Object.
-      try {
-        synchronized (classInstancesMap) {
-          if (argClassList == null || argClassList.isEmpty()) {
-            // 2.1 Create a new Object with empty constructor.
-            classInstance = implementationClass.newInstance();
-          } else {
-
-            // 2.2 Create a new object with parameterized constructor.
-            Class<?>[] argClassArray = argClassList.toArray(new Class[0]);
-            Object[] argObjectArray = argObjectList.toArray();
-
-            classInstance =
-                implementationClass
-                    .getDeclaredConstructor(argClassArray)
-                    .newInstance(argObjectArray);
+  /**
+   * Gives back a bean of a @Pooled class, once the caller is done with it. Its @Reset functions
+   * are called, and it is kept for the next fetch unless the pool is full. Beans of other classes
+   * are ignored.
+   *
+   * @param classInstance bean fetched from this Bean Manager.
+   */
+  public void releaseBeanInstance(Object classInstance) {
+    Object target = unwrap(classInstance);
+    BeanPool beanPool = getBeanPool(target.getClass());
+    if (beanPool != null) {
+      ClassObjectUtils.invokeLifecycle(
+          target, BeanDefinition.of(target.getClass()).getResetMethods());
+      beanPool.release(classInstance);
+    }
+  }
+
+  private Object getScopedInstance(BeanDefinition beanDefinition) {
+    String scope = beanDefinition.getScope();
+
+    // Prototype: a new bean, or a released one if pooled.
+    if (Scope.PROTOTYPE.equals(scope)) {
+      Object pooledInstance =
+          beanDefinition.isPooled() ? getBeanPool(beanDefinition.getBeanClass()).borrow() : null;
+      return pooledInstance != null ? pooledInstance : createBean(beanDefinition);
+    }
+
+    BeanScope beanScope = getRegisteredScope(beanDefinition);
+    return beanScope.get(beanDefinition.getBeanClass(), () -> createBean(beanDefinition));
+  }
+
+  private BeanScope getRegisteredScope(BeanDefinition beanDefinition) {
+    BeanScope beanScope = findScope(beanDefinition.getScope());
+    if (beanScope == null) {
+      throw new BeanFetchException(
+          "No scope "
+              + beanDefinition.getScope()
+              + " registered for "
+              + beanDefinition.getBeanClass().getName());
+    }
+    return beanScope;
+  }
+
+  /**
+   * Destroys the singletons, then releases the beans: the singletons, the pooled prototypes and
+   * the thread scoped beans of the calling thread. Beans fetched afterwards are created again.
+   *
+   * @throws BeanDestroyException if @PreDestroy methods failed. All the beans are still released.
+   */
+  public void close() {
+    try {
+      awaitReadiness();
+      destroySingletons();
+    } finally {
+      frozenBeans = FrozenBeans.EMPTY;
+      classInstancesMap.clear();
+      creationOrder.clear();
+      beanPoolsMap.clear();
+      multiBindingsMap.clear();
+      BeanScope threadScope = scopesMap.get(Scope.THREAD);
+      if (threadScope instanceof ThreadScope) {
+        ((ThreadScope) threadScope).clear();
+      }
+    }
+  }
+
+  /** Lets the pending @PostConstruct methods finish before the teardown, up to its timeout. */
+  private void awaitReadiness() {
+    try {
+      if (preDestroyTimeoutNanos > 0) {
+        readiness.get(preDestroyTimeoutNanos, TimeUnit.NANOSECONDS);
+      } else {
+        readiness.get();
+      }
+    } catch (ExecutionException | TimeoutException ex) {
+      // Failed or slow inits do not prevent the teardown.
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Calls the @PreDestroy methods of the created singletons, in reverse dependency order: a bean
+   * is destroyed once all the beans depending on it are destroyed (or timed out), so independent
+   * branches are destroyed in parallel on the destroy executor. The beans the dependency graph
+   * cannot order (eg on a cycle through lazy proxies) are destroyed last, in reverse creation
+   * order.
+   */
+  private void destroySingletons() {
+    ContainerListener listener = this.listener;
+    long startNanos = System.nanoTime();
+
+    // 1. The created singletons. Nothing to do if none of them has @PreDestroy methods.
+    FrozenBeans frozen = frozenBeans;
+    List<Class<?>> createdClasses = new ArrayList<>();
+    boolean anyPreDestroy = frozen.hasPreDestroy();
+    for (int id = 0; id < frozen.size(); id++) {
+      createdClasses.add(frozen.getBeanClass(id));
+    }
+    for (Map.Entry<Class<?>, Object> entry : classInstancesMap.entrySet()) {
+      if (!(entry.getValue() instanceof BeanCreation)) {
+        createdClasses.add(entry.getKey());
+        anyPreDestroy |= !BeanDefinition.of(entry.getKey()).getPreDestroyMethods().isEmpty();
+      }
+    }
+    if (!anyPreDestroy) {
+      if (listener != null) {
+        listener.onShutdown(System.nanoTime() - startNanos);
+      }
+      return;
+    }
+
+    // 2. Their dependency graph, from the same @Autowire points as at startup. Its failures are
+    // reported once all the beans are destroyed.
+    Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+    List<List<BeanNode>> waves;
+    try {
+      waves = DependencyGraph.buildLenient(createdClasses, this).getWaves();
+    } catch (RuntimeException ex) {
+      failures.add(ex);
+      waves = Collections.emptyList();
+    }
+
+    ScheduledExecutorService timer =
+        preDestroyTimeoutNanos > 0
+            ? Executors.newSingleThreadScheduledExecutor(
+                runnable -> {
+                  Thread thread = new Thread(runnable, "codekrypt-destroy-timer");
+                  thread.setDaemon(true);
+                  return thread;
+                })
+            : null;
+    Executor executor = destroyExecutor;
+    Executor fallbackExecutor =
+        command -> {
+          try {
+            executor.execute(command);
+          } catch (RejectedExecutionException ex) {
+            command.run();
           }
+        };
+
+    try {
+      // 3. Schedule every bean once its dependents are done, last wave first.
+      Map<BeanNode, CompletableFuture<Void>> doneFutures = new HashMap<>();
+      Set<Class<?>> orderedClasses = new HashSet<>();
+      for (int w = waves.size() - 1; w >= 0; w--) {
+        for (BeanNode node : waves.get(w)) {
+          CompletableFuture<?>[] dependentFutures =
+              node.getDependents().stream()
+                  .map(doneFutures::get)
+                  .toArray(CompletableFuture<?>[]::new);
 
-          // 3. save to the IoC Map.
-          classInstancesMap.put(implementationClass, classInstance);
+          BeanDestruction destruction = new BeanDestruction(node.getBeanClass(), listener);
+          doneFutures.put(node, destruction.done);
+          orderedClasses.add(node.getBeanClass());
+          CompletableFuture.allOf(dependentFutures)
+              .thenRunAsync(() -> destruction.run(timer, preDestroyTimeoutNanos), fallbackExecutor)
+              .whenComplete(
+                  (ignored, ex) -> {
+                    if (ex != null) {
+                      failures.add(ex instanceof CompletionException ? ex.getCause() : ex);
+                    }
+                    destruction.finish(false);
+                  });
         }
+      }
+
+      // 4. Wait for all of them, or their timeouts.
+      CompletableFuture.allOf(doneFutures.values().toArray(new CompletableFuture<?>[0])).join();
 
-      } catch (Exception ex) {
-        throw new BeanFetchException("Bean Initialization error", ex);
+      // 5. Then the beans left out of the waves, last created first.
+      for (Class<?> beanClass : getReverseCreationOrder(createdClasses, orderedClasses)) {
+        try {
+          new BeanDestruction(beanClass, listener).run(timer, preDestroyTimeoutNanos);
+        } catch (RuntimeException ex) {
+          failures.add(ex);
+        }
+      }
+    } finally {
+      if (timer != null) {
+        timer.shutdownNow();
+      }
+    }
+
+    if (listener != null) {
+      listener.onShutdown(System.nanoTime() - startNanos);
+    }
+    if (!failures.isEmpty()) {
+      BeanDestroyException destroyException =
+          new BeanDestroyException(
+              "Unable to destroy " + failures.size() + " bean(s)", failures.poll());
+      failures.forEach(destroyException::addSuppressed);
+      throw destroyException;
+    }
+  }
+
+  /** The created singletons which are not already destroyed, last created first. */
+  private List<Class<?>> getReverseCreationOrder(
+      List<Class<?>> createdClasses, Set<Class<?>> destroyedClasses) {
+    Set<Class<?>> remainingClasses = new LinkedHashSet<>(createdClasses);
+    remainingClasses.removeAll(destroyedClasses);
+
+    List<Class<?>> createdOrder = new ArrayList<>(creationOrder);
+    List<Class<?>> reverseOrder = new ArrayList<>();
+    for (int i = createdOrder.size() - 1; i >= 0; i--) {
+      if (remainingClasses.remove(createdOrder.get(i))) {
+        reverseOrder.add(createdOrder.get(i));
       }
     }
-    // 4. Return the instance with the flag.
+    // Every singleton is in the creation order, but none is ever left undestroyed.
+    reverseOrder.addAll(remainingClasses);
+    return reverseOrder;
+  }
+
+  /** Creates a bean and wires it: constructor, then @Autowire fields, then @PostConstruct. */
+  private Object createBean(BeanDefinition beanDefinition) {
+    Class<?> implementationClass = beanDefinition.getBeanClass();
+    ContainerListener listener = this.listener;
+    long startNanos = listener != null ? System.nanoTime() : 0;
+
+    // 1. Fetch the objects for the @Autowire constructor parameters.
+    List<InjectionPoint> constructorParameters = beanDefinition.getConstructorParameters();
+    Object[] args =
+        constructorParameters.isEmpty() ? NO_ARGS : new Object[constructorParameters.size()];
+    for (int i = 0; i < args.length; i++) {
+      args[i] = getBeanInstance(constructorParameters.get(i));
+    }
+
+    // 2. Create the object.
+    Object classInstance = createInstance(beanDefinition, args);
+    long constructedNanos = listener != null ? System.nanoTime() : 0;
+
+    // 3. Autowire the fields.
+    ClassObjectUtils.invokeAutowire(this, implementationClass, classInstance);
+    long injectedNanos = listener != null ? System.nanoTime() : 0;
+
+    // 4. Post Construct call, after the ones of the dependencies.
+    initialize(beanDefinition, classInstance, beanDefinition.getPostConstructMethods());
+
+    // 5. Wrap it in its interceptors.
+    classInstance = intercept(beanDefinition, classInstance);
+
+    if (listener != null) {
+      reportBeanCreated(
+          listener,
+          implementationClass,
+          beanDefinition.getScope(),
+          startNanos,
+          constructedNanos,
+          injectedNanos);
+    }
+    return classInstance;
+  }
+
+  /** Creates a bean of the wiring plan, with the planned constructor, fields and lifecycle. */
+  private Object createBean(PlannedBean plannedBean) {
+    ContainerListener listener = this.listener;
+    long startNanos = listener != null ? System.nanoTime() : 0;
+
+    // 1. Fetch the objects for the constructor parameters.
+    List<PlannedInjection> constructorParameters = plannedBean.getConstructorParameters();
+    Object[] args =
+        constructorParameters.isEmpty() ? NO_ARGS : new Object[constructorParameters.size()];
+    for (int i = 0; i < args.length; i++) {
+      args[i] = getPlannedInstance(constructorParameters.get(i));
+    }
+
+    // 2. Create the object.
+    Object classInstance =
+        createInstance(plannedBean.getBeanClass(), plannedBean.getConstructor(), args);
+    long constructedNanos = listener != null ? System.nanoTime() : 0;
+
+    // 3. Autowire the fields.
+    try {
+      for (PlannedInjection field : plannedBean.getFields()) {
+        injectionStrategy
+            .getFieldInjector(field.getField())
+            .inject(classInstance, getPlannedInstance(field));
+      }
+    } catch (Exception ex) {
+      throw new BeanInjectException("Unable to Inject bean", ex);
+    }
+    long injectedNanos = listener != null ? System.nanoTime() : 0;
+
+    // 4. Post Construct call, after the ones of the dependencies.
+    BeanDefinition beanDefinition = BeanDefinition.of(plannedBean.getBeanClass());
+    initialize(beanDefinition, classInstance, plannedBean.getPostConstructMethods());
+
+    // 5. Wrap it in its interceptors.
+    classInstance = intercept(beanDefinition, classInstance);
+
+    if (listener != null) {
+      reportBeanCreated(
+          listener,
+          plannedBean.getBeanClass(),
+          Scope.SINGLETON,
+          startNanos,
+          constructedNanos,
+          injectedNanos);
+    }
     return classInstance;
   }
 
   /**
-   * Returns Implementation class for an interface/class.
-   *
-   * @param inputClass interface/concrete class
-   * @param fieldName @Autowire field name
-   * @param qualifier @Qualifier value
-   * @return Implementation class of the interface.
+   * Calls the @PostConstruct methods: through the readiness barrier for the singletons created at
+   * startup, else right away (async ones included, as the bean is used right away).
    */
-  private Class<?> getImplementationClass(Class<?> inputClass, String fieldName, String qualifier) {
+  private void initialize(
+      BeanDefinition beanDefinition, Object classInstance, List<Method> postConstructMethods) {
+    ReadinessBarrier barrier = this.readinessBarrier;
+    if (barrier != null && beanDefinition.isSingleton()) {
+      barrier.initialize(beanDefinition.getBeanClass(), classInstance, postConstructMethods);
+    } else {
+      ClassObjectUtils.invokeLifecycle(classInstance, postConstructMethods);
+    }
+  }
 
-    /* 1. if this is a concrete class, then return the same class.*/
-    if (!inputClass.isInterface()) {
-      return inputClass;
+  /** Wraps a bean with @Interceptor methods in its generated subclass. Other beans are returned. */
+  private Object intercept(BeanDefinition beanDefinition, Object classInstance) {
+    if (!beanDefinition.isIntercepted()) {
+      return classInstance;
     }
+    Map<Method, MethodInterceptor[]> interceptors = new HashMap<>();
+    for (Map.Entry<Method, List<Class<? extends MethodInterceptor>>> binding :
+        beanDefinition.getInterceptorBindings().entrySet()) {
+      List<Class<? extends MethodInterceptor>> interceptorClasses = binding.getValue();
+      MethodInterceptor[] methodInterceptors = new MethodInterceptor[interceptorClasses.size()];
+      for (int i = 0; i < methodInterceptors.length; i++) {
+        methodInterceptors[i] =
+            (MethodInterceptor) getBeanInstance(interceptorClasses.get(i), null, null);
+      }
+      interceptors.put(binding.getKey(), methodInterceptors);
+    }
+    return interceptorProxyFactory.createProxy(classInstance, interceptors);
+  }
 
-    /* 2. Else if it is an interface, return the implementation class. */
-    String errorMessage;
+  /** The bean wrapped by an intercepted subclass, else the bean itself. */
+  static Object unwrap(Object classInstance) {
+    return classInstance instanceof Intercepted
+        ? ((Intercepted) classInstance).getInterceptedTarget()
+        : classInstance;
+  }
 
-    // Get all the implementation classes for the interface.
-    Set<Entry<Class<?>, Class<?>>> implementationClasses =
-        beanInheritanceMap.entrySet().stream()
-            .filter(entry -> entry.getValue() == inputClass)
-            .collect(Collectors.toSet());
+  private static void reportBeanCreated(
+      ContainerListener listener,
+      Class<?> implementationClass,
+      String scope,
+      long startNanos,
+      long constructedNanos,
+      long injectedNanos) {
+    listener.onBeanCreated(
+        new BeanTiming(
+            implementationClass,
+            scope,
+            Thread.currentThread().getName(),
+            startNanos,
+            constructedNanos - startNanos,
+            injectedNanos - constructedNanos,
+            System.nanoTime() - injectedNanos));
+  }
 
-    if (implementationClasses.isEmpty()) {
-      errorMessage = "No impl found";
-    } else if (implementationClasses.size() == 1) {
-      return implementationClasses.stream().findFirst().get().getKey();
-    } else {
+  private Object getPlannedInstance(PlannedInjection plannedInjection) {
+    if (plannedInjection.isMultiBinding()) {
+      return getMultiBindingInstance(
+          plannedInjection.getType(),
+          plannedInjection.getImplementationClass(),
+          plannedInjection.isLazy());
+    }
+    if (plannedInjection.isProvider()) {
+      return getProvider(plannedInjection.getImplementationClass());
+    }
+    return getInjectableInstance(
+        plannedInjection.getType(),
+        plannedInjection.getImplementationClass(),
+        plannedInjection.isLazy());
+  }
 
-      // If there are multiple impl, we use qualifier or field name for resolving.
-      String findBy = (qualifier == null || qualifier.isEmpty()) ? fieldName : qualifier;
-      Optional<Entry<Class<?>, Class<?>>> optional =
-          implementationClasses.stream()
-              .filter(entry -> entry.getKey().getSimpleName().equalsIgnoreCase(findBy))
-              .findAny();
-      if (optional.isPresent()) {
-        return optional.get().getKey();
-      } else {
-        // If findBy is not matched, we reach this else block.
-        errorMessage =
-            String.format(
-                "%s implementations of %s found. Use @Qualifier to resolve it.",
-                implementationClasses.size(), inputClass.getName());
+  private Object createInstance(BeanDefinition beanDefinition, Object[] args) {
+    return createInstance(beanDefinition.getBeanClass(), beanDefinition.getConstructor(), args);
+  }
+
+  private Object createInstance(
+      Class<?> implementationClass, Constructor<?> constructor, Object[] args) {
+    try {
+      // Create a new object with the @Autowire constructor, else with the empty constructor.
+      if (constructor == null) {
+        throw new BeanFetchException(
+            "No @Autowire or empty constructor found for " + implementationClass.getName());
       }
+
+      return injectionStrategy.getBeanFactory(constructor).newInstance(args);
+    } catch (BeanFetchException ex) {
+      throw ex;
+    } catch (Exception ex) {
+      throw new BeanFetchException("Bean Initialization error", ex);
+    }
+  }
+
+  /** All the beans of a type, with their List, Set and Map (by simple class name) views. */
+  private static final class MultiBinding {
+
+    private final List<Object> list;
+    private final Set<Object> set;
+    private final Map<String, Object> map;
+
+    private MultiBinding(List<Class<?>> implementationClasses, Object[] classInstances) {
+      this.list = Collections.unmodifiableList(Arrays.asList(classInstances));
+      this.set = Collections.unmodifiableSet(new LinkedHashSet<>(list));
+
+      Map<String, Object> map = new LinkedHashMap<>();
+      for (int i = 0; i < classInstances.length; i++) {
+        map.put(implementationClasses.get(i).getSimpleName(), classInstances[i]);
+      }
+      this.map = Collections.unmodifiableMap(map);
+    }
+
+    private Object as(Class<?> collectionType) {
+      if (collectionType == Set.class) {
+        return set;
+      }
+      return collectionType == Map.class ? map : list;
+    }
+  }
+
+  /**
+   * Target of a lazy proxy, and Provider of a singleton: the bean, created on the first call, then
+   * cached.
+   */
+  private static final class LazyBean implements Provider<Object> {
+
+    private final BeanManager beanManager;
+    private final Class<?> implementationClass;
+    private volatile Object classInstance;
+
+    private LazyBean(BeanManager beanManager, Class<?> implementationClass) {
+      this.beanManager = beanManager;
+      this.implementationClass = implementationClass;
+    }
+
+    @Override
+    public Object get() {
+      Object instance = classInstance;
+      if (instance == null) {
+        // Singletons are created once, whichever thread gets here first.
+        instance = beanManager.getInstance(implementationClass);
+        classInstance = instance;
+      }
+      return instance;
+    }
+  }
+
+  /**
+   * Teardown of a singleton: done when its @PreDestroy methods return, fail, or run out of time.
+   */
+  private final class BeanDestruction {
+
+    private final Class<?> implementationClass;
+    private final ContainerListener listener;
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+    private volatile long startNanos;
+
+    private BeanDestruction(Class<?> implementationClass, ContainerListener listener) {
+      this.implementationClass = implementationClass;
+      this.listener = listener;
+    }
+
+    private void run(ScheduledExecutorService timer, long timeoutNanos) {
+      // Dependencies which are not singletons (or were never created) have nothing to destroy.
+      Object classInstance = getSingleton(implementationClass);
+      List<Method> preDestroyMethods =
+          BeanDefinition.of(implementationClass).getPreDestroyMethods();
+      if (classInstance == null
+          || classInstance instanceof BeanCreation
+          || preDestroyMethods.isEmpty()) {
+        done.complete(null);
+        return;
+      }
+
+      startNanos = System.nanoTime();
+      ScheduledFuture<?> timeout =
+          timer != null
+              ? timer.schedule(() -> finish(true), timeoutNanos, TimeUnit.NANOSECONDS)
+              : null;
+      try {
+        ClassObjectUtils.invokeLifecycle(unwrap(classInstance), preDestroyMethods);
+      } finally {
+        if (timeout != null) {
+          timeout.cancel(false);
+        }
+        finish(false);
+      }
+    }
+
+    /** Completes the teardown, and reports it if it was not already (eg on its timeout). */
+    private void finish(boolean timedOut) {
+      if (done.complete(null) && listener != null && startNanos != 0) {
+        listener.onBeanDestroyed(
+            implementationClass, startNanos, System.nanoTime() - startNanos, timedOut);
+      }
+    }
+  }
+
+  /** Placeholder for a bean being created, which other threads wait on. */
+  private static final class BeanCreation {
+
+    private final Class<?> implementationClass;
+    private final Thread creator;
+    private final CompletableFuture<Object> result;
+
+    private BeanCreation(Class<?> implementationClass) {
+      this.implementationClass = implementationClass;
+      this.creator = Thread.currentThread();
+      this.result = new CompletableFuture<>();
     }
 
-    throw new BeanFetchException(errorMessage);
+    private void complete(Object classInstance) {
+      result.complete(classInstance);
+    }
+
+    private void fail(Throwable cause) {
+      result.completeExceptionally(cause);
+    }
+
+    private Object await() {
+      // The creating thread asking for the same bean again is a circular dependency.
+      if (creator == Thread.currentThread()) {
+        throw new BeanFetchException(
+            "Circular dependency while creating " + implementationClass.getName());
+      }
+
+      try {
+        return result.get();
+      } catch (ExecutionException ex) {
+        throw new BeanFetchException("Bean Initialization error", ex.getCause());
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new BeanFetchException("Interrupted while waiting for bean creation", ex);
+      }
+    }
   }
 }
@@ -0,0 +1,26 @@
+package com.arjunsk.codekrypt.di.core;
+
+/**
+ * Resolution index and dependency graph of the components of a child container. Both are
+ * immutable, and the parent is frozen, so they are built once and shared by all the children of
+ * the same components.
+ */
+final class ChildLayout {
+
+  private final ResolutionIndex resolutionIndex;
+
+  private final DependencyGraph dependencyGraph;
+
+  ChildLayout(ResolutionIndex resolutionIndex, DependencyGraph dependencyGraph) {
+    this.resolutionIndex = resolutionIndex;
+    this.dependencyGraph = dependencyGraph;
+  }
+
+  ResolutionIndex getResolutionIndex() {
+    return resolutionIndex;
+  }
+
+  DependencyGraph getDependencyGraph() {
+    return dependencyGraph;
+  }
+}
@@ -1,61 +1,375 @@
 package com.arjunsk.codekrypt.di.core;
 
+import com.arjunsk.codekrypt.di.annotation.Component;
 import com.arjunsk.codekrypt.di.exceptions.ClassLoadException;
+import com.arjunsk.codekrypt.di.utils.ClassFileUtils;
+import com.arjunsk.codekrypt.di.utils.ClassFileUtils.AnnotatedClass;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Enumeration;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
 
-/** Fetches all the classes in the package. */
+/**
+ * Fetches all the @Component classes in the package, from class directories and jars.
+ *
+ * <p>The class files are filtered on their bytecode, so only the @Component classes are loaded,
+ * and only if their conditions match. Directory and jar traversal is fanned out across a
+ * ForkJoinPool.
+ */
 public class ClassScanner {
 
+  private static final String COMPONENT_DESCRIPTOR =
+      "L" + Component.class.getName().replace('.', '/') + ";";
+
+  // Jar entries are split into tasks of at most this size.
+  private static final int JAR_ENTRIES_PER_TASK = 256;
+
   private final Set<Class<?>> locatedClasses;
 
+  private final ClassLoader classLoader;
+
+  private final ForkJoinPool forkJoinPool;
+
+  // Evaluates the component conditions. Null to accept every component.
+  private final ConditionEvaluator conditionEvaluator;
+
   public ClassScanner(String packagePath) {
+    this(packagePath, Thread.currentThread().getContextClassLoader());
+  }
+
+  public ClassScanner(String packagePath, ClassLoader classLoader) {
+    this(packagePath, classLoader, ForkJoinPool.commonPool());
+  }
+
+  public ClassScanner(String packagePath, ClassLoader classLoader, ForkJoinPool forkJoinPool) {
+    this(packagePath, classLoader, forkJoinPool, null);
+  }
+
+  /**
+   * @param conditionEvaluator evaluates the component conditions before loading the components.
+   *     Null to accept every component.
+   */
+  public ClassScanner(
+      String packagePath,
+      ClassLoader classLoader,
+      ForkJoinPool forkJoinPool,
+      ConditionEvaluator conditionEvaluator) {
     this.locatedClasses = new HashSet<>();
+    this.classLoader = classLoader;
+    this.forkJoinPool = forkJoinPool;
+    this.conditionEvaluator = conditionEvaluator;
     this.locateClasses(packagePath);
   }
 
   /**
-   * Entry point for calling recursive function.
+   * Entry point for the scan. Every class path root containing the package is scanned.
    *
    * @param packagePath base path (path of the Driver class).
    */
   public void locateClasses(String packagePath) {
-    URL root =
-        Thread.currentThread().getContextClassLoader().getResource(packagePath.replace(".", "/"));
+    String resourcePath = packagePath.replace(".", "/");
+
+    try {
+      // 1. Fork a scan task per class path root.
+      List<ForkJoinTask<List<AnnotatedClass>>> rootTasks = new ArrayList<>();
+      Enumeration<URL> roots = classLoader.getResources(resourcePath);
+      while (roots.hasMoreElements()) {
+        rootTasks.add(forkJoinPool.submit(scanTask(roots.nextElement())));
+      }
+
+      // 2. Load only the matched classes whose conditions match, without initializing them.
+      for (ForkJoinTask<List<AnnotatedClass>> rootTask : rootTasks) {
+        for (AnnotatedClass component : rootTask.join()) {
+          if (conditionEvaluator == null
+              || conditionEvaluator.isActive(
+                  component.getClassName(), ComponentConditions.of(component))) {
+            this.locatedClasses.add(Class.forName(component.getClassName(), false, classLoader));
+          }
+        }
+      }
+    } catch (ClassLoadException ex) {
+      throw ex;
+    } catch (Exception ex) {
+      throw new ClassLoadException("Class Load Exception", ex);
+    }
+  }
 
-    // We invoke scanDirectory and recurse to traverse the tree.
-    scanDirectory(new File(root.getFile()), packagePath);
+  private RecursiveTask<List<AnnotatedClass>> scanTask(URL root)
+      throws IOException, URISyntaxException {
+    switch (root.getProtocol()) {
+      case "file":
+        return new DirectoryScanTask(new File(root.toURI()));
+      case "jar":
+        return new JarScanTask(root);
+      default:
+        throw new ClassLoadException("Unsupported class path root: " + root);
+    }
   }
 
   /**
-   * Scan Directory for the classes.
+   * Get the directories of the package on the class path, eg to watch them. Jars are left out.
    *
-   * @param file Class File
-   * @param path The current package path.
+   * @param packagePath base path (path of the Driver class).
+   * @param classLoader class loader of the components.
    */
-  private void scanDirectory(File file, String path) {
+  public static List<File> getClassDirectories(String packagePath, ClassLoader classLoader) {
     try {
-      // If Directory
-      if (file.isDirectory()) {
-        for (File innerFile : file.listFiles()) {
-          scanDirectory(innerFile, path + "." + innerFile.getName());
+      List<File> directories = new ArrayList<>();
+      Enumeration<URL> roots = classLoader.getResources(packagePath.replace(".", "/"));
+      while (roots.hasMoreElements()) {
+        URL root = roots.nextElement();
+        if ("file".equals(root.getProtocol())) {
+          directories.add(new File(root.toURI()));
         }
-      } else {
-        // If .class file.
-        if (file.getName().endsWith(".class")) {
-          Class<?> classInstance = Class.forName(path.replace(".class", ""));
-          this.locatedClasses.add(classInstance);
+      }
+      return directories;
+    } catch (IOException | URISyntaxException ex) {
+      throw new ClassLoadException("Class Load Exception", ex);
+    }
+  }
+
+  /**
+   * Checksum of the names and bytes of the class files of the package, from directories and jars,
+   * eg to detect a recompilation. Nothing is parsed nor loaded.
+   *
+   * @param packagePath base path (path of the Driver class).
+   * @param classLoader class loader of the components.
+   * @return the sum of the CRC32 of each class file, so that it does not depend on their order.
+   */
+  public static long getClassFilesChecksum(String packagePath, ClassLoader classLoader) {
+    String resourcePath = packagePath.replace(".", "/");
+    long checksum = 0;
+    try {
+      Enumeration<URL> roots = classLoader.getResources(resourcePath);
+      while (roots.hasMoreElements()) {
+        URL root = roots.nextElement();
+        if ("file".equals(root.getProtocol())) {
+          Path directory = Paths.get(root.toURI());
+          List<Path> classFiles;
+          try (Stream<Path> files = Files.walk(directory)) {
+            classFiles =
+                files
+                    .filter(file -> file.toString().endsWith(".class"))
+                    .collect(Collectors.toList());
+          }
+          for (Path classFile : classFiles) {
+            checksum +=
+                checksum(directory.relativize(classFile).toString(), Files.readAllBytes(classFile));
+          }
+        } else if ("jar".equals(root.getProtocol())) {
+          JarURLConnection connection = (JarURLConnection) root.openConnection();
+          connection.setUseCaches(false);
+          String entryPrefix = connection.getEntryName() + "/";
+          try (JarFile jarFile = connection.getJarFile()) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+              JarEntry entry = entries.nextElement();
+              if (entry.getName().startsWith(entryPrefix) && entry.getName().endsWith(".class")) {
+                checksum += checksum(entry.getName(), readEntry(jarFile, entry));
+              }
+            }
+          }
+        } else {
+          throw new ClassLoadException("Unsupported class path root: " + root);
         }
       }
-    } catch (Exception ex) {
+      return checksum;
+    } catch (IOException | URISyntaxException ex) {
       throw new ClassLoadException("Class Load Exception", ex);
     }
   }
 
-  /** Get all the located classes. */
+  private static long checksum(String name, byte[] classFile) {
+    CRC32 crc = new CRC32();
+    byte[] nameBytes = name.replace(File.separatorChar, '/').getBytes(StandardCharsets.UTF_8);
+    crc.update(nameBytes, 0, nameBytes.length);
+    crc.update(classFile, 0, classFile.length);
+    return crc.getValue();
+  }
+
+  private static byte[] readEntry(JarFile jarFile, JarEntry entry) throws IOException {
+    try (InputStream in = jarFile.getInputStream(entry)) {
+      // Size is known for entries written by the jar/shade tools.
+      if (entry.getSize() >= 0) {
+        byte[] bytes = new byte[(int) entry.getSize()];
+        new DataInputStream(in).readFully(bytes);
+        return bytes;
+      }
+
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[4096];
+      int count;
+      while ((count = in.read(buffer)) != -1) {
+        out.write(buffer, 0, count);
+      }
+      return out.toByteArray();
+    }
+  }
+
+  /**
+   * Returns the class name and annotations if the class file is a @Component class.
+   *
+   * @param name name of the .class file, for the error message.
+   * @param classFile bytes of the .class file.
+   * @throws ClassLoadException if the class file is malformed.
+   */
+  static AnnotatedClass componentClass(String name, byte[] classFile) {
+    try {
+      return ClassFileUtils.readAnnotatedClass(classFile, COMPONENT_DESCRIPTOR);
+    } catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+      throw new ClassLoadException("Malformed class file " + name, ex);
+    }
+  }
+
+  /** Get all the located @Component classes. */
   public Set<Class<?>> getLocatedClasses() {
     return locatedClasses;
   }
+
+  /** Scans a directory, forking a task per sub directory. */
+  private static final class DirectoryScanTask extends RecursiveTask<List<AnnotatedClass>> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final File directory;
+
+    DirectoryScanTask(File directory) {
+      this.directory = directory;
+    }
+
+    @Override
+    protected List<AnnotatedClass> compute() {
+      File[] files = directory.listFiles();
+      List<AnnotatedClass> components = new ArrayList<>();
+      if (files == null) {
+        return components;
+      }
+
+      try {
+        List<DirectoryScanTask> subTasks = new ArrayList<>();
+        for (File file : files) {
+          if (file.isDirectory()) {
+            DirectoryScanTask subTask = new DirectoryScanTask(file);
+            subTask.fork();
+            subTasks.add(subTask);
+          } else if (file.getName().endsWith(".class")) {
+            AnnotatedClass component =
+                componentClass(file.getPath(), Files.readAllBytes(file.toPath()));
+            if (component != null) {
+              components.add(component);
+            }
+          }
+        }
+
+        for (DirectoryScanTask subTask : subTasks) {
+          components.addAll(subTask.join());
+        }
+      } catch (IOException ex) {
+        throw new ClassLoadException("Unable to read " + directory, ex);
+      }
+      return components;
+    }
+  }
+
+  /** Reads the package entries of a jar, and splits them across {@link JarEntriesTask}s. */
+  private static final class JarScanTask extends RecursiveTask<List<AnnotatedClass>> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final URL root;
+
+    JarScanTask(URL root) {
+      this.root = root;
+    }
+
+    @Override
+    protected List<AnnotatedClass> compute() {
+      try {
+        JarURLConnection connection = (JarURLConnection) root.openConnection();
+        connection.setUseCaches(false);
+        String entryPrefix = connection.getEntryName() + "/";
+
+        try (JarFile jarFile = connection.getJarFile()) {
+          List<JarEntry> classEntries = new ArrayList<>();
+          Enumeration<JarEntry> entries = jarFile.entries();
+          while (entries.hasMoreElements()) {
+            JarEntry entry = entries.nextElement();
+            if (entry.getName().startsWith(entryPrefix) && entry.getName().endsWith(".class")) {
+              classEntries.add(entry);
+            }
+          }
+          return new JarEntriesTask(jarFile, classEntries, 0, classEntries.size()).invoke();
+        }
+      } catch (IOException ex) {
+        throw new ClassLoadException("Unable to read " + root, ex);
+      }
+    }
+  }
+
+  /** Checks a range of jar entries, halving the range until it is small enough. */
+  private static final class JarEntriesTask extends RecursiveTask<List<AnnotatedClass>> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final JarFile jarFile;
+    private final List<JarEntry> entries;
+    private final int from;
+    private final int to;
+
+    JarEntriesTask(JarFile jarFile, List<JarEntry> entries, int from, int to) {
+      this.jarFile = jarFile;
+      this.entries = entries;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected List<AnnotatedClass> compute() {
+      if (to - from > JAR_ENTRIES_PER_TASK) {
+        int middle = (from + to) >>> 1;
+        JarEntriesTask left = new JarEntriesTask(jarFile, entries, from, middle);
+        left.fork();
+        List<AnnotatedClass> components =
+            new JarEntriesTask(jarFile, entries, middle, to).compute();
+        components.addAll(left.join());
+        return components;
+      }
+
+      List<AnnotatedClass> components = new ArrayList<>();
+      try {
+        for (int i = from; i < to; i++) {
+          JarEntry entry = entries.get(i);
+          AnnotatedClass component =
+              componentClass(jarFile.getName() + "!/" + entry.getName(), readEntry(jarFile, entry));
+          if (component != null) {
+            components.add(component);
+          }
+        }
+      } catch (IOException ex) {
+        throw new ClassLoadException("Unable to read " + jarFile.getName(), ex);
+      }
+      return components;
+    }
+  }
 }
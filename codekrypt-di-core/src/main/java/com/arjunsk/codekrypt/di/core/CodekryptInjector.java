@@ -1,133 +1,399 @@
 package com.arjunsk.codekrypt.di.core;
 
-import com.arjunsk.codekrypt.di.annotation.Autowire;
-import com.arjunsk.codekrypt.di.annotation.Component;
-import com.arjunsk.codekrypt.di.annotation.Qualifier;
+import com.arjunsk.codekrypt.di.core.DependencyGraph.BeanNode;
+import com.arjunsk.codekrypt.di.core.WiringPlan.PlannedBean;
+import com.arjunsk.codekrypt.di.core.WiringPlan.PlannedInjection;
 import com.arjunsk.codekrypt.di.exceptions.BeanInitiateException;
-import com.arjunsk.codekrypt.di.utils.ClassObjectUtils;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Parameter;
+import com.arjunsk.codekrypt.di.listener.ContainerListener;
+import com.arjunsk.codekrypt.di.listener.StartupPhase;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 public class CodekryptInjector {
 
-  private static final BeanManager beanManager = new BeanManager();
-
   private CodekryptInjector() {}
 
   /**
    * Entry point for Codekrypt Injector.
    *
    * @param mainClass Main class of the program.
+   * @return the running Container, with all the eager beans created.
    */
-  public static void run(Class<?> mainClass) {
+  public static Container run(Class<?> mainClass) {
+    return run(mainClass, new InjectorConfig());
+  }
 
-    // 1. Get all the Component classes
-    String packageToScan = mainClass.getPackage().getName();
+  /**
+   * Entry point for Codekrypt Injector.
+   *
+   * @param mainClass Main class of the program.
+   * @param config Injector options.
+   * @return the running Container, with all the eager beans created. Their async @PostConstruct
+   *     methods (and the ones of their dependents) may still run: see Container.getReadiness().
+   */
+  public static Container run(Class<?> mainClass, InjectorConfig config) {
+    ContainerListener listener = config.getListener();
+    long startNanos = listener != null ? System.nanoTime() : 0;
 
-    ClassScanner classScanner = new ClassScanner(packageToScan);
+    BeanManager beanManager = new BeanManager();
+    beanManager.setInjectionStrategy(config.getInjectionStrategy());
+    configure(beanManager, config);
 
-    Set<Class<?>> componentClasses =
-        classScanner.getLocatedClasses().stream()
-            .filter(item -> item.isAnnotationPresent(Component.class))
-            .collect(Collectors.toSet());
+    // 0. If a wiring plan was generated for this program, and its component conditions have the
+    // same outcome, execute it. (No eager beans are planned in global lazy mode.)
+    ConditionEvaluator conditionEvaluator = newConditionEvaluator(mainClass, config);
+    WiringPlan wiringPlan =
+        config.isLazyInit() ? null : WiringPlan.load(mainClass, conditionEvaluator);
+    if (wiringPlan != null) {
+      runWiringPlan(beanManager, wiringPlan, config, listener, startNanos);
+    } else {
+      // Deliberately a new evaluator: a rejected plan already evaluated its own components,
+      // which may no longer exist, and they would stay in the condition report.
+      conditionEvaluator = newConditionEvaluator(mainClass, config);
+      runDependencyGraph(beanManager, mainClass, conditionEvaluator, config, listener, startNanos);
+    }
 
-    // 2. Initialize Bean-Inheritance-Map
-    for (Class<?> componentClass : componentClasses) {
-      Class<?>[] interfaces = componentClass.getInterfaces();
-      if (interfaces.length == 0) {
-        beanManager.addBeanInheritanceMapping(componentClass, componentClass);
-      } else {
-
-        // TODO: To fix, multiple interface for 1 impl class (Diamond problem)
-        for (Class<?> interfaceClass : interfaces) {
-          beanManager.addBeanInheritanceMapping(componentClass, interfaceClass);
-        }
-      }
+    Container container =
+        start(beanManager, conditionEvaluator.getReport(), null, config, startNanos);
+    if (config.isHotReload()) {
+      container.setHotReloader(new HotReloader(container, mainClass, conditionEvaluator));
     }
+    return container;
+  }
 
-    // 3. Instantiate all the component class.
+  /**
+   * Runs a child container of the components: types bound by the parent's components are
+   * resolved by the parent, so only the child's own beans are created. Children of the same
+   * components share their resolution index and dependency graph.
+   *
+   * @param parent running parent Container, frozen from now on.
+   * @param componentClasses components of the child.
+   * @param conditionReport components excluded from the child, and why.
+   * @param config Injector options. The injection strategy is the parent's.
+   */
+  static Container runChild(
+      Container parent,
+      Collection<Class<?>> componentClasses,
+      ConditionReport conditionReport,
+      InjectorConfig config) {
+    ContainerListener listener = config.getListener();
+    long startNanos = listener != null ? System.nanoTime() : 0;
+
+    // 1. Freeze the parent, so that what it resolves never changes under its children.
+    BeanManager parentBeanManager = parent.getBeanManager();
+    parentBeanManager.freeze();
+    BeanManager beanManager = new BeanManager(parentBeanManager);
+    configure(beanManager, config);
+    long phaseNanos = endPhase(listener, StartupPhase.DISCOVERY, startNanos);
+
+    // 2. Resolution index and dependency graph, built by the first child of these components.
+    ChildLayout layout =
+        parent.getChildLayout(
+            componentClasses,
+            components -> {
+              beanManager.registerComponents(components);
+              return new ChildLayout(
+                  beanManager.getResolutionIndex(),
+                  DependencyGraph.build(components, beanManager));
+            });
+    beanManager.registerComponents(layout.getResolutionIndex());
+    phaseNanos = endPhase(listener, StartupPhase.GRAPH, phaseNanos);
+
+    // 3. Create the eager singletons of the child. The ones of the parent are only fetched.
+    DependencyGraph dependencyGraph = layout.getDependencyGraph();
+    beanManager.openReadinessBarrier(getDependencies(dependencyGraph));
     try {
-      for (Class<?> componentClass : componentClasses) {
-        // Create a bean
-        Object beanClassObject = initBeanClass(componentClass, null);
+      instantiate(beanManager, dependencyGraph, config.getExecutor());
+    } catch (CompletionException ex) {
+      throw new BeanInitiateException("Unable to Initiate Class", ex.getCause());
+    }
+    endPhase(listener, StartupPhase.INSTANTIATION, phaseNanos);
+
+    return start(beanManager, conditionReport, parent, config, startNanos);
+  }
 
-        // TODO: Fix post-construct invocation order.
+  /** Applies the options shared by root and child containers. */
+  private static void configure(BeanManager beanManager, InjectorConfig config) {
+    beanManager.setLazyInit(config.isLazyInit());
+    beanManager.setListener(config.getListener());
+    beanManager.setDestroyExecutor(config.getExecutor());
+    beanManager.setPreDestroyTimeout(config.getPreDestroyTimeoutNanos(), TimeUnit.NANOSECONDS);
+    beanManager.setInitExecutor(config.getInitExecutor());
+    config.getScopes().forEach(beanManager::registerScope);
+  }
 
-        // Post Construct call.
-        ClassObjectUtils.invokePostConstruct(beanClassObject);
-      }
-    } catch (Exception ex) {
-      throw new BeanInitiateException("Unable to Initiate Class", ex);
+  /** Wraps the started beans in a Container. */
+  private static Container start(
+      BeanManager beanManager,
+      ConditionReport conditionReport,
+      Container parent,
+      InjectorConfig config,
+      long startNanos) {
+    ContainerListener listener = config.getListener();
+
+    // The remaining @PostConstruct methods run in the background, until the readiness.
+    CompletableFuture<Void> readiness = beanManager.closeReadinessBarrier();
+
+    // The startup-only structures are dropped. Children keep the metadata shared with siblings.
+    // Hot reloaded containers keep changing, so they are never compacted.
+    if (config.isCompactRuntime() && !config.isHotReload()) {
+      beanManager.compact(parent == null);
+    }
+    if (listener != null) {
+      listener.onStartup(System.nanoTime() - startNanos);
+      readiness.whenComplete((ignored, ex) -> listener.onReady(System.nanoTime() - startNanos));
     }
+
+    Container container = new Container(beanManager, conditionReport, parent);
+    if (config.isShutdownHook()) {
+      container.registerShutdownHook();
+    }
+    return container;
   }
 
-  /**
-   * Initiates Bean Class.
-   *
-   * @param beanClass Bean Class to be initiated
-   * @param qualifier For @Autowire Field, Qualifier would be present, in case of multiple
-   *     implementations. For @Component Class, Qualifier is null.
-   * @param <T> Class Type
-   */
-  private static <T> Object initBeanClass(Class<T> beanClass, String qualifier) {
+  /** Bean Class -> its dependencies in the graph, for the readiness barrier. */
+  private static Function<Class<?>, Collection<Class<?>>> getDependencies(
+      DependencyGraph dependencyGraph) {
+    return beanClass -> {
+      BeanNode node = dependencyGraph.getNode(beanClass);
+      if (node == null) {
+        return Collections.emptyList();
+      }
+      List<Class<?>> dependencies = new ArrayList<>();
+      for (BeanNode dependency : node.getDependencies()) {
+        dependencies.add(dependency.getBeanClass());
+      }
+      return dependencies;
+    };
+  }
 
-    boolean isOneConstructorInjectionDefined = false;
+  private static ConditionEvaluator newConditionEvaluator(
+      Class<?> mainClass, InjectorConfig config) {
+    return new ConditionEvaluator(
+        config.getProfiles(), config.getProperties(), mainClass.getClassLoader());
+  }
 
-    // Used for class.newInstance(class[],objects[])
-    List<Class<?>> argClassList = new LinkedList<>();
-    List<Object> argObjectList = new ArrayList<>();
+  private static void runDependencyGraph(
+      BeanManager beanManager,
+      Class<?> mainClass,
+      ConditionEvaluator conditionEvaluator,
+      InjectorConfig config,
+      ContainerListener listener,
+      long startNanos) {
 
-    for (Constructor<?> constructor : beanClass.getConstructors()) {
+    // 1. Get all the Component classes whose conditions match (from the build-time index, else by
+    // scanning). The excluded ones are never loaded.
+    ComponentIndex componentIndex = ComponentIndex.load(mainClass.getClassLoader());
+    Set<Class<?>> componentClasses =
+        ComponentDiscovery.findComponents(mainClass, componentIndex, conditionEvaluator);
+    long phaseNanos = endPhase(listener, StartupPhase.DISCOVERY, startNanos);
 
-      // Fail if we have, more than 1 @Autowire Constructor.
-      if (isOneConstructorInjectionDefined) {
-        throw new IllegalArgumentException("Only supports 1 Autowire constructor.");
+    // 2. Build the Interface -> Implementation resolution index.
+    beanManager.registerComponents(componentClasses);
+    phaseNanos = endPhase(listener, StartupPhase.RESOLUTION, phaseNanos);
+
+    // 3. A graph validated at compile time is not validated again: the beans are created one
+    // after another, in the order of the index.
+    if (componentIndex != null
+        && componentIndex.isValidated(mainClass.getPackage().getName())
+        && config.isSequential()) {
+      phaseNanos = endPhase(listener, StartupPhase.GRAPH, phaseNanos);
+      beanManager.openReadinessBarrier(
+          beanClass -> DependencyGraph.getDependencies(beanClass, beanManager));
+      try {
+        instantiate(beanManager, componentClasses);
+      } catch (RuntimeException ex) {
+        throw new BeanInitiateException("Unable to Initiate Class", ex);
       }
+      endPhase(listener, StartupPhase.INSTANTIATION, phaseNanos);
+      return;
+    }
 
-      if (constructor.isAnnotationPresent(Autowire.class)) {
+    // 4. Else, build the dependency graph, failing on cycles.
+    DependencyGraph dependencyGraph = DependencyGraph.build(componentClasses, beanManager);
+    if (listener != null) {
+      listener.onGraphBuilt(dependencyGraph);
+    }
+    phaseNanos = endPhase(listener, StartupPhase.GRAPH, phaseNanos);
 
-        isOneConstructorInjectionDefined = true;
+    // 5. Instantiate all the beans, dependencies first. Their @PostConstruct methods run after the
+    // ones of their dependencies.
+    beanManager.openReadinessBarrier(getDependencies(dependencyGraph));
+    try {
+      instantiate(beanManager, dependencyGraph, config.getExecutor());
+    } catch (CompletionException ex) {
+      throw new BeanInitiateException("Unable to Initiate Class", ex.getCause());
+    }
+    endPhase(listener, StartupPhase.INSTANTIATION, phaseNanos);
+  }
 
-        for (Parameter field : constructor.getParameters()) {
-          argClassList.add(field.getType());
+  /**
+   * Creates the planned singletons with the planned implementations: in the planned order, or in
+   * parallel on the executor once their dependencies are created. The components are still
+   * registered, for the beans created on demand.
+   */
+  private static void runWiringPlan(
+      BeanManager beanManager,
+      WiringPlan wiringPlan,
+      InjectorConfig config,
+      ContainerListener listener,
+      long startNanos) {
+    long phaseNanos = endPhase(listener, StartupPhase.DISCOVERY, startNanos);
 
-          // Getting @Qualifier attribute from the Field.
-          String qualifierVal =
-              field.isAnnotationPresent(Qualifier.class)
-                  ? field.getAnnotation(Qualifier.class).value()
-                  : null;
+    beanManager.registerComponents(wiringPlan.getComponentClasses());
+    phaseNanos = endPhase(listener, StartupPhase.RESOLUTION, phaseNanos);
 
-          // Create object for this @Autowire Field.
-          Object fieldArgumentObject = initBeanClass(field.getType(), qualifierVal);
-          argObjectList.add(fieldArgumentObject);
+    Map<Class<?>, List<Class<?>>> dependencies = new HashMap<>();
+    for (PlannedBean plannedBean : wiringPlan.getBeans()) {
+      dependencies.put(
+          plannedBean.getBeanClass(), getPlannedDependencies(beanManager, plannedBean));
+    }
+    beanManager.openReadinessBarrier(
+        beanClass -> dependencies.getOrDefault(beanClass, Collections.emptyList()));
+    if (config.isSequential()) {
+      try {
+        for (PlannedBean plannedBean : wiringPlan.getBeans()) {
+          beanManager.createPlannedBean(plannedBean);
         }
+      } catch (RuntimeException ex) {
+        throw new BeanInitiateException("Unable to Initiate Class", ex);
+      }
+    } else {
+      try {
+        instantiate(beanManager, wiringPlan, dependencies, config.getExecutor());
+      } catch (CompletionException ex) {
+        throw new BeanInitiateException("Unable to Initiate Class", ex.getCause());
+      }
+    }
+    endPhase(listener, StartupPhase.INSTANTIATION, phaseNanos);
+  }
+
+  /**
+   * Beans a planned bean needs first, as in the dependency graph: not its lazy/Provider points,
+   * nor its thread/context scoped beans.
+   */
+  private static List<Class<?>> getPlannedDependencies(
+      BeanManager beanManager, PlannedBean plannedBean) {
+    List<Class<?>> dependencies = new ArrayList<>();
+    List<PlannedInjection> injections = new ArrayList<>(plannedBean.getConstructorParameters());
+    injections.addAll(plannedBean.getFields());
+    for (PlannedInjection injection : injections) {
+      if (injection.isLazy() || injection.isProvider()) {
+        continue;
+      }
+      if (injection.isMultiBinding()) {
+        dependencies.addAll(
+            beanManager.getImplementationClasses(injection.getImplementationClass()));
+      } else if (!BeanDefinition.of(injection.getImplementationClass()).isScopedProxy()) {
+        dependencies.add(injection.getImplementationClass());
       }
     }
-    Object beanClassObject;
-    String beanClassName = beanClass.getName();
+    return dependencies;
+  }
 
-    if (!isOneConstructorInjectionDefined) {
+  /**
+   * Reports a startup phase to the listener, if any.
+   *
+   * @return the end of the phase, which is the start of the next one.
+   */
+  private static long endPhase(ContainerListener listener, StartupPhase phase, long phaseNanos) {
+    if (listener == null) {
+      return 0;
+    }
+    long nowNanos = System.nanoTime();
+    listener.onPhase(phase, phaseNanos, nowNanos - phaseNanos);
+    return nowNanos;
+  }
 
-      // 3.1 Here it will be interface, ie @Autowire Field Or a concrete class, with no constructor
-      // injection.
-      beanClassObject = beanManager.getBeanInstance(beanClass, beanClassName, qualifier);
+  /**
+   * Schedules every bean once all its dependencies are created, so independent beans are created
+   * in parallel on the executor. Nodes are submitted wave by wave, so with the default (calling
+   * thread) executor the beans are created in topological order.
+   */
+  private static void instantiate(
+      BeanManager beanManager, DependencyGraph dependencyGraph, Executor executor) {
+    Map<BeanNode, CompletableFuture<Void>> beanFutures = new HashMap<>();
 
-    } else {
+    for (List<BeanNode> wave : dependencyGraph.getWaves()) {
+      for (BeanNode node : wave) {
+        CompletableFuture<?>[] dependencyFutures =
+            node.getDependencies().stream()
+                .map(beanFutures::get)
+                .toArray(CompletableFuture<?>[]::new);
 
-      // 3.2 Here it will be @Component class, with constructor injection.
-      beanClassObject =
-          beanManager.getBeanInstance(
-              beanClass, beanClassName, qualifier, argClassList, argObjectList);
+        beanFutures.put(
+            node,
+            CompletableFuture.allOf(dependencyFutures)
+                .thenRunAsync(() -> initBeanClass(beanManager, node.getBeanClass()), executor));
+      }
     }
 
-    // 4. Autowire + recursion.
-    ClassObjectUtils.invokeAutowire(beanManager, beanClass, beanClassObject);
+    CompletableFuture.allOf(beanFutures.values().toArray(new CompletableFuture<?>[0])).join();
+  }
+
+  /**
+   * Schedules every planned bean once its planned dependencies are created. The plan lists the
+   * beans dependencies first, so their futures exist when the bean is scheduled. Dependencies
+   * which are not planned (eg prototypes) are created on demand, when they are injected.
+   */
+  private static void instantiate(
+      BeanManager beanManager,
+      WiringPlan wiringPlan,
+      Map<Class<?>, List<Class<?>>> dependencies,
+      Executor executor) {
+    Map<Class<?>, CompletableFuture<Void>> beanFutures = new HashMap<>();
+
+    for (PlannedBean plannedBean : wiringPlan.getBeans()) {
+      CompletableFuture<?>[] dependencyFutures =
+          dependencies.get(plannedBean.getBeanClass()).stream()
+              .map(beanFutures::get)
+              .filter(Objects::nonNull)
+              .toArray(CompletableFuture<?>[]::new);
+
+      beanFutures.put(
+          plannedBean.getBeanClass(),
+          CompletableFuture.allOf(dependencyFutures)
+              .thenRunAsync(() -> beanManager.createPlannedBean(plannedBean), executor));
+    }
+
+    CompletableFuture.allOf(beanFutures.values().toArray(new CompletableFuture<?>[0])).join();
+  }
+
+  /**
+   * Creates the components in the order of the validated index, dependencies first, on the
+   * calling thread. Other dependencies are created on demand, when they are injected.
+   */
+  private static void instantiate(BeanManager beanManager, Collection<Class<?>> componentClasses) {
+    for (Class<?> componentClass : componentClasses) {
+      // Abstract components are only resolution targets.
+      if (!Modifier.isAbstract(componentClass.getModifiers())) {
+        initBeanClass(beanManager, componentClass);
+      }
+    }
+  }
 
-    return beanClassObject;
+  /**
+   * Initiates Bean Class. All its dependencies are already created. Lazy beans, and beans which
+   * are not singletons, are only created when fetched.
+   *
+   * @param beanClass Bean Class to be initiated
+   */
+  private static void initBeanClass(BeanManager beanManager, Class<?> beanClass) {
+    if (BeanDefinition.of(beanClass).isSingleton() && !beanManager.isLazy(beanClass)) {
+      // Creates the bean: constructor injection, @Autowire fields, then Post Construct call.
+      beanManager.getBeanInstance(beanClass, beanClass.getName(), null);
+    }
   }
 }
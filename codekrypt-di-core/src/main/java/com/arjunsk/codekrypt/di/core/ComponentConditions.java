@@ -0,0 +1,151 @@
+package com.arjunsk.codekrypt.di.core;
+
+import com.arjunsk.codekrypt.di.annotation.ConditionalOnClass;
+import com.arjunsk.codekrypt.di.annotation.ConditionalOnProperty;
+import com.arjunsk.codekrypt.di.annotation.Profile;
+import com.arjunsk.codekrypt.di.utils.ClassFileUtils.AnnotatedClass;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The @Profile, @ConditionalOnClass and @ConditionalOnProperty conditions of a component. They are
+ * read without loading the component: from the component index, its class file, or the wiring
+ * plan.
+ */
+public final class ComponentConditions {
+
+  public static final ComponentConditions NONE =
+      new ComponentConditions(
+          Collections.emptyList(), Collections.emptyList(), null, "", false);
+
+  private static final String PROFILE_DESCRIPTOR = descriptor(Profile.class);
+  private static final String ON_CLASS_DESCRIPTOR = descriptor(ConditionalOnClass.class);
+  private static final String ON_PROPERTY_DESCRIPTOR = descriptor(ConditionalOnProperty.class);
+
+  // @Profile values. Empty if not annotated.
+  private final List<String> profiles;
+
+  // @ConditionalOnClass values. Empty if not annotated.
+  private final List<String> requiredClasses;
+
+  // @ConditionalOnProperty name. Null if not annotated.
+  private final String propertyName;
+
+  private final String havingValue;
+
+  private final boolean matchIfMissing;
+
+  public ComponentConditions(
+      List<String> profiles,
+      List<String> requiredClasses,
+      String propertyName,
+      String havingValue,
+      boolean matchIfMissing) {
+    this.profiles = Collections.unmodifiableList(profiles);
+    this.requiredClasses = Collections.unmodifiableList(requiredClasses);
+    this.propertyName = propertyName;
+    this.havingValue = havingValue;
+    this.matchIfMissing = matchIfMissing;
+  }
+
+  /**
+   * Get the conditions of a class read from its class file.
+   *
+   * @param annotatedClass class and its class level annotations.
+   */
+  public static ComponentConditions of(AnnotatedClass annotatedClass) {
+    Map<String, Object> profile = annotatedClass.getAnnotation(PROFILE_DESCRIPTOR);
+    Map<String, Object> onClass = annotatedClass.getAnnotation(ON_CLASS_DESCRIPTOR);
+    Map<String, Object> onProperty = annotatedClass.getAnnotation(ON_PROPERTY_DESCRIPTOR);
+    if (profile == null && onClass == null && onProperty == null) {
+      return NONE;
+    }
+
+    return new ComponentConditions(
+        profile != null ? strings(profile.get("value")) : Collections.emptyList(),
+        onClass != null ? strings(onClass.get("value")) : Collections.emptyList(),
+        onProperty != null ? (String) onProperty.get("name") : null,
+        onProperty != null ? (String) onProperty.getOrDefault("havingValue", "") : "",
+        onProperty != null && (Boolean) onProperty.getOrDefault("matchIfMissing", false));
+  }
+
+  /** A single value is stored as such in the class file, and a String[] as a List. */
+  private static List<String> strings(Object value) {
+    List<String> strings = new ArrayList<>();
+    if (value instanceof List) {
+      for (Object element : (List<?>) value) {
+        strings.add((String) element);
+      }
+    } else if (value != null) {
+      strings.add((String) value);
+    }
+    return strings;
+  }
+
+  private static String descriptor(Class<?> annotationClass) {
+    return "L" + annotationClass.getName().replace('.', '/') + ";";
+  }
+
+  /** Reads conditions written by {@link #write(DataOutputStream)}. */
+  public static ComponentConditions read(DataInputStream data) throws IOException {
+    List<String> profiles = new ArrayList<>();
+    for (int i = data.readInt(); i > 0; i--) {
+      profiles.add(data.readUTF());
+    }
+    List<String> requiredClasses = new ArrayList<>();
+    for (int i = data.readInt(); i > 0; i--) {
+      requiredClasses.add(data.readUTF());
+    }
+    String propertyName = data.readBoolean() ? data.readUTF() : null;
+    return new ComponentConditions(
+        profiles, requiredClasses, propertyName, data.readUTF(), data.readBoolean());
+  }
+
+  /** Writes the conditions, eg in the wiring plan. */
+  public void write(DataOutputStream data) throws IOException {
+    data.writeInt(profiles.size());
+    for (String profile : profiles) {
+      data.writeUTF(profile);
+    }
+    data.writeInt(requiredClasses.size());
+    for (String requiredClass : requiredClasses) {
+      data.writeUTF(requiredClass);
+    }
+    data.writeBoolean(propertyName != null);
+    if (propertyName != null) {
+      data.writeUTF(propertyName);
+    }
+    data.writeUTF(havingValue);
+    data.writeBoolean(matchIfMissing);
+  }
+
+  /** Whether the component has no condition, ie is always registered. */
+  public boolean isEmpty() {
+    return profiles.isEmpty() && requiredClasses.isEmpty() && propertyName == null;
+  }
+
+  public List<String> getProfiles() {
+    return profiles;
+  }
+
+  public List<String> getRequiredClasses() {
+    return requiredClasses;
+  }
+
+  public String getPropertyName() {
+    return propertyName;
+  }
+
+  public String getHavingValue() {
+    return havingValue;
+  }
+
+  public boolean isMatchIfMissing() {
+    return matchIfMissing;
+  }
+}
@@ -0,0 +1,90 @@
+package com.arjunsk.codekrypt.di.core;
+
+import com.arjunsk.codekrypt.di.core.ComponentIndex.IndexedComponent;
+import com.arjunsk.codekrypt.di.exceptions.ClassLoadException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+/** Finds the @Component classes, using the build-time index when available. */
+public final class ComponentDiscovery {
+
+  private ComponentDiscovery() {}
+
+  /**
+   * Get all the @Component classes in the package of the main class.
+   *
+   * <p>If a {@link ComponentIndex} covers the package, only the indexed classes are loaded. Else,
+   * eg when only the libraries were compiled with the processor, we fall back to scanning the
+   * package with {@link ClassScanner}.
+   *
+   * @param mainClass Main class of the program.
+   * @return the @Component classes.
+   */
+  public static Set<Class<?>> findComponents(Class<?> mainClass) {
+    return findComponents(mainClass, new ConditionEvaluator(mainClass.getClassLoader()));
+  }
+
+  /**
+   * Get the @Component classes in the package of the main class whose conditions match. The
+   * excluded ones are never loaded.
+   *
+   * @param mainClass Main class of the program.
+   * @param conditionEvaluator evaluates the @Profile and @Conditional* annotations.
+   * @return the @Component classes.
+   */
+  public static Set<Class<?>> findComponents(
+      Class<?> mainClass, ConditionEvaluator conditionEvaluator) {
+    return findComponents(
+        mainClass, ComponentIndex.load(mainClass.getClassLoader()), conditionEvaluator);
+  }
+
+  /**
+   * Get the @Component classes in the package of the main class whose conditions match, from an
+   * already loaded index.
+   *
+   * @param mainClass Main class of the program.
+   * @param componentIndex build-time index, or null to scan the package. Ignored if it does not
+   *     cover the package.
+   * @param conditionEvaluator evaluates the @Profile and @Conditional* annotations.
+   * @return the @Component classes.
+   */
+  public static Set<Class<?>> findComponents(
+      Class<?> mainClass, ComponentIndex componentIndex, ConditionEvaluator conditionEvaluator) {
+    String packageToScan = mainClass.getPackage().getName();
+    ClassLoader classLoader = mainClass.getClassLoader();
+
+    // 1. Use the index, if the package was compiled with the processor.
+    if (componentIndex != null && componentIndex.covers(packageToScan)) {
+      return loadIndexedComponents(
+          componentIndex, packageToScan, classLoader, conditionEvaluator);
+    }
+
+    // 2. Else, scan the package.
+    return new ClassScanner(
+            packageToScan, classLoader, ForkJoinPool.commonPool(), conditionEvaluator)
+        .getLocatedClasses();
+  }
+
+  private static Set<Class<?>> loadIndexedComponents(
+      ComponentIndex componentIndex,
+      String packageToScan,
+      ClassLoader classLoader,
+      ConditionEvaluator conditionEvaluator) {
+
+    // In index order: a validated index lists the components dependencies first.
+    Set<Class<?>> componentClasses = new LinkedHashSet<>();
+    for (IndexedComponent component : componentIndex.getComponents(packageToScan)) {
+      if (!conditionEvaluator.isActive(component.getClassName(), component.getConditions())) {
+        continue;
+      }
+      try {
+        // Class initialization is deferred until the bean is instantiated.
+        componentClasses.add(Class.forName(component.getClassName(), false, classLoader));
+      } catch (ClassNotFoundException ex) {
+        throw new ClassLoadException("Indexed component not found", ex);
+      }
+    }
+    return componentClasses;
+  }
+}
@@ -0,0 +1,241 @@
+package com.arjunsk.codekrypt.di.core;
+
+import com.arjunsk.codekrypt.di.exceptions.ClassLoadException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Build-time index of @Component classes, written by the codekrypt-di-processor module.
+ *
+ * <p>An index starts with a {@link #ROOT} line: the package of all the classes compiled with the
+ * processor. It only lists the components of a package under its root, as the classes of that
+ * package could have been compiled without the processor.
+ *
+ * <p>Each component starts with a {@link #COMPONENT} line, followed by its {@link #PROFILE},
+ * {@link #ON_CLASS} and {@link #ON_PROPERTY} condition lines. Columns are tab separated. Unknown
+ * lines are skipped, eg the injection metadata written by older processors.
+ *
+ * <p>An index starting with a {@link #VALIDATED} line was validated at compile time: its
+ * components resolve and do not depend on each other in a cycle, whatever their conditions. They
+ * are listed dependencies first.
+ */
+public class ComponentIndex {
+
+  public static final String INDEX_LOCATION = "META-INF/codekrypt/components.idx";
+
+  // Set this System Property to "true" to ignore the index and fall back to ClassScanner.
+  public static final String IGNORE_INDEX_PROPERTY = "codekrypt.index.ignore";
+
+  public static final String ROOT = "root";
+  public static final String VALIDATED = "validated";
+  public static final String COMPONENT = "component";
+  public static final String PROFILE = "profile";
+  public static final String ON_CLASS = "on-class";
+  public static final String ON_PROPERTY = "on-property";
+
+  private final List<IndexedComponent> components;
+
+  // Root packages of the merged indexes.
+  private final List<String> rootPackages;
+
+  // Whether all the merged indexes were validated at compile time.
+  private final boolean validated;
+
+  // Sum of the CRC32 of each merged index, so that it does not depend on their order.
+  private final long checksum;
+
+  public ComponentIndex(List<IndexedComponent> components, List<String> rootPackages) {
+    this(components, rootPackages, false, 0);
+  }
+
+  private ComponentIndex(
+      List<IndexedComponent> components,
+      List<String> rootPackages,
+      boolean validated,
+      long checksum) {
+    this.components = Collections.unmodifiableList(components);
+    this.rootPackages = Collections.unmodifiableList(rootPackages);
+    this.validated = validated;
+    this.checksum = checksum;
+  }
+
+  /**
+   * Loads and merges every index visible to the class loader.
+   *
+   * @param classLoader class loader used to locate the index resources.
+   * @return the merged index, or null if no index is present (or it is ignored).
+   */
+  public static ComponentIndex load(ClassLoader classLoader) {
+    if (Boolean.getBoolean(IGNORE_INDEX_PROPERTY)) {
+      return null;
+    }
+
+    try {
+      List<URL> resources = Collections.list(classLoader.getResources(INDEX_LOCATION));
+      return resources.isEmpty() ? null : load(resources);
+    } catch (IOException ex) {
+      throw new ClassLoadException("Unable to read component index", ex);
+    }
+  }
+
+  /**
+   * Loads and merges the given indexes.
+   *
+   * @param resources index resources.
+   */
+  public static ComponentIndex load(Collection<URL> resources) {
+    try {
+      List<IndexedComponent> components = new ArrayList<>();
+      List<String> rootPackages = new ArrayList<>();
+      boolean validated = true;
+      long checksum = 0;
+      for (URL resource : resources) {
+        CRC32 crc = new CRC32();
+        validated &= parse(resource, components, rootPackages, crc);
+        checksum += crc.getValue();
+      }
+      return new ComponentIndex(components, rootPackages, validated, checksum);
+    } catch (IOException ex) {
+      throw new ClassLoadException("Unable to read component index", ex);
+    }
+  }
+
+  /**
+   * Adds the components and the root package of the index, and its lines to the checksum.
+   *
+   * @return whether it was validated.
+   */
+  private static boolean parse(
+      URL resource, List<IndexedComponent> components, List<String> rootPackages, CRC32 crc)
+      throws IOException {
+    try (BufferedReader reader =
+        new BufferedReader(
+            new InputStreamReader(resource.openStream(), StandardCharsets.UTF_8))) {
+
+      IndexedComponent current = null;
+      boolean validated = false;
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.isEmpty() || line.startsWith("#")) {
+          continue;
+        }
+        byte[] bytes = (line + "\n").getBytes(StandardCharsets.UTF_8);
+        crc.update(bytes, 0, bytes.length);
+
+        String[] columns = line.split("\t", -1);
+        if (ROOT.equals(columns[0])) {
+          rootPackages.add(columns[1]);
+        } else if (VALIDATED.equals(columns[0])) {
+          validated = true;
+        } else if (COMPONENT.equals(columns[0])) {
+          current = new IndexedComponent(columns[1]);
+          components.add(current);
+        } else if (current == null) {
+          throw new ClassLoadException("Malformed component index: " + resource);
+        } else if (PROFILE.equals(columns[0])) {
+          current.profiles.addAll(Arrays.asList(columns).subList(1, columns.length));
+        } else if (ON_CLASS.equals(columns[0])) {
+          current.requiredClasses.addAll(Arrays.asList(columns).subList(1, columns.length));
+        } else if (ON_PROPERTY.equals(columns[0])) {
+          current.propertyName = columns[1];
+          current.havingValue = columns[2];
+          current.matchIfMissing = Boolean.parseBoolean(columns[3]);
+        }
+      }
+      return validated;
+    }
+  }
+
+  /** Get all the indexed components. */
+  public List<IndexedComponent> getComponents() {
+    return components;
+  }
+
+  /**
+   * Get the indexed components in the package or its sub packages.
+   *
+   * @param packageName base package (package of the Driver class).
+   */
+  public List<IndexedComponent> getComponents(String packageName) {
+    String prefix = packageName + ".";
+    List<IndexedComponent> result = new ArrayList<>();
+    for (IndexedComponent component : components) {
+      if (component.getClassName().startsWith(prefix)) {
+        result.add(component);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Whether the package was compiled with the processor, so that its components are the indexed
+   * ones: it is in the root package of one of the merged indexes. Else, the package is scanned.
+   *
+   * @param packageName base package (package of the Driver class).
+   */
+  public boolean covers(String packageName) {
+    for (String rootPackage : rootPackages) {
+      if (rootPackage.isEmpty()
+          || packageName.equals(rootPackage)
+          || packageName.startsWith(rootPackage + ".")) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Checksum of the merged indexes, whatever their order, eg to detect a recompilation. */
+  public long getChecksum() {
+    return checksum;
+  }
+
+  /**
+   * Whether the components of the package are exactly the ones validated at compile time, so
+   * that the startup does not need to validate them again: the index covers the package, every
+   * merged index was validated, and none of their components is outside the package.
+   *
+   * @param packageName base package (package of the Driver class).
+   */
+  public boolean isValidated(String packageName) {
+    return validated
+        && covers(packageName)
+        && getComponents(packageName).size() == components.size();
+  }
+
+  /** A @Component class and its conditions, as recorded at compile time. */
+  public static class IndexedComponent {
+
+    private final String className;
+    private final List<String> profiles = new ArrayList<>();
+    private final List<String> requiredClasses = new ArrayList<>();
+    private String propertyName;
+    private String havingValue = "";
+    private boolean matchIfMissing;
+
+    IndexedComponent(String className) {
+      this.className = className;
+    }
+
+    public String getClassName() {
+      return className;
+    }
+
+    /** Get its @Profile, @ConditionalOnClass and @ConditionalOnProperty conditions. */
+    public ComponentConditions getConditions() {
+      if (profiles.isEmpty() && requiredClasses.isEmpty() && propertyName == null) {
+        return ComponentConditions.NONE;
+      }
+      return new ComponentConditions(
+          profiles, requiredClasses, propertyName, havingValue, matchIfMissing);
+    }
+  }
+}
@@ -0,0 +1,157 @@
+package com.arjunsk.codekrypt.di.core;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Evaluates the component conditions against the active profiles, the properties and the class
+ * path, before the components are loaded, and records the excluded ones in a {@link
+ * ConditionReport}.
+ */
+public class ConditionEvaluator {
+
+  // Comma separated active profiles, used when none is configured.
+  public static final String ACTIVE_PROFILES_PROPERTY = "codekrypt.profiles.active";
+
+  // Active profile when none is configured.
+  public static final String DEFAULT_PROFILE = "default";
+
+  private final Set<String> activeProfiles;
+
+  private final Map<String, String> properties;
+
+  private final ClassLoader classLoader;
+
+  private final ConditionReport report = new ConditionReport();
+
+  // Class name -> conditions, of every evaluated component having conditions.
+  private final Map<String, ComponentConditions> evaluatedConditions = new LinkedHashMap<>();
+
+  /**
+   * Evaluator of the environment: profiles of the System Property, and System Properties.
+   *
+   * @param classLoader class loader of the components.
+   */
+  public ConditionEvaluator(ClassLoader classLoader) {
+    this(Collections.emptyList(), Collections.emptyMap(), classLoader);
+  }
+
+  /**
+   * @param profiles active profiles. If empty, taken from the System Property, else "default".
+   * @param properties properties, looked up before the System Properties.
+   * @param classLoader class loader of the components.
+   */
+  public ConditionEvaluator(
+      Collection<String> profiles, Map<String, String> properties, ClassLoader classLoader) {
+    this.activeProfiles = new LinkedHashSet<>(profiles);
+    if (activeProfiles.isEmpty()) {
+      String systemProfiles = System.getProperty(ACTIVE_PROFILES_PROPERTY, "");
+      for (String profile : systemProfiles.split(",")) {
+        if (!profile.trim().isEmpty()) {
+          activeProfiles.add(profile.trim());
+        }
+      }
+    }
+    if (activeProfiles.isEmpty()) {
+      activeProfiles.add(DEFAULT_PROFILE);
+    }
+    this.properties = properties;
+    this.classLoader = classLoader;
+  }
+
+  /**
+   * Whether a component is registered. Excluded ones are recorded in the report.
+   *
+   * @param className component class name.
+   * @param conditions its conditions.
+   */
+  public synchronized boolean isActive(String className, ComponentConditions conditions) {
+    if (conditions.isEmpty()) {
+      return true;
+    }
+    evaluatedConditions.put(className, conditions);
+    String reason = getExclusionReason(conditions);
+    if (reason != null) {
+      report.exclude(className, reason);
+    }
+    return reason == null;
+  }
+
+  /**
+   * Evaluates conditions, without recording anything.
+   *
+   * @return why they do not match, or null if they match.
+   */
+  public String getExclusionReason(ComponentConditions conditions) {
+
+    // 1. @Profile: one of the profiles (or "!" negated profiles) matches.
+    if (!conditions.getProfiles().isEmpty() && !matchesProfiles(conditions)) {
+      return "@Profile" + conditions.getProfiles() + " does not match the active profiles "
+          + activeProfiles;
+    }
+
+    // 2. @ConditionalOnClass: every class file is on the class path. Nothing is loaded.
+    for (String requiredClass : conditions.getRequiredClasses()) {
+      if (classLoader.getResource(requiredClass.replace('.', '/') + ".class") == null) {
+        return "@ConditionalOnClass " + requiredClass + " is not on the class path";
+      }
+    }
+
+    // 3. @ConditionalOnProperty: the property has the value, or any but "false".
+    String propertyName = conditions.getPropertyName();
+    if (propertyName != null) {
+      String value = getProperty(propertyName);
+      if (value == null) {
+        return conditions.isMatchIfMissing()
+            ? null
+            : "@ConditionalOnProperty " + propertyName + " is not set";
+      }
+      String havingValue = conditions.getHavingValue();
+      boolean matches =
+          havingValue.isEmpty() ? !"false".equalsIgnoreCase(value) : havingValue.equals(value);
+      if (!matches) {
+        return "@ConditionalOnProperty "
+            + propertyName
+            + "="
+            + value
+            + (havingValue.isEmpty() ? "" : ", expected " + havingValue);
+      }
+    }
+    return null;
+  }
+
+  private boolean matchesProfiles(ComponentConditions conditions) {
+    for (String profile : conditions.getProfiles()) {
+      boolean matches =
+          profile.startsWith("!")
+              ? !activeProfiles.contains(profile.substring(1))
+              : activeProfiles.contains(profile);
+      if (matches) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private String getProperty(String name) {
+    String value = properties.get(name);
+    return value != null ? value : System.getProperty(name);
+  }
+
+  public Set<String> getActiveProfiles() {
+    return Collections.unmodifiableSet(activeProfiles);
+  }
+
+  public ConditionReport getReport() {
+    return report;
+  }
+
+  /** Get the conditions of the evaluated components having conditions, by class name. */
+  public synchronized Map<String, ComponentConditions> getEvaluatedConditions() {
+    return new LinkedHashMap<>(evaluatedConditions);
+  }
+}
@@ -0,0 +1,41 @@
+package com.arjunsk.codekrypt.di.core;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/** The components excluded by their conditions at startup, and why. */
+public class ConditionReport {
+
+  // Component class name -> exclusion reason, sorted by name.
+  private final Map<String, String> exclusions = new ConcurrentSkipListMap<>();
+
+  void exclude(String className, String reason) {
+    exclusions.put(className, reason);
+  }
+
+  /** Get the excluded component class names, and why they were excluded. */
+  public Map<String, String> getExclusions() {
+    return Collections.unmodifiableMap(exclusions);
+  }
+
+  public boolean isExcluded(String className) {
+    return exclusions.containsKey(className);
+  }
+
+  /** Get why a component was excluded, or null if it was not. */
+  public String getReason(String className) {
+    return exclusions.get(className);
+  }
+
+  @Override
+  public String toString() {
+    if (exclusions.isEmpty()) {
+      return "No excluded components";
+    }
+    StringBuilder report = new StringBuilder("Excluded components:");
+    exclusions.forEach(
+        (className, reason) -> report.append("\n  ").append(className).append(": ").append(reason));
+    return report.toString();
+  }
+}
@@ -0,0 +1,355 @@
+package com.arjunsk.codekrypt.di.core;
+
+import com.arjunsk.codekrypt.di.scope.ScopeContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * A running container, returned by {@link CodekryptInjector#run(Class, InjectorConfig)}. Every
+ * container has its own beans, so several containers can run side by side in one JVM (eg one per
+ * test, or per tenant) and be closed independently.
+ *
+ * <p>A container can have child containers, eg one per tenant or module: they resolve the types
+ * bound by the parent's components to the parent's beans, and only create their own. The parent
+ * is frozen once it has children, and closing it closes them first.
+ */
+public class Container implements AutoCloseable {
+
+  private final BeanManager beanManager;
+
+  // Components excluded by their conditions.
+  private final ConditionReport conditionReport;
+
+  // Null for a root container.
+  private final Container parent;
+
+  // Open child containers, closed before this one.
+  private final Set<Container> children = ConcurrentHashMap.newKeySet();
+
+  // Components -> layout shared by the children of these components.
+  private final ConcurrentMap<Set<Class<?>>, ChildLayout> childLayouts = new ConcurrentHashMap<>();
+
+  // Bean type -> its cached lookup, for getBean(Class).
+  private final ConcurrentMap<Class<?>, BeanHandle<?>> handles = new ConcurrentHashMap<>();
+
+  // Qualifier -> Bean type -> its cached lookup, for getBean(Class, qualifier).
+  private final ConcurrentMap<String, ConcurrentMap<Class<?>, BeanHandle<?>>> qualifiedHandles =
+      new ConcurrentHashMap<>();
+
+  private volatile boolean closed;
+
+  // Bumped by each hot reload, so that the handles held by the application resolve again. Only
+  // written by the reloads, which run one at a time.
+  private volatile int reloadGeneration;
+
+  // Closes the container on JVM shutdown. Null if not registered.
+  private Thread shutdownHook;
+
+  // Reloads the changed classes. Null if not watching.
+  private volatile HotReloader hotReloader;
+
+  public Container(BeanManager beanManager) {
+    this(beanManager, new ConditionReport());
+  }
+
+  Container(BeanManager beanManager, ConditionReport conditionReport) {
+    this(beanManager, conditionReport, null);
+  }
+
+  Container(BeanManager beanManager, ConditionReport conditionReport, Container parent) {
+    this.beanManager = beanManager;
+    this.conditionReport = conditionReport;
+    this.parent = parent;
+  }
+
+  /**
+   * Creates a child container of the components, with the default options.
+   *
+   * @param componentClasses components of the child, not scanned again.
+   * @throws IllegalStateException if the container is closed.
+   */
+  public Container createChild(Class<?>... componentClasses) {
+    return createChild(Arrays.asList(componentClasses), new InjectorConfig());
+  }
+
+  /**
+   * Creates a child container of the components. Its types bound by this container's components
+   * are fetched from this container, and it only creates and destroys its own beans. Children of
+   * the same components share their metadata, so creating many of them is cheap.
+   *
+   * @param componentClasses components of the child, not scanned again.
+   * @param config Injector options. The injection strategy is the parent's.
+   * @throws IllegalStateException if the container is closed.
+   */
+  public Container createChild(Collection<Class<?>> componentClasses, InjectorConfig config) {
+    return addChild(
+        CodekryptInjector.runChild(this, componentClasses, new ConditionReport(), config));
+  }
+
+  /**
+   * Creates a child container of the components in the package of a main class (from the index,
+   * else by scanning), leaving out the ones this container already resolves.
+   *
+   * @param mainClass Main class of the child module.
+   * @param config Injector options. The injection strategy is the parent's.
+   * @throws IllegalStateException if the container is closed.
+   */
+  public Container createChild(Class<?> mainClass, InjectorConfig config) {
+    checkOpen();
+    ConditionEvaluator conditionEvaluator =
+        new ConditionEvaluator(
+            config.getProfiles(), config.getProperties(), mainClass.getClassLoader());
+    List<Class<?>> componentClasses = new ArrayList<>();
+    for (Class<?> componentClass :
+        ComponentDiscovery.findComponents(mainClass, conditionEvaluator)) {
+      if (!beanManager.isBoundByParent(componentClass)
+          && !beanManager.getResolutionIndex().isBound(componentClass)) {
+        componentClasses.add(componentClass);
+      }
+    }
+    return addChild(
+        CodekryptInjector.runChild(
+            this, componentClasses, conditionEvaluator.getReport(), config));
+  }
+
+  private Container addChild(Container child) {
+    children.add(child);
+    // Closed in between: close the child too.
+    if (closed) {
+      child.close();
+    }
+    return child;
+  }
+
+  /** Layout of the children of these components, built by the first one. */
+  ChildLayout getChildLayout(
+      Collection<Class<?>> componentClasses, Function<Set<Class<?>>, ChildLayout> builder) {
+    checkOpen();
+    return childLayouts.computeIfAbsent(new HashSet<>(componentClasses), builder);
+  }
+
+  /** Get the parent container, or null for a root container. */
+  public Container getParent() {
+    return parent;
+  }
+
+  /**
+   * Fetch a bean. Lazy beans are created here, on first fetch.
+   *
+   * <p>Each call looks up the cached handle of the type in a map. Hold the handle of {@link
+   * #getHandle(Class)} instead to fetch a singleton with a field read, without any lookup.
+   *
+   * @param beanClass interface/class of the bean.
+   * @param <T> Class Type
+   * @throws IllegalStateException if the container is closed.
+   */
+  public <T> T getBean(Class<T> beanClass) {
+    return getHandle(beanClass).get();
+  }
+
+  /**
+   * Fetch a bean, among the implementations of an interface.
+   *
+   * @param beanClass interface/class of the bean.
+   * @param qualifier simple name of the implementation, as in @Qualifier.
+   * @param <T> Class Type
+   * @throws IllegalStateException if the container is closed.
+   */
+  public <T> T getBean(Class<T> beanClass, String qualifier) {
+    return getHandle(beanClass, qualifier).get();
+  }
+
+  /**
+   * Fetch all the beans of an interface/class, ordered by @Order then by name.
+   *
+   * @param beanClass interface/class of the beans.
+   * @param <T> Class Type
+   * @return immutable List of the beans, empty if there is none.
+   * @throws IllegalStateException if the container is closed.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> List<T> getBeans(Class<T> beanClass) {
+    checkOpen();
+    return (List<T>) beanManager.getBeanInstances(beanClass);
+  }
+
+  /**
+   * Cached lookup of a bean type. Keep the handle to fetch the bean without any map lookup.
+   *
+   * @param beanClass interface/class of the bean.
+   * @param <T> Class Type
+   */
+  @SuppressWarnings("unchecked")
+  public <T> BeanHandle<T> getHandle(Class<T> beanClass) {
+    BeanHandle<?> handle = handles.get(beanClass);
+    if (handle == null) {
+      handle = handles.computeIfAbsent(beanClass, type -> new BeanHandle<>(this, beanClass, null));
+    }
+    return (BeanHandle<T>) handle;
+  }
+
+  /**
+   * Cached lookup of a bean type and qualifier.
+   *
+   * @param beanClass interface/class of the bean.
+   * @param qualifier simple name of the implementation, as in @Qualifier.
+   * @param <T> Class Type
+   */
+  @SuppressWarnings("unchecked")
+  public <T> BeanHandle<T> getHandle(Class<T> beanClass, String qualifier) {
+    if (qualifier == null || qualifier.isEmpty()) {
+      return getHandle(beanClass);
+    }
+    ConcurrentMap<Class<?>, BeanHandle<?>> handlesOfQualifier =
+        qualifiedHandles.computeIfAbsent(qualifier, name -> new ConcurrentHashMap<>());
+    return (BeanHandle<T>)
+        handlesOfQualifier.computeIfAbsent(
+            beanClass, type -> new BeanHandle<>(this, beanClass, qualifier));
+  }
+
+  /**
+   * Creates a context for the @Scope(Scope.CONTEXT) beans, eg per request. It is shared with the
+   * child containers.
+   */
+  public ScopeContext newContext() {
+    return beanManager.newContext();
+  }
+
+  /**
+   * Completes once the @PostConstruct methods of the beans created at startup are done, including
+   * the async ones. Completes exceptionally with a BeanInitiateException holding all the failures,
+   * once the others are done.
+   */
+  public CompletableFuture<Void> getReadiness() {
+    return beanManager.getReadiness();
+  }
+
+  /** Get the components excluded by their @Profile or @Conditional* annotations, and why. */
+  public ConditionReport getConditionReport() {
+    return conditionReport;
+  }
+
+  /** Get the watcher reloading the changed classes, or null if hot reload is off. */
+  public HotReloader getHotReloader() {
+    return hotReloader;
+  }
+
+  void setHotReloader(HotReloader hotReloader) {
+    this.hotReloader = hotReloader;
+  }
+
+  /**
+   * Makes every handle resolve its bean again on its next fetch, including the ones held by the
+   * application, so that they fetch the reloaded beans.
+   */
+  void invalidateHandles() {
+    clearHandles();
+    reloadGeneration++;
+  }
+
+  int getReloadGeneration() {
+    return reloadGeneration;
+  }
+
+  /** Drops the cached lookups. */
+  private void clearHandles() {
+    handles.clear();
+    qualifiedHandles.clear();
+  }
+
+  public BeanManager getBeanManager() {
+    return beanManager;
+  }
+
+  public boolean isClosed() {
+    return closed;
+  }
+
+  /**
+   * Closes the container when the JVM shuts down, unless it is closed before. The hook is removed
+   * on close, so closed containers are not kept by the JVM.
+   */
+  public synchronized void registerShutdownHook() {
+    if (shutdownHook == null && !closed) {
+      shutdownHook = new Thread(this::close, "codekrypt-shutdown");
+      Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+  }
+
+  /**
+   * Closes the container: its child containers are closed, then its singletons are destroyed,
+   * dependents first, and its beans are released. Its beans can no longer be fetched. Closing
+   * again does nothing.
+   *
+   * @throws com.arjunsk.codekrypt.di.exceptions.BeanDestroyException if @PreDestroy methods
+   *     failed. All the beans are still released.
+   */
+  @Override
+  public void close() {
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      if (shutdownHook != null && Thread.currentThread() != shutdownHook) {
+        try {
+          Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException ex) {
+          // The JVM is already shutting down, and runs the hook.
+        }
+      }
+    }
+    // 1. Stop reloading, then close the children, as they may use the beans of this container.
+    RuntimeException childFailure = null;
+    if (hotReloader != null) {
+      try {
+        hotReloader.close();
+      } catch (RuntimeException ex) {
+        childFailure = ex;
+      }
+    }
+    for (Container child : new ArrayList<>(children)) {
+      try {
+        child.close();
+      } catch (RuntimeException ex) {
+        if (childFailure == null) {
+          childFailure = ex;
+        } else {
+          childFailure.addSuppressed(ex);
+        }
+      }
+    }
+
+    // 2. Then the beans of this container.
+    clearHandles();
+    childLayouts.clear();
+    if (parent != null) {
+      parent.children.remove(this);
+    }
+    try {
+      beanManager.close();
+    } catch (RuntimeException ex) {
+      if (childFailure != null) {
+        ex.addSuppressed(childFailure);
+      }
+      throw ex;
+    }
+    if (childFailure != null) {
+      throw childFailure;
+    }
+  }
+
+  void checkOpen() {
+    if (closed) {
+      throw new IllegalStateException("Container is closed");
+    }
+  }
+}
@@ -0,0 +1,348 @@
+package com.arjunsk.codekrypt.di.core;
+
+import com.arjunsk.codekrypt.di.core.BeanDefinition.InjectionPoint;
+import com.arjunsk.codekrypt.di.exceptions.BeanFetchException;
+import com.arjunsk.codekrypt.di.exceptions.CircularDependencyException;
+import com.arjunsk.codekrypt.di.intercept.MethodInterceptor;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dependency graph of the beans, built from the constructor and field @Autowire points, without
+ * instantiating anything.
+ *
+ * <p>Beans are grouped in topological waves: a bean only depends on beans of earlier waves, so
+ * the beans of one wave are independent of each other.
+ */
+public class DependencyGraph {
+
+  // This Map will hold the Bean Class and its Node, in discovery order.
+  private final Map<Class<?>, BeanNode> nodes;
+
+  private final List<List<BeanNode>> waves;
+
+  // Description of the cycles, left out of the waves of a lenient graph. Null if none.
+  private final String cycles;
+
+  private DependencyGraph(
+      Map<Class<?>, BeanNode> nodes, List<List<BeanNode>> waves, String cycles) {
+    this.nodes = Collections.unmodifiableMap(nodes);
+    this.waves = Collections.unmodifiableList(waves);
+    this.cycles = cycles;
+  }
+
+  /**
+   * Builds the graph of the components, and of the concrete classes they depend on.
+   *
+   * @param componentClasses all the @Component classes.
+   * @param beanManager Bean Manager, used to resolve the @Autowire points.
+   * @throws CircularDependencyException if the beans depend on each other.
+   */
+  public static DependencyGraph build(
+      Collection<Class<?>> componentClasses, BeanManager beanManager) {
+    return build(componentClasses, beanManager, false);
+  }
+
+  /**
+   * Builds the graph without failing, eg to analyze it: points which do not resolve are left
+   * out, and so are the beans on (or depending on) cycles from the waves. Their depth is -1.
+   *
+   * @param componentClasses all the @Component classes.
+   * @param beanManager Bean Manager, used to resolve the @Autowire points.
+   */
+  public static DependencyGraph buildLenient(
+      Collection<Class<?>> componentClasses, BeanManager beanManager) {
+    return build(componentClasses, beanManager, true);
+  }
+
+  private static DependencyGraph build(
+      Collection<Class<?>> componentClasses, BeanManager beanManager, boolean lenient) {
+
+    // 1. Add a node per instantiable component. Abstract components are only resolution targets.
+    // Sorted by name, so that the order within a wave does not depend on the discovery order.
+    List<Class<?>> sortedComponentClasses = new ArrayList<>(componentClasses);
+    sortedComponentClasses.sort(Comparator.comparing(Class::getName));
+
+    Map<Class<?>, BeanNode> nodes = new LinkedHashMap<>();
+    Deque<BeanNode> pending = new ArrayDeque<>();
+    for (Class<?> componentClass : sortedComponentClasses) {
+      if (!Modifier.isAbstract(componentClass.getModifiers())) {
+        BeanNode node = new BeanNode(componentClass);
+        nodes.put(componentClass, node);
+        pending.add(node);
+      }
+    }
+
+    // 2. Link every node to the implementations of its @Autowire points.
+    while (!pending.isEmpty()) {
+      BeanNode node = pending.poll();
+      for (Class<?> implementationClass : getDependencies(node.beanClass, beanManager, lenient)) {
+        link(node, implementationClass, nodes, pending);
+      }
+    }
+
+    // 3. Group the nodes in waves, failing on cycles (unless lenient).
+    List<List<BeanNode>> waves = new ArrayList<>();
+    String cycles = computeWaves(nodes, waves);
+    if (cycles != null && !lenient) {
+      throw new CircularDependencyException(cycles);
+    }
+    return new DependencyGraph(nodes, waves, cycles);
+  }
+
+  /**
+   * Get the beans a bean needs first: the implementations of its @Autowire points and its
+   * interceptors. @Lazy points and thread/context scoped beans receive a proxy, and Provider
+   * points a Provider, so they do not need the bean first (and can break a cycle).
+   *
+   * @param beanClass Bean Class.
+   * @param beanManager Bean Manager, used to resolve the @Autowire points.
+   */
+  static List<Class<?>> getDependencies(Class<?> beanClass, BeanManager beanManager) {
+    return getDependencies(beanClass, beanManager, false);
+  }
+
+  private static List<Class<?>> getDependencies(
+      Class<?> beanClass, BeanManager beanManager, boolean lenient) {
+    List<Class<?>> dependencies = new ArrayList<>();
+    BeanDefinition beanDefinition = BeanDefinition.of(beanClass);
+    for (InjectionPoint parameter : beanDefinition.getConstructorParameters()) {
+      if (!parameter.isLazy() && !parameter.isProvider()) {
+        dependencies.addAll(resolve(beanManager, parameter, null, lenient));
+      }
+    }
+
+    for (InjectionPoint field : beanDefinition.getFields()) {
+      if (!field.isLazy() && !field.isProvider()) {
+        dependencies.addAll(resolve(beanManager, field, field.getName(), lenient));
+      }
+    }
+
+    // Interceptors wrap the bean once it is initialized, so they are created before it.
+    for (List<Class<? extends MethodInterceptor>> interceptorClasses :
+        beanDefinition.getInterceptorBindings().values()) {
+      for (Class<?> interceptorClass : interceptorClasses) {
+        try {
+          dependencies.add(beanManager.getImplementationClass(interceptorClass, null, null));
+        } catch (BeanFetchException ex) {
+          if (!lenient) {
+            throw ex;
+          }
+        }
+      }
+    }
+    return dependencies;
+  }
+
+  /**
+   * The implementation of an injection point, or all of them for a List/Set/Map point. None if
+   * it does not resolve, in a lenient graph.
+   */
+  private static List<Class<?>> resolve(
+      BeanManager beanManager, InjectionPoint injectionPoint, String fieldName, boolean lenient) {
+    if (injectionPoint.isMultiBinding()) {
+      return beanManager.getImplementationClasses(injectionPoint.getMultiBindingType());
+    }
+    try {
+      Class<?> implementationClass =
+          beanManager.getImplementationClass(
+              injectionPoint.getType(), fieldName, injectionPoint.getQualifier());
+      return BeanDefinition.of(implementationClass).isScopedProxy()
+          ? Collections.emptyList()
+          : Collections.singletonList(implementationClass);
+    } catch (BeanFetchException ex) {
+      if (!lenient) {
+        throw ex;
+      }
+      return Collections.emptyList();
+    }
+  }
+
+  private static void link(
+      BeanNode node,
+      Class<?> implementationClass,
+      Map<Class<?>, BeanNode> nodes,
+      Deque<BeanNode> pending) {
+
+    // Concrete classes which are not components are beans too, so they are added on the way.
+    BeanNode dependency = nodes.get(implementationClass);
+    if (dependency == null) {
+      dependency = new BeanNode(implementationClass);
+      nodes.put(implementationClass, dependency);
+      pending.add(dependency);
+    }
+
+    if (!node.dependencies.contains(dependency)) {
+      node.dependencies.add(dependency);
+      dependency.dependents.add(node);
+    }
+  }
+
+  /**
+   * Kahn's algorithm. The depth of a node is its wave.
+   *
+   * @param waves filled with the waves of the nodes which are not on, or depend on, a cycle.
+   * @return the description of the cycles, or null if there is none.
+   */
+  private static String computeWaves(Map<Class<?>, BeanNode> nodes, List<List<BeanNode>> waves) {
+    Map<BeanNode, Integer> remainingDependencies = new HashMap<>();
+    Deque<BeanNode> ready = new ArrayDeque<>();
+    for (BeanNode node : nodes.values()) {
+      remainingDependencies.put(node, node.dependencies.size());
+      if (node.dependencies.isEmpty()) {
+        ready.add(node);
+      }
+    }
+
+    int processed = 0;
+    while (!ready.isEmpty()) {
+      BeanNode node = ready.poll();
+      processed++;
+
+      while (waves.size() <= node.depth) {
+        waves.add(new ArrayList<>());
+      }
+      waves.get(node.depth).add(node);
+
+      for (BeanNode dependent : node.dependents) {
+        dependent.depth = Math.max(dependent.depth, node.depth + 1);
+        if (remainingDependencies.merge(dependent, -1, Integer::sum) == 0) {
+          ready.add(dependent);
+        }
+      }
+    }
+
+    // The nodes never ready are on, or depend on, a cycle.
+    if (processed == nodes.size()) {
+      return null;
+    }
+    for (BeanNode node : nodes.values()) {
+      if (remainingDependencies.get(node) > 0) {
+        node.depth = -1;
+      }
+    }
+    return describeCycles(nodes, remainingDependencies);
+  }
+
+  /** Lists the cycles among the unprocessed nodes, found by a depth first search. */
+  private static String describeCycles(
+      Map<Class<?>, BeanNode> nodes, Map<BeanNode, Integer> remainingDependencies) {
+
+    StringBuilder report = new StringBuilder("Circular dependencies found:");
+    Map<BeanNode, Boolean> onPath = new HashMap<>();
+
+    for (BeanNode root : nodes.values()) {
+      if (remainingDependencies.get(root) == 0 || onPath.containsKey(root)) {
+        continue;
+      }
+
+      // Iterative DFS. path holds the current chain, and childIndex the next dependency to visit.
+      List<BeanNode> path = new ArrayList<>();
+      Deque<Integer> childIndex = new ArrayDeque<>();
+      path.add(root);
+      childIndex.push(0);
+      onPath.put(root, true);
+
+      while (!path.isEmpty()) {
+        BeanNode node = path.get(path.size() - 1);
+        int index = childIndex.pop();
+        if (index == node.dependencies.size()) {
+          onPath.put(node, false);
+          path.remove(path.size() - 1);
+          continue;
+        }
+        childIndex.push(index + 1);
+
+        BeanNode dependency = node.dependencies.get(index);
+        Boolean visiting = onPath.get(dependency);
+        if (visiting == null) {
+          path.add(dependency);
+          childIndex.push(0);
+          onPath.put(dependency, true);
+        } else if (visiting) {
+          // Back edge: the cycle is the path from the dependency to this node.
+          report.append("\n  ");
+          for (BeanNode member : path.subList(path.indexOf(dependency), path.size())) {
+            report.append(member.beanClass.getName()).append(" -> ");
+          }
+          report.append(dependency.beanClass.getName());
+        }
+      }
+    }
+    return report.toString();
+  }
+
+  /** Get all the nodes, in discovery order. */
+  public Collection<BeanNode> getNodes() {
+    return nodes.values();
+  }
+
+  /**
+   * Get the node of a bean class.
+   *
+   * @param beanClass implementation class.
+   * @return the node, or null if the class is not in the graph.
+   */
+  public BeanNode getNode(Class<?> beanClass) {
+    return nodes.get(beanClass);
+  }
+
+  /** Get the nodes grouped in topological waves. */
+  public List<List<BeanNode>> getWaves() {
+    return waves;
+  }
+
+  /** Get the description of the cycles of a lenient graph, or null if there is none. */
+  public String getCycles() {
+    return cycles;
+  }
+
+  /** Number of beans on the longest dependency chain. */
+  public int getCriticalPathLength() {
+    return waves.size();
+  }
+
+  /** A bean of the graph and its direct dependencies. */
+  public static class BeanNode {
+
+    private final Class<?> beanClass;
+    private final List<BeanNode> dependencies = new ArrayList<>();
+    private final List<BeanNode> dependents = new ArrayList<>();
+    private int depth;
+
+    BeanNode(Class<?> beanClass) {
+      this.beanClass = beanClass;
+    }
+
+    public Class<?> getBeanClass() {
+      return beanClass;
+    }
+
+    public List<BeanNode> getDependencies() {
+      return Collections.unmodifiableList(dependencies);
+    }
+
+    public List<BeanNode> getDependents() {
+      return Collections.unmodifiableList(dependents);
+    }
+
+    /** Wave of the bean, ie the length of its longest dependency chain. -1 on a cycle. */
+    public int getDepth() {
+      return depth;
+    }
+
+    @Override
+    public String toString() {
+      return beanClass.getName();
+    }
+  }
+}
@@ -0,0 +1,464 @@
+package com.arjunsk.codekrypt.di.core;
+
+import com.arjunsk.codekrypt.di.core.BeanDefinition.InjectionPoint;
+import com.arjunsk.codekrypt.di.core.DependencyGraph.BeanNode;
+import com.arjunsk.codekrypt.di.exceptions.BeanFetchException;
+import com.arjunsk.codekrypt.di.intercept.MethodInterceptor;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Static analysis of the wiring of a program: its dependency graph, discovered and resolved as at
+ * startup but without instantiating anything, with the depth, fan-in and fan-out of every bean,
+ * the critical path, and the injection points which would fail (or silently ignore their
+ * qualifier) at runtime.
+ *
+ * <p>Exported as JSON or Graphviz DOT. {@link DependencyReportGenerator} runs it as a build step,
+ * failing the build on problems.
+ */
+public final class DependencyReport {
+
+  /** Why an injection point would fail, or not inject what it names. */
+  public enum ProblemKind {
+
+    // No implementation of the type.
+    UNRESOLVED,
+
+    // Several implementations, and neither the qualifier nor the field name picks one.
+    AMBIGUOUS,
+
+    // The qualifier names no implementation, so the only one is injected instead.
+    QUALIFIER_IGNORED,
+
+    // The bean has neither an @Autowire constructor nor an empty one.
+    NO_CONSTRUCTOR
+  }
+
+  private final DependencyGraph dependencyGraph;
+
+  private final List<InjectionProblem> problems;
+
+  // Beans of the longest dependency chain, dependencies first.
+  private final List<Class<?>> criticalPath;
+
+  private final int edgeCount;
+
+  private DependencyReport(DependencyGraph dependencyGraph, List<InjectionProblem> problems) {
+    this.dependencyGraph = dependencyGraph;
+    this.problems = Collections.unmodifiableList(problems);
+    this.criticalPath = Collections.unmodifiableList(computeCriticalPath(dependencyGraph));
+    int edgeCount = 0;
+    for (BeanNode node : dependencyGraph.getNodes()) {
+      edgeCount += node.getDependencies().size();
+    }
+    this.edgeCount = edgeCount;
+  }
+
+  /**
+   * Analyzes the components of a program, for the profiles and properties of the environment.
+   *
+   * @param mainClass Main class of the program.
+   */
+  public static DependencyReport build(Class<?> mainClass) {
+    return build(mainClass, new ConditionEvaluator(mainClass.getClassLoader()));
+  }
+
+  /**
+   * Analyzes the components of a program (from the index, else by scanning), for the profiles
+   * and properties of an evaluator.
+   *
+   * @param mainClass Main class of the program.
+   * @param conditionEvaluator evaluates the component conditions.
+   */
+  public static DependencyReport build(Class<?> mainClass, ConditionEvaluator conditionEvaluator) {
+    return build(ComponentDiscovery.findComponents(mainClass, conditionEvaluator));
+  }
+
+  /**
+   * Analyzes components, with the same resolution as a container of them.
+   *
+   * @param componentClasses all the @Component classes.
+   */
+  public static DependencyReport build(Collection<Class<?>> componentClasses) {
+    // 1. Same resolution as CodekryptInjector, but cycles and failures are kept for the report.
+    BeanManager beanManager = new BeanManager();
+    beanManager.registerComponents(componentClasses);
+    DependencyGraph dependencyGraph = DependencyGraph.buildLenient(componentClasses, beanManager);
+
+    // 2. Check every point, including the @Lazy and Provider ones left out of the graph.
+    List<InjectionProblem> problems = new ArrayList<>();
+    for (BeanNode node : dependencyGraph.getNodes()) {
+      check(beanManager, node.getBeanClass(), problems);
+    }
+    return new DependencyReport(dependencyGraph, problems);
+  }
+
+  private static void check(
+      BeanManager beanManager, Class<?> beanClass, List<InjectionProblem> problems) {
+    BeanDefinition beanDefinition = BeanDefinition.of(beanClass);
+    if (beanDefinition.getConstructor() == null) {
+      problems.add(
+          new InjectionProblem(
+              ProblemKind.NO_CONSTRUCTOR,
+              beanClass,
+              "constructor",
+              beanClass,
+              null,
+              "No @Autowire or empty constructor found for " + beanClass.getName()));
+    }
+
+    List<InjectionPoint> parameters = beanDefinition.getConstructorParameters();
+    for (int i = 0; i < parameters.size(); i++) {
+      String point = "constructor parameter " + i;
+      check(beanManager, beanClass, point, parameters.get(i), null, problems);
+    }
+    for (InjectionPoint field : beanDefinition.getFields()) {
+      check(beanManager, beanClass, "field " + field.getName(), field, field.getName(), problems);
+    }
+
+    for (List<Class<? extends MethodInterceptor>> interceptorClasses :
+        beanDefinition.getInterceptorBindings().values()) {
+      for (Class<?> interceptorClass : interceptorClasses) {
+        try {
+          beanManager.getImplementationClass(interceptorClass, null, null);
+        } catch (BeanFetchException ex) {
+          problems.add(
+              new InjectionProblem(
+                  ProblemKind.UNRESOLVED,
+                  beanClass,
+                  "interceptor",
+                  interceptorClass,
+                  null,
+                  ex.getMessage()));
+        }
+      }
+    }
+  }
+
+  private static void check(
+      BeanManager beanManager,
+      Class<?> beanClass,
+      String point,
+      InjectionPoint injectionPoint,
+      String fieldName,
+      List<InjectionProblem> problems) {
+    // All the implementations are injected, and there may be none.
+    if (injectionPoint.isMultiBinding()) {
+      return;
+    }
+
+    Class<?> type =
+        injectionPoint.isProvider() ? injectionPoint.getProviderType() : injectionPoint.getType();
+    String qualifier = injectionPoint.getQualifier();
+    try {
+      Class<?> implementationClass =
+          beanManager.getImplementationClass(type, fieldName, qualifier);
+      if (qualifier != null
+          && !qualifier.isEmpty()
+          && !implementationClass.getSimpleName().equalsIgnoreCase(qualifier)) {
+        problems.add(
+            new InjectionProblem(
+                ProblemKind.QUALIFIER_IGNORED,
+                beanClass,
+                point,
+                type,
+                qualifier,
+                String.format(
+                    "No implementation of %s is named %s, %s is injected",
+                    type.getName(), qualifier, implementationClass.getName())));
+      }
+    } catch (BeanFetchException ex) {
+      ProblemKind kind =
+          beanManager.getImplementationClasses(type).size() > 1
+              ? ProblemKind.AMBIGUOUS
+              : ProblemKind.UNRESOLVED;
+      problems.add(new InjectionProblem(kind, beanClass, point, type, qualifier, ex.getMessage()));
+    }
+  }
+
+  /** From a deepest bean, down a dependency one wave earlier each time. */
+  private static List<Class<?>> computeCriticalPath(DependencyGraph dependencyGraph) {
+    List<List<BeanNode>> waves = dependencyGraph.getWaves();
+    LinkedList<Class<?>> criticalPath = new LinkedList<>();
+    if (waves.isEmpty()) {
+      return criticalPath;
+    }
+
+    BeanNode node = waves.get(waves.size() - 1).get(0);
+    criticalPath.addFirst(node.getBeanClass());
+    while (node.getDepth() > 0) {
+      for (BeanNode dependency : node.getDependencies()) {
+        if (dependency.getDepth() == node.getDepth() - 1) {
+          node = dependency;
+          break;
+        }
+      }
+      criticalPath.addFirst(node.getBeanClass());
+    }
+    return criticalPath;
+  }
+
+  public DependencyGraph getDependencyGraph() {
+    return dependencyGraph;
+  }
+
+  /** Get the injection points which would fail, or ignore their qualifier, by bean. */
+  public List<InjectionProblem> getProblems() {
+    return problems;
+  }
+
+  /** Get the description of the dependency cycles, or null if there is none. */
+  public String getCycles() {
+    return dependencyGraph.getCycles();
+  }
+
+  /** Get the beans of the longest dependency chain, dependencies first. */
+  public List<Class<?>> getCriticalPath() {
+    return criticalPath;
+  }
+
+  /**
+   * Get what fails a build gate: the problems, the cycles, and the limits exceeded.
+   *
+   * @param maxCriticalPathLength most beans allowed on a dependency chain, or 0 for no limit.
+   * @param maxFanIn most dependents allowed per bean, or 0 for no limit.
+   * @return the failures, empty if the gate passes.
+   */
+  public List<String> getFailures(int maxCriticalPathLength, int maxFanIn) {
+    List<String> failures = new ArrayList<>();
+    for (InjectionProblem problem : problems) {
+      failures.add(problem.toString());
+    }
+    if (getCycles() != null) {
+      failures.add(getCycles());
+    }
+    if (maxCriticalPathLength > 0 && criticalPath.size() > maxCriticalPathLength) {
+      failures.add(
+          String.format(
+              "Critical path of %d beans, over %d: %s",
+              criticalPath.size(), maxCriticalPathLength, criticalPath));
+    }
+    if (maxFanIn > 0) {
+      for (BeanNode node : dependencyGraph.getNodes()) {
+        if (node.getDependents().size() > maxFanIn) {
+          failures.add(
+              String.format(
+                  "%s has %d dependents, over %d",
+                  node.getBeanClass().getName(), node.getDependents().size(), maxFanIn));
+        }
+      }
+    }
+    return failures;
+  }
+
+  /** The graph and its analysis, as a JSON document. */
+  public String toJson() {
+    StringBuilder json = new StringBuilder();
+    json.append("{\n  \"beanCount\": ").append(dependencyGraph.getNodes().size());
+    json.append(",\n  \"edgeCount\": ").append(edgeCount);
+    json.append(",\n  \"criticalPathLength\": ").append(criticalPath.size());
+    json.append(",\n  \"criticalPath\": [");
+    for (int i = 0; i < criticalPath.size(); i++) {
+      json.append(i == 0 ? "" : ", ").append(quote(criticalPath.get(i).getName()));
+    }
+    json.append("]");
+    json.append(",\n  \"cycles\": ").append(getCycles() != null ? quote(getCycles()) : "null");
+
+    json.append(",\n  \"beans\": [");
+    int i = 0;
+    for (BeanNode node : dependencyGraph.getNodes()) {
+      BeanDefinition beanDefinition = BeanDefinition.of(node.getBeanClass());
+      json.append(i++ == 0 ? "\n" : ",\n");
+      json.append("    {\"class\": ").append(quote(node.getBeanClass().getName()));
+      json.append(", \"scope\": ").append(quote(beanDefinition.getScope()));
+      json.append(", \"lazy\": ").append(beanDefinition.isLazy());
+      json.append(", \"depth\": ").append(node.getDepth());
+      json.append(", \"fanIn\": ").append(node.getDependents().size());
+      json.append(", \"fanOut\": ").append(node.getDependencies().size());
+      json.append(", \"dependencies\": [");
+      List<BeanNode> dependencies = node.getDependencies();
+      for (int d = 0; d < dependencies.size(); d++) {
+        json.append(d == 0 ? "" : ", ").append(quote(dependencies.get(d).getBeanClass().getName()));
+      }
+      json.append("]}");
+    }
+    json.append(i == 0 ? "]" : "\n  ]");
+
+    json.append(",\n  \"problems\": [");
+    for (int p = 0; p < problems.size(); p++) {
+      InjectionProblem problem = problems.get(p);
+      json.append(p == 0 ? "\n" : ",\n");
+      json.append("    {\"kind\": \"").append(problem.kind).append("\"");
+      json.append(", \"class\": ").append(quote(problem.beanClass.getName()));
+      json.append(", \"point\": ").append(quote(problem.point));
+      json.append(", \"type\": ").append(quote(problem.type.getName()));
+      json.append(", \"qualifier\": ")
+          .append(problem.qualifier != null ? quote(problem.qualifier) : "null");
+      json.append(", \"message\": ").append(quote(problem.message)).append("}");
+    }
+    json.append(problems.isEmpty() ? "]" : "\n  ]");
+    return json.append("\n}\n").toString();
+  }
+
+  /**
+   * The graph as a Graphviz DOT document. Beans are labeled with their depth, fan-in and fan-out;
+   * the critical path is red, and the beans with problems are orange, with a dashed edge to each
+   * failing type.
+   */
+  public String toDot() {
+    Set<Class<?>> criticalClasses = new HashSet<>(criticalPath);
+    Map<Class<?>, List<InjectionProblem>> problemsByBean = new HashMap<>();
+    for (InjectionProblem problem : problems) {
+      problemsByBean.computeIfAbsent(problem.beanClass, key -> new ArrayList<>()).add(problem);
+    }
+
+    StringBuilder dot = new StringBuilder("digraph dependencies {\n");
+    dot.append("  rankdir=LR;\n  node [shape=box, fontname=\"Helvetica\"];\n");
+    for (BeanNode node : dependencyGraph.getNodes()) {
+      Class<?> beanClass = node.getBeanClass();
+      dot.append("  ").append(quote(beanClass.getName()));
+      dot.append(" [label=")
+          .append(
+              quote(
+                  String.format(
+                      "%s\ndepth %d, in %d, out %d",
+                      beanClass.getSimpleName(),
+                      node.getDepth(),
+                      node.getDependents().size(),
+                      node.getDependencies().size())));
+      if (problemsByBean.containsKey(beanClass)) {
+        dot.append(", color=orange");
+      } else if (criticalClasses.contains(beanClass)) {
+        dot.append(", color=red");
+      } else if (node.getDepth() < 0) {
+        dot.append(", color=purple");
+      }
+      dot.append("];\n");
+    }
+
+    for (BeanNode node : dependencyGraph.getNodes()) {
+      for (BeanNode dependency : node.getDependencies()) {
+        dot.append("  ").append(quote(node.getBeanClass().getName()));
+        dot.append(" -> ").append(quote(dependency.getBeanClass().getName()));
+        if (criticalClasses.contains(node.getBeanClass())
+            && criticalClasses.contains(dependency.getBeanClass())
+            && dependency.getDepth() == node.getDepth() - 1) {
+          dot.append(" [color=red]");
+        }
+        dot.append(";\n");
+      }
+    }
+
+    for (InjectionProblem problem : problems) {
+      dot.append("  ").append(quote(problem.beanClass.getName()));
+      dot.append(" -> ").append(quote(problem.kind + " " + problem.type.getName()));
+      dot.append(" [style=dashed, color=orange, label=").append(quote(problem.point));
+      dot.append("];\n");
+    }
+    return dot.append("}\n").toString();
+  }
+
+  /**
+   * Writes the report to a file: DOT for a .dot or .gv file, else JSON.
+   *
+   * @param file report file.
+   */
+  public void write(Path file) throws IOException {
+    String fileName = file.getFileName().toString();
+    String content =
+        fileName.endsWith(".dot") || fileName.endsWith(".gv") ? toDot() : toJson();
+    Path parent = file.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String quote(String value) {
+    StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        quoted.append('\\').append(c);
+      } else if (c == '\n') {
+        quoted.append("\\n");
+      } else if (c < 0x20) {
+        quoted.append(String.format("\\u%04x", (int) c));
+      } else {
+        quoted.append(c);
+      }
+    }
+    return quoted.append('"').toString();
+  }
+
+  /** An injection point which would fail, or ignore its qualifier. */
+  public static final class InjectionProblem {
+
+    private final ProblemKind kind;
+    private final Class<?> beanClass;
+
+    // Eg "field horn", or "constructor parameter 0".
+    private final String point;
+
+    // Type the point resolves: the Provider type for Provider points.
+    private final Class<?> type;
+
+    private final String qualifier;
+    private final String message;
+
+    InjectionProblem(
+        ProblemKind kind,
+        Class<?> beanClass,
+        String point,
+        Class<?> type,
+        String qualifier,
+        String message) {
+      this.kind = kind;
+      this.beanClass = beanClass;
+      this.point = point;
+      this.type = type;
+      this.qualifier = qualifier;
+      this.message = message;
+    }
+
+    public ProblemKind getKind() {
+      return kind;
+    }
+
+    public Class<?> getBeanClass() {
+      return beanClass;
+    }
+
+    public String getPoint() {
+      return point;
+    }
+
+    public Class<?> getType() {
+      return type;
+    }
+
+    public String getQualifier() {
+      return qualifier;
+    }
+
+    public String getMessage() {
+      return message;
+    }
+
+    @Override
+    public String toString() {
+      return kind + " " + beanClass.getName() + " " + point + ": " + message;
+    }
+  }
+}
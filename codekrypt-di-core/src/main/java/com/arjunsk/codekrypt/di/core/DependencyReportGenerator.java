@@ -0,0 +1,46 @@
+package com.arjunsk.codekrypt.di.core;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Build step writing the {@link DependencyReport} of a program, and failing on its problems.
+ *
+ * <p>Usage: {@code DependencyReportGenerator <main class> <report file> [max critical path length]
+ * [max fan-in]}, with the program's classes on the class path. The report is DOT for a .dot file,
+ * else JSON. Limits of 0 are not checked. The beans are not created.
+ */
+public final class DependencyReportGenerator {
+
+  private DependencyReportGenerator() {}
+
+  public static void main(String[] args) throws Exception {
+    if (args.length < 2 || args.length > 4) {
+      throw new IllegalArgumentException(
+          "Usage: DependencyReportGenerator <main class> <report file>"
+              + " [max critical path length] [max fan-in]");
+    }
+
+    Class<?> mainClass =
+        Class.forName(args[0], false, Thread.currentThread().getContextClassLoader());
+    Path reportFile = Paths.get(args[1]);
+    int maxCriticalPathLength = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+    int maxFanIn = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+
+    DependencyReport report = DependencyReport.build(mainClass);
+    report.write(reportFile);
+    System.out.println(
+        String.format(
+            "Dependency report written to %s: %d beans, critical path of %d",
+            reportFile,
+            report.getDependencyGraph().getNodes().size(),
+            report.getCriticalPath().size()));
+
+    List<String> failures = report.getFailures(maxCriticalPathLength, maxFanIn);
+    if (!failures.isEmpty()) {
+      throw new IllegalStateException(
+          "Dependency report failed:\n  " + String.join("\n  ", failures));
+    }
+  }
+}
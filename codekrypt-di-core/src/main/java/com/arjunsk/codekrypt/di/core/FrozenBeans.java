@@ -0,0 +1,147 @@
+package com.arjunsk.codekrypt.di.core;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Compact, immutable runtime state of the singletons created at startup, built once the startup
+ * is done.
+ *
+ * <p>Each bean gets an integer id, indexing the dense arrays of the bean classes and instances.
+ * An open-addressed table, at most half full, maps to that id the bean class and the interfaces
+ * and super classes it alone implements. A lookup is a few array reads, without allocation,
+ * locking or resolution.
+ */
+final class FrozenBeans {
+
+  static final FrozenBeans EMPTY = new FrozenBeans(new Class<?>[0], new Object[0], false, null);
+
+  // Golden ratio, to spread the identity hash codes over the high bits.
+  private static final int HASH_MULTIPLIER = 0x9E3779B9;
+
+  // Bean id -> its class, and its instance.
+  private final Class<?>[] beanClasses;
+  private final Object[] instances;
+
+  // Whether any of the beans has @PreDestroy methods.
+  private final boolean preDestroy;
+
+  // Type -> bean id. The table length is a power of 2, and empty slots have a null key.
+  private final Class<?>[] keys;
+  private final int[] ids;
+  private final int shift;
+
+  private FrozenBeans(
+      Class<?>[] beanClasses,
+      Object[] instances,
+      boolean preDestroy,
+      ResolutionIndex resolutionIndex) {
+    this.beanClasses = beanClasses;
+    this.instances = instances;
+    this.preDestroy = preDestroy;
+
+    // 1. The unique implementations of the bound types, next to the bean classes themselves.
+    Map<Class<?>, Class<?>> uniqueImplementations =
+        resolutionIndex != null
+            ? resolutionIndex.getUniqueImplementations()
+            : Collections.<Class<?>, Class<?>>emptyMap();
+
+    // 2. At least twice as many slots as keys, so that probe sequences stay short.
+    int keyCount = beanClasses.length + uniqueImplementations.size();
+    int capacity = Integer.highestOneBit(Math.max(2 * keyCount, 2) - 1) << 1;
+    this.keys = new Class<?>[capacity];
+    this.ids = new int[capacity];
+    this.shift = Integer.numberOfLeadingZeros(capacity) + 1;
+
+    // 3. The bean classes, then the types resolving to them.
+    for (int id = 0; id < beanClasses.length; id++) {
+      put(beanClasses[id], id);
+    }
+    for (Entry<Class<?>, Class<?>> binding : uniqueImplementations.entrySet()) {
+      int id = indexOf(binding.getValue());
+      if (id >= 0) {
+        put(binding.getKey(), id);
+      }
+    }
+  }
+
+  /**
+   * Freezes the created singletons.
+   *
+   * @param singletons Bean Class -> its created instance.
+   * @param resolutionIndex components index, to look the beans up by their unique interfaces.
+   */
+  static FrozenBeans of(Map<Class<?>, Object> singletons, ResolutionIndex resolutionIndex) {
+    Class<?>[] beanClasses = new Class<?>[singletons.size()];
+    Object[] instances = new Object[singletons.size()];
+    boolean preDestroy = false;
+    int id = 0;
+    for (Entry<Class<?>, Object> singleton : singletons.entrySet()) {
+      beanClasses[id] = singleton.getKey();
+      instances[id] = singleton.getValue();
+      preDestroy |= !BeanDefinition.of(singleton.getKey()).getPreDestroyMethods().isEmpty();
+      id++;
+    }
+    return new FrozenBeans(beanClasses, instances, preDestroy, resolutionIndex);
+  }
+
+  /** The same beans, looked up through the unique implementations of another index. */
+  FrozenBeans rebind(ResolutionIndex resolutionIndex) {
+    return beanClasses.length == 0
+        ? this
+        : new FrozenBeans(beanClasses, instances, preDestroy, resolutionIndex);
+  }
+
+  private void put(Class<?> type, int id) {
+    int slot = slot(type);
+    while (keys[slot] != null) {
+      if (keys[slot] == type) {
+        return;
+      }
+      slot = (slot + 1) & (keys.length - 1);
+    }
+    keys[slot] = type;
+    ids[slot] = id;
+  }
+
+  private int slot(Class<?> type) {
+    return (System.identityHashCode(type) * HASH_MULTIPLIER) >>> shift;
+  }
+
+  /**
+   * Get the id of the bean of a type.
+   *
+   * @param type bean class, or interface/super class implemented by that bean only.
+   * @return the bean id, or -1 if no frozen bean has this type.
+   */
+  int indexOf(Class<?> type) {
+    Class<?>[] keys = this.keys;
+    int mask = keys.length - 1;
+    for (int slot = slot(type); ; slot = (slot + 1) & mask) {
+      Class<?> key = keys[slot];
+      if (key == type) {
+        return ids[slot];
+      }
+      if (key == null) {
+        return -1;
+      }
+    }
+  }
+
+  Object getInstance(int id) {
+    return instances[id];
+  }
+
+  Class<?> getBeanClass(int id) {
+    return beanClasses[id];
+  }
+
+  int size() {
+    return beanClasses.length;
+  }
+
+  boolean hasPreDestroy() {
+    return preDestroy;
+  }
+}
@@ -0,0 +1,652 @@
+package com.arjunsk.codekrypt.di.core;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import com.arjunsk.codekrypt.di.core.BeanDefinition.InjectionPoint;
+import com.arjunsk.codekrypt.di.exceptions.BeanFetchException;
+import com.arjunsk.codekrypt.di.exceptions.ClassLoadException;
+import com.arjunsk.codekrypt.di.intercept.MethodInterceptor;
+import com.arjunsk.codekrypt.di.listener.ContainerListener;
+import com.arjunsk.codekrypt.di.listener.ReloadReport;
+import com.arjunsk.codekrypt.di.utils.ClassFileUtils.AnnotatedClass;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Watches the class directories of a root container's package, and reloads the changed beans in
+ * place, without restarting the container. Started by InjectorConfig.withHotReload.
+ *
+ * <p>The changed classes are defined again in a fresh class loader, together with the dependents
+ * injecting them by class. Only the subgraph of their dependents is wired again: the ones
+ * injecting a reloaded bean in their constructor (or not singletons) are created again, and the
+ * other singletons get the new beans in their fields. Every other singleton is kept, so a reload
+ * costs the size of the change, not the size of the application.
+ *
+ * <p>Classes referring to a reloaded class by name keep its previous version, and so do the
+ * handles kept by the application. Changes to classes which are not beans need a restart.
+ */
+public class HotReloader implements AutoCloseable {
+
+  // Events are batched until the directories are quiet that long, eg during a compilation.
+  private static final long QUIET_MILLIS = 200;
+
+  private final Container container;
+  private final BeanManager beanManager;
+  private final ConditionEvaluator conditionEvaluator;
+  private final String packageName;
+  private final List<Path> packageDirectories = new ArrayList<>();
+  private final ClassLoader baseClassLoader;
+
+  // Class name -> loader of its latest version, for the reloaded classes.
+  private final Map<String, ClassLoader> reloadedLoaders = new ConcurrentHashMap<>();
+
+  // Class name -> current version, of the indexed beans.
+  private final Map<String, Class<?>> beanClasses = new HashMap<>();
+
+  // Bean Class -> the beans its injection points resolve to, and the beans resolving to it.
+  private final Map<Class<?>, Set<Class<?>>> dependencies = new HashMap<>();
+  private final Map<Class<?>, Set<Class<?>>> dependents = new HashMap<>();
+
+  // Injected type -> beans injecting it, which a new implementation may change.
+  private final Map<Class<?>, Set<Class<?>>> typeDependents = new HashMap<>();
+
+  private final WatchService watchService;
+  private final Thread watchThread;
+
+  private boolean closed;
+
+  private volatile ReloadReport lastReport;
+
+  /**
+   * Indexes the dependencies of the beans, and starts watching.
+   *
+   * @param container running root container, not compacted.
+   * @param mainClass Main class, whose package directories are watched.
+   * @param conditionEvaluator evaluates the conditions of the new components.
+   */
+  HotReloader(Container container, Class<?> mainClass, ConditionEvaluator conditionEvaluator) {
+    this.container = container;
+    this.beanManager = container.getBeanManager();
+    this.conditionEvaluator = conditionEvaluator;
+    this.packageName = mainClass.getPackage().getName();
+    this.baseClassLoader = mainClass.getClassLoader();
+
+    // 1. The dependencies of all the beans, once. Reloads only update the changed part.
+    index(beanManager.getResolutionIndex().getComponentClasses());
+
+    // 2. Watch the package directories, and the ones created later.
+    try {
+      for (File directory : ClassScanner.getClassDirectories(packageName, baseClassLoader)) {
+        packageDirectories.add(directory.toPath());
+      }
+      watchService = FileSystems.getDefault().newWatchService();
+      for (Path directory : packageDirectories) {
+        register(directory);
+      }
+    } catch (IOException ex) {
+      throw new ClassLoadException("Unable to watch " + packageDirectories, ex);
+    }
+    watchThread = new Thread(this::watch, "codekrypt-hot-reload");
+    watchThread.setDaemon(true);
+    watchThread.start();
+  }
+
+  /** Get the report of the last reload, or null if nothing was reloaded yet. */
+  public ReloadReport getLastReport() {
+    return lastReport;
+  }
+
+  /**
+   * Reloads changed class files now, as the watcher does once they are written. Reports to the
+   * listener too.
+   *
+   * @param changedFiles changed .class files, in the watched directories.
+   * @return what was reloaded, or why it failed.
+   */
+  public synchronized ReloadReport reload(Collection<Path> changedFiles) {
+    long startNanos = System.nanoTime();
+    List<Class<?>> reloadedClasses = new ArrayList<>();
+    List<Class<?>> addedClasses = new ArrayList<>();
+    List<Class<?>> recreatedClasses = new ArrayList<>();
+    List<Class<?>> rewiredClasses = new ArrayList<>();
+    List<String> skippedClassNames = new ArrayList<>();
+    Throwable failure = null;
+    try {
+      if (closed) {
+        throw new IllegalStateException("Container is closed");
+      }
+
+      // 1. The changed beans, and the new components. Other classes need a restart.
+      Set<Class<?>> changedClasses = new LinkedHashSet<>();
+      Set<String> addedClassNames = new LinkedHashSet<>();
+      for (String className : getTopLevelClassNames(changedFiles)) {
+        Class<?> beanClass = beanClasses.get(className);
+        Path classFile = findClassFile(className);
+        if (classFile != null && beanClass != null) {
+          changedClasses.add(beanClass);
+        } else if (classFile != null && isActiveComponent(className, classFile)) {
+          addedClassNames.add(className);
+        } else {
+          skippedClassNames.add(className);
+        }
+      }
+
+      // 2. Dependents injecting a reloaded class itself are reloaded too, to link to its new
+      // version.
+      Set<Class<?>> reloaded = new LinkedHashSet<>(changedClasses);
+      Deque<Class<?>> pending = new ArrayDeque<>(changedClasses);
+      while (!pending.isEmpty()) {
+        for (Class<?> dependent : get(dependents, pending.poll())) {
+          if (!reloaded.contains(dependent) && linksTo(dependent, reloaded)) {
+            reloaded.add(dependent);
+            pending.add(dependent);
+          }
+        }
+      }
+
+      // 3. Define their new versions, and the new components, in a fresh class loader.
+      Map<String, Path> classFiles = new HashMap<>();
+      for (Class<?> reloadedClass : reloaded) {
+        addClassFiles(reloadedClass.getName(), classFiles);
+      }
+      for (String className : addedClassNames) {
+        addClassFiles(className, classFiles);
+      }
+      ClassLoader classLoader =
+          new ReloadClassLoader(baseClassLoader, classFiles, reloadedLoaders);
+      Map<Class<?>, Class<?>> replacedClasses = new LinkedHashMap<>();
+      for (Class<?> reloadedClass : reloaded) {
+        Class<?> newClass = Class.forName(reloadedClass.getName(), false, classLoader);
+        replacedClasses.put(reloadedClass, newClass);
+        reloadedClasses.add(newClass);
+      }
+      for (String className : addedClassNames) {
+        addedClasses.add(Class.forName(className, false, classLoader));
+      }
+
+      // 4. Walk the dependents of the stale beans. Singletons injecting them in fields only are
+      // kept and rewired, the others are stale too, and so are their dependents.
+      Set<Class<?>> newTypes = new HashSet<>();
+      for (Class<?> newClass : reloadedClasses) {
+        newTypes.addAll(ResolutionIndex.getAssignableTypes(newClass));
+      }
+      for (Class<?> addedClass : addedClasses) {
+        newTypes.addAll(ResolutionIndex.getAssignableTypes(addedClass));
+      }
+      Set<Class<?>> staleClasses = new LinkedHashSet<>(reloaded);
+      Set<Class<?>> keptClasses = new LinkedHashSet<>();
+      Deque<Class<?>> candidates = new ArrayDeque<>();
+      for (Class<?> staleClass : staleClasses) {
+        candidates.addAll(get(dependents, staleClass));
+      }
+      for (Class<?> newType : newTypes) {
+        candidates.addAll(get(typeDependents, newType));
+      }
+      while (!candidates.isEmpty()) {
+        Class<?> dependent = candidates.poll();
+        if (staleClasses.contains(dependent)) {
+          continue;
+        }
+        if (!beanManager.isSingleton(dependent)
+            || isConstructorAffected(dependent, staleClasses, newTypes)) {
+          staleClasses.add(dependent);
+          keptClasses.remove(dependent);
+          candidates.addAll(get(dependents, dependent));
+        } else {
+          keptClasses.add(dependent);
+        }
+      }
+      Map<Class<?>, List<InjectionPoint>> rewiredFields = new LinkedHashMap<>();
+      for (Class<?> keptClass : keptClasses) {
+        rewiredFields.put(keptClass, getAffectedFields(keptClass, staleClasses, newTypes));
+      }
+
+      // 5. Destroy the created stale singletons, dependents first.
+      List<Class<?>> destroyedClasses = new ArrayList<>();
+      List<Class<?>> staleOrder = new ArrayList<>(staleClasses);
+      Collections.reverse(staleOrder);
+      for (Class<?> staleClass : staleOrder) {
+        Object classInstance = beanManager.removeSingleton(staleClass);
+        if (classInstance != null) {
+          destroyedClasses.add(staleClass);
+          try {
+            beanManager.destroyBean(staleClass, classInstance);
+          } catch (RuntimeException ex) {
+            failure = addFailure(failure, ex);
+          }
+        }
+      }
+
+      // 6. Swap the components, then create the replacements of the destroyed singletons,
+      // dependencies first, and the eager new singletons.
+      beanManager.replaceComponents(replacedClasses, addedClasses);
+      Collections.reverse(destroyedClasses);
+      for (Class<?> destroyedClass : destroyedClasses) {
+        Class<?> beanClass = replacedClasses.getOrDefault(destroyedClass, destroyedClass);
+        beanManager.getBeanInstance(beanClass, beanClass.getName(), null);
+        if (!replacedClasses.containsKey(destroyedClass)) {
+          recreatedClasses.add(beanClass);
+        }
+      }
+      for (Class<?> addedClass : addedClasses) {
+        if (!Modifier.isAbstract(addedClass.getModifiers())
+            && beanManager.isSingleton(addedClass)
+            && !beanManager.isLazy(addedClass)) {
+          beanManager.getBeanInstance(addedClass, addedClass.getName(), null);
+        }
+      }
+
+      // 7. Inject the new beans in the affected fields of the kept singletons.
+      for (Entry<Class<?>, List<InjectionPoint>> entry : rewiredFields.entrySet()) {
+        Object classInstance = beanManager.getCreatedSingleton(entry.getKey());
+        if (classInstance != null && !entry.getValue().isEmpty()) {
+          for (InjectionPoint field : entry.getValue()) {
+            beanManager.reinject(classInstance, field);
+          }
+          rewiredClasses.add(entry.getKey());
+        }
+      }
+
+      // 8. Fetch the new beans from now on, and index the changed part of the graph.
+      container.invalidateHandles();
+      for (String className : classFiles.keySet()) {
+        reloadedLoaders.put(className, classLoader);
+      }
+      Set<Class<?>> changedBeans = new LinkedHashSet<>(staleClasses);
+      changedBeans.addAll(keptClasses);
+      for (Class<?> changedBean : changedBeans) {
+        unindex(changedBean);
+      }
+      for (Class<?> replacedClass : replacedClasses.keySet()) {
+        dependents.remove(replacedClass);
+        beanClasses.remove(replacedClass.getName());
+      }
+      Set<Class<?>> newBeans = new LinkedHashSet<>(reloadedClasses);
+      newBeans.addAll(addedClasses);
+      for (Class<?> changedBean : changedBeans) {
+        newBeans.add(replacedClasses.getOrDefault(changedBean, changedBean));
+      }
+      index(newBeans);
+    } catch (Exception | LinkageError ex) {
+      failure = addFailure(failure, ex);
+    }
+
+    ReloadReport report =
+        new ReloadReport(
+            reloadedClasses,
+            addedClasses,
+            recreatedClasses,
+            rewiredClasses,
+            skippedClassNames,
+            System.nanoTime() - startNanos,
+            failure);
+    publish(report);
+    return report;
+  }
+
+  /**
+   * Stops watching. A running reload is completed first.
+   *
+   * @throws ClassLoadException if the watch service fails to close.
+   */
+  @Override
+  public void close() {
+    try {
+      watchService.close();
+    } catch (IOException ex) {
+      throw new ClassLoadException("Unable to close the watch service", ex);
+    } finally {
+      synchronized (this) {
+        closed = true;
+      }
+    }
+  }
+
+  /** Waits for the changed class files, and reloads them in batches. */
+  private void watch() {
+    try {
+      while (true) {
+        // 1. Collect the events until the directories are quiet, eg the compilation is done.
+        Set<Path> changedFiles = new LinkedHashSet<>();
+        WatchKey key = watchService.take();
+        while (key != null) {
+          Path directory = (Path) key.watchable();
+          for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+              continue;
+            }
+            Path path = directory.resolve((Path) event.context());
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(path)) {
+              addNewDirectory(path, changedFiles);
+            } else if (isClassFile(path)) {
+              changedFiles.add(path);
+            }
+          }
+          key.reset();
+          key = watchService.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS);
+        }
+
+        // 2. Reload them at once.
+        if (!changedFiles.isEmpty()) {
+          reload(changedFiles);
+        }
+      }
+    } catch (InterruptedException | ClosedWatchServiceException ex) {
+      // Closed.
+    }
+  }
+
+  /** Watches a new package directory, and collects the class files written before. */
+  private void addNewDirectory(Path directory, Set<Path> changedFiles) {
+    try {
+      register(directory);
+      try (Stream<Path> files = Files.walk(directory)) {
+        files.filter(HotReloader::isClassFile).forEach(changedFiles::add);
+      }
+    } catch (IOException ex) {
+      publish(
+          new ReloadReport(
+              Collections.emptyList(),
+              Collections.emptyList(),
+              Collections.emptyList(),
+              Collections.emptyList(),
+              Collections.emptyList(),
+              0,
+              new ClassLoadException("Unable to watch " + directory, ex)));
+    }
+  }
+
+  private void register(Path root) throws IOException {
+    Files.walkFileTree(
+        root,
+        new SimpleFileVisitor<Path>() {
+          @Override
+          public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes)
+              throws IOException {
+            directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+            return FileVisitResult.CONTINUE;
+          }
+        });
+  }
+
+  private void publish(ReloadReport report) {
+    lastReport = report;
+    ContainerListener listener = beanManager.getListener();
+    if (listener != null) {
+      listener.onReload(report);
+    }
+  }
+
+  private static boolean isClassFile(Path path) {
+    return path.getFileName().toString().endsWith(".class");
+  }
+
+  /** The top level classes of class files, eg Foo for Foo$Bar.class. */
+  private Set<String> getTopLevelClassNames(Collection<Path> classFiles) {
+    Set<String> classNames = new LinkedHashSet<>();
+    for (Path classFile : classFiles) {
+      for (Path directory : packageDirectories) {
+        if (classFile.startsWith(directory)) {
+          String relativeName = directory.relativize(classFile).toString();
+          relativeName = relativeName.substring(0, relativeName.length() - ".class".length());
+          String className =
+              packageName + "." + relativeName.replace(File.separatorChar, '.');
+          int nestedIndex = className.indexOf('$', className.lastIndexOf('.'));
+          classNames.add(nestedIndex > 0 ? className.substring(0, nestedIndex) : className);
+          break;
+        }
+      }
+    }
+    return classNames;
+  }
+
+  /** The class file of a class in the watched directories, or null if there is none. */
+  private Path findClassFile(String className) {
+    if (!className.startsWith(packageName + ".")) {
+      return null;
+    }
+    String relativeName = className.substring(packageName.length() + 1);
+    for (Path directory : packageDirectories) {
+      Path classFile =
+          directory.resolve(relativeName.replace('.', File.separatorChar) + ".class");
+      if (Files.isRegularFile(classFile)) {
+        return classFile;
+      }
+    }
+    return null;
+  }
+
+  /** Adds the class file of a top level class, and the ones of its nested classes. */
+  private void addClassFiles(String className, Map<String, Path> classFiles) throws IOException {
+    Path classFile = findClassFile(className);
+    if (classFile == null) {
+      throw new ClassLoadException("No class file to reload " + className + " from");
+    }
+    classFiles.put(className, classFile);
+
+    String nestedPrefix = classFile.getFileName().toString().replace(".class", "$");
+    try (Stream<Path> siblings = Files.list(classFile.getParent())) {
+      siblings
+          .filter(sibling -> sibling.getFileName().toString().startsWith(nestedPrefix))
+          .filter(HotReloader::isClassFile)
+          .forEach(
+              nestedFile -> {
+                String nestedName = nestedFile.getFileName().toString();
+                classFiles.put(
+                    className.substring(0, className.lastIndexOf('.') + 1)
+                        + nestedName.substring(0, nestedName.length() - ".class".length()),
+                    nestedFile);
+              });
+    }
+  }
+
+  /** Whether a new class file is a @Component whose conditions match. */
+  private boolean isActiveComponent(String className, Path classFile) throws IOException {
+    AnnotatedClass component =
+        ClassScanner.componentClass(classFile.toString(), Files.readAllBytes(classFile));
+    return component != null
+        && conditionEvaluator.isActive(className, ComponentConditions.of(component));
+  }
+
+  /** Indexes the dependencies of beans, and of the concrete classes they resolve to. */
+  private void index(Collection<Class<?>> newBeans) {
+    Deque<Class<?>> pending = new ArrayDeque<>(newBeans);
+    while (!pending.isEmpty()) {
+      Class<?> beanClass = pending.poll();
+      if (dependencies.containsKey(beanClass)
+          || Modifier.isAbstract(beanClass.getModifiers())
+          || beanManager.isBoundByParent(beanClass)) {
+        continue;
+      }
+      beanClasses.put(beanClass.getName(), beanClass);
+
+      Set<Class<?>> targets = new LinkedHashSet<>();
+      BeanDefinition beanDefinition = BeanDefinition.of(beanClass);
+      for (InjectionPoint parameter : beanDefinition.getConstructorParameters()) {
+        get(typeDependents, getInjectedType(parameter), true).add(beanClass);
+        targets.addAll(resolve(parameter, null));
+      }
+      for (InjectionPoint field : beanDefinition.getFields()) {
+        get(typeDependents, getInjectedType(field), true).add(beanClass);
+        targets.addAll(resolve(field, field.getName()));
+      }
+      targets.addAll(getInterceptorClasses(beanDefinition));
+
+      dependencies.put(beanClass, targets);
+      for (Class<?> target : targets) {
+        get(dependents, target, true).add(beanClass);
+        pending.add(target);
+      }
+    }
+  }
+
+  private void unindex(Class<?> beanClass) {
+    for (Class<?> target : get(dependencies, beanClass)) {
+      get(dependents, target).remove(beanClass);
+    }
+    dependencies.remove(beanClass);
+    BeanDefinition beanDefinition = BeanDefinition.of(beanClass);
+    for (InjectionPoint parameter : beanDefinition.getConstructorParameters()) {
+      get(typeDependents, getInjectedType(parameter)).remove(beanClass);
+    }
+    for (InjectionPoint field : beanDefinition.getFields()) {
+      get(typeDependents, getInjectedType(field)).remove(beanClass);
+    }
+  }
+
+  /** Whether a bean injects one of the classes itself, so that it links to their version. */
+  private static boolean linksTo(Class<?> beanClass, Set<Class<?>> classes) {
+    BeanDefinition beanDefinition = BeanDefinition.of(beanClass);
+    List<InjectionPoint> injectionPoints =
+        new ArrayList<>(beanDefinition.getConstructorParameters());
+    injectionPoints.addAll(beanDefinition.getFields());
+    for (InjectionPoint injectionPoint : injectionPoints) {
+      if (classes.contains(injectionPoint.getType())
+          || classes.contains(getInjectedType(injectionPoint))) {
+        return true;
+      }
+    }
+    for (List<Class<? extends MethodInterceptor>> interceptorClasses :
+        beanDefinition.getInterceptorBindings().values()) {
+      for (Class<?> interceptorClass : interceptorClasses) {
+        if (classes.contains(interceptorClass)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /** Whether a constructor argument or an interceptor of a bean is stale, or a new type. */
+  private boolean isConstructorAffected(
+      Class<?> beanClass, Set<Class<?>> staleClasses, Set<Class<?>> newTypes) {
+    BeanDefinition beanDefinition = BeanDefinition.of(beanClass);
+    for (InjectionPoint parameter : beanDefinition.getConstructorParameters()) {
+      if (isAffected(parameter, null, staleClasses, newTypes)) {
+        return true;
+      }
+    }
+    for (Class<?> interceptorClass : getInterceptorClasses(beanDefinition)) {
+      if (staleClasses.contains(interceptorClass)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** The fields of a bean injected with a stale bean, or with a type having a new version. */
+  private List<InjectionPoint> getAffectedFields(
+      Class<?> beanClass, Set<Class<?>> staleClasses, Set<Class<?>> newTypes) {
+    List<InjectionPoint> affectedFields = new ArrayList<>();
+    for (InjectionPoint field : BeanDefinition.of(beanClass).getFields()) {
+      if (isAffected(field, field.getName(), staleClasses, newTypes)) {
+        affectedFields.add(field);
+      }
+    }
+    return affectedFields;
+  }
+
+  private boolean isAffected(
+      InjectionPoint injectionPoint,
+      String fieldName,
+      Set<Class<?>> staleClasses,
+      Set<Class<?>> newTypes) {
+    if (newTypes.contains(getInjectedType(injectionPoint))) {
+      return true;
+    }
+    for (Class<?> target : resolve(injectionPoint, fieldName)) {
+      if (staleClasses.contains(target)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** The implementations an injection point resolves to now. */
+  private List<Class<?>> resolve(InjectionPoint injectionPoint, String fieldName) {
+    Class<?> type = getInjectedType(injectionPoint);
+    try {
+      if (injectionPoint.isMultiBinding()) {
+        return beanManager.getImplementationClasses(type);
+      }
+      return Collections.singletonList(
+          beanManager.getImplementationClass(type, fieldName, injectionPoint.getQualifier()));
+    } catch (BeanFetchException ex) {
+      // Unresolved: fetching it fails, until a reload adds an implementation.
+      return Collections.emptyList();
+    }
+  }
+
+  private List<Class<?>> getInterceptorClasses(BeanDefinition beanDefinition) {
+    List<Class<?>> interceptorClasses = new ArrayList<>();
+    for (List<Class<? extends MethodInterceptor>> boundClasses :
+        beanDefinition.getInterceptorBindings().values()) {
+      for (Class<?> interceptorClass : boundClasses) {
+        interceptorClasses.add(beanManager.getImplementationClass(interceptorClass, null, null));
+      }
+    }
+    return interceptorClasses;
+  }
+
+  /** The type a point resolves: the element of a List/Set/Map, or of a Provider. */
+  private static Class<?> getInjectedType(InjectionPoint injectionPoint) {
+    if (injectionPoint.isMultiBinding()) {
+      return injectionPoint.getMultiBindingType();
+    }
+    return injectionPoint.isProvider()
+        ? injectionPoint.getProviderType()
+        : injectionPoint.getType();
+  }
+
+  private static Set<Class<?>> get(Map<Class<?>, Set<Class<?>>> map, Class<?> key) {
+    return get(map, key, false);
+  }
+
+  private static Set<Class<?>> get(
+      Map<Class<?>, Set<Class<?>>> map, Class<?> key, boolean create) {
+    Set<Class<?>> values = map.get(key);
+    if (values == null && create) {
+      values = new LinkedHashSet<>();
+      map.put(key, values);
+    }
+    return values != null ? values : Collections.<Class<?>>emptySet();
+  }
+
+  private static Throwable addFailure(Throwable failure, Throwable ex) {
+    if (failure == null) {
+      return ex;
+    }
+    failure.addSuppressed(ex);
+    return failure;
+  }
+}
@@ -0,0 +1,239 @@
+package com.arjunsk.codekrypt.di.core;
+
+import com.arjunsk.codekrypt.di.injection.GeneratedInjectionStrategy;
+import com.arjunsk.codekrypt.di.injection.InjectionStrategy;
+import com.arjunsk.codekrypt.di.injection.ReflectiveInjectionStrategy;
+import com.arjunsk.codekrypt.di.listener.ContainerListener;
+import com.arjunsk.codekrypt.di.scope.BeanScope;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/** Options for {@link CodekryptInjector#run(Class, InjectorConfig)}. */
+public class InjectorConfig {
+
+  // Runs the task on the calling thread.
+  private static final Executor DIRECT_EXECUTOR = Runnable::run;
+
+  private Executor executor = DIRECT_EXECUTOR;
+
+  private InjectionStrategy injectionStrategy = new GeneratedInjectionStrategy();
+
+  private final Map<String, BeanScope> scopes = new LinkedHashMap<>();
+
+  private boolean lazyInit;
+
+  private ContainerListener listener;
+
+  private long preDestroyTimeoutNanos =
+      TimeUnit.MILLISECONDS.toNanos(BeanManager.DEFAULT_PRE_DESTROY_TIMEOUT_MILLIS);
+
+  private boolean shutdownHook;
+
+  private Executor initExecutor;
+
+  private final List<String> profiles = new ArrayList<>();
+
+  private final Map<String, String> properties = new LinkedHashMap<>();
+
+  private boolean compactRuntime = true;
+
+  private boolean hotReload;
+
+  public Executor getExecutor() {
+    return executor;
+  }
+
+  /**
+   * Executor creating the beans. Independent beans are created in parallel on it, so startup
+   * time follows the longest dependency chain instead of the bean count. By default, the beans
+   * are created one after another on the calling thread. The beans of a wiring plan are created
+   * on it the same way. Beans are destroyed on it too, on close.
+   *
+   * @param executor Executor for bean creation.
+   */
+  public InjectorConfig withExecutor(Executor executor) {
+    this.executor = executor;
+    return this;
+  }
+
+  /** Whether the beans are created one after another on the calling thread (the default). */
+  boolean isSequential() {
+    return executor == DIRECT_EXECUTOR;
+  }
+
+  public InjectionStrategy getInjectionStrategy() {
+    return injectionStrategy;
+  }
+
+  /**
+   * How the beans are instantiated and injected. Defaults to {@link GeneratedInjectionStrategy};
+   * use {@link ReflectiveInjectionStrategy} to go through plain reflection.
+   *
+   * @param injectionStrategy Injection Strategy.
+   */
+  public InjectorConfig withInjectionStrategy(InjectionStrategy injectionStrategy) {
+    this.injectionStrategy = injectionStrategy;
+    return this;
+  }
+
+  public Map<String, BeanScope> getScopes() {
+    return scopes;
+  }
+
+  /**
+   * Registers a custom scope, used by the beans annotated @Scope(name).
+   *
+   * @param name Scope name.
+   * @param beanScope Scope implementation.
+   */
+  public InjectorConfig withScope(String name, BeanScope beanScope) {
+    this.scopes.put(name, beanScope);
+    return this;
+  }
+
+  public boolean isLazyInit() {
+    return lazyInit;
+  }
+
+  /**
+   * Makes every bean lazy, not only the @Lazy ones: beans are created on their first use instead
+   * of at startup, and injected as proxies until then.
+   *
+   * @param lazyInit whether all the beans are lazy.
+   */
+  public InjectorConfig withLazyInit(boolean lazyInit) {
+    this.lazyInit = lazyInit;
+    return this;
+  }
+
+  public ContainerListener getListener() {
+    return listener;
+  }
+
+  /**
+   * Listener receiving the startup phase and bean creation timings, eg a StartupTimeline. Without
+   * a listener, nothing is timed.
+   *
+   * @param listener Container Listener.
+   */
+  public InjectorConfig withListener(ContainerListener listener) {
+    this.listener = listener;
+    return this;
+  }
+
+  public long getPreDestroyTimeoutNanos() {
+    return preDestroyTimeoutNanos;
+  }
+
+  /**
+   * Time given to the @PreDestroy methods of a bean on close, 30 seconds by default. A slower
+   * bean is reported as timed out, and its dependencies are destroyed without waiting for it. 0
+   * waits without limit.
+   *
+   * @param timeout timeout per bean.
+   * @param unit unit of the timeout.
+   */
+  public InjectorConfig withPreDestroyTimeout(long timeout, TimeUnit unit) {
+    this.preDestroyTimeoutNanos = unit.toNanos(timeout);
+    return this;
+  }
+
+  public boolean isShutdownHook() {
+    return shutdownHook;
+  }
+
+  /**
+   * Closes the Container when the JVM shuts down, unless it is closed before.
+   *
+   * @param shutdownHook whether to register a JVM shutdown hook.
+   */
+  public InjectorConfig withShutdownHook(boolean shutdownHook) {
+    this.shutdownHook = shutdownHook;
+    return this;
+  }
+
+  public Executor getInitExecutor() {
+    return initExecutor;
+  }
+
+  /**
+   * Executor running the @PostConstruct(async = true) methods, and the ones of their dependents.
+   * By default, a virtual thread per bean on JDK 21+, else a cached pool of daemon threads, shut
+   * down once the container is ready.
+   *
+   * @param initExecutor Executor for bean initialization.
+   */
+  public InjectorConfig withInitExecutor(Executor initExecutor) {
+    this.initExecutor = initExecutor;
+    return this;
+  }
+
+  public List<String> getProfiles() {
+    return profiles;
+  }
+
+  /**
+   * Active profiles, for the @Profile components. By default, the ones of the
+   * "codekrypt.profiles.active" System Property, else "default".
+   *
+   * @param profiles active profiles.
+   */
+  public InjectorConfig withProfiles(String... profiles) {
+    this.profiles.addAll(Arrays.asList(profiles));
+    return this;
+  }
+
+  public Map<String, String> getProperties() {
+    return properties;
+  }
+
+  /**
+   * Sets a property, for the @ConditionalOnProperty components. It takes precedence over the
+   * System Property of the same name.
+   *
+   * @param name property name.
+   * @param value property value.
+   */
+  public InjectorConfig withProperty(String name, String value) {
+    this.properties.put(name, value);
+    return this;
+  }
+
+  public boolean isCompactRuntime() {
+    return compactRuntime;
+  }
+
+  /**
+   * Moves the singletons into a compact runtime state once the startup is done, and drops their
+   * startup-only metadata (definitions, factories, injectors). On by default; turn it off when
+   * starting many containers of the same classes, eg one per test, so they share that metadata.
+   * Child containers keep it anyway, for their siblings.
+   *
+   * @param compactRuntime whether to compact the container after startup.
+   */
+  public InjectorConfig withCompactRuntime(boolean compactRuntime) {
+    this.compactRuntime = compactRuntime;
+    return this;
+  }
+
+  public boolean isHotReload() {
+    return hotReload;
+  }
+
+  /**
+   * Watches the class directories of the main class package, and reloads the changed components
+   * in place, with their dependents, without restarting the container. For development: the
+   * runtime is then not compacted. Only root containers are watched.
+   *
+   * @param hotReload whether to watch and reload the changed classes.
+   */
+  public InjectorConfig withHotReload(boolean hotReload) {
+    this.hotReload = hotReload;
+    return this;
+  }
+}
@@ -0,0 +1,21 @@
+package com.arjunsk.codekrypt.di.core;
+
+import java.util.function.Supplier;
+
+/**
+ * Injected in place of a bean, to fetch it later or repeatedly: a new bean on every get() for
+ * prototypes, the same one for singletons. As it does not need the bean to be created first, it
+ * can also break a construction cycle.
+ *
+ * <p>A Provider (or Supplier) injection point is resolved once, when injected: get() then creates
+ * or returns the bean directly, without resolving it again.
+ *
+ * @param <T> Bean type.
+ */
+@FunctionalInterface
+public interface Provider<T> extends Supplier<T> {
+
+  /** Fetch the bean, creating it if needed. */
+  @Override
+  T get();
+}
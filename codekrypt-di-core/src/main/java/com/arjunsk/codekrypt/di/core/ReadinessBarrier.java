@@ -0,0 +1,173 @@
+package com.arjunsk.codekrypt.di.core;
+
+import com.arjunsk.codekrypt.di.annotation.PostConstruct;
+import com.arjunsk.codekrypt.di.exceptions.BeanInitiateException;
+import com.arjunsk.codekrypt.di.utils.ClassObjectUtils;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Runs the @PostConstruct methods of the singletons created at startup, once the ones of their
+ * dependencies are done, and tracks them until they are all done.
+ *
+ * <p>A bean is initialized inline, as without the barrier, unless it has async methods or a
+ * dependency still initializing: its methods then run in order on the init executor, after the
+ * ones of its dependencies. Beans whose dependency failed to initialize are not initialized.
+ */
+final class ReadinessBarrier {
+
+  private static final AtomicInteger threadCount = new AtomicInteger();
+
+  // Bean Class -> its dependencies, from the dependency graph or the wiring plan.
+  private final Function<Class<?>, Collection<Class<?>>> dependencies;
+
+  private final Executor initExecutor;
+
+  // Created on the first deferred init when no executor is configured. Null until then.
+  private ExecutorService defaultExecutor;
+
+  // Bean Class -> its deferred init. Beans initialized inline are not kept.
+  private final ConcurrentMap<Class<?>, CompletableFuture<Void>> initFutures =
+      new ConcurrentHashMap<>();
+
+  private final Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+
+  ReadinessBarrier(Function<Class<?>, Collection<Class<?>>> dependencies, Executor initExecutor) {
+    this.dependencies = dependencies;
+    this.initExecutor = initExecutor;
+  }
+
+  /**
+   * Initializes a bean, now or once its dependencies are.
+   *
+   * @param beanClass Bean Class.
+   * @param classInstance the created and wired bean.
+   * @param postConstructMethods its @PostConstruct methods.
+   */
+  void initialize(Class<?> beanClass, Object classInstance, List<Method> postConstructMethods) {
+
+    // 1. Deferred inits of the dependencies, still running or failed. None while no init was
+    // deferred, so the dependencies are not even looked up.
+    List<CompletableFuture<Void>> pendingInits = new ArrayList<>();
+    if (!initFutures.isEmpty()) {
+      for (Class<?> dependency : dependencies.apply(beanClass)) {
+        CompletableFuture<Void> dependencyInit = initFutures.get(dependency);
+        if (dependencyInit != null
+            && (!dependencyInit.isDone() || dependencyInit.isCompletedExceptionally())) {
+          pendingInits.add(dependencyInit);
+        }
+      }
+    }
+
+    // 2. Nothing to wait for: inline, failing the startup as usual.
+    if (pendingInits.isEmpty() && !isAsync(postConstructMethods)) {
+      ClassObjectUtils.invokeLifecycle(classInstance, postConstructMethods);
+      return;
+    }
+
+    // 3. Else, once the dependencies are done, on the init executor.
+    initFutures.put(
+        beanClass,
+        CompletableFuture.allOf(pendingInits.toArray(new CompletableFuture<?>[0]))
+            .thenRunAsync(
+                () -> {
+                  try {
+                    ClassObjectUtils.invokeLifecycle(classInstance, postConstructMethods);
+                  } catch (RuntimeException ex) {
+                    failures.add(
+                        new BeanInitiateException(
+                            "Unable to initialize " + beanClass.getName(), ex));
+                    throw ex;
+                  }
+                },
+                this::execute));
+  }
+
+  /**
+   * Stops tracking new beans.
+   *
+   * @return completes once all the deferred inits are done, or exceptionally with all their
+   *     failures.
+   */
+  CompletableFuture<Void> awaitAll() {
+    CompletableFuture<Void> readiness = new CompletableFuture<>();
+    CompletableFuture.allOf(initFutures.values().toArray(new CompletableFuture<?>[0]))
+        .whenComplete(
+            (ignored, ex) -> {
+              shutdownDefaultExecutor();
+              if (failures.isEmpty()) {
+                readiness.complete(null);
+                return;
+              }
+              BeanInitiateException initException =
+                  new BeanInitiateException(
+                      "Unable to initialize " + failures.size() + " bean(s)", failures.poll());
+              failures.forEach(initException::addSuppressed);
+              readiness.completeExceptionally(initException);
+            });
+    return readiness;
+  }
+
+  private static boolean isAsync(List<Method> postConstructMethods) {
+    for (int i = 0; i < postConstructMethods.size(); i++) {
+      if (postConstructMethods.get(i).getAnnotation(PostConstruct.class).async()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Runs on the init executor, or on the calling thread if it no longer accepts tasks. */
+  private void execute(Runnable command) {
+    try {
+      getExecutor().execute(command);
+    } catch (RejectedExecutionException ex) {
+      command.run();
+    }
+  }
+
+  private synchronized Executor getExecutor() {
+    if (initExecutor != null) {
+      return initExecutor;
+    }
+    if (defaultExecutor == null) {
+      defaultExecutor = newDefaultExecutor();
+    }
+    return defaultExecutor;
+  }
+
+  private synchronized void shutdownDefaultExecutor() {
+    if (defaultExecutor != null) {
+      defaultExecutor.shutdown();
+    }
+  }
+
+  /** A virtual thread per task on JDK 21+, else a cached pool of daemon threads. */
+  private static ExecutorService newDefaultExecutor() {
+    try {
+      // Looked up reflectively, as the library is built for Java 8.
+      return (ExecutorService)
+          Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException ex) {
+      return Executors.newCachedThreadPool(
+          runnable -> {
+            Thread thread = new Thread(runnable, "codekrypt-init-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+          });
+    }
+  }
+}
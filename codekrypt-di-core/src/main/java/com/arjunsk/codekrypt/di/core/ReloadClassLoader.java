@@ -0,0 +1,65 @@
+package com.arjunsk.codekrypt.di.core;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Class loader of one hot reload: defines the new versions of the reloaded classes from their
+ * class files, instead of delegating to its parent.
+ *
+ * <p>Classes reloaded by earlier reloads are delegated to the loader of their latest version, so
+ * loaders are never chained more than one level deep, whatever the number of reloads.
+ */
+final class ReloadClassLoader extends ClassLoader {
+
+  static {
+    registerAsParallelCapable();
+  }
+
+  // Class name -> class file, of the classes defined by this loader.
+  private final Map<String, Path> classFiles;
+
+  // Class name -> loader of its latest version, for the classes of the earlier reloads.
+  private final Map<String, ClassLoader> reloadedLoaders;
+
+  /**
+   * @param parent class loader of the application.
+   * @param classFiles class name -> class file, of the classes to define again.
+   * @param reloadedLoaders class name -> loader of its latest version, updated by the next reloads.
+   */
+  ReloadClassLoader(
+      ClassLoader parent, Map<String, Path> classFiles, Map<String, ClassLoader> reloadedLoaders) {
+    super(parent);
+    this.classFiles = classFiles;
+    this.reloadedLoaders = reloadedLoaders;
+  }
+
+  @Override
+  protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+    Path classFile = classFiles.get(name);
+    if (classFile == null) {
+      ClassLoader reloadedLoader = reloadedLoaders.get(name);
+      return reloadedLoader != null && reloadedLoader != this
+          ? reloadedLoader.loadClass(name)
+          : super.loadClass(name, resolve);
+    }
+
+    synchronized (getClassLoadingLock(name)) {
+      Class<?> loadedClass = findLoadedClass(name);
+      if (loadedClass == null) {
+        try {
+          byte[] bytes = Files.readAllBytes(classFile);
+          loadedClass = defineClass(name, bytes, 0, bytes.length);
+        } catch (IOException ex) {
+          throw new ClassNotFoundException(name, ex);
+        }
+      }
+      if (resolve) {
+        resolveClass(loadedClass);
+      }
+      return loadedClass;
+    }
+  }
+}
@@ -0,0 +1,287 @@
+package com.arjunsk.codekrypt.di.core;
+
+import com.arjunsk.codekrypt.di.annotation.Order;
+import com.arjunsk.codekrypt.di.exceptions.BeanFetchException;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Immutable index of the implementations of every interface and abstract class, built once from
+ * the @Component classes.
+ *
+ * <p>An implementation is indexed under all its interfaces (including super interfaces) and all
+ * its super classes, so one class implementing several interfaces resolves through each of them.
+ * Lookups do not allocate.
+ *
+ * <p>A changed index (eg on a hot reload) only holds the changed bindings, over the full index,
+ * until they grow to a quarter of it.
+ */
+public class ResolutionIndex {
+
+  // Override of a binding without implementations left.
+  private static final Binding REMOVED = new Binding(Collections.emptyList());
+
+  // This Map will hold the Interface/Abstract Class and its Implementation classes.
+  private final Map<Class<?>, Binding> bindings;
+
+  // Full index under the changed bindings, or null for a full index.
+  private final ResolutionIndex base;
+
+  public ResolutionIndex(Collection<Class<?>> componentClasses) {
+    Map<Class<?>, List<Class<?>>> implementationsByType = new HashMap<>();
+    for (Class<?> componentClass : componentClasses) {
+      for (Class<?> type : getAssignableTypes(componentClass)) {
+        implementationsByType.computeIfAbsent(type, key -> new ArrayList<>()).add(componentClass);
+      }
+    }
+
+    Map<Class<?>, Binding> bindings = new HashMap<>();
+    for (Entry<Class<?>, List<Class<?>>> entry : implementationsByType.entrySet()) {
+      bindings.put(entry.getKey(), new Binding(entry.getValue()));
+    }
+    this.bindings = Collections.unmodifiableMap(bindings);
+    this.base = null;
+  }
+
+  private ResolutionIndex(Map<Class<?>, Binding> bindings, ResolutionIndex base) {
+    this.bindings = Collections.unmodifiableMap(bindings);
+    this.base = base;
+  }
+
+  /**
+   * Get a copy of the index with some components replaced or added. Only the bindings of their
+   * types are built and stored again, so the cost follows the size of the change.
+   *
+   * @param replacedClasses previous version of a component -> its new version.
+   * @param addedClasses new components.
+   */
+  ResolutionIndex withChanges(
+      Map<Class<?>, Class<?>> replacedClasses, Collection<Class<?>> addedClasses) {
+    // 1. The implementations of the types of the previous and new versions.
+    Map<Class<?>, List<Class<?>>> changedBindings = new HashMap<>();
+    for (Class<?> previousClass : replacedClasses.keySet()) {
+      for (Class<?> type : getAssignableTypes(previousClass)) {
+        changedBindings.computeIfAbsent(type, this::getImplementations).remove(previousClass);
+      }
+    }
+    List<Class<?>> newClasses = new ArrayList<>(replacedClasses.values());
+    newClasses.addAll(addedClasses);
+    for (Class<?> newClass : newClasses) {
+      for (Class<?> type : getAssignableTypes(newClass)) {
+        changedBindings.computeIfAbsent(type, this::getImplementations).add(newClass);
+      }
+    }
+
+    // 2. The changed bindings override the full index, which is shared.
+    ResolutionIndex fullIndex = base != null ? base : this;
+    Map<Class<?>, Binding> overrides = base != null ? new HashMap<>(bindings) : new HashMap<>();
+    for (Entry<Class<?>, List<Class<?>>> entry : changedBindings.entrySet()) {
+      overrides.put(
+          entry.getKey(), entry.getValue().isEmpty() ? REMOVED : new Binding(entry.getValue()));
+    }
+
+    // 3. Merged once they are too many, so that they do not grow for ever.
+    if (overrides.size() * 4 > fullIndex.bindings.size()) {
+      return new ResolutionIndex(merge(fullIndex.bindings, overrides), null);
+    }
+    return new ResolutionIndex(overrides, fullIndex);
+  }
+
+  private static Map<Class<?>, Binding> merge(
+      Map<Class<?>, Binding> bindings, Map<Class<?>, Binding> overrides) {
+    Map<Class<?>, Binding> merged = new HashMap<>(bindings);
+    for (Entry<Class<?>, Binding> entry : overrides.entrySet()) {
+      if (entry.getValue() == REMOVED) {
+        merged.remove(entry.getKey());
+      } else {
+        merged.put(entry.getKey(), entry.getValue());
+      }
+    }
+    return merged;
+  }
+
+  private Map<Class<?>, Binding> getAllBindings() {
+    return base != null ? merge(base.bindings, bindings) : bindings;
+  }
+
+  private Binding getBinding(Class<?> type) {
+    Binding binding = bindings.get(type);
+    if (binding == null && base != null) {
+      binding = base.bindings.get(type);
+    }
+    return binding != REMOVED ? binding : null;
+  }
+
+  private List<Class<?>> getImplementations(Class<?> type) {
+    Binding binding = getBinding(type);
+    return binding != null
+        ? new ArrayList<>(Arrays.asList(binding.implementations))
+        : new ArrayList<>();
+  }
+
+  /** Get the indexed components: the types implemented by themselves. */
+  Set<Class<?>> getComponentClasses() {
+    Set<Class<?>> componentClasses = new LinkedHashSet<>();
+    for (Entry<Class<?>, Binding> entry : getAllBindings().entrySet()) {
+      if (Arrays.asList(entry.getValue().implementations).contains(entry.getKey())) {
+        componentClasses.add(entry.getKey());
+      }
+    }
+    return componentClasses;
+  }
+
+  /**
+   * Returns the class itself, all its super classes (except Object) and all its interfaces,
+   * including the super interfaces.
+   *
+   * @param componentClass @Component class.
+   */
+  public static Set<Class<?>> getAssignableTypes(Class<?> componentClass) {
+    Set<Class<?>> types = new LinkedHashSet<>();
+    for (Class<?> type = componentClass; type != null && type != Object.class; ) {
+      types.add(type);
+      addInterfaces(type, types);
+      type = type.getSuperclass();
+    }
+    return types;
+  }
+
+  private static void addInterfaces(Class<?> type, Set<Class<?>> types) {
+    for (Class<?> interfaceClass : type.getInterfaces()) {
+      if (types.add(interfaceClass)) {
+        addInterfaces(interfaceClass, types);
+      }
+    }
+  }
+
+  /**
+   * Whether a type is a component, or an interface/super class of one.
+   *
+   * @param inputClass interface/abstract class/concrete class
+   */
+  public boolean isBound(Class<?> inputClass) {
+    return getBinding(inputClass) != null;
+  }
+
+  /**
+   * Returns Implementation class for an interface/class.
+   *
+   * @param inputClass interface/abstract class/concrete class
+   * @param fieldName @Autowire field name
+   * @param qualifier @Qualifier value
+   * @return Implementation class of the interface.
+   */
+  public Class<?> resolve(Class<?> inputClass, String fieldName, String qualifier) {
+
+    /* 1. if this is a concrete class, then return the same class.*/
+    if (!inputClass.isInterface() && !Modifier.isAbstract(inputClass.getModifiers())) {
+      return inputClass;
+    }
+
+    /* 2. Else, return the implementation class of the interface/abstract class. */
+    Binding binding = getBinding(inputClass);
+    if (binding == null) {
+      throw new BeanFetchException("No impl found for " + inputClass.getName());
+    }
+    if (binding.implementations.length == 1) {
+      return binding.implementations[0];
+    }
+
+    // If there are multiple impl, we use qualifier or field name for resolving.
+    String findBy = (qualifier == null || qualifier.isEmpty()) ? fieldName : qualifier;
+    Class<?> implementationClass = findBy == null ? null : binding.bySimpleName.get(findBy);
+    if (implementationClass != null) {
+      return implementationClass;
+    }
+
+    // If findBy is not matched, we reach here.
+    throw new BeanFetchException(
+        String.format(
+            "%s implementations of %s found. Use @Qualifier to resolve it.",
+            binding.implementations.length, inputClass.getName()));
+  }
+
+  /**
+   * Returns all the Implementation classes of an interface/class, for List/Set/Map injection
+   * points.
+   *
+   * @param inputClass interface/abstract class/concrete class
+   * @return the implementations, ordered by @Order then by name. Empty if there is none.
+   */
+  public List<Class<?>> resolveAll(Class<?> inputClass) {
+    Binding binding = getBinding(inputClass);
+    if (binding != null) {
+      return binding.orderedImplementations;
+    }
+    if (!inputClass.isInterface() && !Modifier.isAbstract(inputClass.getModifiers())) {
+      return Collections.singletonList(inputClass);
+    }
+    return Collections.emptyList();
+  }
+
+  /**
+   * Get the interfaces/abstract classes with a single implementation, which {@link #resolve}
+   * returns whatever the field name and qualifier, and that implementation.
+   */
+  Map<Class<?>, Class<?>> getUniqueImplementations() {
+    Map<Class<?>, Class<?>> uniqueImplementations = new HashMap<>();
+    for (Entry<Class<?>, Binding> entry : getAllBindings().entrySet()) {
+      Class<?> type = entry.getKey();
+      boolean concrete = !type.isInterface() && !Modifier.isAbstract(type.getModifiers());
+      if (!concrete && entry.getValue().implementations.length == 1) {
+        uniqueImplementations.put(type, entry.getValue().implementations[0]);
+      }
+    }
+    return uniqueImplementations;
+  }
+
+  /** Implementations of one type. */
+  private static final class Binding {
+
+    // @Order, then class name.
+    private static final Comparator<Class<?>> ORDER =
+        Comparator.<Class<?>>comparingInt(Binding::getOrder).thenComparing(Class::getName);
+
+    private final Class<?>[] implementations;
+
+    // Implementations by @Order, for the multi-binding injection points.
+    private final List<Class<?>> orderedImplementations;
+
+    // Simple name -> implementation, matched ignoring case.
+    private final Map<String, Class<?>> bySimpleName;
+
+    private Binding(List<Class<?>> implementations) {
+      this.implementations = implementations.toArray(new Class<?>[0]);
+
+      // Abstract components are only resolution targets.
+      Class<?>[] ordered =
+          implementations.stream()
+              .filter(implementation -> !Modifier.isAbstract(implementation.getModifiers()))
+              .sorted(ORDER)
+              .toArray(Class<?>[]::new);
+      this.orderedImplementations = Collections.unmodifiableList(Arrays.asList(ordered));
+
+      Map<String, Class<?>> bySimpleName = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+      for (Class<?> implementation : implementations) {
+        bySimpleName.putIfAbsent(implementation.getSimpleName(), implementation);
+      }
+      this.bySimpleName = Collections.unmodifiableMap(bySimpleName);
+    }
+
+    private static int getOrder(Class<?> implementation) {
+      Order order = implementation.getAnnotation(Order.class);
+      return order != null ? order.value() : Integer.MAX_VALUE;
+    }
+  }
+}
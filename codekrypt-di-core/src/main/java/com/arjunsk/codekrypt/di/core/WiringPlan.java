@@ -0,0 +1,673 @@
+package com.arjunsk.codekrypt.di.core;
+
+import com.arjunsk.codekrypt.di.core.BeanDefinition.InjectionPoint;
+import com.arjunsk.codekrypt.di.core.DependencyGraph.BeanNode;
+import com.arjunsk.codekrypt.di.exceptions.BeanFetchException;
+import com.arjunsk.codekrypt.di.exceptions.CircularDependencyException;
+import com.arjunsk.codekrypt.di.exceptions.ClassLoadException;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Ahead-of-time wiring plan: the singletons to create at startup in construction order, with the
+ * implementation chosen for each injection point and their @PostConstruct functions.
+ *
+ * <p>It is built offline by {@link WiringPlanGenerator}, and executed by {@link
+ * CodekryptInjector#run(Class, InjectorConfig)} instead of discovering, resolving and ordering
+ * the beans. Beans which are not eager singletons are left out, and created on demand.
+ *
+ * <p>Binary format (DataOutput): magic, version, main class, conditional components, fingerprint,
+ * class name table, components, then for each bean its class, constructor parameters, fields and
+ * post construct functions. Classes are referenced by their index in the table. List/Set/Map
+ * injection points only keep their bean type, and get all its implementations at startup.
+ *
+ * <p>The conditional components are the ones having @Profile or @Conditional* annotations, with
+ * their outcome at build time. They are evaluated again at startup before any class is loaded, and
+ * the plan is discarded if an outcome changed.
+ *
+ * <p>The fingerprint covers the inputs of the plan: the component index covering the main package
+ * (else the class files of the package), and the class files of the planned classes and of their
+ * Super Classes. The plan is discarded if they changed since it was built, eg when a build skipped
+ * the plan generation: a new component, @Autowire point or @Qualifier is then resolved again.
+ */
+public class WiringPlan {
+
+  public static final String PLAN_LOCATION = "META-INF/codekrypt/wiring.plan";
+
+  // Set this System Property to "true" to ignore the plan and resolve the beans at startup.
+  public static final String IGNORE_PLAN_PROPERTY = "codekrypt.plan.ignore";
+
+  private static final int MAGIC = 0x434B5750; // CKWP
+  private static final int VERSION = 5;
+
+  private final String mainClassName;
+
+  // Components having conditions, registered or not at build time.
+  private final List<ConditionalComponent> conditionalComponents;
+
+  private final List<Class<?>> componentClasses;
+
+  // Eager singletons, dependencies first.
+  private final List<PlannedBean> beans;
+
+  // Classes whose class file is part of the fingerprint.
+  private final List<String> fingerprintedClassNames;
+
+  private final long fingerprint;
+
+  public WiringPlan(
+      String mainClassName,
+      List<ConditionalComponent> conditionalComponents,
+      List<Class<?>> componentClasses,
+      List<PlannedBean> beans,
+      List<String> fingerprintedClassNames,
+      long fingerprint) {
+    this.mainClassName = mainClassName;
+    this.conditionalComponents = Collections.unmodifiableList(conditionalComponents);
+    this.componentClasses = Collections.unmodifiableList(componentClasses);
+    this.beans = Collections.unmodifiableList(beans);
+    this.fingerprintedClassNames = Collections.unmodifiableList(fingerprintedClassNames);
+    this.fingerprint = fingerprint;
+  }
+
+  /**
+   * Builds the plan of a program: discovers, resolves and orders its beans, without creating
+   * them.
+   *
+   * @param mainClass Main class of the program.
+   * @throws CircularDependencyException if the beans depend on each other.
+   */
+  public static WiringPlan build(Class<?> mainClass) {
+    return build(mainClass, new ConditionEvaluator(mainClass.getClassLoader()));
+  }
+
+  /**
+   * Builds the plan of a program, for the profiles and properties of an evaluator.
+   *
+   * @param mainClass Main class of the program.
+   * @param conditionEvaluator evaluates the component conditions.
+   * @throws CircularDependencyException if the beans depend on each other.
+   */
+  public static WiringPlan build(Class<?> mainClass, ConditionEvaluator conditionEvaluator) {
+
+    // 1. Same discovery, resolution and ordering as CodekryptInjector.
+    Set<Class<?>> componentClasses =
+        ComponentDiscovery.findComponents(mainClass, conditionEvaluator);
+    BeanManager beanManager = new BeanManager();
+    beanManager.registerComponents(componentClasses);
+    DependencyGraph dependencyGraph = DependencyGraph.build(componentClasses, beanManager);
+
+    // 2. Resolve the injection points of every eager singleton.
+    List<PlannedBean> beans = new ArrayList<>();
+    for (List<BeanNode> wave : dependencyGraph.getWaves()) {
+      for (BeanNode node : wave) {
+        BeanDefinition beanDefinition = BeanDefinition.of(node.getBeanClass());
+        if (!beanDefinition.isSingleton() || beanDefinition.isLazy()) {
+          continue;
+        }
+        if (beanDefinition.getConstructor() == null) {
+          throw new BeanFetchException(
+              "No @Autowire or empty constructor found for " + node.getBeanClass().getName());
+        }
+
+        List<PlannedInjection> constructorParameters = new ArrayList<>();
+        for (InjectionPoint parameter : beanDefinition.getConstructorParameters()) {
+          constructorParameters.add(plan(beanManager, parameter));
+        }
+        List<PlannedInjection> fields = new ArrayList<>();
+        for (InjectionPoint field : beanDefinition.getFields()) {
+          fields.add(plan(beanManager, field));
+        }
+
+        beans.add(
+            new PlannedBean(
+                node.getBeanClass(),
+                beanDefinition.getConstructor(),
+                constructorParameters,
+                fields,
+                beanDefinition.getPostConstructMethods()));
+      }
+    }
+
+    // 3. Outcome of every conditional component, checked again at startup.
+    List<ConditionalComponent> conditionalComponents = new ArrayList<>();
+    ConditionReport report = conditionEvaluator.getReport();
+    conditionEvaluator
+        .getEvaluatedConditions()
+        .forEach(
+            (className, conditions) ->
+                conditionalComponents.add(
+                    new ConditionalComponent(
+                        className, conditions, !report.isExcluded(className))));
+
+    // 4. Fingerprint of the inputs, checked again at startup. JDK classes are left out.
+    Set<Class<?>> fingerprintedClasses = getReferencedClasses(componentClasses, beans);
+    for (Class<?> beanClass : new ArrayList<>(fingerprintedClasses)) {
+      for (Class<?> superClass = beanClass.getSuperclass();
+          superClass != null;
+          superClass = superClass.getSuperclass()) {
+        fingerprintedClasses.add(superClass);
+      }
+    }
+    List<String> fingerprintedClassNames = new ArrayList<>();
+    for (Class<?> fingerprintedClass : fingerprintedClasses) {
+      if (fingerprintedClass.getClassLoader() != null && !fingerprintedClass.isArray()) {
+        fingerprintedClassNames.add(fingerprintedClass.getName());
+      }
+    }
+
+    return new WiringPlan(
+        mainClass.getName(),
+        conditionalComponents,
+        new ArrayList<>(componentClasses),
+        beans,
+        fingerprintedClassNames,
+        fingerprint(mainClass.getName(), fingerprintedClassNames, mainClass.getClassLoader()));
+  }
+
+  /** Classes referenced by the plan: its components, beans, injected types and their members. */
+  private static Set<Class<?>> getReferencedClasses(
+      Collection<Class<?>> componentClasses, List<PlannedBean> beans) {
+    Set<Class<?>> classes = new LinkedHashSet<>(componentClasses);
+    for (PlannedBean bean : beans) {
+      classes.add(bean.beanClass);
+      for (PlannedInjection parameter : bean.constructorParameters) {
+        classes.add(parameter.type);
+        classes.add(parameter.implementationClass);
+      }
+      for (PlannedInjection field : bean.fields) {
+        classes.add(field.field.getDeclaringClass());
+        classes.add(field.implementationClass);
+      }
+      for (Method method : bean.postConstructMethods) {
+        classes.add(method.getDeclaringClass());
+      }
+    }
+    return classes;
+  }
+
+  /**
+   * Checksum of the inputs of a plan: the component index covering the main package (else the
+   * class files of the package), and the class files of the given classes.
+   */
+  private static long fingerprint(
+      String mainClassName, List<String> classNames, ClassLoader classLoader) {
+    int lastDot = mainClassName.lastIndexOf('.');
+    String packageName = lastDot < 0 ? "" : mainClassName.substring(0, lastDot);
+
+    // 1. The components found by the discovery.
+    ComponentIndex componentIndex = ComponentIndex.load(classLoader);
+    long discoveryChecksum =
+        componentIndex != null && componentIndex.covers(packageName)
+            ? componentIndex.getChecksum()
+            : ClassScanner.getClassFilesChecksum(packageName, classLoader);
+    CRC32 crc = new CRC32();
+    for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+      crc.update((int) (discoveryChecksum >>> shift));
+    }
+
+    // 2. The planned classes. A missing one fails the plan when it is read.
+    byte[] buffer = new byte[8192];
+    for (String className : classNames) {
+      byte[] name = className.getBytes(StandardCharsets.UTF_8);
+      crc.update(name, 0, name.length);
+      String classFile = className.replace('.', '/') + ".class";
+      try (InputStream in = classLoader.getResourceAsStream(classFile)) {
+        if (in != null) {
+          int count;
+          while ((count = in.read(buffer)) != -1) {
+            crc.update(buffer, 0, count);
+          }
+        }
+      } catch (IOException ex) {
+        throw new ClassLoadException("Unable to read " + className, ex);
+      }
+    }
+    return crc.getValue();
+  }
+
+  private static PlannedInjection plan(BeanManager beanManager, InjectionPoint injectionPoint) {
+    if (injectionPoint.isMultiBinding()) {
+      // All the implementations are resolved at startup, from the registered components.
+      return new PlannedInjection(
+          injectionPoint.getType(),
+          injectionPoint.getMultiBindingType(),
+          injectionPoint.isLazy(),
+          true,
+          false,
+          injectionPoint.getField());
+    }
+    if (injectionPoint.isProvider()) {
+      return new PlannedInjection(
+          injectionPoint.getType(),
+          beanManager.getImplementationClass(
+              injectionPoint.getProviderType(),
+              injectionPoint.getName(),
+              injectionPoint.getQualifier()),
+          injectionPoint.isLazy(),
+          false,
+          true,
+          injectionPoint.getField());
+    }
+
+    Class<?> implementationClass =
+        beanManager.getImplementationClass(
+            injectionPoint.getType(), injectionPoint.getName(), injectionPoint.getQualifier());
+    return new PlannedInjection(
+        injectionPoint.getType(),
+        implementationClass,
+        injectionPoint.isLazy(),
+        false,
+        false,
+        injectionPoint.getField());
+  }
+
+  /**
+   * Loads the plan generated for a main class.
+   *
+   * @param mainClass Main class of the program.
+   * @return the plan, or null if there is none for this main class (or it is ignored).
+   */
+  public static WiringPlan load(Class<?> mainClass) {
+    return load(mainClass, new ConditionEvaluator(mainClass.getClassLoader()));
+  }
+
+  /**
+   * Loads the plan generated for a main class, if its component conditions have the same outcome.
+   *
+   * @param mainClass Main class of the program.
+   * @param conditionEvaluator evaluates the component conditions.
+   * @return the plan, or null if there is none for this main class, it is ignored, or a condition
+   *     changed.
+   */
+  public static WiringPlan load(Class<?> mainClass, ConditionEvaluator conditionEvaluator) {
+    if (Boolean.getBoolean(IGNORE_PLAN_PROPERTY)) {
+      return null;
+    }
+
+    ClassLoader classLoader = mainClass.getClassLoader();
+    URL resource = classLoader.getResource(PLAN_LOCATION);
+    if (resource == null) {
+      return null;
+    }
+
+    try (InputStream in = resource.openStream()) {
+      return read(in, mainClass.getName(), classLoader, conditionEvaluator);
+    } catch (IOException ex) {
+      throw new ClassLoadException("Unable to read wiring plan", ex);
+    }
+  }
+
+  /**
+   * Reads a plan, loading its classes and members.
+   *
+   * @param in plan written by {@link #write(OutputStream)}.
+   * @param mainClassName Main class the plan should be for.
+   * @param classLoader class loader of the beans.
+   * @return the plan, or null if it was generated for another main class.
+   * @throws ClassLoadException if the plan does not match the classes anymore.
+   */
+  public static WiringPlan read(InputStream in, String mainClassName, ClassLoader classLoader)
+      throws IOException {
+    return read(in, mainClassName, classLoader, new ConditionEvaluator(classLoader));
+  }
+
+  /**
+   * Reads a plan, loading its classes and members, once its component conditions are checked.
+   *
+   * @param in plan written by {@link #write(OutputStream)}.
+   * @param mainClassName Main class the plan should be for.
+   * @param classLoader class loader of the beans.
+   * @param conditionEvaluator evaluates the component conditions.
+   * @return the plan, or null if it was generated for another main class, a condition changed, or
+   *     the classes changed since it was generated.
+   * @throws ClassLoadException if the plan does not match the classes anymore.
+   */
+  public static WiringPlan read(
+      InputStream in,
+      String mainClassName,
+      ClassLoader classLoader,
+      ConditionEvaluator conditionEvaluator)
+      throws IOException {
+    DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+    if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+      throw new ClassLoadException("Unsupported wiring plan format");
+    }
+    if (!mainClassName.equals(data.readUTF())) {
+      return null;
+    }
+
+    // 1. Conditional components, evaluated before loading any class. Every one of them is
+    // evaluated, so that the report lists all the excluded components.
+    List<ConditionalComponent> conditionalComponents = new ArrayList<>();
+    boolean unchanged = true;
+    for (int i = data.readInt(); i > 0; i--) {
+      String className = data.readUTF();
+      ComponentConditions conditions = ComponentConditions.read(data);
+      boolean active = data.readBoolean();
+      unchanged &= conditionEvaluator.isActive(className, conditions) == active;
+      conditionalComponents.add(new ConditionalComponent(className, conditions, active));
+    }
+    if (!unchanged) {
+      return null;
+    }
+
+    // 2. Fingerprint of the classes, read before loading any of them.
+    List<String> fingerprintedClassNames = new ArrayList<>();
+    for (int i = data.readInt(); i > 0; i--) {
+      fingerprintedClassNames.add(data.readUTF());
+    }
+    long fingerprint = data.readLong();
+    if (fingerprint != fingerprint(mainClassName, fingerprintedClassNames, classLoader)) {
+      return null;
+    }
+
+    try {
+      // 3. Class table.
+      Class<?>[] classes = new Class<?>[data.readInt()];
+      for (int i = 0; i < classes.length; i++) {
+        // Class initialization is deferred until the bean is instantiated.
+        classes[i] = Class.forName(data.readUTF(), false, classLoader);
+      }
+
+      // 4. Components, for the beans resolved at runtime.
+      List<Class<?>> componentClasses = new ArrayList<>();
+      for (int i = data.readInt(); i > 0; i--) {
+        componentClasses.add(classes[data.readInt()]);
+      }
+
+      // 5. Beans, with their constructor, fields and post construct functions.
+      List<PlannedBean> beans = new ArrayList<>();
+      for (int i = data.readInt(); i > 0; i--) {
+        Class<?> beanClass = classes[data.readInt()];
+
+        List<PlannedInjection> constructorParameters = new ArrayList<>();
+        Class<?>[] parameterTypes = new Class<?>[data.readInt()];
+        for (int j = 0; j < parameterTypes.length; j++) {
+          parameterTypes[j] = classes[data.readInt()];
+          constructorParameters.add(
+              new PlannedInjection(
+                  parameterTypes[j],
+                  classes[data.readInt()],
+                  data.readBoolean(),
+                  data.readBoolean(),
+                  data.readBoolean(),
+                  null));
+        }
+        Constructor<?> constructor = beanClass.getDeclaredConstructor(parameterTypes);
+
+        List<PlannedInjection> fields = new ArrayList<>();
+        for (int j = data.readInt(); j > 0; j--) {
+          Field field = classes[data.readInt()].getDeclaredField(data.readUTF());
+          fields.add(
+              new PlannedInjection(
+                  field.getType(),
+                  classes[data.readInt()],
+                  data.readBoolean(),
+                  data.readBoolean(),
+                  data.readBoolean(),
+                  field));
+        }
+
+        List<Method> postConstructMethods = new ArrayList<>();
+        for (int j = data.readInt(); j > 0; j--) {
+          Method method = classes[data.readInt()].getDeclaredMethod(data.readUTF());
+          method.setAccessible(true);
+          postConstructMethods.add(method);
+        }
+
+        beans.add(
+            new PlannedBean(
+                beanClass, constructor, constructorParameters, fields, postConstructMethods));
+      }
+
+      return new WiringPlan(
+          mainClassName,
+          conditionalComponents,
+          componentClasses,
+          beans,
+          fingerprintedClassNames,
+          fingerprint);
+    } catch (ClassNotFoundException | NoSuchMethodException | NoSuchFieldException ex) {
+      throw new ClassLoadException("Wiring plan does not match the classes, regenerate it", ex);
+    }
+  }
+
+  /**
+   * Writes the plan in its binary format.
+   *
+   * @param out destination, left open.
+   */
+  public void write(OutputStream out) throws IOException {
+    Map<Class<?>, Integer> classIndexes = new LinkedHashMap<>();
+    for (Class<?> referencedClass : getReferencedClasses(componentClasses, beans)) {
+      classIndexes.put(referencedClass, classIndexes.size());
+    }
+
+    DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+    data.writeInt(MAGIC);
+    data.writeInt(VERSION);
+    data.writeUTF(mainClassName);
+
+    data.writeInt(conditionalComponents.size());
+    for (ConditionalComponent component : conditionalComponents) {
+      data.writeUTF(component.className);
+      component.conditions.write(data);
+      data.writeBoolean(component.active);
+    }
+
+    data.writeInt(fingerprintedClassNames.size());
+    for (String className : fingerprintedClassNames) {
+      data.writeUTF(className);
+    }
+    data.writeLong(fingerprint);
+
+    data.writeInt(classIndexes.size());
+    for (Class<?> cls : classIndexes.keySet()) {
+      data.writeUTF(cls.getName());
+    }
+
+    data.writeInt(componentClasses.size());
+    for (Class<?> componentClass : componentClasses) {
+      data.writeInt(classIndexes.get(componentClass));
+    }
+
+    data.writeInt(beans.size());
+    for (PlannedBean bean : beans) {
+      data.writeInt(classIndexes.get(bean.beanClass));
+
+      data.writeInt(bean.constructorParameters.size());
+      for (PlannedInjection parameter : bean.constructorParameters) {
+        data.writeInt(classIndexes.get(parameter.type));
+        data.writeInt(classIndexes.get(parameter.implementationClass));
+        data.writeBoolean(parameter.lazy);
+        data.writeBoolean(parameter.multiBinding);
+        data.writeBoolean(parameter.provider);
+      }
+
+      data.writeInt(bean.fields.size());
+      for (PlannedInjection field : bean.fields) {
+        data.writeInt(classIndexes.get(field.field.getDeclaringClass()));
+        data.writeUTF(field.field.getName());
+        data.writeInt(classIndexes.get(field.implementationClass));
+        data.writeBoolean(field.lazy);
+        data.writeBoolean(field.multiBinding);
+        data.writeBoolean(field.provider);
+      }
+
+      data.writeInt(bean.postConstructMethods.size());
+      for (Method method : bean.postConstructMethods) {
+        data.writeInt(classIndexes.get(method.getDeclaringClass()));
+        data.writeUTF(method.getName());
+      }
+    }
+    data.flush();
+  }
+
+  public String getMainClassName() {
+    return mainClassName;
+  }
+
+  public List<ConditionalComponent> getConditionalComponents() {
+    return conditionalComponents;
+  }
+
+  public long getFingerprint() {
+    return fingerprint;
+  }
+
+  public List<Class<?>> getComponentClasses() {
+    return componentClasses;
+  }
+
+  public List<PlannedBean> getBeans() {
+    return beans;
+  }
+
+  /** A component having conditions, and whether it was registered when the plan was built. */
+  public static final class ConditionalComponent {
+
+    private final String className;
+    private final ComponentConditions conditions;
+    private final boolean active;
+
+    ConditionalComponent(String className, ComponentConditions conditions, boolean active) {
+      this.className = className;
+      this.conditions = conditions;
+      this.active = active;
+    }
+
+    public String getClassName() {
+      return className;
+    }
+
+    public ComponentConditions getConditions() {
+      return conditions;
+    }
+
+    public boolean isActive() {
+      return active;
+    }
+  }
+
+  /** An eager singleton of the plan. */
+  public static final class PlannedBean {
+
+    private final Class<?> beanClass;
+    private final Constructor<?> constructor;
+    private final List<PlannedInjection> constructorParameters;
+    private final List<PlannedInjection> fields;
+    private final List<Method> postConstructMethods;
+
+    PlannedBean(
+        Class<?> beanClass,
+        Constructor<?> constructor,
+        List<PlannedInjection> constructorParameters,
+        List<PlannedInjection> fields,
+        List<Method> postConstructMethods) {
+      this.beanClass = beanClass;
+      this.constructor = constructor;
+      this.constructorParameters = Collections.unmodifiableList(constructorParameters);
+      this.fields = Collections.unmodifiableList(fields);
+      this.postConstructMethods = Collections.unmodifiableList(postConstructMethods);
+    }
+
+    public Class<?> getBeanClass() {
+      return beanClass;
+    }
+
+    public Constructor<?> getConstructor() {
+      return constructor;
+    }
+
+    public List<PlannedInjection> getConstructorParameters() {
+      return constructorParameters;
+    }
+
+    public List<PlannedInjection> getFields() {
+      return fields;
+    }
+
+    public List<Method> getPostConstructMethods() {
+      return postConstructMethods;
+    }
+  }
+
+  /** A constructor parameter or field, with its resolved implementation. */
+  public static final class PlannedInjection {
+
+    private final Class<?> type;
+
+    // For List/Set/Map points, the bean type of the collection.
+    private final Class<?> implementationClass;
+
+    private final boolean lazy;
+
+    // List/Set/Map point, receiving all the implementations.
+    private final boolean multiBinding;
+
+    // Provider/Supplier point, receiving a Provider of the implementation.
+    private final boolean provider;
+
+    // Null for constructor parameters.
+    private final Field field;
+
+    PlannedInjection(
+        Class<?> type,
+        Class<?> implementationClass,
+        boolean lazy,
+        boolean multiBinding,
+        boolean provider,
+        Field field) {
+      this.type = type;
+      this.implementationClass = implementationClass;
+      this.lazy = lazy;
+      this.multiBinding = multiBinding;
+      this.provider = provider;
+      this.field = field;
+    }
+
+    public Class<?> getType() {
+      return type;
+    }
+
+    public Class<?> getImplementationClass() {
+      return implementationClass;
+    }
+
+    public boolean isLazy() {
+      return lazy;
+    }
+
+    public boolean isMultiBinding() {
+      return multiBinding;
+    }
+
+    public boolean isProvider() {
+      return provider;
+    }
+
+    public Field getField() {
+      return field;
+    }
+  }
+}
@@ -0,0 +1,48 @@
+package com.arjunsk.codekrypt.di.core;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Build step writing the {@link WiringPlan} of a program to its classes directory.
+ *
+ * <p>Usage: {@code WiringPlanGenerator <main class> <classes directory>}, with the program's
+ * classes on the class path. The beans are not created.
+ */
+public final class WiringPlanGenerator {
+
+  private WiringPlanGenerator() {}
+
+  public static void main(String[] args) throws Exception {
+    if (args.length != 2) {
+      throw new IllegalArgumentException(
+          "Usage: WiringPlanGenerator <main class> <classes directory>");
+    }
+
+    Class<?> mainClass =
+        Class.forName(args[0], false, Thread.currentThread().getContextClassLoader());
+    Path planFile = generate(mainClass, Paths.get(args[1]));
+    System.out.println("Wiring plan written to " + planFile);
+  }
+
+  /**
+   * Builds and writes the plan of a program.
+   *
+   * @param mainClass Main class of the program.
+   * @param classesDirectory root of the program's classes.
+   * @return the plan file.
+   */
+  public static Path generate(Class<?> mainClass, Path classesDirectory) throws IOException {
+    WiringPlan wiringPlan = WiringPlan.build(mainClass);
+
+    Path planFile = classesDirectory.resolve(WiringPlan.PLAN_LOCATION);
+    Files.createDirectories(planFile.getParent());
+    try (OutputStream out = Files.newOutputStream(planFile)) {
+      wiringPlan.write(out);
+    }
+    return planFile;
+  }
+}
@@ -0,0 +1,12 @@
+package com.arjunsk.codekrypt.di.exceptions;
+
+public class BeanDestroyException extends RuntimeException {
+
+  public BeanDestroyException(String message) {
+    super(message);
+  }
+
+  public BeanDestroyException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -0,0 +1,12 @@
+package com.arjunsk.codekrypt.di.exceptions;
+
+public class CircularDependencyException extends RuntimeException {
+
+  public CircularDependencyException(String message) {
+    super(message);
+  }
+
+  public CircularDependencyException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -0,0 +1,13 @@
+package com.arjunsk.codekrypt.di.injection;
+
+/** Creates instances of a bean class through one of its constructors. */
+public interface BeanFactory {
+
+  /**
+   * Creates a new instance.
+   *
+   * @param args constructor arguments, in declaration order. Empty for the empty constructor.
+   * @return the new instance.
+   */
+  Object newInstance(Object[] args);
+}
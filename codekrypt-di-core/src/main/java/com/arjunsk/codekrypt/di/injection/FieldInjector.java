@@ -0,0 +1,13 @@
+package com.arjunsk.codekrypt.di.injection;
+
+/** Sets one @Autowire field of a bean. */
+public interface FieldInjector {
+
+  /**
+   * Sets the field.
+   *
+   * @param bean instance whose field is set.
+   * @param value value of the field.
+   */
+  void inject(Object bean, Object value);
+}
@@ -0,0 +1,18 @@
+package com.arjunsk.codekrypt.di.injection;
+
+/**
+ * Defines generated classes next to a bean class: child of the bean's class loader, so the
+ * generated classes can reference the bean and its dependencies.
+ */
+final class GeneratedClassLoader extends ClassLoader {
+
+  static final String GENERATED_PACKAGE = "com.arjunsk.codekrypt.di.generated.";
+
+  GeneratedClassLoader(ClassLoader parent) {
+    super(parent);
+  }
+
+  Class<?> define(String className, byte[] classFile) {
+    return defineClass(className, classFile, 0, classFile.length);
+  }
+}
@@ -0,0 +1,202 @@
+package com.arjunsk.codekrypt.di.injection;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Instantiates and injects through classes generated per constructor and field, which call the
+ * constructor or set the field directly, without reflection.
+ *
+ * <p>The generated classes are defined in a class loader child of the bean's class loader, so
+ * they can only reach public members: only public constructors (with public parameter types)
+ * and public non-final fields of public classes are accelerated. The other
+ * constructors and fields (eg private @Autowire fields) always stay on reflection, as
+ * MethodHandles called from one call site shared by every member can't be inlined, and get
+ * slower than reflection as the member count grows.
+ *
+ * <p>Generating is only worth it for hot constructors and fields (eg of prototypes): like core
+ * reflection's inflation, the first calls go through reflection, so singletons created once at
+ * startup don't pay for a generated class.
+ */
+public class GeneratedInjectionStrategy extends InjectionStrategy {
+
+  // Calls through reflection, before generating the class.
+  private static final int INFLATION_THRESHOLD = 15;
+
+  private final ReflectiveInjectionStrategy reflectiveStrategy = new ReflectiveInjectionStrategy();
+
+  private static final AtomicInteger generatedClassCount = new AtomicInteger();
+
+  // One loader per bean class, so that it is released together with the bean class.
+  private final ClassValue<GeneratedClassLoader> classLoaders =
+      new ClassValue<GeneratedClassLoader>() {
+        @Override
+        protected GeneratedClassLoader computeValue(Class<?> type) {
+          return new GeneratedClassLoader(type.getClassLoader());
+        }
+      };
+
+  @Override
+  protected BeanFactory createBeanFactory(Constructor<?> constructor) {
+    Class<?> beanClass = constructor.getDeclaringClass();
+    if (isAccessible(beanClass)
+        && !Modifier.isAbstract(beanClass.getModifiers())
+        && Modifier.isPublic(constructor.getModifiers())
+        && areAccessible(constructor.getParameterTypes())) {
+      return new InflatingBeanFactory(constructor);
+    }
+    return reflectiveStrategy.createBeanFactory(constructor);
+  }
+
+  @Override
+  protected FieldInjector createFieldInjector(Field field) {
+    int modifiers = field.getModifiers();
+    if (isAccessible(field.getDeclaringClass())
+        && Modifier.isPublic(modifiers)
+        && !Modifier.isFinal(modifiers)
+        && !Modifier.isStatic(modifiers)
+        && isAccessible(field.getType())) {
+      return new InflatingFieldInjector(field);
+    }
+    return reflectiveStrategy.createFieldInjector(field);
+  }
+
+  /** Generates the factory of a public constructor, or returns null if it cannot be used. */
+  private BeanFactory generateBeanFactory(Constructor<?> constructor) {
+    Class<?> beanClass = constructor.getDeclaringClass();
+    String className = generatedClassName(beanClass, "BeanFactory");
+    return (BeanFactory)
+        define(beanClass, className, InjectorClassWriter.beanFactory(className, constructor));
+  }
+
+  /** Generates the injector of a public field, or returns null if it cannot be used. */
+  private FieldInjector generateFieldInjector(Field field) {
+    Class<?> beanClass = field.getDeclaringClass();
+    String className = generatedClassName(beanClass, field.getName() + "$FieldInjector");
+    return (FieldInjector)
+        define(beanClass, className, InjectorClassWriter.fieldInjector(className, field));
+  }
+
+  /** Defines the generated class and instantiates it, or returns null if it cannot be used. */
+  private Object define(Class<?> beanClass, String className, byte[] classFile) {
+    ClassLoader beanClassLoader = beanClass.getClassLoader();
+    if (!isVisible(beanClassLoader, BeanFactory.class)) {
+      // The generated class would not implement our BeanFactory/FieldInjector.
+      return null;
+    }
+
+    try {
+      Class<?> generatedClass = classLoaders.get(beanClass).define(className, classFile);
+      return generatedClass.getConstructor().newInstance();
+    } catch (LinkageError | ReflectiveOperationException ex) {
+      return null;
+    }
+  }
+
+  private static boolean isVisible(ClassLoader classLoader, Class<?> type) {
+    try {
+      return classLoader != null && Class.forName(type.getName(), false, classLoader) == type;
+    } catch (ClassNotFoundException ex) {
+      return false;
+    }
+  }
+
+  private static String generatedClassName(Class<?> beanClass, String suffix) {
+    return GeneratedClassLoader.GENERATED_PACKAGE
+        + beanClass.getName().replace('.', '_')
+        + "$"
+        + suffix
+        + "$"
+        + generatedClassCount.incrementAndGet();
+  }
+
+  /** Generated factories unbox primitive arguments, so only references need checking. */
+  private static boolean areAccessible(Class<?>[] types) {
+    for (Class<?> type : types) {
+      if (!isAccessible(type)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Whether the type can be referenced from another package. */
+  static boolean isAccessible(Class<?> type) {
+    while (type.isArray()) {
+      type = type.getComponentType();
+    }
+    for (Class<?> current = type; current != null; current = current.getDeclaringClass()) {
+      if (!current.isPrimitive() && !Modifier.isPublic(current.getModifiers())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Calls the constructor through reflection, then through the generated factory. */
+  private final class InflatingBeanFactory implements BeanFactory {
+
+    private final Constructor<?> constructor;
+    private final BeanFactory reflectiveFactory;
+    private volatile BeanFactory generatedFactory;
+
+    // Racy, as an extra call through reflection is harmless.
+    private int calls;
+
+    private InflatingBeanFactory(Constructor<?> constructor) {
+      this.constructor = constructor;
+      this.reflectiveFactory = reflectiveStrategy.createBeanFactory(constructor);
+    }
+
+    @Override
+    public Object newInstance(Object[] args) {
+      BeanFactory beanFactory = generatedFactory;
+      if (beanFactory == null) {
+        if (++calls <= INFLATION_THRESHOLD) {
+          return reflectiveFactory.newInstance(args);
+        }
+        beanFactory = generateBeanFactory(constructor);
+        if (beanFactory == null) {
+          beanFactory = reflectiveFactory;
+        }
+        generatedFactory = beanFactory;
+      }
+      return beanFactory.newInstance(args);
+    }
+  }
+
+  /** Sets the field through reflection, then through the generated injector. */
+  private final class InflatingFieldInjector implements FieldInjector {
+
+    private final Field field;
+    private final FieldInjector reflectiveInjector;
+    private volatile FieldInjector generatedInjector;
+
+    // Racy, as an extra call through reflection is harmless.
+    private int calls;
+
+    private InflatingFieldInjector(Field field) {
+      this.field = field;
+      this.reflectiveInjector = reflectiveStrategy.createFieldInjector(field);
+    }
+
+    @Override
+    public void inject(Object bean, Object value) {
+      FieldInjector fieldInjector = generatedInjector;
+      if (fieldInjector == null) {
+        if (++calls <= INFLATION_THRESHOLD) {
+          reflectiveInjector.inject(bean, value);
+          return;
+        }
+        fieldInjector = generateFieldInjector(field);
+        if (fieldInjector == null) {
+          fieldInjector = reflectiveInjector;
+        }
+        generatedInjector = fieldInjector;
+      }
+      fieldInjector.inject(bean, value);
+    }
+  }
+}
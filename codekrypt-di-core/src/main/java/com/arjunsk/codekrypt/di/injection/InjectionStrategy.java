@@ -0,0 +1,66 @@
+package com.arjunsk.codekrypt.di.injection;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * How beans are instantiated and how their fields are injected.
+ *
+ * <p>Factories and injectors are created once per constructor/field and cached on the declaring
+ * class, so they are released together with its class loader.
+ */
+public abstract class InjectionStrategy {
+
+  private final ClassValue<Map<Member, Object>> cache =
+      new ClassValue<Map<Member, Object>>() {
+        @Override
+        protected Map<Member, Object> computeValue(Class<?> type) {
+          return new ConcurrentHashMap<>();
+        }
+      };
+
+  /**
+   * Get the (cached) factory of a constructor.
+   *
+   * @param constructor constructor of the bean class.
+   */
+  public final BeanFactory getBeanFactory(Constructor<?> constructor) {
+    Map<Member, Object> classCache = cache.get(constructor.getDeclaringClass());
+    Object beanFactory = classCache.get(constructor);
+    if (beanFactory == null) {
+      beanFactory = classCache.computeIfAbsent(constructor, key -> createBeanFactory(constructor));
+    }
+    return (BeanFactory) beanFactory;
+  }
+
+  /**
+   * Get the (cached) injector of a field.
+   *
+   * @param field @Autowire field.
+   */
+  public final FieldInjector getFieldInjector(Field field) {
+    Map<Member, Object> classCache = cache.get(field.getDeclaringClass());
+    Object fieldInjector = classCache.get(field);
+    if (fieldInjector == null) {
+      fieldInjector = classCache.computeIfAbsent(field, key -> createFieldInjector(field));
+    }
+    return (FieldInjector) fieldInjector;
+  }
+
+  /**
+   * Drops the cached factories and injectors declared by a class, eg once its singleton is
+   * created. They are created again if needed.
+   *
+   * @param declaringClass bean class, or super class declaring @Autowire fields.
+   */
+  public final void release(Class<?> declaringClass) {
+    cache.remove(declaringClass);
+  }
+
+  protected abstract BeanFactory createBeanFactory(Constructor<?> constructor);
+
+  protected abstract FieldInjector createFieldInjector(Field field);
+}
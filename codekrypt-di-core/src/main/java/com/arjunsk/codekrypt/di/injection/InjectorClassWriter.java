@@ -0,0 +1,771 @@
+package com.arjunsk.codekrypt.di.injection;
+
+import com.arjunsk.codekrypt.di.intercept.Intercepted;
+import com.arjunsk.codekrypt.di.intercept.InterceptorChain;
+import com.arjunsk.codekrypt.di.intercept.Invocation;
+import com.arjunsk.codekrypt.di.intercept.MethodInterceptor;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Writes the class files of generated {@link BeanFactory} and {@link FieldInjector}
+ * implementations, which call the constructor or set the field directly, of lazy proxies, and of
+ * intercepted subclasses with their {@link Invocation}s.
+ *
+ * <p>The generated code has no branches, so it needs no stack map frames. The constructor,
+ * field and types used must be accessible from another package.
+ */
+final class InjectorClassWriter {
+
+  private static final int JAVA_8 = 52;
+
+  private static final int ACC_PUBLIC = 0x0001;
+  private static final int ACC_FINAL = 0x0010;
+  private static final int ACC_SUPER = 0x0020;
+  private static final int ACC_SYNTHETIC = 0x1000;
+
+  private static final String SUPPLIER_DESCRIPTOR = "Ljava/util/function/Supplier;";
+  private static final String OBJECT_DESCRIPTOR = "Ljava/lang/Object;";
+  private static final String CHAIN_CLASS = internalName(InterceptorChain.class);
+  private static final String INVOCATION_CLASS = internalName(Invocation.class);
+  private static final String INTERCEPTORS_DESCRIPTOR =
+      "[L" + internalName(MethodInterceptor.class) + ";";
+
+  private static final int ACONST_NULL = 0x01;
+  private static final int ICONST_0 = 0x03;
+  private static final int BIPUSH = 0x10;
+  private static final int SIPUSH = 0x11;
+  private static final int ILOAD = 0x15;
+  private static final int LLOAD = 0x16;
+  private static final int FLOAD = 0x17;
+  private static final int DLOAD = 0x18;
+  private static final int ALOAD = 0x19;
+  private static final int ALOAD_0 = 0x2a;
+  private static final int ALOAD_1 = 0x2b;
+  private static final int ALOAD_2 = 0x2c;
+  private static final int AALOAD = 0x32;
+  private static final int AASTORE = 0x53;
+  private static final int POP = 0x57;
+  private static final int DUP = 0x59;
+  private static final int IRETURN = 0xac;
+  private static final int LRETURN = 0xad;
+  private static final int FRETURN = 0xae;
+  private static final int DRETURN = 0xaf;
+  private static final int ARETURN = 0xb0;
+  private static final int RETURN = 0xb1;
+  private static final int GETFIELD = 0xb4;
+  private static final int PUTFIELD = 0xb5;
+  private static final int INVOKEVIRTUAL = 0xb6;
+  private static final int INVOKESPECIAL = 0xb7;
+  private static final int INVOKESTATIC = 0xb8;
+  private static final int INVOKEINTERFACE = 0xb9;
+  private static final int NEW = 0xbb;
+  private static final int CHECKCAST = 0xc0;
+
+  private InjectorClassWriter() {}
+
+  /**
+   * {@code Object newInstance(Object[] args) { return new Bean((A) args[0], (B) args[1]); }}
+   *
+   * @param className binary name of the generated class.
+   * @param constructor constructor called. Primitive parameters are unboxed.
+   */
+  static byte[] beanFactory(String className, Constructor<?> constructor) {
+    ConstantPool constantPool = new ConstantPool();
+    String beanClass = internalName(constructor.getDeclaringClass());
+    Class<?>[] parameterTypes = constructor.getParameterTypes();
+
+    StringBuilder descriptor = new StringBuilder("(");
+    for (Class<?> parameterType : parameterTypes) {
+      descriptor.append(descriptor(parameterType));
+    }
+    descriptor.append(")V");
+
+    Code code = new Code();
+    code.op(NEW).u2(constantPool.classRef(beanClass));
+    code.op(DUP);
+    int argumentSlots = 0;
+    for (int i = 0; i < parameterTypes.length; i++) {
+      code.op(ALOAD_1);
+      pushInt(code, i);
+      code.op(AALOAD);
+      unbox(code, constantPool, parameterTypes[i]);
+      argumentSlots += slotSize(parameterTypes[i]);
+    }
+    code.op(INVOKESPECIAL)
+        .u2(constantPool.methodRef(beanClass, "<init>", descriptor.toString()));
+    code.op(ARETURN);
+
+    // new + dup, then the pushed arguments, plus the array & index of the next one.
+    int maxStack = parameterTypes.length == 0 ? 2 : argumentSlots + 4;
+    return classFile(
+        constantPool,
+        className,
+        "java/lang/Object",
+        internalName(BeanFactory.class),
+        Collections.emptyMap(),
+        Arrays.asList(
+            emptyConstructor(constantPool),
+            new MethodBody(
+                "newInstance", "([Ljava/lang/Object;)Ljava/lang/Object;", code, maxStack, 2)));
+  }
+
+  /**
+   * {@code void inject(Object bean, Object value) { ((Bean) bean).field = (Type) value; }}
+   *
+   * @param className binary name of the generated class.
+   * @param field non final instance field set. A primitive value is unboxed.
+   */
+  static byte[] fieldInjector(String className, Field field) {
+    ConstantPool constantPool = new ConstantPool();
+    String beanClass = internalName(field.getDeclaringClass());
+
+    Code code = new Code();
+    code.op(ALOAD_1);
+    code.op(CHECKCAST).u2(constantPool.classRef(beanClass));
+    code.op(ALOAD_2);
+    unbox(code, constantPool, field.getType());
+    code.op(PUTFIELD)
+        .u2(constantPool.fieldRef(beanClass, field.getName(), descriptor(field.getType())));
+    code.op(RETURN);
+
+    return classFile(
+        constantPool,
+        className,
+        "java/lang/Object",
+        internalName(FieldInjector.class),
+        Collections.emptyMap(),
+        Arrays.asList(
+            emptyConstructor(constantPool),
+            new MethodBody(
+                "inject",
+                "(Ljava/lang/Object;Ljava/lang/Object;)V",
+                code,
+                1 + slotSize(field.getType()),
+                3)));
+  }
+
+  /**
+   * Subclass of a bean class, whose methods call the same method on the bean returned by its
+   * {@code Supplier lazyTarget} field: {@code R method(A a) { return ((Bean)
+   * lazyTarget.get()).method(a); }}.
+   *
+   * <p>It has no constructor: it is instantiated without calling any constructor of the bean
+   * class, and its target field is set afterwards.
+   *
+   * @param className binary name of the generated class.
+   * @param beanClass public, non final, class extended.
+   * @param methods public, non final, instance methods overridden.
+   * @param targetField name of the Supplier field.
+   */
+  static byte[] lazyProxy(
+      String className, Class<?> beanClass, Collection<Method> methods, String targetField) {
+    ConstantPool constantPool = new ConstantPool();
+    String thisClass = className.replace('.', '/');
+    String beanClassName = internalName(beanClass);
+
+    List<MethodBody> methodBodies = new ArrayList<>();
+    for (Method method : methods) {
+      String methodDescriptor = methodDescriptor(method);
+
+      Code code = new Code();
+      code.op(ALOAD_0);
+      code.op(GETFIELD).u2(constantPool.fieldRef(thisClass, targetField, SUPPLIER_DESCRIPTOR));
+      code.op(INVOKEINTERFACE)
+          .u2(
+              constantPool.interfaceMethodRef(
+                  "java/util/function/Supplier", "get", "()Ljava/lang/Object;"))
+          .u1(1)
+          .u1(0);
+      code.op(CHECKCAST).u2(constantPool.classRef(beanClassName));
+
+      int slot = 1;
+      for (Class<?> parameterType : method.getParameterTypes()) {
+        code.op(loadOpcode(parameterType)).u1(slot);
+        slot += slotSize(parameterType);
+      }
+      code.op(INVOKEVIRTUAL)
+          .u2(constantPool.methodRef(beanClassName, method.getName(), methodDescriptor));
+      code.op(returnOpcode(method.getReturnType()));
+
+      // The target & the arguments, or the returned value.
+      int maxStack = Math.max(slot, slotSize(method.getReturnType()));
+      methodBodies.add(new MethodBody(method.getName(), methodDescriptor, code, maxStack, slot));
+    }
+
+    return classFile(
+        constantPool,
+        className,
+        beanClassName,
+        null,
+        Collections.singletonMap(targetField, SUPPLIER_DESCRIPTOR),
+        methodBodies);
+  }
+
+  /**
+   * Subclass of a bean class delegating to the bean in its {@code Object target} field. An
+   * intercepted method goes through the {@link InterceptorChain} of its field, with the bean, its
+   * interceptors and the arguments set on the invocation of the thread: {@code R method(A a) { Inv
+   * i = (Inv) chain0.acquire(target, interceptors0); i.arg0 = a; return (R) i.dispatch(); }}. The
+   * other methods call the bean.
+   *
+   * <p>Like lazy proxies, it has no constructor, and its fields are set after instantiation. The
+   * chains are shared by the instances, the interceptors are the ones of the instance.
+   *
+   * @param className binary name of the generated class.
+   * @param beanClass public, non final, class extended.
+   * @param methods public, non final, instance methods overridden.
+   * @param invocationClassNames intercepted methods -> binary name of their Invocation class. The
+   *     chain of the i-th one is in the field {@link #chainField(int)}, and its interceptors in
+   *     {@link #interceptorsField(int)}.
+   * @param targetField name of the target field.
+   */
+  static byte[] interceptedSubclass(
+      String className,
+      Class<?> beanClass,
+      Collection<Method> methods,
+      Map<Method, String> invocationClassNames,
+      String targetField) {
+    ConstantPool constantPool = new ConstantPool();
+    String thisClass = className.replace('.', '/');
+    String beanClassName = internalName(beanClass);
+
+    Map<Method, Integer> chainIndexes = new HashMap<>();
+    Map<String, String> fields = new LinkedHashMap<>();
+    fields.put(targetField, OBJECT_DESCRIPTOR);
+    for (Method method : invocationClassNames.keySet()) {
+      fields.put(chainField(chainIndexes.size()), "L" + CHAIN_CLASS + ";");
+      fields.put(interceptorsField(chainIndexes.size()), INTERCEPTORS_DESCRIPTOR);
+      chainIndexes.put(method, chainIndexes.size());
+    }
+
+    List<MethodBody> methodBodies = new ArrayList<>();
+
+    // Object getInterceptedTarget() { return target; }
+    Code getTarget = new Code();
+    getTarget.op(ALOAD_0);
+    getTarget.op(GETFIELD).u2(constantPool.fieldRef(thisClass, targetField, OBJECT_DESCRIPTOR));
+    getTarget.op(ARETURN);
+    methodBodies.add(
+        new MethodBody("getInterceptedTarget", "()" + OBJECT_DESCRIPTOR, getTarget, 1, 1));
+
+    for (Method method : methods) {
+      String methodDescriptor = methodDescriptor(method);
+      Class<?>[] parameterTypes = method.getParameterTypes();
+      Integer chainIndex = chainIndexes.get(method);
+
+      Code code = new Code();
+      int slot = 1;
+      int maxStack;
+      if (chainIndex == null) {
+        // Delegated: ((Bean) target).method(a)
+        code.op(ALOAD_0);
+        code.op(GETFIELD).u2(constantPool.fieldRef(thisClass, targetField, OBJECT_DESCRIPTOR));
+        code.op(CHECKCAST).u2(constantPool.classRef(beanClassName));
+        for (Class<?> parameterType : parameterTypes) {
+          code.op(loadOpcode(parameterType)).u1(slot);
+          slot += slotSize(parameterType);
+        }
+        code.op(INVOKEVIRTUAL)
+            .u2(constantPool.methodRef(beanClassName, method.getName(), methodDescriptor));
+        code.op(returnOpcode(method.getReturnType()));
+        maxStack = Math.max(slot, slotSize(method.getReturnType()));
+      } else {
+        // Intercepted: through the invocation of the thread.
+        String invocationClass = invocationClassNames.get(method).replace('.', '/');
+        code.op(ALOAD_0);
+        code.op(GETFIELD)
+            .u2(
+                constantPool.fieldRef(
+                    thisClass, chainField(chainIndex), "L" + CHAIN_CLASS + ";"));
+        code.op(ALOAD_0);
+        code.op(GETFIELD).u2(constantPool.fieldRef(thisClass, targetField, OBJECT_DESCRIPTOR));
+        code.op(ALOAD_0);
+        code.op(GETFIELD)
+            .u2(
+                constantPool.fieldRef(
+                    thisClass, interceptorsField(chainIndex), INTERCEPTORS_DESCRIPTOR));
+        code.op(INVOKEVIRTUAL)
+            .u2(
+                constantPool.methodRef(
+                    CHAIN_CLASS,
+                    "acquire",
+                    "(" + OBJECT_DESCRIPTOR + INTERCEPTORS_DESCRIPTOR + ")L" + INVOCATION_CLASS
+                        + ";"));
+        code.op(CHECKCAST).u2(constantPool.classRef(invocationClass));
+        for (int i = 0; i < parameterTypes.length; i++) {
+          code.op(DUP);
+          code.op(loadOpcode(parameterTypes[i])).u1(slot);
+          code.op(PUTFIELD)
+              .u2(
+                  constantPool.fieldRef(
+                      invocationClass, argumentField(i), descriptor(parameterTypes[i])));
+          slot += slotSize(parameterTypes[i]);
+        }
+        code.op(INVOKEVIRTUAL)
+            .u2(constantPool.methodRef(INVOCATION_CLASS, "dispatch", "()" + OBJECT_DESCRIPTOR));
+        unboxAndReturn(code, constantPool, method.getReturnType());
+
+        // The chain, target & interceptors, then the invocation twice and an argument.
+        maxStack = 4;
+      }
+      methodBodies.add(new MethodBody(method.getName(), methodDescriptor, code, maxStack, slot));
+    }
+
+    return classFile(
+        constantPool,
+        className,
+        beanClassName,
+        internalName(Intercepted.class),
+        fields,
+        methodBodies);
+  }
+
+  /**
+   * {@link Invocation} of one method, with a field per argument: {@code Object
+   * invokeTarget(Object target) { return box(((Bean) target).method(arg0)); }}, and the copy and
+   * clearing of its arguments.
+   *
+   * @param className binary name of the generated class.
+   * @param beanClass public class of the bean.
+   * @param method public instance method called.
+   */
+  static byte[] invocation(String className, Class<?> beanClass, Method method) {
+    ConstantPool constantPool = new ConstantPool();
+    String thisClass = className.replace('.', '/');
+    String beanClassName = internalName(beanClass);
+    Class<?>[] parameterTypes = method.getParameterTypes();
+    Class<?> returnType = method.getReturnType();
+
+    Map<String, String> fields = new LinkedHashMap<>();
+    for (int i = 0; i < parameterTypes.length; i++) {
+      fields.put(argumentField(i), descriptor(parameterTypes[i]));
+    }
+
+    // 1. Protected constructor of Invocation.
+    Code constructor = new Code();
+    constructor.op(ALOAD_0);
+    constructor.op(INVOKESPECIAL).u2(constantPool.methodRef(INVOCATION_CLASS, "<init>", "()V"));
+    constructor.op(RETURN);
+
+    // 2. The call of the bean method.
+    Code invokeTarget = new Code();
+    invokeTarget.op(ALOAD_1);
+    invokeTarget.op(CHECKCAST).u2(constantPool.classRef(beanClassName));
+    int argumentSlots = 0;
+    for (int i = 0; i < parameterTypes.length; i++) {
+      invokeTarget.op(ALOAD_0);
+      invokeTarget
+          .op(GETFIELD)
+          .u2(constantPool.fieldRef(thisClass, argumentField(i), descriptor(parameterTypes[i])));
+      argumentSlots += slotSize(parameterTypes[i]);
+    }
+    invokeTarget
+        .op(INVOKEVIRTUAL)
+        .u2(constantPool.methodRef(beanClassName, method.getName(), methodDescriptor(method)));
+    if (returnType == void.class) {
+      invokeTarget.op(ACONST_NULL);
+    } else {
+      box(invokeTarget, constantPool, returnType);
+    }
+    invokeTarget.op(ARETURN);
+
+    // 3. Copy of the arguments in an array, and their clearing.
+    Code copyArguments = new Code();
+    Code clearArguments = new Code();
+    for (int i = 0; i < parameterTypes.length; i++) {
+      int fieldRef =
+          constantPool.fieldRef(thisClass, argumentField(i), descriptor(parameterTypes[i]));
+      copyArguments.op(ALOAD_1);
+      pushInt(copyArguments, i);
+      copyArguments.op(ALOAD_0);
+      copyArguments.op(GETFIELD).u2(fieldRef);
+      box(copyArguments, constantPool, parameterTypes[i]);
+      copyArguments.op(AASTORE);
+
+      if (!parameterTypes[i].isPrimitive()) {
+        clearArguments.op(ALOAD_0);
+        clearArguments.op(ACONST_NULL);
+        clearArguments.op(PUTFIELD).u2(fieldRef);
+      }
+    }
+    copyArguments.op(RETURN);
+    clearArguments.op(RETURN);
+
+    return classFile(
+        constantPool,
+        className,
+        INVOCATION_CLASS,
+        null,
+        fields,
+        Arrays.asList(
+            new MethodBody("<init>", "()V", constructor, 1, 1),
+            new MethodBody(
+                "invokeTarget",
+                "(" + OBJECT_DESCRIPTOR + ")" + OBJECT_DESCRIPTOR,
+                invokeTarget,
+                Math.max(1 + argumentSlots, Math.max(slotSize(returnType), 1)),
+                2),
+            new MethodBody(
+                "copyArguments", "([" + OBJECT_DESCRIPTOR + ")V", copyArguments, 4, 2),
+            new MethodBody("clearArguments", "()V", clearArguments, 2, 1)));
+  }
+
+  /** Name of the field holding the chain of the i-th intercepted method. */
+  static String chainField(int index) {
+    return "interceptorChain" + index;
+  }
+
+  /** Name of the field holding the interceptors of the i-th intercepted method. */
+  static String interceptorsField(int index) {
+    return "interceptors" + index;
+  }
+
+  private static String argumentField(int index) {
+    return "arg" + index;
+  }
+
+  /** Boxes the primitive on top of the stack. References are left as is. */
+  private static void box(Code code, ConstantPool constantPool, Class<?> type) {
+    if (type.isPrimitive()) {
+      String wrapperClass = internalName(wrapper(type));
+      code.op(INVOKESTATIC)
+          .u2(
+              constantPool.methodRef(
+                  wrapperClass,
+                  "valueOf",
+                  "(" + descriptor(type) + ")L" + wrapperClass + ";"));
+    }
+  }
+
+  /** Returns the Object on top of the stack as the return type: cast, unboxed or popped. */
+  private static void unboxAndReturn(Code code, ConstantPool constantPool, Class<?> returnType) {
+    if (returnType == void.class) {
+      code.op(POP);
+    } else {
+      unbox(code, constantPool, returnType);
+    }
+    code.op(returnOpcode(returnType));
+  }
+
+  /** Casts the Object on top of the stack to the type, unboxing it if primitive. */
+  private static void unbox(Code code, ConstantPool constantPool, Class<?> type) {
+    if (type.isPrimitive()) {
+      String wrapperClass = internalName(wrapper(type));
+      code.op(CHECKCAST).u2(constantPool.classRef(wrapperClass));
+      code.op(INVOKEVIRTUAL)
+          .u2(
+              constantPool.methodRef(
+                  wrapperClass, type.getName() + "Value", "()" + descriptor(type)));
+    } else if (type != Object.class) {
+      code.op(CHECKCAST).u2(constantPool.classRef(internalName(type)));
+    }
+  }
+
+  private static void pushInt(Code code, int value) {
+    if (value <= 5) {
+      code.op(ICONST_0 + value);
+    } else if (value <= Byte.MAX_VALUE) {
+      code.op(BIPUSH).u1(value);
+    } else {
+      code.op(SIPUSH).u2(value);
+    }
+  }
+
+  private static Class<?> wrapper(Class<?> primitive) {
+    if (primitive == int.class) return Integer.class;
+    if (primitive == long.class) return Long.class;
+    if (primitive == boolean.class) return Boolean.class;
+    if (primitive == byte.class) return Byte.class;
+    if (primitive == char.class) return Character.class;
+    if (primitive == short.class) return Short.class;
+    if (primitive == float.class) return Float.class;
+    return Double.class;
+  }
+
+  /** Number of local variable slots of the parameters of a method, including this. */
+  static int parameterSlots(Method method) {
+    int slots = 1;
+    for (Class<?> parameterType : method.getParameterTypes()) {
+      slots += slotSize(parameterType);
+    }
+    return slots;
+  }
+
+  private static MethodBody emptyConstructor(ConstantPool constantPool) {
+    // Public empty constructor, calling Object's.
+    Code code = new Code();
+    code.op(ALOAD_0);
+    code.op(INVOKESPECIAL).u2(constantPool.methodRef("java/lang/Object", "<init>", "()V"));
+    code.op(RETURN);
+    return new MethodBody("<init>", "()V", code, 1, 1);
+  }
+
+  private static byte[] classFile(
+      ConstantPool constantPool,
+      String className,
+      String superClassName,
+      String interfaceName,
+      Map<String, String> fields,
+      List<MethodBody> methods) {
+
+    int thisClass = constantPool.classRef(className.replace('.', '/'));
+    int superClass = constantPool.classRef(superClassName);
+    int interfaceIndex = interfaceName != null ? constantPool.classRef(interfaceName) : 0;
+    Map<Integer, Integer> fieldIndexes = new LinkedHashMap<>();
+    for (Entry<String, String> field : fields.entrySet()) {
+      fieldIndexes.put(constantPool.utf8(field.getKey()), constantPool.utf8(field.getValue()));
+    }
+    int codeName = constantPool.utf8("Code");
+    for (MethodBody method : methods) {
+      method.nameIndex = constantPool.utf8(method.name);
+      method.descriptorIndex = constantPool.utf8(method.descriptor);
+    }
+
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(bytes);
+      out.writeInt(0xCAFEBABE);
+      out.writeShort(0);
+      out.writeShort(JAVA_8);
+      constantPool.writeTo(out);
+      out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER | ACC_SYNTHETIC);
+      out.writeShort(thisClass);
+      out.writeShort(superClass);
+      if (interfaceName != null) {
+        out.writeShort(1);
+        out.writeShort(interfaceIndex);
+      } else {
+        out.writeShort(0);
+      }
+
+      out.writeShort(fieldIndexes.size());
+      for (Entry<Integer, Integer> field : fieldIndexes.entrySet()) {
+        out.writeShort(ACC_PUBLIC | ACC_SYNTHETIC);
+        out.writeShort(field.getKey());
+        out.writeShort(field.getValue());
+        out.writeShort(0); // attributes
+      }
+
+      out.writeShort(methods.size());
+      for (MethodBody method : methods) {
+        writeMethod(out, method, codeName);
+      }
+
+      out.writeShort(0); // attributes
+      return bytes.toByteArray();
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  private static void writeMethod(DataOutputStream out, MethodBody method, int codeName)
+      throws IOException {
+    byte[] bytecode = method.code.bytes.toByteArray();
+    out.writeShort(ACC_PUBLIC);
+    out.writeShort(method.nameIndex);
+    out.writeShort(method.descriptorIndex);
+    out.writeShort(1); // attributes
+    out.writeShort(codeName);
+    out.writeInt(12 + bytecode.length);
+    out.writeShort(method.maxStack);
+    out.writeShort(method.maxLocals);
+    out.writeInt(bytecode.length);
+    out.write(bytecode);
+    out.writeShort(0); // exception table
+    out.writeShort(0); // attributes
+  }
+
+  private static String methodDescriptor(Method method) {
+    StringBuilder descriptor = new StringBuilder("(");
+    for (Class<?> parameterType : method.getParameterTypes()) {
+      descriptor.append(descriptor(parameterType));
+    }
+    return descriptor.append(')').append(descriptor(method.getReturnType())).toString();
+  }
+
+  private static int slotSize(Class<?> type) {
+    if (type == void.class) return 0;
+    return type == long.class || type == double.class ? 2 : 1;
+  }
+
+  private static int loadOpcode(Class<?> type) {
+    if (!type.isPrimitive()) return ALOAD;
+    if (type == long.class) return LLOAD;
+    if (type == float.class) return FLOAD;
+    if (type == double.class) return DLOAD;
+    return ILOAD;
+  }
+
+  private static int returnOpcode(Class<?> type) {
+    if (type == void.class) return RETURN;
+    if (!type.isPrimitive()) return ARETURN;
+    if (type == long.class) return LRETURN;
+    if (type == float.class) return FRETURN;
+    if (type == double.class) return DRETURN;
+    return IRETURN;
+  }
+
+  /** Internal name, or descriptor for arrays, as used by CONSTANT_Class. */
+  private static String internalName(Class<?> type) {
+    return type.getName().replace('.', '/');
+  }
+
+  private static String descriptor(Class<?> type) {
+    if (type.isArray()) {
+      return internalName(type);
+    }
+    if (type.isPrimitive()) {
+      if (type == int.class) return "I";
+      if (type == long.class) return "J";
+      if (type == boolean.class) return "Z";
+      if (type == byte.class) return "B";
+      if (type == char.class) return "C";
+      if (type == short.class) return "S";
+      if (type == float.class) return "F";
+      if (type == double.class) return "D";
+      return "V";
+    }
+    return "L" + internalName(type) + ";";
+  }
+
+  /** A method of the generated class. */
+  private static final class MethodBody {
+
+    private final String name;
+    private final String descriptor;
+    private final Code code;
+    private final int maxStack;
+    private final int maxLocals;
+
+    private int nameIndex;
+    private int descriptorIndex;
+
+    private MethodBody(String name, String descriptor, Code code, int maxStack, int maxLocals) {
+      this.name = name;
+      this.descriptor = descriptor;
+      this.code = code;
+      this.maxStack = maxStack;
+      this.maxLocals = maxLocals;
+    }
+  }
+
+  /** Bytecode of one method. */
+  private static final class Code {
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    Code op(int opcode) {
+      bytes.write(opcode);
+      return this;
+    }
+
+    Code u1(int value) {
+      bytes.write(value);
+      return this;
+    }
+
+    Code u2(int value) {
+      bytes.write(value >>> 8);
+      bytes.write(value);
+      return this;
+    }
+  }
+
+  /** Deduplicated constant pool entries. */
+  private static final class ConstantPool {
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final DataOutputStream out = new DataOutputStream(bytes);
+    private final Map<String, Integer> indexes = new HashMap<>();
+    private int count = 1;
+
+    int utf8(String value) {
+      Integer index = indexes.get("Utf8:" + value);
+      if (index != null) {
+        return index;
+      }
+      try {
+        out.writeByte(1);
+        out.writeUTF(value);
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+      return add("Utf8:" + value);
+    }
+
+    int classRef(String internalName) {
+      return entry(7, "Class:" + internalName, utf8(internalName), -1);
+    }
+
+    int nameAndType(String name, String descriptor) {
+      return entry(12, "NameAndType:" + name + descriptor, utf8(name), utf8(descriptor));
+    }
+
+    int fieldRef(String owner, String name, String descriptor) {
+      return entry(
+          9,
+          "Fieldref:" + owner + "." + name + descriptor,
+          classRef(owner),
+          nameAndType(name, descriptor));
+    }
+
+    int interfaceMethodRef(String owner, String name, String descriptor) {
+      return entry(
+          11,
+          "InterfaceMethodref:" + owner + "." + name + descriptor,
+          classRef(owner),
+          nameAndType(name, descriptor));
+    }
+
+    int methodRef(String owner, String name, String descriptor) {
+      return entry(
+          10,
+          "Methodref:" + owner + "." + name + descriptor,
+          classRef(owner),
+          nameAndType(name, descriptor));
+    }
+
+    /** Entry made of one or two (second is -1 if absent) u2 indexes. */
+    private int entry(int tag, String key, int first, int second) {
+      Integer index = indexes.get(key);
+      if (index != null) {
+        return index;
+      }
+      try {
+        out.writeByte(tag);
+        out.writeShort(first);
+        if (second >= 0) {
+          out.writeShort(second);
+        }
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+      return add(key);
+    }
+
+    private int add(String key) {
+      indexes.put(key, count);
+      return count++;
+    }
+
+    void writeTo(DataOutputStream classFile) throws IOException {
+      classFile.writeShort(count);
+      classFile.write(bytes.toByteArray());
+    }
+  }
+}
@@ -0,0 +1,205 @@
+package com.arjunsk.codekrypt.di.injection;
+
+import com.arjunsk.codekrypt.di.exceptions.BeanFetchException;
+import com.arjunsk.codekrypt.di.intercept.InterceptorChain;
+import com.arjunsk.codekrypt.di.intercept.Invocation;
+import com.arjunsk.codekrypt.di.intercept.MethodInterceptor;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Wraps beans with intercepted methods in a generated subclass: each intercepted method runs its
+ * {@link InterceptorChain} with the interceptors of the bean, and the other public methods call
+ * the bean directly.
+ *
+ * <p>The subclass, and the {@link Invocation} and chain of each method, are created once per bean
+ * class. A bean only costs its subclass instance, instantiated without calling any constructor.
+ * So the bean class must be public, not final, without public final methods, and its intercepted
+ * methods must only use public types.
+ */
+public class InterceptorProxyFactory {
+
+  private static final String TARGET_FIELD = "interceptedTarget";
+
+  private static final MethodInterceptor[] NO_INTERCEPTORS = new MethodInterceptor[0];
+
+  private static final AtomicInteger interceptedClassCount = new AtomicInteger();
+
+  // Bean class -> its intercepted methods.
+  private final Function<Class<?>, Collection<Method>> interceptedMethods;
+
+  private final ClassValue<InterceptedClass> interceptedClasses =
+      new ClassValue<InterceptedClass>() {
+        @Override
+        protected InterceptedClass computeValue(Class<?> type) {
+          return createInterceptedClass(type, interceptedMethods.apply(type));
+        }
+      };
+
+  /** @param interceptedMethods returns the intercepted methods of a bean class. */
+  public InterceptorProxyFactory(Function<Class<?>, Collection<Method>> interceptedMethods) {
+    this.interceptedMethods = interceptedMethods;
+  }
+
+  /**
+   * Wrap a bean.
+   *
+   * @param bean the bean.
+   * @param interceptors the intercepted methods of the bean class -> their interceptors, the
+   *     outermost first.
+   * @return the subclass instance, calling the bean.
+   * @throws BeanFetchException if the bean class cannot be subclassed.
+   */
+  public Object createProxy(Object bean, Map<Method, MethodInterceptor[]> interceptors) {
+    return interceptedClasses.get(bean.getClass()).newInstance(bean, interceptors);
+  }
+
+  private static InterceptedClass createInterceptedClass(
+      Class<?> type, Collection<Method> interceptedMethods) {
+    // 1. The subclass must be allowed, and to be created without calling a constructor.
+    int modifiers = type.getModifiers();
+    if (Modifier.isFinal(modifiers) || !GeneratedInjectionStrategy.isAccessible(type)) {
+      throw new BeanFetchException(
+          "Unable to intercept " + type.getName() + ": only public, non final, classes can be");
+    }
+
+    // 2. All the public methods must be overridden.
+    Map<String, Method> methods = new LinkedHashMap<>();
+    for (Method method : type.getMethods()) {
+      int methodModifiers = method.getModifiers();
+      if (Modifier.isStatic(methodModifiers) || method.isBridge()) {
+        continue;
+      }
+      if (Modifier.isFinal(methodModifiers)) {
+        if (method.getDeclaringClass() == Object.class) {
+          continue;
+        }
+        throw new BeanFetchException(
+            "Unable to intercept " + type.getName() + ": " + method + " is final");
+      }
+      if (InjectorClassWriter.parameterSlots(method) > LazyProxyFactory.MAX_SLOTS) {
+        throw new BeanFetchException(
+            "Unable to intercept " + type.getName() + ": " + method + " has too many parameters");
+      }
+      methods.putIfAbsent(method.getName() + LazyProxyFactory.signature(method), method);
+    }
+    for (Method method : interceptedMethods) {
+      if (!areAccessible(method)) {
+        throw new BeanFetchException(
+            "Unable to intercept " + method + ": its parameter and return types must be public");
+      }
+    }
+
+    // 3. Define the invocations, then the subclass using them, next to the bean class.
+    String className =
+        GeneratedClassLoader.GENERATED_PACKAGE
+            + type.getName().replace('.', '_')
+            + "$Intercepted$"
+            + interceptedClassCount.incrementAndGet();
+    try {
+      GeneratedClassLoader classLoader = new GeneratedClassLoader(type.getClassLoader());
+      Map<Method, String> invocationClassNames = new LinkedHashMap<>();
+      List<InterceptorChain> chains = new ArrayList<>();
+      for (Method method : interceptedMethods) {
+        String invocationClassName = className + "$Invocation" + invocationClassNames.size();
+        Class<?> invocationClass =
+            classLoader.define(
+                invocationClassName,
+                InjectorClassWriter.invocation(invocationClassName, type, method));
+        invocationClassNames.put(method, invocationClassName);
+        chains.add(
+            new InterceptorChain(
+                method, invocationClass.asSubclass(Invocation.class).getConstructor()));
+      }
+
+      Class<?> generatedClass =
+          classLoader.define(
+              className,
+              InjectorClassWriter.interceptedSubclass(
+                  className, type, methods.values(), invocationClassNames, TARGET_FIELD));
+      Constructor<?> constructor = LazyProxyFactory.newConstructorForSerialization(generatedClass);
+      if (constructor == null) {
+        throw new BeanFetchException(
+            "Unable to intercept " + type.getName() + ": no ReflectionFactory in this JVM");
+      }
+
+      Field[] chainFields = new Field[chains.size()];
+      Field[] interceptorsFields = new Field[chains.size()];
+      for (int i = 0; i < chainFields.length; i++) {
+        chainFields[i] = generatedClass.getField(InjectorClassWriter.chainField(i));
+        interceptorsFields[i] = generatedClass.getField(InjectorClassWriter.interceptorsField(i));
+      }
+      return new InterceptedClass(
+          constructor,
+          generatedClass.getField(TARGET_FIELD),
+          chains,
+          chainFields,
+          interceptorsFields);
+    } catch (LinkageError | ReflectiveOperationException ex) {
+      throw new BeanFetchException("Unable to intercept " + type.getName(), ex);
+    }
+  }
+
+  private static boolean areAccessible(Method method) {
+    if (!GeneratedInjectionStrategy.isAccessible(method.getReturnType())) {
+      return false;
+    }
+    for (Class<?> parameterType : method.getParameterTypes()) {
+      if (!GeneratedInjectionStrategy.isAccessible(parameterType)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Generated subclass, with its constructor-less instantiation. */
+  private static final class InterceptedClass {
+
+    private final Constructor<?> constructor;
+    private final Field targetField;
+
+    // Chains of the intercepted methods, with their chain & interceptors fields at the same index.
+    private final List<InterceptorChain> chains;
+    private final Field[] chainFields;
+    private final Field[] interceptorsFields;
+
+    private InterceptedClass(
+        Constructor<?> constructor,
+        Field targetField,
+        List<InterceptorChain> chains,
+        Field[] chainFields,
+        Field[] interceptorsFields) {
+      this.constructor = constructor;
+      this.targetField = targetField;
+      this.chains = chains;
+      this.chainFields = chainFields;
+      this.interceptorsFields = interceptorsFields;
+    }
+
+    private Object newInstance(Object bean, Map<Method, MethodInterceptor[]> interceptors) {
+      try {
+        Object proxy = constructor.newInstance();
+        targetField.set(proxy, bean);
+        for (int i = 0; i < chainFields.length; i++) {
+          InterceptorChain chain = chains.get(i);
+          MethodInterceptor[] methodInterceptors = interceptors.get(chain.getMethod());
+          chainFields[i].set(proxy, chain);
+          interceptorsFields[i].set(
+              proxy, methodInterceptors != null ? methodInterceptors : NO_INTERCEPTORS);
+        }
+        return proxy;
+      } catch (ReflectiveOperationException ex) {
+        throw new BeanFetchException("Unable to intercept " + bean.getClass().getName(), ex);
+      }
+    }
+  }
+}
@@ -0,0 +1,200 @@
+package com.arjunsk.codekrypt.di.injection;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Creates lazy proxies: objects of the injected type, which forward every method call to the bean
+ * returned by a Supplier.
+ *
+ * <p>Public interfaces are proxied with {@link Proxy}. Classes are proxied with a generated
+ * subclass, instantiated without calling any constructor. It only forwards public methods, so
+ * classes which are not public, are final or have public final methods are not proxied.
+ */
+public class LazyProxyFactory {
+
+  private static final String TARGET_FIELD = "lazyTarget";
+
+  // Longest argument list that the generated code can load, in local variable slots.
+  static final int MAX_SLOTS = 255;
+
+  private static final AtomicInteger proxyClassCount = new AtomicInteger();
+
+  // Instantiates a class without calling its constructors, as deserialization does.
+  private static final Object reflectionFactory = findReflectionFactory();
+  private static final Method serializationConstructor = findSerializationConstructor();
+
+  private final ClassValue<Optional<ProxyClass>> proxyClasses =
+      new ClassValue<Optional<ProxyClass>>() {
+        @Override
+        protected Optional<ProxyClass> computeValue(Class<?> type) {
+          return Optional.ofNullable(createProxyClass(type));
+        }
+      };
+
+  /**
+   * Create a lazy proxy.
+   *
+   * @param type injected interface or class.
+   * @param target returns the real bean, on each method call. It should cache the bean, unless
+   *     the bean changes between calls (eg thread scoped).
+   * @return the proxy, or null if the type cannot be proxied.
+   */
+  public Object createProxy(Class<?> type, Supplier<Object> target) {
+    if (type.isInterface()) {
+      if (!GeneratedInjectionStrategy.isAccessible(type)) {
+        return null;
+      }
+      return Proxy.newProxyInstance(
+          type.getClassLoader(), new Class<?>[] {type}, new LazyInvocationHandler(target));
+    }
+
+    Optional<ProxyClass> proxyClass = proxyClasses.get(type);
+    return proxyClass.isPresent() ? proxyClass.get().newInstance(target) : null;
+  }
+
+  private static ProxyClass createProxyClass(Class<?> type) {
+    // 1. The subclass must be allowed, and to be created without calling a constructor.
+    int modifiers = type.getModifiers();
+    if (serializationConstructor == null
+        || type.isArray()
+        || type.isPrimitive()
+        || Modifier.isFinal(modifiers)
+        || !GeneratedInjectionStrategy.isAccessible(type)) {
+      return null;
+    }
+
+    // 2. All the public methods must be forwarded.
+    Map<String, Method> methods = new LinkedHashMap<>();
+    for (Method method : type.getMethods()) {
+      int methodModifiers = method.getModifiers();
+      if (Modifier.isStatic(methodModifiers) || method.isBridge()) {
+        continue;
+      }
+      if (Modifier.isFinal(methodModifiers)) {
+        if (method.getDeclaringClass() == Object.class) {
+          continue;
+        }
+        return null;
+      }
+      if (InjectorClassWriter.parameterSlots(method) > MAX_SLOTS) {
+        return null;
+      }
+      methods.putIfAbsent(method.getName() + signature(method), method);
+    }
+
+    // 3. Define the subclass, next to the proxied class.
+    String className =
+        GeneratedClassLoader.GENERATED_PACKAGE
+            + type.getName().replace('.', '_')
+            + "$LazyProxy$"
+            + proxyClassCount.incrementAndGet();
+    try {
+      Class<?> generatedClass =
+          new GeneratedClassLoader(type.getClassLoader())
+              .define(
+                  className,
+                  InjectorClassWriter.lazyProxy(className, type, methods.values(), TARGET_FIELD));
+
+      return new ProxyClass(
+          newConstructorForSerialization(generatedClass), generatedClass.getField(TARGET_FIELD));
+    } catch (LinkageError | ReflectiveOperationException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * Constructor instantiating a class without calling any of its constructors, or null if the JVM
+   * has no ReflectionFactory.
+   */
+  static Constructor<?> newConstructorForSerialization(Class<?> type)
+      throws ReflectiveOperationException {
+    if (serializationConstructor == null) {
+      return null;
+    }
+    return (Constructor<?>)
+        serializationConstructor.invoke(
+            reflectionFactory, type, Object.class.getDeclaredConstructor());
+  }
+
+  static String signature(Method method) {
+    StringBuilder signature = new StringBuilder("(");
+    for (Class<?> parameterType : method.getParameterTypes()) {
+      signature.append(parameterType.getName()).append(';');
+    }
+    return signature.append(')').toString();
+  }
+
+  private static Object findReflectionFactory() {
+    try {
+      return Class.forName("sun.reflect.ReflectionFactory")
+          .getMethod("getReflectionFactory")
+          .invoke(null);
+    } catch (ReflectiveOperationException | LinkageError ex) {
+      return null;
+    }
+  }
+
+  private static Method findSerializationConstructor() {
+    try {
+      return reflectionFactory == null
+          ? null
+          : reflectionFactory
+              .getClass()
+              .getMethod("newConstructorForSerialization", Class.class, Constructor.class);
+    } catch (ReflectiveOperationException | LinkageError ex) {
+      return null;
+    }
+  }
+
+  /** Generated subclass, with its constructor-less instantiation. */
+  private static final class ProxyClass {
+
+    private final Constructor<?> constructor;
+    private final Field targetField;
+
+    private ProxyClass(Constructor<?> constructor, Field targetField) {
+      this.constructor = constructor;
+      this.targetField = targetField;
+    }
+
+    private Object newInstance(Supplier<Object> target) {
+      try {
+        Object proxy = constructor.newInstance();
+        targetField.set(proxy, target);
+        return proxy;
+      } catch (ReflectiveOperationException ex) {
+        return null;
+      }
+    }
+  }
+
+  /** Forwards the calls of an interface proxy. */
+  private static final class LazyInvocationHandler implements InvocationHandler {
+
+    private final Supplier<Object> target;
+
+    private LazyInvocationHandler(Supplier<Object> target) {
+      this.target = target;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      try {
+        return method.invoke(target.get(), args);
+      } catch (InvocationTargetException ex) {
+        throw ex.getCause();
+      }
+    }
+  }
+}
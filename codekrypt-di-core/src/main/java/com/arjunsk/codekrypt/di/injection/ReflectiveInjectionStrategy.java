@@ -0,0 +1,34 @@
+package com.arjunsk.codekrypt.di.injection;
+
+import com.arjunsk.codekrypt.di.exceptions.BeanFetchException;
+import com.arjunsk.codekrypt.di.exceptions.BeanInjectException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+
+/** Instantiates with Constructor.newInstance and injects with Field.set. */
+public class ReflectiveInjectionStrategy extends InjectionStrategy {
+
+  @Override
+  protected BeanFactory createBeanFactory(Constructor<?> constructor) {
+    constructor.setAccessible(true);
+    return args -> {
+      try {
+        return constructor.newInstance(args);
+      } catch (Exception ex) {
+        throw new BeanFetchException("Bean Initialization error", ex);
+      }
+    };
+  }
+
+  @Override
+  protected FieldInjector createFieldInjector(Field field) {
+    field.setAccessible(true);
+    return (bean, value) -> {
+      try {
+        field.set(bean, value);
+      } catch (IllegalAccessException ex) {
+        throw new BeanInjectException("Unable to Inject bean", ex);
+      }
+    };
+  }
+}
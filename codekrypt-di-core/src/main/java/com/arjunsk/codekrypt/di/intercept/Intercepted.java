@@ -0,0 +1,8 @@
+package com.arjunsk.codekrypt.di.intercept;
+
+/** Implemented by the generated subclasses wrapping the beans with @Interceptor methods. */
+public interface Intercepted {
+
+  /** Get the wrapped bean. */
+  Object getInterceptedTarget();
+}
@@ -0,0 +1,60 @@
+package com.arjunsk.codekrypt.di.intercept;
+
+import com.arjunsk.codekrypt.di.exceptions.InvokeException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+
+/**
+ * The call path of one intercepted method, created once per bean class and shared by its beans.
+ *
+ * <p>Every thread reuses its own {@link Invocation}, holding the arguments in typed fields, so a
+ * call through the chain allocates neither an argument array nor an invocation. Each call sets the
+ * bean and its interceptors on the invocation. Only a call made while the thread's invocation is
+ * in use (eg a recursive call) gets a new one.
+ */
+public final class InterceptorChain {
+
+  final Method method;
+
+  // Generated Invocation subclass of the method, holding its arguments.
+  private final Constructor<? extends Invocation> invocationConstructor;
+
+  private final ThreadLocal<Invocation> idleInvocations =
+      ThreadLocal.withInitial(this::newInvocation);
+
+  public InterceptorChain(Method method, Constructor<? extends Invocation> invocationConstructor) {
+    this.method = method;
+    this.invocationConstructor = invocationConstructor;
+  }
+
+  /**
+   * Get an invocation for a call of the current thread. Called by the generated subclasses.
+   *
+   * @param target the intercepted bean.
+   * @param interceptors the interceptors of the method for this bean, the outermost first.
+   */
+  public Invocation acquire(Object target, MethodInterceptor[] interceptors) {
+    Invocation invocation = idleInvocations.get();
+    if (invocation.inUse) {
+      invocation = newInvocation();
+    }
+    invocation.inUse = true;
+    invocation.target = target;
+    invocation.interceptors = interceptors;
+    return invocation;
+  }
+
+  private Invocation newInvocation() {
+    try {
+      Invocation invocation = invocationConstructor.newInstance();
+      invocation.chain = this;
+      return invocation;
+    } catch (ReflectiveOperationException ex) {
+      throw new InvokeException("Unable to create the invocation of " + method, ex);
+    }
+  }
+
+  public Method getMethod() {
+    return method;
+  }
+}
@@ -0,0 +1,96 @@
+package com.arjunsk.codekrypt.di.intercept;
+
+import java.lang.reflect.Method;
+
+/**
+ * A call of an intercepted method, passed along its {@link InterceptorChain}.
+ *
+ * <p>Subclasses are generated per method, with a field per argument, and call the bean method
+ * directly. An invocation is reused by the next call of the same thread, so interceptors must not
+ * keep it.
+ */
+public abstract class Invocation {
+
+  // Set once, when the invocation is created.
+  InterceptorChain chain;
+
+  // Set by each call, and cleared once it returns.
+  Object target;
+  MethodInterceptor[] interceptors;
+
+  // Index of the next interceptor to call.
+  private int position;
+
+  // Whether a call of the thread is using it.
+  boolean inUse;
+
+  protected Invocation() {}
+
+  /**
+   * Calls the next interceptor, or the bean method after the last one.
+   *
+   * @return the value returned by the method, boxed for primitive return types. Null for void.
+   * @throws Throwable thrown by the method or an interceptor.
+   */
+  public final Object proceed() throws Throwable {
+    int current = position;
+    if (current == interceptors.length) {
+      return invokeTarget(target);
+    }
+
+    // Restored after the call, so that an interceptor can proceed again, eg to retry.
+    position = current + 1;
+    try {
+      return interceptors[current].intercept(this);
+    } finally {
+      position = current;
+    }
+  }
+
+  /**
+   * Runs the chain, then releases the invocation. Called by the generated subclasses, once the
+   * arguments are set. Exceptions are rethrown as is, checked ones included.
+   */
+  public final Object dispatch() {
+    try {
+      return proceed();
+    } catch (Throwable ex) {
+      throw Invocation.<RuntimeException>sneakyThrow(ex);
+    } finally {
+      clearArguments();
+      target = null;
+      interceptors = null;
+      inUse = false;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <E extends Throwable> E sneakyThrow(Throwable ex) throws E {
+    throw (E) ex;
+  }
+
+  /** Get the intercepted bean. */
+  public final Object getTarget() {
+    return target;
+  }
+
+  public final Method getMethod() {
+    return chain.method;
+  }
+
+  /** Get a copy of the arguments, primitives boxed. It allocates, so only call it when needed. */
+  public final Object[] getArguments() {
+    Object[] arguments = new Object[chain.method.getParameterCount()];
+    copyArguments(arguments);
+    return arguments;
+  }
+
+  /** Calls the bean method with the arguments, and boxes the returned value. */
+  protected abstract Object invokeTarget(Object target) throws Throwable;
+
+  /** Copies the arguments, primitives boxed. */
+  protected abstract void copyArguments(Object[] arguments);
+
+  /** Drops the references to the arguments, so that an idle invocation does not retain them. */
+  protected abstract void clearArguments();
+}
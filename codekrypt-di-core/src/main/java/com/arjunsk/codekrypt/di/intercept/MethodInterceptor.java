@@ -0,0 +1,16 @@
+package com.arjunsk.codekrypt.di.intercept;
+
+/** Cross-cutting logic around the bean methods bound to it with @Interceptor. */
+public interface MethodInterceptor {
+
+  /**
+   * Intercepts a call.
+   *
+   * @param invocation the call. {@link Invocation#proceed()} calls the next interceptor, then the
+   *     bean method. It can be called several times (eg to retry), or not at all (eg on a cache
+   *     hit). The invocation is reused once the call returns, so it must not be kept.
+   * @return the value returned to the caller, boxed for primitive return types.
+   * @throws Throwable thrown to the caller as is.
+   */
+  Object intercept(Invocation invocation) throws Throwable;
+}
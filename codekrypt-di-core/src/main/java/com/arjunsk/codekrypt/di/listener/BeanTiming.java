@@ -0,0 +1,70 @@
+package com.arjunsk.codekrypt.di.listener;
+
+/** How long the creation of one bean took, step by step. Durations are in nanoseconds. */
+public final class BeanTiming {
+
+  private final Class<?> beanClass;
+  private final String scope;
+  private final String threadName;
+
+  // System.nanoTime() when the creation started.
+  private final long startNanos;
+
+  // Fetching the constructor arguments, and calling the constructor.
+  private final long constructNanos;
+
+  // Fetching and injecting the @Autowire fields.
+  private final long injectNanos;
+
+  private final long postConstructNanos;
+
+  public BeanTiming(
+      Class<?> beanClass,
+      String scope,
+      String threadName,
+      long startNanos,
+      long constructNanos,
+      long injectNanos,
+      long postConstructNanos) {
+    this.beanClass = beanClass;
+    this.scope = scope;
+    this.threadName = threadName;
+    this.startNanos = startNanos;
+    this.constructNanos = constructNanos;
+    this.injectNanos = injectNanos;
+    this.postConstructNanos = postConstructNanos;
+  }
+
+  public Class<?> getBeanClass() {
+    return beanClass;
+  }
+
+  public String getScope() {
+    return scope;
+  }
+
+  public String getThreadName() {
+    return threadName;
+  }
+
+  public long getStartNanos() {
+    return startNanos;
+  }
+
+  public long getConstructNanos() {
+    return constructNanos;
+  }
+
+  public long getInjectNanos() {
+    return injectNanos;
+  }
+
+  public long getPostConstructNanos() {
+    return postConstructNanos;
+  }
+
+  /** Whole creation time. Dependencies created on demand are included in construct/inject. */
+  public long getTotalNanos() {
+    return constructNanos + injectNanos + postConstructNanos;
+  }
+}
@@ -0,0 +1,85 @@
+package com.arjunsk.codekrypt.di.listener;
+
+import com.arjunsk.codekrypt.di.core.DependencyGraph;
+
+/**
+ * Receives the timings of the container: startup phases, the creation of every bean, and their
+ * teardown.
+ *
+ * <p>Registered with InjectorConfig.withListener. Without a listener, nothing is timed. Listeners
+ * are called from the threads creating the beans, so they must be thread safe and fast.
+ */
+public interface ContainerListener {
+
+  /**
+   * A startup phase is done.
+   *
+   * @param phase startup phase.
+   * @param startNanos System.nanoTime() when it started.
+   * @param nanos duration.
+   */
+  default void onPhase(StartupPhase phase, long startNanos, long nanos) {}
+
+  /**
+   * The dependency graph is built, with the dependency depth of every bean. Not called when the
+   * wiring plan is used, nor when the graph was validated at compile time.
+   *
+   * @param dependencyGraph dependency graph of the components.
+   */
+  default void onGraphBuilt(DependencyGraph dependencyGraph) {}
+
+  /**
+   * A bean is created, wired and post constructed.
+   *
+   * @param beanTiming timings of the creation.
+   */
+  default void onBeanCreated(BeanTiming beanTiming) {}
+
+  /**
+   * A singleton is fetched, for an injection or a getBean call.
+   *
+   * @param implementationClass resolved bean class.
+   * @param hit whether it was already created, else it is created (or awaited) now.
+   */
+  default void onSingletonLookup(Class<?> implementationClass, boolean hit) {}
+
+  /**
+   * CodekryptInjector.run is done.
+   *
+   * @param nanos whole startup duration.
+   */
+  default void onStartup(long nanos) {}
+
+  /**
+   * The @PostConstruct methods of the beans created at startup are done (or failed), including
+   * the async ones.
+   *
+   * @param nanos duration since the start of CodekryptInjector.run.
+   */
+  default void onReady(long nanos) {}
+
+  /**
+   * The @PreDestroy methods of a bean returned, failed, or ran out of time while the Container is
+   * closed.
+   *
+   * @param beanClass destroyed bean class.
+   * @param startNanos System.nanoTime() when its teardown started.
+   * @param nanos duration, up to the timeout.
+   * @param timedOut whether it ran out of time: its dependencies are then destroyed without it.
+   */
+  default void onBeanDestroyed(Class<?> beanClass, long startNanos, long nanos, boolean timedOut) {}
+
+  /**
+   * A hot reload is done (or failed), on the watcher thread.
+   *
+   * @param report changed classes and beans.
+   */
+  default void onReload(ReloadReport report) {}
+
+  /**
+   * Container.close is done.
+   *
+   * @param nanos whole teardown duration.
+   */
+  default void onShutdown(long nanos) {}
+}
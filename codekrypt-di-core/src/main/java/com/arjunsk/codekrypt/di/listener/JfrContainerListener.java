@@ -0,0 +1,161 @@
+package com.arjunsk.codekrypt.di.listener;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Emits the startup phases, bean creations and teardowns as Java Flight Recorder events, under the
+ * "Codekrypt" category. Needs a JDK with the jdk.jfr module (11+, or 8u262+).
+ *
+ * <p>The events are committed when the phase or bean is done, so their durations are in their
+ * fields rather than in the event duration.
+ */
+public class JfrContainerListener implements ContainerListener {
+
+  @Override
+  public void onPhase(StartupPhase phase, long startNanos, long nanos) {
+    PhaseEvent event = new PhaseEvent();
+    if (event.isEnabled()) {
+      event.phase = phase.name();
+      event.phaseDuration = nanos;
+      event.commit();
+    }
+  }
+
+  @Override
+  public void onBeanCreated(BeanTiming beanTiming) {
+    BeanCreationEvent event = new BeanCreationEvent();
+    if (event.isEnabled()) {
+      event.beanClass = beanTiming.getBeanClass().getName();
+      event.scope = beanTiming.getScope();
+      event.constructDuration = beanTiming.getConstructNanos();
+      event.injectDuration = beanTiming.getInjectNanos();
+      event.postConstructDuration = beanTiming.getPostConstructNanos();
+      event.commit();
+    }
+  }
+
+  @Override
+  public void onStartup(long nanos) {
+    StartupEvent event = new StartupEvent();
+    if (event.isEnabled()) {
+      event.startupDuration = nanos;
+      event.commit();
+    }
+  }
+
+  @Override
+  public void onReady(long nanos) {
+    ReadyEvent event = new ReadyEvent();
+    if (event.isEnabled()) {
+      event.readyDuration = nanos;
+      event.commit();
+    }
+  }
+
+  @Override
+  public void onBeanDestroyed(Class<?> beanClass, long startNanos, long nanos, boolean timedOut) {
+    BeanDestructionEvent event = new BeanDestructionEvent();
+    if (event.isEnabled()) {
+      event.beanClass = beanClass.getName();
+      event.preDestroyDuration = nanos;
+      event.timedOut = timedOut;
+      event.commit();
+    }
+  }
+
+  @Override
+  public void onShutdown(long nanos) {
+    ShutdownEvent event = new ShutdownEvent();
+    if (event.isEnabled()) {
+      event.shutdownDuration = nanos;
+      event.commit();
+    }
+  }
+
+  @Name("codekrypt.StartupPhase")
+  @Label("Startup Phase")
+  @Category("Codekrypt")
+  static class PhaseEvent extends Event {
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Phase Duration")
+    @Timespan
+    long phaseDuration;
+  }
+
+  @Name("codekrypt.BeanCreation")
+  @Label("Bean Creation")
+  @Category("Codekrypt")
+  static class BeanCreationEvent extends Event {
+
+    @Label("Bean Class")
+    String beanClass;
+
+    @Label("Scope")
+    String scope;
+
+    @Label("Construct Duration")
+    @Timespan
+    long constructDuration;
+
+    @Label("Inject Duration")
+    @Timespan
+    long injectDuration;
+
+    @Label("Post Construct Duration")
+    @Timespan
+    long postConstructDuration;
+  }
+
+  @Name("codekrypt.Startup")
+  @Label("Startup")
+  @Category("Codekrypt")
+  static class StartupEvent extends Event {
+
+    @Label("Startup Duration")
+    @Timespan
+    long startupDuration;
+  }
+
+  @Name("codekrypt.Ready")
+  @Label("Ready")
+  @Category("Codekrypt")
+  static class ReadyEvent extends Event {
+
+    @Label("Ready Duration")
+    @Timespan
+    long readyDuration;
+  }
+
+  @Name("codekrypt.BeanDestruction")
+  @Label("Bean Destruction")
+  @Category("Codekrypt")
+  static class BeanDestructionEvent extends Event {
+
+    @Label("Bean Class")
+    String beanClass;
+
+    @Label("Pre Destroy Duration")
+    @Timespan
+    long preDestroyDuration;
+
+    @Label("Timed Out")
+    boolean timedOut;
+  }
+
+  @Name("codekrypt.Shutdown")
+  @Label("Shutdown")
+  @Category("Codekrypt")
+  static class ShutdownEvent extends Event {
+
+    @Label("Shutdown Duration")
+    @Timespan
+    long shutdownDuration;
+  }
+}
@@ -0,0 +1,78 @@
+package com.arjunsk.codekrypt.di.listener;
+
+import java.util.Collections;
+import java.util.List;
+
+/** What one hot reload changed in the container. Durations are in nanoseconds. */
+public final class ReloadReport {
+
+  // New versions of the changed components, and of the dependents linked to their classes.
+  private final List<Class<?>> reloadedClasses;
+
+  // New components, found in the changed class files.
+  private final List<Class<?>> addedClasses;
+
+  // Dependents whose beans are created again, with the new beans in their constructors.
+  private final List<Class<?>> recreatedClasses;
+
+  // Dependents kept as they are, with the new beans injected in their fields.
+  private final List<Class<?>> rewiredClasses;
+
+  // Changed classes which cannot be reloaded (eg not components), until a restart.
+  private final List<String> skippedClassNames;
+
+  private final long nanos;
+
+  // Why the reload failed, or null.
+  private final Throwable failure;
+
+  public ReloadReport(
+      List<Class<?>> reloadedClasses,
+      List<Class<?>> addedClasses,
+      List<Class<?>> recreatedClasses,
+      List<Class<?>> rewiredClasses,
+      List<String> skippedClassNames,
+      long nanos,
+      Throwable failure) {
+    this.reloadedClasses = Collections.unmodifiableList(reloadedClasses);
+    this.addedClasses = Collections.unmodifiableList(addedClasses);
+    this.recreatedClasses = Collections.unmodifiableList(recreatedClasses);
+    this.rewiredClasses = Collections.unmodifiableList(rewiredClasses);
+    this.skippedClassNames = Collections.unmodifiableList(skippedClassNames);
+    this.nanos = nanos;
+    this.failure = failure;
+  }
+
+  public List<Class<?>> getReloadedClasses() {
+    return reloadedClasses;
+  }
+
+  public List<Class<?>> getAddedClasses() {
+    return addedClasses;
+  }
+
+  public List<Class<?>> getRecreatedClasses() {
+    return recreatedClasses;
+  }
+
+  public List<Class<?>> getRewiredClasses() {
+    return rewiredClasses;
+  }
+
+  public List<String> getSkippedClassNames() {
+    return skippedClassNames;
+  }
+
+  public long getNanos() {
+    return nanos;
+  }
+
+  public Throwable getFailure() {
+    return failure;
+  }
+
+  /** Whether the container now runs the new classes. Skipped classes do not count. */
+  public boolean isSuccess() {
+    return failure == null;
+  }
+}
@@ -0,0 +1,17 @@
+package com.arjunsk.codekrypt.di.listener;
+
+/** Steps of CodekryptInjector.run, in order. */
+public enum StartupPhase {
+
+  // Finding the @Component classes, from the index or by scanning.
+  DISCOVERY,
+
+  // Building the Interface -> Implementation resolution index.
+  RESOLUTION,
+
+  // Building the dependency graph.
+  GRAPH,
+
+  // Creating the eager beans, from the graph or from the wiring plan.
+  INSTANTIATION
+}
@@ -0,0 +1,230 @@
+package com.arjunsk.codekrypt.di.listener;
+
+import com.arjunsk.codekrypt.di.core.DependencyGraph;
+import com.arjunsk.codekrypt.di.core.DependencyGraph.BeanNode;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the startup phases and bean creations, with singleton lookup hits/misses, and the bean
+ * teardowns, and exports them as a JSON timeline. Times of the timeline are relative to the
+ * creation of the listener.
+ */
+public class StartupTimeline implements ContainerListener {
+
+  private final long originNanos = System.nanoTime();
+
+  private final Queue<PhaseTiming> phases = new ConcurrentLinkedQueue<>();
+  private final Queue<BeanTiming> beans = new ConcurrentLinkedQueue<>();
+  private final Queue<DestroyTiming> destroyedBeans = new ConcurrentLinkedQueue<>();
+
+  // Bean class name -> dependency depth, from the dependency graph.
+  private final Map<String, Integer> depths = new ConcurrentHashMap<>();
+
+  private final LongAdder lookupHits = new LongAdder();
+  private final LongAdder lookupMisses = new LongAdder();
+
+  private volatile long startupNanos = -1;
+  private volatile long readyNanos = -1;
+  private volatile long shutdownNanos = -1;
+
+  @Override
+  public void onPhase(StartupPhase phase, long startNanos, long nanos) {
+    phases.add(new PhaseTiming(phase, startNanos, nanos));
+  }
+
+  @Override
+  public void onGraphBuilt(DependencyGraph dependencyGraph) {
+    for (BeanNode node : dependencyGraph.getNodes()) {
+      depths.put(node.getBeanClass().getName(), node.getDepth());
+    }
+  }
+
+  @Override
+  public void onBeanCreated(BeanTiming beanTiming) {
+    beans.add(beanTiming);
+  }
+
+  @Override
+  public void onSingletonLookup(Class<?> implementationClass, boolean hit) {
+    (hit ? lookupHits : lookupMisses).increment();
+  }
+
+  @Override
+  public void onStartup(long nanos) {
+    this.startupNanos = nanos;
+  }
+
+  @Override
+  public void onReady(long nanos) {
+    this.readyNanos = nanos;
+  }
+
+  @Override
+  public void onBeanDestroyed(Class<?> beanClass, long startNanos, long nanos, boolean timedOut) {
+    destroyedBeans.add(new DestroyTiming(beanClass, startNanos, nanos, timedOut));
+  }
+
+  @Override
+  public void onShutdown(long nanos) {
+    this.shutdownNanos = nanos;
+  }
+
+  /** Bean creations, in start order. */
+  public List<BeanTiming> getBeanTimings() {
+    List<BeanTiming> beanTimings = new ArrayList<>(beans);
+    beanTimings.sort(Comparator.comparingLong(BeanTiming::getStartNanos));
+    return beanTimings;
+  }
+
+  /**
+   * Dependency depth of a bean.
+   *
+   * @return the depth, or -1 if the bean was not in the dependency graph.
+   */
+  public int getDepth(Class<?> beanClass) {
+    return depths.getOrDefault(beanClass.getName(), -1);
+  }
+
+  public long getLookupHits() {
+    return lookupHits.sum();
+  }
+
+  public long getLookupMisses() {
+    return lookupMisses.sum();
+  }
+
+  /** Whole startup duration, -1 until CodekryptInjector.run is done. */
+  public long getStartupNanos() {
+    return startupNanos;
+  }
+
+  /** Duration until all the @PostConstruct methods are done, -1 until then. */
+  public long getReadyNanos() {
+    return readyNanos;
+  }
+
+  /** Whole teardown duration, -1 until Container.close is done. */
+  public long getShutdownNanos() {
+    return shutdownNanos;
+  }
+
+  /** The timeline, as a JSON document. */
+  public String toJson() {
+    StringBuilder json = new StringBuilder();
+    json.append("{\n  \"startupNanos\": ").append(startupNanos);
+    json.append(",\n  \"readyNanos\": ").append(readyNanos);
+    json.append(",\n  \"singletonLookups\": {\"hits\": ").append(getLookupHits());
+    json.append(", \"misses\": ").append(getLookupMisses()).append("}");
+
+    json.append(",\n  \"phases\": [");
+    List<PhaseTiming> phaseTimings = new ArrayList<>(phases);
+    phaseTimings.sort(Comparator.comparingLong(phaseTiming -> phaseTiming.startNanos));
+    for (int i = 0; i < phaseTimings.size(); i++) {
+      PhaseTiming phaseTiming = phaseTimings.get(i);
+      json.append(i == 0 ? "\n" : ",\n");
+      json.append("    {\"phase\": \"").append(phaseTiming.phase).append("\"");
+      json.append(", \"startNanos\": ").append(phaseTiming.startNanos - originNanos);
+      json.append(", \"nanos\": ").append(phaseTiming.nanos).append("}");
+    }
+    json.append(phaseTimings.isEmpty() ? "]" : "\n  ]");
+
+    json.append(",\n  \"beans\": [");
+    List<BeanTiming> beanTimings = getBeanTimings();
+    for (int i = 0; i < beanTimings.size(); i++) {
+      BeanTiming beanTiming = beanTimings.get(i);
+      json.append(i == 0 ? "\n" : ",\n");
+      json.append("    {\"class\": ").append(quote(beanTiming.getBeanClass().getName()));
+      json.append(", \"scope\": ").append(quote(beanTiming.getScope()));
+      json.append(", \"thread\": ").append(quote(beanTiming.getThreadName()));
+      json.append(", \"depth\": ").append(getDepth(beanTiming.getBeanClass()));
+      json.append(", \"startNanos\": ").append(beanTiming.getStartNanos() - originNanos);
+      json.append(", \"constructNanos\": ").append(beanTiming.getConstructNanos());
+      json.append(", \"injectNanos\": ").append(beanTiming.getInjectNanos());
+      json.append(", \"postConstructNanos\": ").append(beanTiming.getPostConstructNanos());
+      json.append("}");
+    }
+    json.append(beanTimings.isEmpty() ? "]" : "\n  ]");
+
+    // Teardowns, slowest first.
+    json.append(",\n  \"shutdownNanos\": ").append(shutdownNanos);
+    json.append(",\n  \"destroyedBeans\": [");
+    List<DestroyTiming> destroyTimings = new ArrayList<>(destroyedBeans);
+    destroyTimings.sort((left, right) -> Long.compare(right.nanos, left.nanos));
+    for (int i = 0; i < destroyTimings.size(); i++) {
+      DestroyTiming destroyTiming = destroyTimings.get(i);
+      json.append(i == 0 ? "\n" : ",\n");
+      json.append("    {\"class\": ").append(quote(destroyTiming.beanClass.getName()));
+      json.append(", \"startNanos\": ").append(destroyTiming.startNanos - originNanos);
+      json.append(", \"nanos\": ").append(destroyTiming.nanos);
+      json.append(", \"timedOut\": ").append(destroyTiming.timedOut).append("}");
+    }
+    json.append(destroyTimings.isEmpty() ? "]" : "\n  ]");
+    return json.append("\n}\n").toString();
+  }
+
+  /** Writes the JSON timeline. */
+  public void writeJson(Writer writer) throws IOException {
+    writer.write(toJson());
+    writer.flush();
+  }
+
+  /** Writes the JSON timeline to a file. */
+  public void writeJson(Path file) throws IOException {
+    Files.write(file, toJson().getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String quote(String value) {
+    StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        quoted.append('\\').append(c);
+      } else if (c < 0x20) {
+        quoted.append(String.format("\\u%04x", (int) c));
+      } else {
+        quoted.append(c);
+      }
+    }
+    return quoted.append('"').toString();
+  }
+
+  private static final class PhaseTiming {
+
+    private final StartupPhase phase;
+    private final long startNanos;
+    private final long nanos;
+
+    private PhaseTiming(StartupPhase phase, long startNanos, long nanos) {
+      this.phase = phase;
+      this.startNanos = startNanos;
+      this.nanos = nanos;
+    }
+  }
+
+  private static final class DestroyTiming {
+
+    private final Class<?> beanClass;
+    private final long startNanos;
+    private final long nanos;
+    private final boolean timedOut;
+
+    private DestroyTiming(Class<?> beanClass, long startNanos, long nanos, boolean timedOut) {
+      this.beanClass = beanClass;
+      this.startNanos = startNanos;
+      this.nanos = nanos;
+      this.timedOut = timedOut;
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package com.arjunsk.codekrypt.di.scope;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Bounded pool of idle instances of a @Pooled bean, with hit/miss counters. */
+public class BeanPool {
+
+  private final BlockingQueue<Object> idleInstances;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder drops = new LongAdder();
+
+  public BeanPool(int maxSize) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("Pool size must be positive.");
+    }
+    this.idleInstances = new ArrayBlockingQueue<>(maxSize);
+  }
+
+  /**
+   * Take an idle instance.
+   *
+   * @return the instance, or null if there is none and the caller should create one.
+   */
+  public Object borrow() {
+    Object instance = idleInstances.poll();
+    if (instance != null) {
+      hits.increment();
+    } else {
+      misses.increment();
+    }
+    return instance;
+  }
+
+  /**
+   * Give back an instance, already reset. It is dropped if the pool is full.
+   *
+   * @param instance instance previously borrowed.
+   */
+  public void release(Object instance) {
+    if (!idleInstances.offer(instance)) {
+      drops.increment();
+    }
+  }
+
+  /** Number of borrows served with an idle instance. */
+  public long getHits() {
+    return hits.sum();
+  }
+
+  /** Number of borrows which created a new instance. */
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  /** Number of released instances dropped, as the pool was full. */
+  public long getDrops() {
+    return drops.sum();
+  }
+
+  /** Number of idle instances. */
+  public int getIdleCount() {
+    return idleInstances.size();
+  }
+}
@@ -0,0 +1,16 @@
+package com.arjunsk.codekrypt.di.scope;
+
+import java.util.function.Supplier;
+
+/** Custom lifetime of beans, referenced by name from @Scope. */
+public interface BeanScope {
+
+  /**
+   * Get the instance of the bean class in the current scope.
+   *
+   * @param beanClass Bean Class.
+   * @param beanFactory creates a new, fully wired, instance of the bean class.
+   * @return the instance of the current scope, created with the bean factory if there is none.
+   */
+  Object get(Class<?> beanClass, Supplier<Object> beanFactory);
+}
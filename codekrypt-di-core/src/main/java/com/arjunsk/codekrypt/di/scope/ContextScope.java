@@ -0,0 +1,84 @@
+package com.arjunsk.codekrypt.di.scope;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * One instance per bean class and per {@link ScopeContext}, eg per request. Unlike the thread
+ * scope, instances are not tied to the threads running the request, so virtual threads do not
+ * multiply them.
+ *
+ * <p>A context is bound to the calling thread only while its run/call methods execute, and is
+ * propagated to other threads by wrapping their tasks. Every context scoped bean class gets a
+ * slot, so a context keeps its beans in a plain array.
+ */
+public class ContextScope implements BeanScope {
+
+  // Slot of every context scoped bean class, assigned on first use.
+  private final ClassValue<Integer> slots =
+      new ClassValue<Integer>() {
+        @Override
+        protected Integer computeValue(Class<?> type) {
+          return slotCount.getAndIncrement();
+        }
+      };
+
+  private final AtomicInteger slotCount = new AtomicInteger();
+
+  // Context bound to the calling thread, only during ScopeContext.run/call.
+  private final ThreadLocal<ScopeContext> currentContext = new ThreadLocal<>();
+
+  /** Creates a context of this scope. Nothing is allocated for its beans until they are used. */
+  public ScopeContext newContext() {
+    return new ScopeContext(this);
+  }
+
+  /**
+   * Get the context bound to the calling thread.
+   *
+   * @return the context, or null outside ScopeContext.run/call.
+   */
+  public ScopeContext getCurrentContext() {
+    return currentContext.get();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @throws IllegalStateException if no context is bound to the calling thread, or if it is
+   *     closed.
+   */
+  @Override
+  public Object get(Class<?> beanClass, Supplier<Object> beanFactory) {
+    ScopeContext context = currentContext.get();
+    if (context == null) {
+      throw new IllegalStateException(
+          "No context is bound to the current thread for " + beanClass.getName());
+    }
+    return context.get(slots.get(beanClass), beanFactory);
+  }
+
+  /** Number of slots assigned so far, ie the size of a context holding all the beans. */
+  int getSlotCount() {
+    return slotCount.get();
+  }
+
+  /**
+   * Binds a context to the calling thread.
+   *
+   * @return the context bound until then, to restore.
+   */
+  ScopeContext bind(ScopeContext context) {
+    ScopeContext previous = currentContext.get();
+    currentContext.set(context);
+    return previous;
+  }
+
+  /**
+   * Restores the context bound before. The thread keeps an empty binding rather than none, as
+   * removing it would allocate a new one on every bind.
+   */
+  void restore(ScopeContext previous) {
+    currentContext.set(previous);
+  }
+}
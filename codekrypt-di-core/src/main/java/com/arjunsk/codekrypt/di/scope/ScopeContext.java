@@ -0,0 +1,126 @@
+package com.arjunsk.codekrypt.di.scope;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * Context of the {@link ContextScope}, eg one request: holds its beans, one per slot.
+ *
+ * <p>The context is bound to the calling thread for the duration of {@link #run} and {@link
+ * #call}, and to the threads running the tasks it wraps. Bindings nest, and are undone when the
+ * task returns, so threads never retain a context.
+ */
+public final class ScopeContext implements AutoCloseable {
+
+  private static final Object[] NO_BEANS = new Object[0];
+
+  private final ContextScope scope;
+
+  // Beans by slot. Replaced (never mutated) once published, so reads need no lock.
+  private volatile Object[] beans = NO_BEANS;
+
+  private volatile boolean closed;
+
+  ScopeContext(ContextScope scope) {
+    this.scope = scope;
+  }
+
+  /**
+   * Runs the task with this context bound to the calling thread.
+   *
+   * @param task task fetching context scoped beans.
+   */
+  public void run(Runnable task) {
+    ScopeContext previous = scope.bind(this);
+    try {
+      task.run();
+    } finally {
+      scope.restore(previous);
+    }
+  }
+
+  /**
+   * Calls the task with this context bound to the calling thread.
+   *
+   * @param task task fetching context scoped beans.
+   * @param <T> result type.
+   * @return the result of the task.
+   */
+  public <T> T call(Callable<T> task) throws Exception {
+    ScopeContext previous = scope.bind(this);
+    try {
+      return task.call();
+    } finally {
+      scope.restore(previous);
+    }
+  }
+
+  /**
+   * Propagates this context to the thread running the task, eg on an executor.
+   *
+   * @param task task fetching context scoped beans.
+   * @return the task, running with this context bound.
+   */
+  public Runnable wrap(Runnable task) {
+    return () -> run(task);
+  }
+
+  /**
+   * Propagates this context to the thread calling the task, eg on an executor.
+   *
+   * @param task task fetching context scoped beans.
+   * @param <T> result type.
+   * @return the task, called with this context bound.
+   */
+  public <T> Callable<T> wrap(Callable<T> task) {
+    return () -> call(task);
+  }
+
+  /**
+   * Get the bean of a slot, created with the bean factory if there is none.
+   *
+   * @param slot slot of the bean class.
+   * @param beanFactory creates a new, fully wired, instance of the bean class.
+   */
+  Object get(int slot, Supplier<Object> beanFactory) {
+    Object[] current = beans;
+    if (slot < current.length && current[slot] != null) {
+      return current[slot];
+    }
+    return create(slot, beanFactory);
+  }
+
+  // Locked, so that threads sharing the context create one bean. The factory may create other
+  // beans of this context, on the same thread.
+  private synchronized Object create(int slot, Supplier<Object> beanFactory) {
+    if (closed) {
+      throw new IllegalStateException("Context is closed");
+    }
+    if (slot < beans.length && beans[slot] != null) {
+      return beans[slot];
+    }
+
+    Object instance = beanFactory.get();
+    Object[] current = beans;
+    Object[] updated =
+        Arrays.copyOf(current, Math.max(slot + 1, Math.max(current.length, scope.getSlotCount())));
+    updated[slot] = instance;
+    beans = updated;
+    return instance;
+  }
+
+  public boolean isClosed() {
+    return closed;
+  }
+
+  /**
+   * Drops the beans of this context, eg at the end of a request. Beans are not destroyed, as for
+   * the thread scope. Fetching beans from a closed context fails.
+   */
+  @Override
+  public synchronized void close() {
+    closed = true;
+    beans = NO_BEANS;
+  }
+}
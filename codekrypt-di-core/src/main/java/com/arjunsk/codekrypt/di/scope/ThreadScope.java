@@ -0,0 +1,30 @@
+package com.arjunsk.codekrypt.di.scope;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/** One instance per bean class and per thread. */
+public class ThreadScope implements BeanScope {
+
+  private final ThreadLocal<Map<Class<?>, Object>> threadInstances =
+      ThreadLocal.withInitial(HashMap::new);
+
+  @Override
+  public Object get(Class<?> beanClass, Supplier<Object> beanFactory) {
+    Map<Class<?>, Object> instances = threadInstances.get();
+
+    Object instance = instances.get(beanClass);
+    if (instance == null) {
+      // Not computeIfAbsent, as the factory may create other beans of this scope.
+      instance = beanFactory.get();
+      instances.put(beanClass, instance);
+    }
+    return instance;
+  }
+
+  /** Drops the instances of the current thread, eg at the end of a request. */
+  public void clear() {
+    threadInstances.remove();
+  }
+}
@@ -0,0 +1,317 @@
+package com.arjunsk.codekrypt.di.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the class name and class level annotations straight from the class file bytes, so that
+ * classes can be filtered without loading them.
+ */
+public final class ClassFileUtils {
+
+  private static final int MAGIC = 0xCAFEBABE;
+  private static final int ACC_INTERFACE = 0x0200;
+  private static final int ACC_ENUM = 0x4000;
+
+  private static final byte[] RUNTIME_VISIBLE_ANNOTATIONS =
+      "RuntimeVisibleAnnotations".getBytes(StandardCharsets.UTF_8);
+
+  private ClassFileUtils() {}
+
+  /**
+   * Returns the class name, if the class is annotated with the annotation.
+   *
+   * @param classFile bytes of the .class file.
+   * @param annotationDescriptor annotation type descriptor, eg "Lcom/example/Component;".
+   * @return binary name of the class, or null if it is not a class annotated with the annotation.
+   *     Interfaces, annotation types and enums are skipped.
+   */
+  public static String getAnnotatedClassName(byte[] classFile, String annotationDescriptor) {
+    AnnotatedClass annotatedClass = readAnnotatedClass(classFile, annotationDescriptor);
+    return annotatedClass != null ? annotatedClass.getClassName() : null;
+  }
+
+  /**
+   * Returns the class name and its class level annotations, if the class is annotated with the
+   * annotation. The annotations are only decoded for the matching classes.
+   *
+   * @param classFile bytes of the .class file.
+   * @param annotationDescriptor annotation type descriptor, eg "Lcom/example/Component;".
+   * @return the class, or null if it is not a class annotated with the annotation. Interfaces,
+   *     annotation types and enums are skipped.
+   */
+  public static AnnotatedClass readAnnotatedClass(byte[] classFile, String annotationDescriptor) {
+    Reader reader = new Reader(classFile);
+    if (reader.u4() != MAGIC) {
+      return null;
+    }
+    reader.skip(4); // minor & major version
+
+    // 1. Record the offsets of the constant pool entries.
+    int constantPoolCount = reader.u2();
+    int[] offsets = new int[constantPoolCount];
+    for (int i = 1; i < constantPoolCount; i++) {
+      offsets[i] = reader.position;
+      int tag = reader.u1();
+      switch (tag) {
+        case 1: // Utf8
+          reader.skip(reader.u2());
+          break;
+        case 3: // Integer
+        case 4: // Float
+        case 9: // Fieldref
+        case 10: // Methodref
+        case 11: // InterfaceMethodref
+        case 12: // NameAndType
+        case 17: // Dynamic
+        case 18: // InvokeDynamic
+          reader.skip(4);
+          break;
+        case 5: // Long
+        case 6: // Double
+          reader.skip(8);
+          i++;
+          break;
+        case 7: // Class
+        case 8: // String
+        case 16: // MethodType
+        case 19: // Module
+        case 20: // Package
+          reader.skip(2);
+          break;
+        case 15: // MethodHandle
+          reader.skip(3);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown constant pool tag " + tag);
+      }
+    }
+
+    // 2. Skip interfaces, annotation types & enums.
+    int accessFlags = reader.u2();
+    if ((accessFlags & (ACC_INTERFACE | ACC_ENUM)) != 0) {
+      return null;
+    }
+    int thisClass = reader.u2();
+
+    // 3. Skip super class, interfaces, fields and methods.
+    reader.skip(2);
+    reader.skip(2 * reader.u2());
+    skipMembers(reader);
+    skipMembers(reader);
+
+    // 4. Look for the annotation in the class attributes.
+    byte[] descriptor = annotationDescriptor.getBytes(StandardCharsets.UTF_8);
+    int attributeCount = reader.u2();
+    for (int i = 0; i < attributeCount; i++) {
+      int nameIndex = reader.u2();
+      int length = reader.u4();
+      int end = reader.position + length;
+
+      if (utf8Equals(classFile, offsets[nameIndex], RUNTIME_VISIBLE_ANNOTATIONS)) {
+        int annotationsStart = reader.position;
+        int annotationCount = reader.u2();
+        for (int j = 0; j < annotationCount; j++) {
+          if (utf8Equals(classFile, offsets[reader.u2()], descriptor)) {
+            // Class entry -> Utf8 internal name.
+            int nameOffset = offsets[new Reader(classFile, offsets[thisClass] + 1).u2()];
+            String className = utf8(classFile, nameOffset).replace('/', '.');
+            return new AnnotatedClass(
+                className, readAnnotations(new Reader(classFile, annotationsStart), offsets));
+          }
+          skipElementValuePairs(reader);
+        }
+      }
+      reader.position = end;
+    }
+    return null;
+  }
+
+  /** Annotation descriptor -> element name -> value, for the annotations of the attribute. */
+  private static Map<String, Map<String, Object>> readAnnotations(Reader reader, int[] offsets) {
+    Map<String, Map<String, Object>> annotations = new HashMap<>();
+    int annotationCount = reader.u2();
+    for (int i = 0; i < annotationCount; i++) {
+      String annotationDescriptor = utf8(reader.bytes, offsets[reader.u2()]);
+      Map<String, Object> values = new HashMap<>();
+      int pairCount = reader.u2();
+      for (int j = 0; j < pairCount; j++) {
+        String elementName = utf8(reader.bytes, offsets[reader.u2()]);
+        Object value = readElementValue(reader, offsets);
+        if (value != null) {
+          values.put(elementName, value);
+        }
+      }
+      annotations.put(annotationDescriptor, values);
+    }
+    return annotations;
+  }
+
+  /**
+   * Reads a String, boolean, int or array element value. Other values (enums, classes, nested
+   * annotations, long/float/double) are skipped, and read as null.
+   */
+  private static Object readElementValue(Reader reader, int[] offsets) {
+    int tag = reader.u1();
+    switch (tag) {
+      case 's':
+        return utf8(reader.bytes, offsets[reader.u2()]);
+      case 'Z':
+        return new Reader(reader.bytes, offsets[reader.u2()] + 1).u4() != 0;
+      case 'B':
+      case 'C':
+      case 'I':
+      case 'S':
+        return new Reader(reader.bytes, offsets[reader.u2()] + 1).u4();
+      case '[':
+        List<Object> values = new ArrayList<>();
+        int valueCount = reader.u2();
+        for (int i = 0; i < valueCount; i++) {
+          values.add(readElementValue(reader, offsets));
+        }
+        return values;
+      default:
+        reader.position--;
+        skipElementValue(reader);
+        return null;
+    }
+  }
+
+  /** Decodes a constant pool Utf8 entry (modified UTF-8). */
+  private static String utf8(byte[] classFile, int offset) {
+    int length = ((classFile[offset + 1] & 0xFF) << 8) | (classFile[offset + 2] & 0xFF);
+    try {
+      return new DataInputStream(new ByteArrayInputStream(classFile, offset + 1, length + 2))
+          .readUTF();
+    } catch (IOException ex) {
+      throw new IllegalArgumentException("Malformed constant pool Utf8 entry", ex);
+    }
+  }
+
+  private static void skipMembers(Reader reader) {
+    int memberCount = reader.u2();
+    for (int i = 0; i < memberCount; i++) {
+      reader.skip(6); // access flags, name & descriptor
+      int attributeCount = reader.u2();
+      for (int j = 0; j < attributeCount; j++) {
+        reader.skip(2);
+        reader.skip(reader.u4());
+      }
+    }
+  }
+
+  private static void skipElementValuePairs(Reader reader) {
+    int pairCount = reader.u2();
+    for (int i = 0; i < pairCount; i++) {
+      reader.skip(2); // element name
+      skipElementValue(reader);
+    }
+  }
+
+  private static void skipElementValue(Reader reader) {
+    int tag = reader.u1();
+    switch (tag) {
+      case 'e': // enum
+        reader.skip(4);
+        break;
+      case '@': // nested annotation
+        reader.skip(2);
+        skipElementValuePairs(reader);
+        break;
+      case '[': // array
+        int valueCount = reader.u2();
+        for (int i = 0; i < valueCount; i++) {
+          skipElementValue(reader);
+        }
+        break;
+      default: // constants & class
+        reader.skip(2);
+    }
+  }
+
+  /** Compares a constant pool Utf8 entry, without decoding it. */
+  private static boolean utf8Equals(byte[] classFile, int offset, byte[] expected) {
+    if (classFile[offset] != 1) {
+      return false;
+    }
+    int length = ((classFile[offset + 1] & 0xFF) << 8) | (classFile[offset + 2] & 0xFF);
+    if (length != expected.length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (classFile[offset + 3 + i] != expected[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Big endian cursor over the class file bytes. */
+  private static final class Reader {
+
+    private final byte[] bytes;
+    private int position;
+
+    Reader(byte[] bytes) {
+      this(bytes, 0);
+    }
+
+    Reader(byte[] bytes, int position) {
+      this.bytes = bytes;
+      this.position = position;
+    }
+
+    int u1() {
+      return bytes[position++] & 0xFF;
+    }
+
+    int u2() {
+      return (u1() << 8) | u1();
+    }
+
+    int u4() {
+      return (u2() << 16) | u2();
+    }
+
+    void skip(int length) {
+      position += length;
+    }
+  }
+
+  /** A class read from its class file, with its class level annotations. */
+  public static final class AnnotatedClass {
+
+    private final String className;
+
+    // Annotation descriptor -> element name -> String, Boolean, Integer or List value.
+    private final Map<String, Map<String, Object>> annotations;
+
+    AnnotatedClass(String className, Map<String, Map<String, Object>> annotations) {
+      this.className = className;
+      this.annotations = annotations;
+    }
+
+    public String getClassName() {
+      return className;
+    }
+
+    /**
+     * Get the element values of an annotation. Default values are not in the class file, so they
+     * are absent.
+     *
+     * @param annotationDescriptor annotation type descriptor, eg "Lcom/example/Profile;".
+     * @return element name -> value, or null if the class is not annotated with it.
+     */
+    public Map<String, Object> getAnnotation(String annotationDescriptor) {
+      Map<String, Object> values = annotations.get(annotationDescriptor);
+      return values != null ? Collections.unmodifiableMap(values) : null;
+    }
+  }
+}
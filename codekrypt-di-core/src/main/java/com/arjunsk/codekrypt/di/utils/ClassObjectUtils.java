@@ -1,17 +1,30 @@
 package com.arjunsk.codekrypt.di.utils;
 
 import com.arjunsk.codekrypt.di.annotation.Autowire;
-import com.arjunsk.codekrypt.di.annotation.PostConstruct;
 import com.arjunsk.codekrypt.di.annotation.Qualifier;
+import com.arjunsk.codekrypt.di.core.BeanDefinition;
+import com.arjunsk.codekrypt.di.core.BeanDefinition.InjectionPoint;
 import com.arjunsk.codekrypt.di.core.BeanManager;
+import com.arjunsk.codekrypt.di.core.Provider;
 import com.arjunsk.codekrypt.di.exceptions.BeanInjectException;
 import com.arjunsk.codekrypt.di.exceptions.InvokeException;
+import com.arjunsk.codekrypt.di.injection.InjectionStrategy;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 
 public final class ClassObjectUtils {
 
@@ -27,62 +40,177 @@ public final class ClassObjectUtils {
   public static void invokeAutowire(
       BeanManager beanManager, Class<?> implementationClass, Object classInstance) {
 
-    // 1. Get all the @Autowire Fields.
-    List<Field> fieldList = new ArrayList<>();
-    fieldList.addAll(Arrays.asList(implementationClass.getDeclaredFields()));
-
-    // 2. Get the fields from Super Class if it exist.
-    Class<?> superclass = implementationClass.getSuperclass();
-    if (superclass != null) fieldList.addAll(Arrays.asList(superclass.getDeclaredFields()));
-
-    List<Field> injectableFieldList =
-        fieldList.stream()
-            .filter(field -> field.isAnnotationPresent(Autowire.class))
-            .collect(Collectors.toList());
+    // 1. Get all the @Autowire Fields, including the ones of the Super Classes.
+    List<InjectionPoint> injectableFieldList = BeanDefinition.of(implementationClass).getFields();
+    InjectionStrategy injectionStrategy = beanManager.getInjectionStrategy();
 
     try {
 
-      // 3. Inject ClassInstance to all the Autowire fields.
-      for (Field injectableField : injectableFieldList) {
+      // 2. Inject ClassInstance to all the Autowire fields. The field instances are already
+      // created and wired, as CodekryptInjector creates the dependencies first.
+      for (int i = 0; i < injectableFieldList.size(); i++) {
+        InjectionPoint injectableField = injectableFieldList.get(i);
 
-        String qualifier =
-            injectableField.isAnnotationPresent(Qualifier.class)
-                ? injectableField.getAnnotation(Qualifier.class).value()
-                : null;
+        Object fieldInstance = beanManager.getBeanInstance(injectableField);
 
-        Object fieldInstance =
-            beanManager.getBeanInstance(
-                injectableField.getType(), injectableField.getName(), qualifier);
+        // 3. Set field value as the object.
+        injectionStrategy
+            .getFieldInjector(injectableField.getField())
+            .inject(classInstance, fieldInstance);
+      }
 
-        Class<? extends Field> fieldClass = injectableField.getClass();
+    } catch (Exception ex) {
+      throw new BeanInjectException("Unable to Inject bean", ex);
+    }
+  }
 
-        // Recursive calling. We call invokeAutowire on the Field class to ensure that the @Autowire
-        // inside field class is resolved before hand.
-        invokeAutowire(beanManager, fieldClass, fieldInstance);
+  /**
+   * Get the @Autowire constructor of the class.
+   *
+   * @param beanClass Bean Class.
+   * @return the constructor, or null if the class is created with its empty constructor.
+   */
+  public static Constructor<?> getAutowireConstructor(Class<?> beanClass) {
+    Constructor<?> autowireConstructor = null;
+    for (Constructor<?> constructor : beanClass.getConstructors()) {
+      if (constructor.isAnnotationPresent(Autowire.class)) {
+
+        // Fail if we have, more than 1 @Autowire Constructor.
+        if (autowireConstructor != null) {
+          throw new IllegalArgumentException("Only supports 1 Autowire constructor.");
+        }
+        autowireConstructor = constructor;
+      }
+    }
+    return autowireConstructor;
+  }
 
-        // 4. If the Field Class @Autowire's are resolved, we set field value as the object.
-        injectableField.setAccessible(true);
-        injectableField.set(classInstance, fieldInstance);
+  /**
+   * Get the @Autowire fields of the class and of all its Super Classes.
+   *
+   * @param beanClass Bean Class.
+   */
+  public static List<Field> getAutowireFields(Class<?> beanClass) {
+    List<Field> fieldList = new ArrayList<>();
+    for (Class<?> current = beanClass;
+        current != null && current != Object.class;
+        current = current.getSuperclass()) {
+      for (Field field : current.getDeclaredFields()) {
+        if (field.isAnnotationPresent(Autowire.class)) fieldList.add(field);
       }
+    }
+    return fieldList;
+  }
 
-    } catch (Exception ex) {
-      throw new BeanInjectException("Unable to Inject bean", ex);
+  /**
+   * Get the @Qualifier value of a field or constructor parameter.
+   *
+   * @param element field or parameter.
+   * @return the qualifier, or null if not annotated.
+   */
+  public static String getQualifier(AnnotatedElement element) {
+    return element.isAnnotationPresent(Qualifier.class)
+        ? element.getAnnotation(Qualifier.class).value()
+        : null;
+  }
+
+  /**
+   * Get the bean type of a List, Set, Collection or Map&lt;String, T&gt; injection point, which
+   * receives all the implementations of that type.
+   *
+   * @param genericType generic type of the field or constructor parameter.
+   * @return the bean type, or null if it is not such a collection.
+   */
+  public static Class<?> getMultiBindingType(Type genericType) {
+    if (!(genericType instanceof ParameterizedType)) {
+      return null;
+    }
+    ParameterizedType parameterizedType = (ParameterizedType) genericType;
+    Type rawType = parameterizedType.getRawType();
+    Type[] arguments = parameterizedType.getActualTypeArguments();
+
+    if (rawType == List.class || rawType == Set.class || rawType == Collection.class) {
+      return getRawClass(arguments[0]);
     }
+    if (rawType == Map.class && arguments[0] == String.class) {
+      return getRawClass(arguments[1]);
+    }
+    return null;
   }
 
   /**
-   * Invoke all the post Construct calls.
+   * Get the bean type of a Provider&lt;T&gt; or Supplier&lt;T&gt; injection point.
    *
-   * @param classInstance Class Instance.
+   * @param genericType generic type of the field or constructor parameter.
+   * @return the bean type, or null if it is not a Provider/Supplier.
    */
-  public static void invokePostConstruct(Object classInstance) {
+  public static Class<?> getProviderType(Type genericType) {
+    if (!(genericType instanceof ParameterizedType)) {
+      return null;
+    }
+    ParameterizedType parameterizedType = (ParameterizedType) genericType;
+    Type rawType = parameterizedType.getRawType();
+    if (rawType == Provider.class || rawType == Supplier.class) {
+      return getRawClass(parameterizedType.getActualTypeArguments()[0]);
+    }
+    return null;
+  }
 
-    try {
-      for (Method declaredMethod : classInstance.getClass().getDeclaredMethods()) {
-        if (declaredMethod.isAnnotationPresent(PostConstruct.class)) {
-          declaredMethod.invoke(classInstance);
+  private static Class<?> getRawClass(Type type) {
+    if (type instanceof WildcardType) {
+      type = ((WildcardType) type).getUpperBounds()[0];
+    }
+    if (type instanceof ParameterizedType) {
+      type = ((ParameterizedType) type).getRawType();
+    }
+    return type instanceof Class && type != Object.class ? (Class<?>) type : null;
+  }
+
+  /**
+   * Get the lifecycle methods (eg @PostConstruct) of the class and of all its Super Classes, the
+   * ones of the Super Classes first. Overridden methods are only returned once.
+   *
+   * @param beanClass Bean Class.
+   * @param annotationClass lifecycle annotation.
+   */
+  public static List<Method> getLifecycleMethods(
+      Class<?> beanClass, Class<? extends Annotation> annotationClass) {
+    List<Method> methodList = new ArrayList<>();
+    Set<String> overridableNames = new HashSet<>();
+    for (Class<?> current = beanClass;
+        current != null && current != Object.class;
+        current = current.getSuperclass()) {
+
+      List<Method> declaredList = new ArrayList<>();
+      for (Method method : current.getDeclaredMethods()) {
+        if (method.isAnnotationPresent(annotationClass)
+            && method.getParameterCount() == 0
+            && (Modifier.isPrivate(method.getModifiers())
+                || !overridableNames.contains(method.getName()))) {
+          declaredList.add(method);
         }
       }
+      for (Method method : current.getDeclaredMethods()) {
+        if (method.getParameterCount() == 0 && !Modifier.isPrivate(method.getModifiers())) {
+          overridableNames.add(method.getName());
+        }
+      }
+      methodList.addAll(0, declaredList);
+    }
+    return methodList;
+  }
+
+  /**
+   * Invoke all the lifecycle calls of a bean.
+   *
+   * @param classInstance Class Instance.
+   * @param lifecycleMethods methods, from its BeanDefinition.
+   */
+  public static void invokeLifecycle(Object classInstance, List<Method> lifecycleMethods) {
+    try {
+      for (int i = 0; i < lifecycleMethods.size(); i++) {
+        lifecycleMethods.get(i).invoke(classInstance);
+      }
     } catch (Exception ex) {
       throw new InvokeException("Invoke Exception", ex);
     }
@@ -0,0 +1,44 @@
+package com.arjunsk.codekrypt.di.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.arjunsk.codekrypt.di.core.reload.Greeter;
+import com.arjunsk.codekrypt.di.core.reload.GreeterImpl;
+import com.arjunsk.codekrypt.di.core.reload.ReloadApplication;
+import com.arjunsk.codekrypt.di.listener.ReloadReport;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+
+class BeanHandleTest {
+
+  @Test
+  void heldHandleFetchesTheReloadedSingleton() throws Exception {
+    try (Container container =
+        CodekryptInjector.run(ReloadApplication.class, new InjectorConfig().withHotReload(true))) {
+      BeanHandle<Greeter> handle = container.getHandle(Greeter.class);
+      Greeter before = handle.get();
+
+      // The same class file, defined again: a new version of the class.
+      ReloadReport report =
+          container.getHotReloader().reload(Collections.singletonList(classFile(GreeterImpl.class)));
+      assertTrue(report.isSuccess());
+
+      Greeter after = handle.get();
+      assertNotSame(before, after);
+      assertNotSame(GreeterImpl.class, after.getClass());
+      assertEquals(GreeterImpl.class.getName(), after.getClass().getName());
+      assertSame(after, handle.get());
+      assertSame(after, container.getBean(Greeter.class));
+    }
+  }
+
+  private static Path classFile(Class<?> type) throws Exception {
+    Path classesDir = Paths.get(type.getProtectionDomain().getCodeSource().getLocation().toURI());
+    return classesDir.resolve(type.getName().replace('.', '/') + ".class");
+  }
+}
@@ -0,0 +1,236 @@
+package com.arjunsk.codekrypt.di.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.arjunsk.codekrypt.di.annotation.Autowire;
+import com.arjunsk.codekrypt.di.annotation.Component;
+import com.arjunsk.codekrypt.di.annotation.PreDestroy;
+import com.arjunsk.codekrypt.di.exceptions.BeanFetchException;
+import com.arjunsk.codekrypt.di.injection.BeanFactory;
+import com.arjunsk.codekrypt.di.injection.ReflectiveInjectionStrategy;
+import java.lang.reflect.Constructor;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+// Public, so that its nested interfaces can be proxied.
+public class BeanManagerTest {
+
+  // Released by the tests once the other threads wait for the bean being created.
+  private static CountDownLatch entered;
+  private static CountDownLatch release;
+  private static final AtomicInteger constructions = new AtomicInteger();
+  private static final List<Class<?>> destroyed = new CopyOnWriteArrayList<>();
+
+  private BeanManager beanManager;
+
+  @BeforeEach
+  void setUp() {
+    entered = new CountDownLatch(1);
+    release = new CountDownLatch(1);
+    constructions.set(0);
+    destroyed.clear();
+    beanManager = new BeanManager();
+    // Errors of a constructor are wrapped, but not the ones of the factory itself, eg an OOM.
+    beanManager.setInjectionStrategy(
+        new ReflectiveInjectionStrategy() {
+          @Override
+          protected BeanFactory createBeanFactory(Constructor<?> constructor) {
+            BeanFactory beanFactory = super.createBeanFactory(constructor);
+            return args -> {
+              Object bean = beanFactory.newInstance(args);
+              if (bean instanceof FailingBean) {
+                throw new OutOfMemoryError("Factory failed");
+              }
+              return bean;
+            };
+          }
+        });
+    beanManager.registerComponents(
+        Arrays.asList(
+            SlowBean.class,
+            FailingBean.class,
+            Car.class,
+            Engine.class,
+            LeftSide.class,
+            RightSide.class));
+  }
+
+  @Test
+  void concurrentCreationCreatesTheSingletonOnce() throws InterruptedException {
+    Fetch first = new Fetch(SlowBean.class);
+    awaitEntered();
+    Fetch second = new Fetch(SlowBean.class);
+    awaitWaiting(second);
+
+    release.countDown();
+
+    assertSame(first.join(), second.join());
+    assertEquals(1, constructions.get());
+  }
+
+  @Test
+  void creationErrorReleasesTheWaitingThreads() throws InterruptedException {
+    Fetch first = new Fetch(FailingBean.class);
+    awaitEntered();
+    Fetch second = new Fetch(FailingBean.class);
+    awaitWaiting(second);
+
+    release.countDown();
+
+    first.join();
+    second.join();
+    assertInstanceOf(OutOfMemoryError.class, rootCause(first.failure.get()));
+    assertInstanceOf(BeanFetchException.class, second.failure.get());
+    assertInstanceOf(OutOfMemoryError.class, rootCause(second.failure.get()));
+
+    // The creation guard is gone: the next fetch creates the bean again.
+    assertThrows(Throwable.class, () -> beanManager.getBeanInstance(FailingBean.class, null, null));
+    assertEquals(2, constructions.get());
+  }
+
+  @Test
+  void closeDestroysTheDependentsFirst() {
+    beanManager.getBeanInstance(Car.class, null, null);
+
+    beanManager.close();
+
+    assertEquals(Arrays.asList(Car.class, Engine.class), destroyed);
+  }
+
+  @Test
+  void closeDestroysTheBeansOnACycleInReverseCreationOrder() {
+    // Lazy beans are injected as proxies, so the two sides can depend on each other.
+    beanManager.setLazyInit(true);
+    beanManager.getBeanInstance(LeftApi.class, null, null);
+    beanManager.getBeanInstance(RightApi.class, null, null);
+
+    beanManager.close();
+
+    assertEquals(Arrays.asList(RightSide.class, LeftSide.class), destroyed);
+  }
+
+  private static void awaitEntered() throws InterruptedException {
+    assertTrue(entered.await(5, TimeUnit.SECONDS), "Constructor not called");
+  }
+
+  /** Waits for the thread to block on the bean created by another thread. */
+  private static void awaitWaiting(Fetch fetch) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (fetch.thread.getState() != Thread.State.WAITING) {
+      assertTrue(System.nanoTime() < deadline, "Thread not waiting for the bean");
+      Thread.sleep(1);
+    }
+  }
+
+  private static Throwable rootCause(Throwable failure) {
+    while (failure.getCause() != null) {
+      failure = failure.getCause();
+    }
+    return failure;
+  }
+
+  /** Fetches a bean in its own thread. */
+  private final class Fetch {
+
+    private final Thread thread;
+    private final AtomicReference<Object> bean = new AtomicReference<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    private Fetch(Class<?> beanClass) {
+      thread =
+          new Thread(
+              () -> {
+                try {
+                  bean.set(beanManager.getBeanInstance(beanClass, null, null));
+                } catch (Throwable ex) {
+                  failure.set(ex);
+                }
+              });
+      thread.start();
+    }
+
+    private Object join() throws InterruptedException {
+      thread.join(TimeUnit.SECONDS.toMillis(5));
+      assertFalse(thread.isAlive(), "Thread still waiting for the bean");
+      return bean.get();
+    }
+  }
+
+  @Component
+  public static class SlowBean {
+
+    public SlowBean() throws InterruptedException {
+      constructions.incrementAndGet();
+      entered.countDown();
+      release.await();
+    }
+  }
+
+  @Component
+  public static class FailingBean {
+
+    public FailingBean() throws InterruptedException {
+      constructions.incrementAndGet();
+      entered.countDown();
+      release.await();
+    }
+  }
+
+  @Component
+  public static class Engine {
+
+    @PreDestroy
+    public void stop() {
+      destroyed.add(Engine.class);
+    }
+  }
+
+  @Component
+  public static class Car {
+
+    @Autowire public Engine engine;
+
+    @PreDestroy
+    public void stop() {
+      destroyed.add(Car.class);
+    }
+  }
+
+  public interface LeftApi {}
+
+  public interface RightApi {}
+
+  @Component
+  public static class LeftSide implements LeftApi {
+
+    @Autowire public RightApi right;
+
+    @PreDestroy
+    public void stop() {
+      destroyed.add(LeftSide.class);
+    }
+  }
+
+  @Component
+  public static class RightSide implements RightApi {
+
+    @Autowire public LeftApi left;
+
+    @PreDestroy
+    public void stop() {
+      destroyed.add(RightSide.class);
+    }
+  }
+}
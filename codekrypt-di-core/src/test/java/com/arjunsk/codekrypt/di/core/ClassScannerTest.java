@@ -0,0 +1,168 @@
+package com.arjunsk.codekrypt.di.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.arjunsk.codekrypt.di.core.scan.DevTools;
+import com.arjunsk.codekrypt.di.core.scan.ProdCache;
+import com.arjunsk.codekrypt.di.core.scan.nested.NestedService;
+import com.arjunsk.codekrypt.di.exceptions.ClassLoadException;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.api.io.TempDir;
+
+class ClassScannerTest {
+
+  private static final String SCAN_PACKAGE = ProdCache.class.getPackage().getName();
+
+  private static final Set<String> COMPONENTS =
+      new TreeSet<>(
+          Arrays.asList(
+              DevTools.class.getName(), ProdCache.class.getName(), NestedService.class.getName()));
+
+  @TempDir Path root;
+
+  @Test
+  void directoryRootIsScanned() throws Exception {
+    assertEquals(COMPONENTS, scan(testClassesDirectory(), null));
+  }
+
+  @Test
+  void jarRootIsScanned() throws Exception {
+    assertEquals(COMPONENTS, scan(jar(root.resolve("scan.jar"), null), null));
+  }
+
+  @Test
+  void conditionsAreEvaluatedBeforeLoading() throws Exception {
+    Map<String, String> properties = new HashMap<>();
+    properties.put("codekrypt.cache", "local");
+    ConditionEvaluator evaluator =
+        new ConditionEvaluator(
+            Collections.singletonList("dev"), properties, ClassLoader.getSystemClassLoader());
+
+    assertEquals(
+        new TreeSet<>(Arrays.asList(DevTools.class.getName(), NestedService.class.getName())),
+        scan(jar(root.resolve("scan.jar"), null), evaluator));
+    assertTrue(
+        evaluator.getReport().getReason(ProdCache.class.getName()).startsWith("@Profile"));
+  }
+
+  @Test
+  void malformedClassFileIsReportedWithItsName() throws Exception {
+    Path brokenFile = root.resolve(SCAN_PACKAGE.replace('.', '/')).resolve("Broken.class");
+    Files.createDirectories(brokenFile.getParent());
+    Files.write(brokenFile, malformedClassFile());
+
+    assertMalformed(() -> scan(root, null), "Broken.class");
+    assertMalformed(() -> scan(jar(root.resolve("broken.jar"), brokenFile), null), "Broken.class");
+  }
+
+  /** Names of the components found under the root, scanned on its own. */
+  private static Set<String> scan(Path classPathRoot, ConditionEvaluator evaluator)
+      throws IOException {
+    try (URLClassLoader classLoader =
+        new URLClassLoader(new URL[] {classPathRoot.toUri().toURL()}, null)) {
+      ClassScanner scanner =
+          new ClassScanner(SCAN_PACKAGE, classLoader, ForkJoinPool.commonPool(), evaluator);
+      return scanner.getLocatedClasses().stream()
+          .map(Class::getName)
+          .collect(Collectors.toCollection(TreeSet::new));
+    }
+  }
+
+  /**
+   * A jar of the compiled scan package, plus an extra class file if not null. Like the jar tool,
+   * it has an entry per directory, which the class loader needs to find the package.
+   */
+  private static Path jar(Path jarFile, Path extraClassFile) throws Exception {
+    Path classesDirectory = testClassesDirectory();
+    Path packageDirectory = classesDirectory.resolve(SCAN_PACKAGE.replace('.', '/'));
+    try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jarFile));
+        Stream<Path> files = Files.walk(packageDirectory)) {
+      for (Path parent = packageDirectory.getParent();
+          !parent.equals(classesDirectory);
+          parent = parent.getParent()) {
+        write(out, classesDirectory.relativize(parent) + "/", new byte[0]);
+      }
+      for (Path file : files.sorted().collect(Collectors.toList())) {
+        String entryName = classesDirectory.relativize(file).toString();
+        if (Files.isDirectory(file)) {
+          write(out, entryName + "/", new byte[0]);
+        } else {
+          write(out, entryName, Files.readAllBytes(file));
+        }
+      }
+      if (extraClassFile != null) {
+        String entryName = SCAN_PACKAGE.replace('.', '/') + "/" + extraClassFile.getFileName();
+        write(out, entryName, Files.readAllBytes(extraClassFile));
+      }
+    }
+    return jarFile;
+  }
+
+  private static void write(JarOutputStream out, String entryName, byte[] content)
+      throws IOException {
+    out.putNextEntry(new JarEntry(entryName.replace('\\', '/')));
+    out.write(content);
+    out.closeEntry();
+  }
+
+  private static Path testClassesDirectory() throws Exception {
+    return Paths.get(ProdCache.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+  }
+
+  /** Magic, version, then a constant pool entry with an unknown tag. */
+  private static byte[] malformedClassFile() {
+    return ByteBuffer.allocate(11)
+        .putInt(0xCAFEBABE)
+        .putInt(52)
+        .putShort((short) 2)
+        .put((byte) 99)
+        .array();
+  }
+
+  private static void assertMalformed(Executable scan, String fileName) {
+    ClassLoadException ex = assertThrows(ClassLoadException.class, scan);
+
+    // The task exception may be rethrown as a copy by the joining thread.
+    List<Throwable> causes = new ArrayList<>();
+    for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+      causes.add(cause);
+    }
+    assertTrue(
+        causes.stream()
+            .anyMatch(
+                cause ->
+                    cause instanceof ClassLoadException
+                        && cause.getMessage().contains(fileName)),
+        causes.toString());
+    assertTrue(
+        causes.stream()
+            .anyMatch(
+                cause ->
+                    cause instanceof IllegalArgumentException
+                        && cause.getMessage().equals("Unknown constant pool tag 99")),
+        causes.toString());
+  }
+}
@@ -0,0 +1,69 @@
+package com.arjunsk.codekrypt.di.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.arjunsk.codekrypt.di.core.reload.GreeterImpl;
+import com.arjunsk.codekrypt.di.core.reload.ReloadApplication;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ComponentDiscoveryTest {
+
+  private static final String MAIN_PACKAGE = ReloadApplication.class.getPackage().getName();
+
+  @TempDir Path root;
+
+  @Test
+  void foreignIndexFallsBackToScanning() throws IOException {
+    ComponentIndex index =
+        loadIndex("root\tcom.example.lib\ncomponent\tcom.example.lib.Client\n");
+
+    assertFalse(index.covers(MAIN_PACKAGE));
+    assertFalse(index.isValidated(MAIN_PACKAGE));
+    assertEquals(Collections.singleton(GreeterImpl.class), findComponents(index));
+  }
+
+  @Test
+  void coveringIndexIsTrusted() throws IOException {
+    // Only the indexed components are loaded: GreeterImpl is left out of this one.
+    ComponentIndex index = loadIndex("root\tcom.arjunsk.codekrypt.di\n");
+
+    assertTrue(index.covers(MAIN_PACKAGE));
+    assertTrue(findComponents(index).isEmpty());
+  }
+
+  @Test
+  void siblingPackageIsNotCovered() throws IOException {
+    ComponentIndex index = loadIndex("root\t" + MAIN_PACKAGE + "er\n");
+
+    assertFalse(index.covers(MAIN_PACKAGE));
+  }
+
+  /** Loads the index through a class loader on which it is the only one. */
+  private ComponentIndex loadIndex(String content) throws IOException {
+    Path indexFile = root.resolve(ComponentIndex.INDEX_LOCATION);
+    Files.createDirectories(indexFile.getParent());
+    Files.write(indexFile, content.getBytes(StandardCharsets.UTF_8));
+    try (URLClassLoader classLoader =
+        new URLClassLoader(new URL[] {root.toUri().toURL()}, null)) {
+      return ComponentIndex.load(classLoader);
+    }
+  }
+
+  private static Set<Class<?>> findComponents(ComponentIndex index) {
+    return ComponentDiscovery.findComponents(
+        ReloadApplication.class,
+        index,
+        new ConditionEvaluator(ReloadApplication.class.getClassLoader()));
+  }
+}
@@ -0,0 +1,120 @@
+package com.arjunsk.codekrypt.di.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class ConditionEvaluatorTest {
+
+  private static final ClassLoader CLASS_LOADER = ConditionEvaluatorTest.class.getClassLoader();
+
+  @Test
+  void profilesMatchWhenOneOfThemIsActive() {
+    ConditionEvaluator evaluator = evaluator(Arrays.asList("prod", "eu"));
+
+    assertNull(evaluator.getExclusionReason(profiles("dev", "eu")));
+    assertNull(evaluator.getExclusionReason(profiles("!dev")));
+    assertTrue(evaluator.getExclusionReason(profiles("dev")).contains("[dev]"));
+    assertTrue(evaluator.getExclusionReason(profiles("!prod")).contains("[prod, eu]"));
+  }
+
+  @Test
+  void defaultProfileIsActiveWhenNoneIsConfigured() {
+    String previous = System.clearProperty(ConditionEvaluator.ACTIVE_PROFILES_PROPERTY);
+    try {
+      ConditionEvaluator evaluator = evaluator(Collections.emptyList());
+
+      assertEquals(
+          Collections.singleton(ConditionEvaluator.DEFAULT_PROFILE),
+          evaluator.getActiveProfiles());
+      assertNull(evaluator.getExclusionReason(profiles(ConditionEvaluator.DEFAULT_PROFILE)));
+    } finally {
+      if (previous != null) {
+        System.setProperty(ConditionEvaluator.ACTIVE_PROFILES_PROPERTY, previous);
+      }
+    }
+  }
+
+  @Test
+  void requiredClassesMustBeOnTheClassPath() {
+    ConditionEvaluator evaluator = evaluator(Collections.emptyList());
+
+    assertNull(evaluator.getExclusionReason(onClass(String.class.getName())));
+    assertEquals(
+        "@ConditionalOnClass com.example.Missing is not on the class path",
+        evaluator.getExclusionReason(onClass(String.class.getName(), "com.example.Missing")));
+  }
+
+  @Test
+  void propertyMatchesItsValueOrAnyButFalse() {
+    Map<String, String> properties = new HashMap<>();
+    properties.put("codekrypt.test.cache", "redis");
+    properties.put("codekrypt.test.metrics", "false");
+    ConditionEvaluator evaluator =
+        new ConditionEvaluator(Collections.emptyList(), properties, CLASS_LOADER);
+
+    assertNull(evaluator.getExclusionReason(onProperty("codekrypt.test.cache", "", false)));
+    assertNull(evaluator.getExclusionReason(onProperty("codekrypt.test.cache", "redis", false)));
+    assertEquals(
+        "@ConditionalOnProperty codekrypt.test.cache=redis, expected local",
+        evaluator.getExclusionReason(onProperty("codekrypt.test.cache", "local", false)));
+    assertEquals(
+        "@ConditionalOnProperty codekrypt.test.metrics=false",
+        evaluator.getExclusionReason(onProperty("codekrypt.test.metrics", "", false)));
+  }
+
+  @Test
+  void missingPropertyMatchesOnlyIfAsked() {
+    ConditionEvaluator evaluator = evaluator(Collections.emptyList());
+
+    assertNull(evaluator.getExclusionReason(onProperty("codekrypt.test.missing", "", true)));
+    assertEquals(
+        "@ConditionalOnProperty codekrypt.test.missing is not set",
+        evaluator.getExclusionReason(onProperty("codekrypt.test.missing", "", false)));
+  }
+
+  @Test
+  void excludedComponentsAreReported() {
+    ConditionEvaluator evaluator = evaluator(Collections.singletonList("prod"));
+
+    assertTrue(evaluator.isActive("test.Plain", ComponentConditions.NONE));
+    assertTrue(evaluator.isActive("test.ProdOnly", profiles("prod")));
+    assertFalse(evaluator.isActive("test.DevOnly", profiles("dev")));
+
+    ConditionReport report = evaluator.getReport();
+    assertEquals(Collections.singleton("test.DevOnly"), report.getExclusions().keySet());
+    assertTrue(report.getReason("test.DevOnly").startsWith("@Profile[dev]"));
+    assertEquals(
+        Arrays.asList("test.ProdOnly", "test.DevOnly"),
+        new ArrayList<>(evaluator.getEvaluatedConditions().keySet()));
+  }
+
+  private static ConditionEvaluator evaluator(List<String> profiles) {
+    return new ConditionEvaluator(profiles, Collections.emptyMap(), CLASS_LOADER);
+  }
+
+  private static ComponentConditions profiles(String... profiles) {
+    return new ComponentConditions(
+        Arrays.asList(profiles), Collections.emptyList(), null, "", false);
+  }
+
+  private static ComponentConditions onClass(String... classNames) {
+    return new ComponentConditions(
+        Collections.emptyList(), Arrays.asList(classNames), null, "", false);
+  }
+
+  private static ComponentConditions onProperty(
+      String name, String havingValue, boolean matchIfMissing) {
+    return new ComponentConditions(
+        Collections.emptyList(), Collections.emptyList(), name, havingValue, matchIfMissing);
+  }
+}
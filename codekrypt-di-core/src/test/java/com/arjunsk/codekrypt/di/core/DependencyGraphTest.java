@@ -0,0 +1,123 @@
+package com.arjunsk.codekrypt.di.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.arjunsk.codekrypt.di.annotation.Autowire;
+import com.arjunsk.codekrypt.di.annotation.Component;
+import com.arjunsk.codekrypt.di.annotation.Lazy;
+import com.arjunsk.codekrypt.di.exceptions.CircularDependencyException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class DependencyGraphTest {
+
+  @Test
+  void independentBeansShareAWave() {
+    DependencyGraph graph = build(Wheel.class, Engine.class, Car.class);
+
+    assertNull(graph.getCycles());
+    assertEquals(2, graph.getCriticalPathLength());
+    assertEquals(Arrays.asList(Engine.class, Wheel.class), classes(graph.getWaves().get(0)));
+    assertEquals(Arrays.asList(Car.class), classes(graph.getWaves().get(1)));
+  }
+
+  @Test
+  void cycleIsReportedWithItsChain() {
+    CircularDependencyException ex =
+        assertThrows(
+            CircularDependencyException.class, () -> build(Chicken.class, Egg.class, Car.class));
+
+    assertTrue(
+        ex.getMessage().contains(chain(Chicken.class, Egg.class, Chicken.class)), ex.getMessage());
+  }
+
+  @Test
+  void lenientGraphLeavesTheCycleOutOfTheWaves() {
+    BeanManager beanManager = new BeanManager();
+    List<Class<?>> componentClasses =
+        Arrays.asList(Chicken.class, Egg.class, Farm.class, Engine.class);
+    beanManager.registerComponents(componentClasses);
+
+    DependencyGraph graph = DependencyGraph.buildLenient(componentClasses, beanManager);
+
+    assertTrue(graph.getCycles().contains(chain(Chicken.class, Egg.class, Chicken.class)));
+    assertEquals(-1, graph.getNode(Chicken.class).getDepth());
+    assertEquals(-1, graph.getNode(Egg.class).getDepth());
+    // Farm only depends on the cycle, so it is never ready either.
+    assertEquals(-1, graph.getNode(Farm.class).getDepth());
+    assertEquals(Arrays.asList(Engine.class), classes(graph.getWaves().get(0)));
+  }
+
+  @Test
+  void lazyPointBreaksTheCycle() {
+    DependencyGraph graph = build(Left.class, Right.class);
+
+    assertNull(graph.getCycles());
+    assertEquals(Arrays.asList(Left.class), classes(graph.getWaves().get(0)));
+    assertEquals(Arrays.asList(Right.class), classes(graph.getWaves().get(1)));
+  }
+
+  private static DependencyGraph build(Class<?>... componentClasses) {
+    BeanManager beanManager = new BeanManager();
+    beanManager.registerComponents(Arrays.asList(componentClasses));
+    return DependencyGraph.build(Arrays.asList(componentClasses), beanManager);
+  }
+
+  private static List<Class<?>> classes(List<DependencyGraph.BeanNode> nodes) {
+    return nodes.stream().map(DependencyGraph.BeanNode::getBeanClass).collect(Collectors.toList());
+  }
+
+  private static String chain(Class<?>... beanClasses) {
+    return Arrays.stream(beanClasses).map(Class::getName).collect(Collectors.joining(" -> "));
+  }
+
+  @Component
+  public static class Engine {}
+
+  @Component
+  public static class Wheel {}
+
+  @Component
+  public static class Car {
+
+    @Autowire
+    public Car(Engine engine) {}
+
+    @Autowire public Wheel wheel;
+  }
+
+  @Component
+  public static class Chicken {
+
+    @Autowire public Egg egg;
+  }
+
+  @Component
+  public static class Egg {
+
+    @Autowire public Chicken chicken;
+  }
+
+  @Component
+  public static class Farm {
+
+    @Autowire public Chicken chicken;
+  }
+
+  @Component
+  public static class Left {
+
+    @Lazy @Autowire public Right right;
+  }
+
+  @Component
+  public static class Right {
+
+    @Autowire public Left left;
+  }
+}
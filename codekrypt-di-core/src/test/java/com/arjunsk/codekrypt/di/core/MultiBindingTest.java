@@ -0,0 +1,127 @@
+package com.arjunsk.codekrypt.di.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.arjunsk.codekrypt.di.annotation.Autowire;
+import com.arjunsk.codekrypt.di.annotation.Component;
+import com.arjunsk.codekrypt.di.annotation.Order;
+import com.arjunsk.codekrypt.di.annotation.Scope;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MultiBindingTest {
+
+  // @Order first, then the unordered ones by class name.
+  private static final List<Class<?>> ORDER =
+      Arrays.asList(Zeta.class, Beta.class, Alpha.class, Delta.class);
+
+  private BeanManager beanManager;
+
+  @BeforeEach
+  void setUp() {
+    beanManager = new BeanManager();
+    beanManager.registerComponents(
+        Arrays.asList(
+            Delta.class,
+            Alpha.class,
+            Beta.class,
+            Zeta.class,
+            Pipeline.class,
+            Router.class,
+            Request.class,
+            RequestPipeline.class));
+  }
+
+  @Test
+  void implementationsAreOrderedByOrderThenName() {
+    assertEquals(ORDER, beanManager.getImplementationClasses(Handler.class));
+    assertEquals(ORDER, classes(beanManager.getBeanInstances(Handler.class)));
+  }
+
+  @Test
+  void listSetAndMapPointsReceiveTheSameOrder() {
+    Pipeline pipeline = (Pipeline) beanManager.getBeanInstance(Pipeline.class, null, null);
+
+    assertEquals(ORDER, classes(pipeline.list));
+    assertEquals(ORDER, classes(new ArrayList<>(pipeline.set)));
+    assertEquals(
+        Arrays.asList("Zeta", "Beta", "Alpha", "Delta"), new ArrayList<>(pipeline.map.keySet()));
+    assertSame(pipeline.list.get(0), pipeline.map.get("Zeta"));
+  }
+
+  @Test
+  void singletonCollectionsAreSharedAndImmutable() {
+    Pipeline pipeline = (Pipeline) beanManager.getBeanInstance(Pipeline.class, null, null);
+    Router router = (Router) beanManager.getBeanInstance(Router.class, null, null);
+
+    assertSame(pipeline.list, router.handlers);
+    assertThrows(UnsupportedOperationException.class, () -> pipeline.list.add(new Alpha()));
+  }
+
+  @Test
+  void prototypeCollectionsAreNotShared() {
+    RequestPipeline first =
+        (RequestPipeline) beanManager.getBeanInstance(RequestPipeline.class, null, null);
+    RequestPipeline second =
+        (RequestPipeline) beanManager.getBeanInstance(RequestPipeline.class, null, null);
+
+    assertNotSame(first.steps, second.steps);
+    assertNotSame(first.steps.get(0), second.steps.get(0));
+  }
+
+  private static List<Class<?>> classes(List<?> beans) {
+    return beans.stream().map(Object::getClass).collect(Collectors.toList());
+  }
+
+  public interface Handler {}
+
+  public interface Step {}
+
+  @Component
+  public static class Alpha implements Handler {}
+
+  @Component
+  public static class Delta implements Handler {}
+
+  @Component
+  @Order(2)
+  public static class Beta implements Handler {}
+
+  @Component
+  @Order(1)
+  public static class Zeta implements Handler {}
+
+  @Component
+  @Scope(Scope.PROTOTYPE)
+  public static class Request implements Step {}
+
+  @Component
+  public static class Pipeline {
+
+    @Autowire public List<Handler> list;
+    @Autowire public Set<Handler> set;
+    @Autowire public Map<String, Handler> map;
+  }
+
+  @Component
+  public static class Router {
+
+    @Autowire public List<Handler> handlers;
+  }
+
+  @Component
+  @Scope(Scope.PROTOTYPE)
+  public static class RequestPipeline {
+
+    @Autowire public List<Step> steps;
+  }
+}
@@ -0,0 +1,133 @@
+package com.arjunsk.codekrypt.di.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.arjunsk.codekrypt.di.annotation.Autowire;
+import com.arjunsk.codekrypt.di.annotation.Component;
+import com.arjunsk.codekrypt.di.annotation.Scope;
+import com.arjunsk.codekrypt.di.exceptions.BeanFetchException;
+import com.arjunsk.codekrypt.di.scope.ScopeContext;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+// Public, so that its nested interfaces can be proxied.
+public class ScopedProxyTest {
+
+  private static final AtomicInteger ids = new AtomicInteger();
+
+  private BeanManager beanManager;
+
+  @BeforeEach
+  void setUp() {
+    beanManager = new BeanManager();
+    beanManager.registerComponents(
+        Arrays.asList(
+            RequestState.class, Handler.class, Worker.class, Counter.class, SealedHandler.class));
+  }
+
+  @Test
+  void singletonFetchesTheBeanOfTheCurrentContext() {
+    // No context is bound: the bean is only fetched when the proxy is called.
+    Handler handler = (Handler) beanManager.getBeanInstance(Handler.class, null, null);
+
+    int[] seen = new int[3];
+    try (ScopeContext first = beanManager.newContext();
+        ScopeContext second = beanManager.newContext()) {
+      first.run(() -> seen[0] = handler.state.id());
+      second.run(() -> seen[1] = handler.state.id());
+      first.run(() -> seen[2] = handler.state.id());
+    }
+
+    assertNotEquals(seen[0], seen[1]);
+    assertEquals(seen[0], seen[2]);
+  }
+
+  @Test
+  void singletonFetchesTheBeanOfTheCurrentThread() throws InterruptedException {
+    Worker worker = (Worker) beanManager.getBeanInstance(Worker.class, null, null);
+
+    int[] seen = new int[3];
+    seen[0] = worker.counter.id();
+    Thread thread = new Thread(() -> seen[1] = worker.counter.id());
+    thread.start();
+    thread.join();
+    seen[2] = worker.counter.id();
+
+    assertNotEquals(seen[0], seen[1]);
+    assertEquals(seen[0], seen[2]);
+  }
+
+  @Test
+  void finalClassCannotReceiveAScopedBean() {
+    RuntimeException ex =
+        assertThrows(
+            RuntimeException.class,
+            () -> beanManager.getBeanInstance(SealedHandler.class, null, null));
+
+    // The injection failure wraps the reason.
+    Throwable cause = ex;
+    while (!(cause instanceof BeanFetchException) && cause.getCause() != null) {
+      cause = cause.getCause();
+    }
+    assertInstanceOf(BeanFetchException.class, cause);
+    assertTrue(cause.getMessage().contains("cannot be proxied"), cause.getMessage());
+  }
+
+  public interface State {
+
+    int id();
+  }
+
+  public interface CounterApi {
+
+    int id();
+  }
+
+  @Component
+  @Scope(Scope.CONTEXT)
+  public static class RequestState implements State {
+
+    private final int id = ids.incrementAndGet();
+
+    @Override
+    public int id() {
+      return id;
+    }
+  }
+
+  @Component
+  @Scope(Scope.THREAD)
+  public static final class Counter implements CounterApi {
+
+    private final int id = ids.incrementAndGet();
+
+    @Override
+    public int id() {
+      return id;
+    }
+  }
+
+  @Component
+  public static class Handler {
+
+    @Autowire public State state;
+  }
+
+  @Component
+  public static class Worker {
+
+    @Autowire public CounterApi counter;
+  }
+
+  @Component
+  public static class SealedHandler {
+
+    @Autowire public Counter counter;
+  }
+}
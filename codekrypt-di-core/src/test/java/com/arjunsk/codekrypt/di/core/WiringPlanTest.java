@@ -0,0 +1,152 @@
+package com.arjunsk.codekrypt.di.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class WiringPlanTest {
+
+  @TempDir Path root;
+
+  private Path sourceDir;
+  private Path classesDir;
+
+  // Class loaders of the compiled program, closed after the test.
+  private final List<URLClassLoader> classLoaders = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() throws IOException {
+    sourceDir = Files.createDirectories(root.resolve("src"));
+    classesDir = Files.createDirectories(root.resolve("classes"));
+    write("App", "public class App {}");
+    write("Engine", "public interface Engine {}");
+    write("V8Engine", "@Component\npublic class V8Engine implements Engine {}");
+    write("Car", "@Component\npublic class Car {\n  @Autowire public Engine engine;\n}");
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    for (URLClassLoader classLoader : classLoaders) {
+      classLoader.close();
+    }
+  }
+
+  @Test
+  void unchangedPlanIsLoaded() throws Exception {
+    compile("App", "Engine", "V8Engine", "Car");
+    generatePlan();
+
+    WiringPlan wiringPlan = WiringPlan.load(mainClass());
+
+    assertNotNull(wiringPlan);
+    assertEquals(2, wiringPlan.getBeans().size());
+  }
+
+  @Test
+  void newComponentRejectsThePlan() throws Exception {
+    compile("App", "Engine", "V8Engine", "Car");
+    generatePlan();
+
+    write("Radio", "@Component\npublic class Radio {}");
+    compile("Radio");
+
+    assertNull(WiringPlan.load(mainClass()));
+  }
+
+  @Test
+  void newInjectionPointRejectsThePlan() throws Exception {
+    compile("App", "Engine", "V8Engine", "Car");
+    generatePlan();
+
+    write("Radio", "public class Radio {}");
+    write(
+        "Car",
+        "@Component\npublic class Car {\n"
+            + "  @Autowire public Engine engine;\n"
+            + "  @Autowire public Radio radio;\n"
+            + "}");
+    compile("Radio", "Car");
+    Class<?> mainClass = mainClass();
+
+    assertNull(WiringPlan.load(mainClass));
+
+    // The startup falls back to resolving the beans, so the new point is injected.
+    try (Container container = CodekryptInjector.run(mainClass)) {
+      Object car = container.getBean(Class.forName("plan.Car", false, mainClass.getClassLoader()));
+      assertNotNull(car.getClass().getField("radio").get(car));
+    }
+  }
+
+  @Test
+  void newImplementationRejectsThePlan() throws Exception {
+    compile("App", "Engine", "V8Engine", "Car");
+    generatePlan();
+
+    write("V12Engine", "@Component\npublic class V12Engine implements Engine {}");
+    write(
+        "Car",
+        "@Component\npublic class Car {\n"
+            + "  @Autowire @Qualifier(\"V12Engine\") public Engine engine;\n"
+            + "}");
+    compile("V12Engine", "Car");
+
+    assertNull(WiringPlan.load(mainClass()));
+  }
+
+  private void write(String className, String body) throws IOException {
+    String content =
+        "package plan;\n\nimport com.arjunsk.codekrypt.di.annotation.*;\n\n" + body + "\n";
+    Path sourceFile = sourceDir.resolve("plan").resolve(className + ".java");
+    Files.createDirectories(sourceFile.getParent());
+    Files.write(sourceFile, content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private void compile(String... classNames) {
+    List<String> arguments =
+        new ArrayList<>(
+            Arrays.asList(
+                "-proc:none",
+                "-d",
+                classesDir.toString(),
+                "-classpath",
+                classesDir + File.pathSeparator + System.getProperty("java.class.path")));
+    for (String className : classNames) {
+      arguments.add(sourceDir.resolve("plan").resolve(className + ".java").toString());
+    }
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    assertEquals(0, compiler.run(null, null, null, arguments.toArray(new String[0])));
+  }
+
+  /** Writes the plan of the program, as the build step does. */
+  private void generatePlan() throws Exception {
+    Path planFile = WiringPlanGenerator.generate(mainClass(), classesDir);
+    assertTrue(Files.exists(planFile));
+  }
+
+  /** Loads the compiled program in a new class loader, as a new run of it would. */
+  private Class<?> mainClass() throws Exception {
+    URLClassLoader classLoader =
+        new URLClassLoader(
+            new URL[] {classesDir.toUri().toURL()}, WiringPlanTest.class.getClassLoader());
+    classLoaders.add(classLoader);
+    return Class.forName("plan.App", false, classLoader);
+  }
+}
@@ -0,0 +1,6 @@
+package com.arjunsk.codekrypt.di.core.reload;
+
+public interface Greeter {
+
+  String greet();
+}
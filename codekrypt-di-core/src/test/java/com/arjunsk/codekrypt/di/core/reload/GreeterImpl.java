@@ -0,0 +1,12 @@
+package com.arjunsk.codekrypt.di.core.reload;
+
+import com.arjunsk.codekrypt.di.annotation.Component;
+
+@Component
+public class GreeterImpl implements Greeter {
+
+  @Override
+  public String greet() {
+    return "Hello";
+  }
+}
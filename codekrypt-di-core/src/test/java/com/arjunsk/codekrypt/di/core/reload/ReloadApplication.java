@@ -0,0 +1,4 @@
+package com.arjunsk.codekrypt.di.core.reload;
+
+/** Main class of the components reloaded by the tests. */
+public class ReloadApplication {}
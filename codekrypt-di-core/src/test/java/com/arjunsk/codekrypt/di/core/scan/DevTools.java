@@ -0,0 +1,10 @@
+package com.arjunsk.codekrypt.di.core.scan;
+
+import com.arjunsk.codekrypt.di.annotation.Component;
+import com.arjunsk.codekrypt.di.annotation.ConditionalOnClass;
+import com.arjunsk.codekrypt.di.annotation.Profile;
+
+@Component
+@Profile("dev")
+@ConditionalOnClass("java.lang.String")
+public class DevTools {}
@@ -0,0 +1,3 @@
+package com.arjunsk.codekrypt.di.core.scan;
+
+public class Helper {}
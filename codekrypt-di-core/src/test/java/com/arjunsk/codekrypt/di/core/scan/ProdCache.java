@@ -0,0 +1,10 @@
+package com.arjunsk.codekrypt.di.core.scan;
+
+import com.arjunsk.codekrypt.di.annotation.Component;
+import com.arjunsk.codekrypt.di.annotation.ConditionalOnProperty;
+import com.arjunsk.codekrypt.di.annotation.Profile;
+
+@Component
+@Profile({"prod", "eu"})
+@ConditionalOnProperty(name = "codekrypt.cache", havingValue = "redis", matchIfMissing = true)
+public class ProdCache {}
@@ -0,0 +1,6 @@
+package com.arjunsk.codekrypt.di.core.scan;
+
+import com.arjunsk.codekrypt.di.annotation.Component;
+
+@Component
+public interface Repository {}
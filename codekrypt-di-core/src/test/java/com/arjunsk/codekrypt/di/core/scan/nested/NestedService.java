@@ -0,0 +1,6 @@
+package com.arjunsk.codekrypt.di.core.scan.nested;
+
+import com.arjunsk.codekrypt.di.annotation.Component;
+
+@Component
+public class NestedService {}
@@ -0,0 +1,108 @@
+package com.arjunsk.codekrypt.di.injection;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import org.junit.jupiter.api.Test;
+
+// Public, as the generated classes can only reach the members of public classes.
+public class GeneratedInjectionStrategyTest {
+
+  // Past the calls through reflection.
+  private static final int CALLS = 20;
+
+  private final GeneratedInjectionStrategy strategy = new GeneratedInjectionStrategy();
+
+  @Test
+  void constructorWithWideAndArrayParametersIsGenerated() throws Exception {
+    BeanFactory beanFactory =
+        strategy.getBeanFactory(
+            Gauge.class.getConstructor(long.class, double.class, String[].class, int.class));
+    String[] labels = {"low", "high"};
+
+    Gauge gauge = null;
+    for (int i = 0; i < CALLS; i++) {
+      gauge = (Gauge) beanFactory.newInstance(new Object[] {1L << 40, 0.5, labels, i});
+      assertEquals(1L << 40, gauge.max);
+      assertEquals(0.5, gauge.ratio);
+      assertSame(labels, gauge.labels);
+      assertEquals(i, gauge.index);
+    }
+    assertTrue(gauge.caller.startsWith(GeneratedClassLoader.GENERATED_PACKAGE), gauge.caller);
+  }
+
+  @Test
+  void nonPublicConstructorStaysOnReflection() throws Exception {
+    Constructor<Gauge> constructor = Gauge.class.getDeclaredConstructor(int.class);
+    BeanFactory beanFactory = strategy.getBeanFactory(constructor);
+
+    Gauge gauge = null;
+    for (int i = 0; i < CALLS; i++) {
+      gauge = (Gauge) beanFactory.newInstance(new Object[] {i});
+      assertEquals(i, gauge.index);
+    }
+    assertFalse(gauge.caller.startsWith(GeneratedClassLoader.GENERATED_PACKAGE), gauge.caller);
+  }
+
+  @Test
+  void publicFieldsAreInjectedByTheGeneratedInjector() throws Exception {
+    FieldInjector labels = strategy.getFieldInjector(Gauge.class.getField("labels"));
+    FieldInjector max = strategy.getFieldInjector(Gauge.class.getField("max"));
+    Gauge gauge = new Gauge(0);
+
+    for (int i = 0; i < CALLS; i++) {
+      String[] value = {String.valueOf(i)};
+      labels.inject(gauge, value);
+      max.inject(gauge, (long) i);
+      assertArrayEquals(value, gauge.labels);
+      assertEquals(i, gauge.max);
+    }
+
+    // The generated injector casts the value, where reflection rejects it as an argument.
+    assertThrows(ClassCastException.class, () -> labels.inject(gauge, "low"));
+    assertThrows(ClassCastException.class, () -> max.inject(gauge, 1));
+  }
+
+  @Test
+  void privateFieldStaysOnReflection() throws Exception {
+    Field field = Gauge.class.getDeclaredField("unit");
+    FieldInjector unit = strategy.getFieldInjector(field);
+    Gauge gauge = new Gauge(0);
+
+    for (int i = 0; i < CALLS; i++) {
+      unit.inject(gauge, "unit" + i);
+      assertEquals("unit" + i, gauge.unit);
+    }
+
+    assertThrows(IllegalArgumentException.class, () -> unit.inject(gauge, 1));
+  }
+
+  public static class Gauge {
+
+    public long max;
+    public double ratio;
+    public String[] labels;
+    public int index;
+    private String unit;
+
+    // Class calling the constructor: reflection, or a generated factory.
+    final String caller = new Throwable().getStackTrace()[1].getClassName();
+
+    public Gauge(long max, double ratio, String[] labels, int index) {
+      this.max = max;
+      this.ratio = ratio;
+      this.labels = labels;
+      this.index = index;
+    }
+
+    Gauge(int index) {
+      this.index = index;
+    }
+  }
+}
@@ -0,0 +1,218 @@
+package com.arjunsk.codekrypt.di.injection;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.arjunsk.codekrypt.di.intercept.Intercepted;
+import com.arjunsk.codekrypt.di.intercept.MethodInterceptor;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+// Public, as only public classes can be subclassed by the generated classes.
+public class InterceptorProxyFactoryTest {
+
+  private static final List<Method> INTERCEPTED_METHODS = new ArrayList<>();
+
+  static {
+    try {
+      INTERCEPTED_METHODS.add(Calculator.class.getMethod("add", int.class, int.class));
+      INTERCEPTED_METHODS.add(Calculator.class.getMethod("scale", long.class, double.class));
+      INTERCEPTED_METHODS.add(Calculator.class.getMethod("record", String.class));
+      INTERCEPTED_METHODS.add(Calculator.class.getMethod("load", String.class));
+      INTERCEPTED_METHODS.add(Calculator.class.getMethod("countDown", int.class));
+    } catch (NoSuchMethodException ex) {
+      throw new ExceptionInInitializerError(ex);
+    }
+  }
+
+  private final InterceptorProxyFactory factory =
+      new InterceptorProxyFactory(type -> INTERCEPTED_METHODS);
+
+  // Calls seen by the interceptors, in order.
+  private final List<String> calls = new ArrayList<>();
+
+  private Calculator calculator;
+
+  @BeforeEach
+  void setUp() {
+    calculator = new Calculator();
+  }
+
+  @Test
+  void primitiveAndVoidReturnsGoThroughTheChain() {
+    Calculator proxy = proxy(calculator, recording("outer"));
+
+    assertEquals(5, proxy.add(2, 3));
+    assertEquals(6_000_000_000L, proxy.scale(4_000_000_000L, 1.5));
+    proxy.record("event");
+
+    assertEquals(Arrays.asList("event"), calculator.records);
+    assertEquals(
+        Arrays.asList(
+            "outer add [2, 3]", "outer scale [4000000000, 1.5]", "outer record [event]"),
+        calls);
+  }
+
+  @Test
+  void checkedExceptionsReachTheCaller() throws Exception {
+    Calculator proxy = proxy(calculator, recording("outer"));
+
+    assertEquals("config", proxy.load("config"));
+    assertThrows(IOException.class, () -> proxy.load("missing"));
+
+    // Thrown by an interceptor, without calling the bean.
+    Calculator failing =
+        proxy(
+            calculator,
+            invocation -> {
+              throw new IOException("denied");
+            });
+    IOException ex = assertThrows(IOException.class, () -> failing.load("config"));
+    assertEquals("denied", ex.getMessage());
+  }
+
+  @Test
+  void interceptorsAreCalledInOrder() {
+    Calculator proxy = proxy(calculator, recording("first"), recording("second"));
+
+    proxy.add(1, 1);
+
+    assertEquals(Arrays.asList("first add [1, 1]", "second add [1, 1]"), calls);
+  }
+
+  @Test
+  void interceptorCanProceedAgain() {
+    Calculator proxy =
+        proxy(
+            calculator,
+            invocation -> {
+              invocation.proceed();
+              return invocation.proceed();
+            },
+            recording("inner"));
+
+    proxy.record("retried");
+
+    assertEquals(Arrays.asList("retried", "retried"), calculator.records);
+    assertEquals(Arrays.asList("inner record [retried]", "inner record [retried]"), calls);
+  }
+
+  @Test
+  void otherMethodsCallTheBeanDirectly() {
+    Calculator proxy = proxy(calculator, recording("outer"));
+
+    assertEquals(-2, proxy.negate(2));
+    assertSame(calculator, ((Intercepted) proxy).getInterceptedTarget());
+    assertTrue(calls.isEmpty(), calls.toString());
+  }
+
+  @Test
+  void recursiveCallsGetTheirOwnInvocation() {
+    Calculator proxy = proxy(calculator, recording("outer"));
+    calculator.self = proxy;
+
+    assertEquals(0, proxy.countDown(2));
+    assertEquals(
+        Arrays.asList("outer countDown [2]", "outer countDown [1]", "outer countDown [0]"),
+        calls);
+  }
+
+  @Test
+  void beansOfAClassShareTheChainsButNotTheInterceptors() throws Exception {
+    Calculator first = proxy(calculator, recording("first"));
+    Calculator second = proxy(new Calculator(), recording("second"));
+
+    first.add(1, 2);
+    second.add(3, 4);
+
+    assertEquals(Arrays.asList("first add [1, 2]", "second add [3, 4]"), calls);
+    assertSame(first.getClass(), second.getClass());
+    for (int i = 0; i < INTERCEPTED_METHODS.size(); i++) {
+      String chainField = InjectorClassWriter.chainField(i);
+      assertSame(
+          first.getClass().getField(chainField).get(first),
+          second.getClass().getField(chainField).get(second));
+    }
+  }
+
+  @Test
+  void argumentsAreCopiedBoxed() {
+    Object[][] arguments = new Object[1][];
+    Calculator proxy =
+        proxy(
+            calculator,
+            invocation -> {
+              arguments[0] = invocation.getArguments();
+              return invocation.proceed();
+            });
+
+    proxy.scale(2L, 0.5);
+
+    assertArrayEquals(new Object[] {2L, 0.5}, arguments[0]);
+  }
+
+  private Calculator proxy(Calculator bean, MethodInterceptor... interceptors) {
+    Map<Method, MethodInterceptor[]> methodInterceptors = new HashMap<>();
+    for (Method method : INTERCEPTED_METHODS) {
+      methodInterceptors.put(method, interceptors);
+    }
+    return (Calculator) factory.createProxy(bean, methodInterceptors);
+  }
+
+  private MethodInterceptor recording(String name) {
+    return invocation -> {
+      calls.add(
+          name
+              + " "
+              + invocation.getMethod().getName()
+              + " "
+              + Arrays.toString(invocation.getArguments()));
+      return invocation.proceed();
+    };
+  }
+
+  public static class Calculator {
+
+    final List<String> records = new ArrayList<>();
+
+    Calculator self;
+
+    public int add(int a, int b) {
+      return a + b;
+    }
+
+    public long scale(long value, double factor) {
+      return (long) (value * factor);
+    }
+
+    public void record(String event) {
+      records.add(event);
+    }
+
+    public String load(String name) throws IOException {
+      if (name.equals("missing")) {
+        throw new IOException(name);
+      }
+      return name;
+    }
+
+    public int countDown(int value) {
+      // Through the proxy, while the invocation of the outer call is in use.
+      return value == 0 ? 0 : self.countDown(value - 1);
+    }
+
+    public int negate(int value) {
+      return -value;
+    }
+  }
+}
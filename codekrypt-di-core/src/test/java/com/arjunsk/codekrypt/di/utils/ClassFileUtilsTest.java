@@ -0,0 +1,92 @@
+package com.arjunsk.codekrypt.di.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.arjunsk.codekrypt.di.annotation.Component;
+import com.arjunsk.codekrypt.di.annotation.ConditionalOnClass;
+import com.arjunsk.codekrypt.di.annotation.ConditionalOnProperty;
+import com.arjunsk.codekrypt.di.annotation.Profile;
+import com.arjunsk.codekrypt.di.core.scan.DevTools;
+import com.arjunsk.codekrypt.di.core.scan.Helper;
+import com.arjunsk.codekrypt.di.core.scan.ProdCache;
+import com.arjunsk.codekrypt.di.core.scan.Repository;
+import com.arjunsk.codekrypt.di.utils.ClassFileUtils.AnnotatedClass;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class ClassFileUtilsTest {
+
+  private static final String COMPONENT = descriptor(Component.class);
+
+  @Test
+  void arrayAndScalarElementsAreDecoded() throws Exception {
+    AnnotatedClass prodCache =
+        ClassFileUtils.readAnnotatedClass(classFile(ProdCache.class), COMPONENT);
+
+    assertNotNull(prodCache);
+    assertEquals(ProdCache.class.getName(), prodCache.getClassName());
+    assertEquals(
+        Arrays.asList("prod", "eu"),
+        prodCache.getAnnotation(descriptor(Profile.class)).get("value"));
+    Map<String, Object> onProperty =
+        prodCache.getAnnotation(descriptor(ConditionalOnProperty.class));
+    assertEquals("codekrypt.cache", onProperty.get("name"));
+    assertEquals("redis", onProperty.get("havingValue"));
+    assertEquals(true, onProperty.get("matchIfMissing"));
+    assertNull(prodCache.getAnnotation(descriptor(ConditionalOnClass.class)));
+  }
+
+  @Test
+  void arrayElementWithOneValueIsAList() throws Exception {
+    AnnotatedClass devTools =
+        ClassFileUtils.readAnnotatedClass(classFile(DevTools.class), COMPONENT);
+
+    assertEquals(
+        Arrays.asList("dev"), devTools.getAnnotation(descriptor(Profile.class)).get("value"));
+    assertEquals(
+        Arrays.asList("java.lang.String"),
+        devTools.getAnnotation(descriptor(ConditionalOnClass.class)).get("value"));
+  }
+
+  @Test
+  void otherClassesAreSkipped() throws Exception {
+    assertNull(ClassFileUtils.getAnnotatedClassName(classFile(Helper.class), COMPONENT));
+    assertNull(ClassFileUtils.getAnnotatedClassName(classFile(Repository.class), COMPONENT));
+    assertNull(ClassFileUtils.getAnnotatedClassName(new byte[] {0, 1, 2, 3}, COMPONENT));
+  }
+
+  @Test
+  void unknownConstantPoolTagIsRejected() {
+    // Magic, version, then a constant pool with one entry of tag 99.
+    byte[] classFile =
+        ByteBuffer.allocate(11)
+            .putInt(0xCAFEBABE)
+            .putInt(52)
+            .putShort((short) 2)
+            .put((byte) 99)
+            .array();
+
+    IllegalArgumentException ex =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> ClassFileUtils.readAnnotatedClass(classFile, COMPONENT));
+    assertEquals("Unknown constant pool tag 99", ex.getMessage());
+  }
+
+  /** The class file compiled by the test build. */
+  private static byte[] classFile(Class<?> type) throws Exception {
+    String resource = type.getSimpleName() + ".class";
+    return Files.readAllBytes(Paths.get(type.getResource(resource).toURI()));
+  }
+
+  private static String descriptor(Class<?> type) {
+    return "L" + type.getName().replace('.', '/') + ";";
+  }
+}
@@ -0,0 +1,574 @@
+package com.arjunsk.codekrypt.di.processor;
+
+import com.arjunsk.codekrypt.di.annotation.Autowire;
+import com.arjunsk.codekrypt.di.annotation.ConditionalOnClass;
+import com.arjunsk.codekrypt.di.annotation.ConditionalOnProperty;
+import com.arjunsk.codekrypt.di.annotation.Interceptor;
+import com.arjunsk.codekrypt.di.annotation.Lazy;
+import com.arjunsk.codekrypt.di.annotation.Pooled;
+import com.arjunsk.codekrypt.di.annotation.Profile;
+import com.arjunsk.codekrypt.di.annotation.Qualifier;
+import com.arjunsk.codekrypt.di.annotation.Scope;
+import com.arjunsk.codekrypt.di.core.Provider;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.MirroredTypesException;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic.Kind;
+
+/**
+ * Checks the component graph at compile time, with the rules CodekryptInjector applies on
+ * startup: every @Autowire point resolves to one implementation, the beans have one usable
+ * constructor, and they do not depend on each other in a cycle.
+ *
+ * <p>The components of the libraries resolve too, but only the classes of this module are
+ * reported on: the ones of this compilation, and the components kept from its previous index. A
+ * point which resolves differently depending on the @Profile and @Conditional* outcome is only
+ * reported if it fails whatever the outcome.
+ */
+public class ComponentGraphValidator {
+
+  private final ProcessingEnvironment processingEnv;
+
+  // Outermost classes of this module, the ones reported on.
+  private final Set<String> reportedTypeNames;
+
+  // Interface/Super Class/Class -> the components assignable to it, in discovery order.
+  private final Map<TypeElement, List<TypeElement>> implementationsByType = new HashMap<>();
+
+  private final List<TypeElement> components;
+
+  private final Set<TypeElement> conditionalComponents = new HashSet<>();
+
+  // Bean -> the beans it needs first.
+  private final Map<TypeElement, Set<TypeElement>> dependencies = new LinkedHashMap<>();
+
+  // The beans, dependencies first. The ones on (or depending on) a cycle are left out.
+  private final List<TypeElement> creationOrder = new ArrayList<>();
+
+  private boolean valid = true;
+
+  // Whether a point resolves differently depending on the component conditions.
+  private boolean conditional;
+
+  /**
+   * Creates the validator of the components.
+   *
+   * @param processingEnv environment of the annotation processor.
+   * @param components @Component classes, of this module and of the libraries. Their
+   *     order is kept by the creation order, among independent beans.
+   * @param reportedTypeNames qualified names of the outermost classes of this module.
+   */
+  public ComponentGraphValidator(
+      ProcessingEnvironment processingEnv,
+      Collection<TypeElement> components,
+      Set<String> reportedTypeNames) {
+    this.processingEnv = processingEnv;
+    this.reportedTypeNames = reportedTypeNames;
+    this.components = new ArrayList<>(components);
+    for (TypeElement component : components) {
+      for (TypeElement type : getAssignableTypes(component)) {
+        implementationsByType.computeIfAbsent(type, key -> new ArrayList<>()).add(component);
+      }
+      if (isConditional(component)) {
+        conditionalComponents.add(component);
+      }
+    }
+  }
+
+  /**
+   * Checks the components, printing the problems on the faulty elements.
+   *
+   * @return whether the components are valid whatever the outcome of their conditions, so that
+   *     CodekryptInjector can skip their validation.
+   */
+  public boolean validate() {
+
+    // 1. Check every bean: the instantiable components, and the concrete classes they depend on.
+    Deque<TypeElement> pending = new ArrayDeque<>();
+    for (TypeElement component : components) {
+      if (isConcrete(component) && !dependencies.containsKey(component)) {
+        dependencies.put(component, new LinkedHashSet<>());
+        pending.add(component);
+      }
+    }
+    while (!pending.isEmpty()) {
+      TypeElement beanType = pending.poll();
+      for (TypeElement dependency : check(beanType)) {
+        dependencies.get(beanType).add(dependency);
+        if (!dependencies.containsKey(dependency)) {
+          dependencies.put(dependency, new LinkedHashSet<>());
+          pending.add(dependency);
+        }
+      }
+    }
+
+    // 2. Then their cycles.
+    checkCycles();
+    return valid && !conditional;
+  }
+
+  /**
+   * Get the beans in creation order, dependencies first, as checked by {@link #validate}. The
+   * beans on (or depending on) a cycle are left out.
+   */
+  public List<TypeElement> getCreationOrder() {
+    return Collections.unmodifiableList(creationOrder);
+  }
+
+  /**
+   * Checks the constructor, the @Autowire points and the interceptors of a bean.
+   *
+   * @return the beans it needs first.
+   */
+  private List<TypeElement> check(TypeElement beanType) {
+    List<TypeElement> beanDependencies = new ArrayList<>();
+
+    // 1. One public @Autowire constructor, else an empty one.
+    List<ExecutableElement> autowireConstructors = new ArrayList<>();
+    ExecutableElement emptyConstructor = null;
+    for (ExecutableElement constructor :
+        ElementFilter.constructorsIn(beanType.getEnclosedElements())) {
+      if (constructor.getAnnotation(Autowire.class) != null) {
+        if (!constructor.getModifiers().contains(Modifier.PUBLIC)) {
+          error(beanType, constructor, "Autowire constructor must be public.");
+        }
+        autowireConstructors.add(constructor);
+      } else if (constructor.getParameters().isEmpty()) {
+        emptyConstructor = constructor;
+      }
+    }
+    if (autowireConstructors.size() > 1) {
+      error(beanType, autowireConstructors.get(1), "Only supports 1 Autowire constructor.");
+    } else if (autowireConstructors.isEmpty() && emptyConstructor == null) {
+      error(beanType, beanType, "No @Autowire or empty constructor found for " + name(beanType));
+    }
+    if (!autowireConstructors.isEmpty()) {
+      for (VariableElement parameter : autowireConstructors.get(0).getParameters()) {
+        beanDependencies.addAll(check(beanType, parameter, null));
+      }
+    }
+
+    // 2. @Autowire fields, including the ones of the Super Classes.
+    for (TypeElement type = beanType; type != null; type = getSuperclass(type)) {
+      for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+        if (field.getAnnotation(Autowire.class) != null) {
+          beanDependencies.addAll(check(beanType, field, field.getSimpleName().toString()));
+        }
+      }
+    }
+
+    // 3. Only prototypes can be pooled.
+    Scope scope = beanType.getAnnotation(Scope.class);
+    if (beanType.getAnnotation(Pooled.class) != null
+        && (scope == null || !Scope.PROTOTYPE.equals(scope.value()))) {
+      error(beanType, beanType, "Only prototype beans can be pooled: " + name(beanType));
+    }
+
+    // 4. Interceptors, created before the bean.
+    for (TypeElement interceptorType : getInterceptorTypes(beanType)) {
+      TypeElement implementation = resolve(beanType, beanType, interceptorType, null, null);
+      if (implementation != null) {
+        beanDependencies.add(implementation);
+      }
+    }
+    return beanDependencies;
+  }
+
+  /**
+   * Checks a field or constructor parameter.
+   *
+   * @return the beans it needs first: none for @Lazy, Provider and thread/context scoped points.
+   */
+  private List<TypeElement> check(TypeElement beanType, VariableElement point, String fieldName) {
+    TypeMirror pointType = point.asType();
+    TypeElement type = asTypeElement(pointType);
+    if (type == null) {
+      return Collections.emptyList();
+    }
+
+    // 1. Provider points receive a Provider of the bean, and resolve it when called.
+    String typeName = type.getQualifiedName().toString();
+    List<? extends TypeMirror> arguments = ((DeclaredType) pointType).getTypeArguments();
+    TypeElement providerType =
+        typeName.equals(Provider.class.getName()) || typeName.equals(Supplier.class.getName())
+            ? getTypeArgument(arguments, 0)
+            : null;
+    if (providerType != null) {
+      resolve(beanType, point, providerType, fieldName, qualifier(point));
+      return Collections.emptyList();
+    }
+
+    // 2. List/Set/Map points receive all the implementations, whatever their number.
+    TypeElement multiBindingType = getMultiBindingType(typeName, arguments);
+    if (multiBindingType != null) {
+      return point.getAnnotation(Lazy.class) != null
+          ? Collections.emptyList()
+          : resolveAll(multiBindingType);
+    }
+
+    // 3. Else, exactly one implementation. @Lazy points receive a proxy of it.
+    TypeElement implementation = resolve(beanType, point, type, fieldName, qualifier(point));
+    if (implementation == null || point.getAnnotation(Lazy.class) != null) {
+      return Collections.emptyList();
+    }
+
+    // 4. Thread and context scoped beans too, resolving the current bean on each call.
+    Scope scope = implementation.getAnnotation(Scope.class);
+    if (scope != null
+        && (Scope.THREAD.equals(scope.value()) || Scope.CONTEXT.equals(scope.value()))) {
+      if (!isProxiable(type)) {
+        error(
+            beanType,
+            point,
+            String.format(
+                "%s is %s scoped, so it is injected as a proxy, but %s cannot be proxied. "
+                    + "Inject a public interface, or a Provider.",
+                name(implementation), scope.value(), name(type)));
+      }
+      return Collections.emptyList();
+    }
+    return Collections.singletonList(implementation);
+  }
+
+  /**
+   * Whether LazyProxyFactory can proxy the type: public up to its outermost class, and for a
+   * class, neither final nor with public final methods (except the ones of Object).
+   */
+  private boolean isProxiable(TypeElement type) {
+    for (Element element = type;
+        element.getKind() != ElementKind.PACKAGE;
+        element = element.getEnclosingElement()) {
+      if (!element.getModifiers().contains(Modifier.PUBLIC)) {
+        return false;
+      }
+    }
+    if (type.getKind() == ElementKind.INTERFACE) {
+      return true;
+    }
+    if (type.getModifiers().contains(Modifier.FINAL)) {
+      return false;
+    }
+    List<ExecutableElement> methods =
+        ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type));
+    for (ExecutableElement method : methods) {
+      Set<Modifier> modifiers = method.getModifiers();
+      if (modifiers.contains(Modifier.PUBLIC)
+          && modifiers.contains(Modifier.FINAL)
+          && !modifiers.contains(Modifier.STATIC)
+          && !isObject((TypeElement) method.getEnclosingElement())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Resolves a type as ResolutionIndex does, reporting the failures.
+   *
+   * @return the implementation, or null if it does not resolve (or only for some conditions).
+   */
+  private TypeElement resolve(
+      TypeElement beanType, Element point, TypeElement type, String fieldName, String qualifier) {
+
+    // 1. A concrete class is its own implementation.
+    if (isConcrete(type)) {
+      return type;
+    }
+
+    // 2. Else, its single implementation.
+    List<TypeElement> implementations =
+        implementationsByType.getOrDefault(type, Collections.emptyList());
+    List<TypeElement> unconditionalImplementations =
+        implementations.stream()
+            .filter(implementation -> !conditionalComponents.contains(implementation))
+            .collect(Collectors.toList());
+    boolean dependsOnConditions = unconditionalImplementations.size() < implementations.size();
+    conditional |= dependsOnConditions;
+
+    if (implementations.isEmpty()) {
+      error(beanType, point, "No impl found for " + name(type));
+      return null;
+    }
+    if (implementations.size() == 1) {
+      TypeElement implementation = implementations.get(0);
+      if (qualifier != null
+          && !implementation.getSimpleName().toString().equalsIgnoreCase(qualifier)) {
+        warning(
+            beanType,
+            point,
+            String.format(
+                "No implementation of %s is named %s, %s is injected",
+                name(type), qualifier, name(implementation)));
+      }
+      return dependsOnConditions ? null : implementation;
+    }
+
+    // 3. Else, the one named by the qualifier or the field name.
+    String findBy = qualifier == null ? fieldName : qualifier;
+    for (TypeElement implementation : implementations) {
+      if (implementation.getSimpleName().toString().equalsIgnoreCase(findBy)) {
+        return implementation;
+      }
+    }
+    if (unconditionalImplementations.size() > 1) {
+      error(
+          beanType,
+          point,
+          String.format(
+              "%s implementations of %s found. Use @Qualifier to resolve it.",
+              unconditionalImplementations.size(), name(type)));
+    }
+    return null;
+  }
+
+  /** All the instantiable implementations of a type, for List/Set/Map points. */
+  private List<TypeElement> resolveAll(TypeElement type) {
+    List<TypeElement> implementations = implementationsByType.get(type);
+    if (implementations == null) {
+      return isConcrete(type) ? Collections.singletonList(type) : Collections.emptyList();
+    }
+    List<TypeElement> beans = new ArrayList<>();
+    for (TypeElement implementation : implementations) {
+      conditional |= conditionalComponents.contains(implementation);
+      if (isConcrete(implementation)) {
+        beans.add(implementation);
+      }
+    }
+    return beans;
+  }
+
+  /** Reports each cycle once, on its first class of this module. */
+  private void checkCycles() {
+
+    // 1. Kahn's algorithm: the beans never ready are on, or depend on, a cycle.
+    Map<TypeElement, Integer> remainingDependencies = new HashMap<>();
+    Map<TypeElement, List<TypeElement>> dependents = new HashMap<>();
+    Deque<TypeElement> ready = new ArrayDeque<>();
+    for (Map.Entry<TypeElement, Set<TypeElement>> entry : dependencies.entrySet()) {
+      remainingDependencies.put(entry.getKey(), entry.getValue().size());
+      if (entry.getValue().isEmpty()) {
+        ready.add(entry.getKey());
+      }
+      for (TypeElement dependency : entry.getValue()) {
+        dependents.computeIfAbsent(dependency, key -> new ArrayList<>()).add(entry.getKey());
+      }
+    }
+    while (!ready.isEmpty()) {
+      TypeElement beanType = ready.poll();
+      remainingDependencies.remove(beanType);
+      creationOrder.add(beanType);
+      for (TypeElement dependent : dependents.getOrDefault(beanType, Collections.emptyList())) {
+        if (remainingDependencies.merge(dependent, -1, Integer::sum) == 0) {
+          ready.add(dependent);
+        }
+      }
+    }
+
+    // 2. Every remaining bean has a remaining dependency: following them ends on a cycle.
+    Set<TypeElement> onReportedPath = new HashSet<>();
+    for (TypeElement start : remainingDependencies.keySet()) {
+      List<TypeElement> path = new ArrayList<>();
+      Map<TypeElement, Integer> pathIndex = new HashMap<>();
+      TypeElement beanType = start;
+      while (!onReportedPath.contains(beanType) && !pathIndex.containsKey(beanType)) {
+        pathIndex.put(beanType, path.size());
+        path.add(beanType);
+        beanType = getRemainingDependency(beanType, remainingDependencies);
+      }
+      onReportedPath.addAll(path);
+      if (pathIndex.containsKey(beanType)) {
+        reportCycle(path.subList(pathIndex.get(beanType), path.size()));
+      }
+    }
+  }
+
+  private TypeElement getRemainingDependency(
+      TypeElement beanType, Map<TypeElement, Integer> remainingDependencies) {
+    for (TypeElement dependency : dependencies.get(beanType)) {
+      if (remainingDependencies.containsKey(dependency)) {
+        return dependency;
+      }
+    }
+    throw new IllegalStateException("No remaining dependency for " + name(beanType));
+  }
+
+  private void reportCycle(List<TypeElement> cycle) {
+    StringBuilder description = new StringBuilder("Circular dependency: ");
+    for (TypeElement beanType : cycle) {
+      description.append(name(beanType)).append(" -> ");
+    }
+    description.append(name(cycle.get(0)));
+
+    valid = false;
+    for (TypeElement beanType : cycle) {
+      if (isReported(beanType)) {
+        processingEnv.getMessager().printMessage(Kind.ERROR, description, beanType);
+        return;
+      }
+    }
+  }
+
+  private void error(TypeElement beanType, Element element, String message) {
+    valid = false;
+    if (isReported(beanType)) {
+      processingEnv.getMessager().printMessage(Kind.ERROR, message, element);
+    }
+  }
+
+  private void warning(TypeElement beanType, Element element, String message) {
+    if (isReported(beanType)) {
+      processingEnv.getMessager().printMessage(Kind.WARNING, message, element);
+    }
+  }
+
+  /** Whether the class is part of this module, else of a library. */
+  private boolean isReported(TypeElement type) {
+    Element outermost = type;
+    while (outermost.getEnclosingElement().getKind() != ElementKind.PACKAGE) {
+      outermost = outermost.getEnclosingElement();
+    }
+    return reportedTypeNames.contains(((TypeElement) outermost).getQualifiedName().toString());
+  }
+
+  /** The class itself, its Super Classes (except Object) and all its interfaces. */
+  private Set<TypeElement> getAssignableTypes(TypeElement component) {
+    Set<TypeElement> types = new LinkedHashSet<>();
+    for (TypeElement type = component; type != null; type = getSuperclass(type)) {
+      types.add(type);
+      addInterfaces(type, types);
+    }
+    return types;
+  }
+
+  private void addInterfaces(TypeElement type, Set<TypeElement> types) {
+    for (TypeMirror interfaceType : type.getInterfaces()) {
+      TypeElement interfaceElement = asTypeElement(interfaceType);
+      if (interfaceElement != null && types.add(interfaceElement)) {
+        addInterfaces(interfaceElement, types);
+      }
+    }
+  }
+
+  /** The Super Class, or null for Object (and its direct sub classes). */
+  private TypeElement getSuperclass(TypeElement type) {
+    TypeElement superclass = asTypeElement(type.getSuperclass());
+    return superclass == null || isObject(superclass) ? null : superclass;
+  }
+
+  /** The @Interceptor classes of the class and of its public methods. */
+  private Set<TypeElement> getInterceptorTypes(TypeElement beanType) {
+    List<Interceptor> interceptors = new ArrayList<>();
+    interceptors.add(beanType.getAnnotation(Interceptor.class));
+    for (ExecutableElement method :
+        ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(beanType))) {
+      if (method.getModifiers().contains(Modifier.PUBLIC)) {
+        interceptors.add(method.getAnnotation(Interceptor.class));
+      }
+    }
+
+    Set<TypeElement> interceptorTypes = new LinkedHashSet<>();
+    for (Interceptor interceptor : interceptors) {
+      if (interceptor == null) {
+        continue;
+      }
+      try {
+        interceptor.value();
+      } catch (MirroredTypesException ex) {
+        // Classes of an annotation are only available as types at compile time.
+        for (TypeMirror interceptorType : ex.getTypeMirrors()) {
+          TypeElement interceptorElement = asTypeElement(interceptorType);
+          if (interceptorElement != null) {
+            interceptorTypes.add(interceptorElement);
+          }
+        }
+      }
+    }
+    return interceptorTypes;
+  }
+
+  /** The bean type of a List, Set, Collection or Map&lt;String, T&gt; point, else null. */
+  private TypeElement getMultiBindingType(
+      String typeName, List<? extends TypeMirror> arguments) {
+    if (typeName.equals(List.class.getName())
+        || typeName.equals(Set.class.getName())
+        || typeName.equals(Collection.class.getName())) {
+      return getTypeArgument(arguments, 0);
+    }
+    if (typeName.equals(Map.class.getName()) && arguments.size() == 2) {
+      TypeElement keyType = asTypeElement(arguments.get(0));
+      if (keyType != null && keyType.getQualifiedName().contentEquals(String.class.getName())) {
+        return getTypeArgument(arguments, 1);
+      }
+    }
+    return null;
+  }
+
+  /** The erased type argument, else null: as for the reflected generic types, Object is none. */
+  private TypeElement getTypeArgument(List<? extends TypeMirror> arguments, int index) {
+    if (arguments.size() <= index) {
+      return null;
+    }
+    TypeMirror argument = arguments.get(index);
+    if (argument.getKind() == TypeKind.WILDCARD) {
+      argument = ((WildcardType) argument).getExtendsBound();
+    }
+    TypeElement type = argument != null ? asTypeElement(argument) : null;
+    return type == null || isObject(type) ? null : type;
+  }
+
+  private TypeElement asTypeElement(TypeMirror type) {
+    TypeMirror erasure = processingEnv.getTypeUtils().erasure(type);
+    return erasure.getKind() == TypeKind.DECLARED
+        ? (TypeElement) ((DeclaredType) erasure).asElement()
+        : null;
+  }
+
+  private static boolean isObject(TypeElement type) {
+    return type.getQualifiedName().contentEquals(Object.class.getName());
+  }
+
+  private static boolean isConcrete(TypeElement type) {
+    return !type.getKind().isInterface() && !type.getModifiers().contains(Modifier.ABSTRACT);
+  }
+
+  private static boolean isConditional(TypeElement component) {
+    Profile profile = component.getAnnotation(Profile.class);
+    ConditionalOnClass onClass = component.getAnnotation(ConditionalOnClass.class);
+    return (profile != null && profile.value().length > 0)
+        || (onClass != null && onClass.value().length > 0)
+        || component.getAnnotation(ConditionalOnProperty.class) != null;
+  }
+
+  private static String qualifier(Element element) {
+    Qualifier qualifier = element.getAnnotation(Qualifier.class);
+    return qualifier == null || qualifier.value().isEmpty() ? null : qualifier.value();
+  }
+
+  private String name(TypeElement type) {
+    return processingEnv.getElementUtils().getBinaryName(type).toString();
+  }
+}
@@ -0,0 +1,318 @@
+package com.arjunsk.codekrypt.di.processor;
+
+import com.arjunsk.codekrypt.di.annotation.Component;
+import com.arjunsk.codekrypt.di.annotation.ConditionalOnClass;
+import com.arjunsk.codekrypt.di.annotation.ConditionalOnProperty;
+import com.arjunsk.codekrypt.di.annotation.Profile;
+import com.arjunsk.codekrypt.di.core.ComponentIndex;
+import com.arjunsk.codekrypt.di.core.ComponentIndex.IndexedComponent;
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Writes the {@link ComponentIndex} of all the @Component classes at compile time, so that
+ * CodekryptInjector can skip class scanning on startup.
+ *
+ * <p>The component graph is validated first, failing the compilation on the problems found on
+ * startup otherwise. A graph valid whatever the component conditions is marked as {@link
+ * ComponentIndex#VALIDATED}, so that CodekryptInjector can skip its validation on startup.
+ *
+ * <p>On an incremental compilation, only some classes are compiled: the components of the
+ * previous index which still exist and are still annotated are kept, as Spring's
+ * CandidateComponentsIndexer does.
+ */
+public class ComponentIndexProcessor extends AbstractProcessor {
+
+  // Set this option to "false" (-Acodekrypt.validate=false) to skip the validation.
+  public static final String VALIDATE_OPTION = "codekrypt.validate";
+
+  // Component class name -> rendered index lines. Sorted for a reproducible output.
+  private final Map<String, String> indexEntries = new TreeMap<>();
+
+  // Component class name -> its qualified name, to look it up once all the rounds are done.
+  private final Map<String, String> componentNames = new TreeMap<>();
+
+  // Qualified names of the outermost classes of this compilation, and of the components kept
+  // from the previous index: the ones the validation reports on.
+  private final Set<String> reportedTypeNames = new HashSet<>();
+
+  // Common package of the classes of this compilation and of the previous index. Null if none.
+  private String rootPackage;
+
+  // Every class, so that the index is rewritten when a class loses its @Component.
+  @Override
+  public Set<String> getSupportedAnnotationTypes() {
+    return Collections.singleton("*");
+  }
+
+  @Override
+  public Set<String> getSupportedOptions() {
+    return Collections.singleton(VALIDATE_OPTION);
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+
+    // 1. Collect the @Component classes of this round.
+    for (Element element : roundEnv.getElementsAnnotatedWith(Component.class)) {
+      if (element.getKind() == ElementKind.CLASS) {
+        TypeElement componentType = (TypeElement) element;
+        indexEntries.put(binaryName(componentType), describe(componentType));
+        componentNames.put(
+            binaryName(componentType), componentType.getQualifiedName().toString());
+      }
+    }
+    for (TypeElement rootType : ElementFilter.typesIn(roundEnv.getRootElements())) {
+      reportedTypeNames.add(rootType.getQualifiedName().toString());
+      addRootPackage(packageName(rootType));
+    }
+
+    // 2. Merge, validate and write the index once all the rounds are done.
+    if (roundEnv.processingOver()) {
+      try {
+        boolean hasPreviousIndex = mergePreviousIndex();
+        if (indexEntries.isEmpty() && !hasPreviousIndex) {
+          return false;
+        }
+        FileObject resource =
+            processingEnv
+                .getFiler()
+                .createResource(
+                    StandardLocation.CLASS_OUTPUT, "", ComponentIndex.INDEX_LOCATION);
+        List<String> creationOrder =
+            "false".equals(processingEnv.getOptions().get(VALIDATE_OPTION))
+                ? null
+                : validate(resource);
+        writeIndex(resource, creationOrder);
+      } catch (IOException ex) {
+        processingEnv
+            .getMessager()
+            .printMessage(Kind.ERROR, "Unable to write component index: " + ex.getMessage());
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Adds the components of the previous index which were not compiled again, if they still exist
+   * and are still annotated. Must run before the index is created, which truncates it.
+   *
+   * @return whether there was a previous index.
+   */
+  private boolean mergePreviousIndex() throws IOException {
+    FileObject previousIndex =
+        processingEnv
+            .getFiler()
+            .getResource(StandardLocation.CLASS_OUTPUT, "", ComponentIndex.INDEX_LOCATION);
+    List<String> previousNames = new ArrayList<>();
+    try (BufferedReader reader = new BufferedReader(previousIndex.openReader(true))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        String[] columns = line.split("\t", -1);
+        if (ComponentIndex.ROOT.equals(columns[0])) {
+          addRootPackage(columns[1]);
+        } else if (ComponentIndex.COMPONENT.equals(columns[0])) {
+          previousNames.add(columns[1]);
+        }
+      }
+    } catch (FileNotFoundException | NoSuchFileException ex) {
+      return false;
+    }
+
+    Elements elements = processingEnv.getElementUtils();
+    for (String className : previousNames) {
+      TypeElement componentType = elements.getTypeElement(className.replace('$', '.'));
+      if (componentType != null
+          && componentType.getKind() == ElementKind.CLASS
+          && componentType.getAnnotation(Component.class) != null
+          && !indexEntries.containsKey(className)) {
+        indexEntries.put(className, describe(componentType));
+        componentNames.put(className, componentType.getQualifiedName().toString());
+        reportedTypeNames.add(outermostName(componentType));
+        addRootPackage(packageName(componentType));
+      }
+    }
+    return true;
+  }
+
+  /** Narrows the root package down to the common parent of the package. */
+  private void addRootPackage(String packageName) {
+    if (rootPackage == null) {
+      rootPackage = packageName;
+      return;
+    }
+    while (!packageName.equals(rootPackage) && !packageName.startsWith(rootPackage + ".")) {
+      int lastDot = rootPackage.lastIndexOf('.');
+      rootPackage = lastDot < 0 ? "" : rootPackage.substring(0, lastDot);
+      if (rootPackage.isEmpty()) {
+        return;
+      }
+    }
+  }
+
+  private String packageName(TypeElement type) {
+    return processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+  }
+
+  private static String outermostName(TypeElement type) {
+    Element outermost = type;
+    while (outermost.getEnclosingElement().getKind() != ElementKind.PACKAGE) {
+      outermost = outermost.getEnclosingElement();
+    }
+    return ((TypeElement) outermost).getQualifiedName().toString();
+  }
+
+  /**
+   * Validates the components of this compilation and of the previous index, along with the ones
+   * of the libraries read from their index.
+   *
+   * @param resource index being written, whose previous version is merged, not a library.
+   * @return the components of the index, dependencies first, if they are all valid whatever
+   *     the outcome of their conditions. Else null.
+   */
+  private List<String> validate(FileObject resource) throws IOException {
+    Elements elements = processingEnv.getElementUtils();
+    Map<String, TypeElement> components = new LinkedHashMap<>();
+    for (Map.Entry<String, String> componentName : componentNames.entrySet()) {
+      components.put(componentName.getKey(), elements.getTypeElement(componentName.getValue()));
+    }
+
+    // The libraries are on the compile class path, which this processor is loaded from.
+    List<URL> libraryIndexes = new ArrayList<>();
+    for (URL libraryIndex :
+        Collections.list(getClass().getClassLoader().getResources(ComponentIndex.INDEX_LOCATION))) {
+      if (!isResource(libraryIndex, resource)) {
+        libraryIndexes.add(libraryIndex);
+      }
+    }
+    for (IndexedComponent libraryComponent :
+        ComponentIndex.load(libraryIndexes).getComponents()) {
+      String className = libraryComponent.getClassName();
+      TypeElement libraryType = elements.getTypeElement(className.replace('$', '.'));
+      if (libraryType != null && !components.containsKey(className)) {
+        components.put(className, libraryType);
+      }
+    }
+
+    ComponentGraphValidator validator =
+        new ComponentGraphValidator(processingEnv, components.values(), reportedTypeNames);
+    if (!validator.validate()) {
+      return null;
+    }
+    List<String> creationOrder = new ArrayList<>();
+    for (TypeElement beanType : validator.getCreationOrder()) {
+      if (indexEntries.containsKey(binaryName(beanType))) {
+        creationOrder.add(binaryName(beanType));
+      }
+    }
+    return creationOrder;
+  }
+
+  private static boolean isResource(URL url, FileObject resource) {
+    try {
+      return Paths.get(url.toURI()).equals(Paths.get(resource.toUri()));
+    } catch (URISyntaxException | RuntimeException ex) {
+      // Not a file, eg in a jar.
+      return false;
+    }
+  }
+
+  private String describe(TypeElement componentType) {
+    StringBuilder entry = new StringBuilder();
+    line(entry, ComponentIndex.COMPONENT, binaryName(componentType));
+
+    // Conditions, evaluated at startup before the component is loaded.
+    Profile profile = componentType.getAnnotation(Profile.class);
+    if (profile != null && profile.value().length > 0) {
+      line(entry, prepend(ComponentIndex.PROFILE, profile.value()));
+    }
+    ConditionalOnClass onClass = componentType.getAnnotation(ConditionalOnClass.class);
+    if (onClass != null && onClass.value().length > 0) {
+      line(entry, prepend(ComponentIndex.ON_CLASS, onClass.value()));
+    }
+    ConditionalOnProperty onProperty = componentType.getAnnotation(ConditionalOnProperty.class);
+    if (onProperty != null) {
+      line(
+          entry,
+          ComponentIndex.ON_PROPERTY,
+          onProperty.name(),
+          onProperty.havingValue(),
+          String.valueOf(onProperty.matchIfMissing()));
+    }
+    return entry.toString();
+  }
+
+  private static String[] prepend(String first, String[] rest) {
+    String[] columns = new String[rest.length + 1];
+    columns[0] = first;
+    System.arraycopy(rest, 0, columns, 1, rest.length);
+    return columns;
+  }
+
+  /**
+   * Writes the components by name, or dependencies first when validated.
+   *
+   * @param creationOrder validated components, dependencies first. Null if not validated.
+   */
+  private void writeIndex(FileObject resource, List<String> creationOrder) throws IOException {
+    Map<String, String> entries = new LinkedHashMap<>();
+    if (creationOrder != null) {
+      for (String componentName : creationOrder) {
+        entries.put(componentName, indexEntries.get(componentName));
+      }
+    }
+    // Abstract components are not beans, so they are not in the creation order.
+    entries.putAll(indexEntries);
+
+    try (Writer writer = resource.openWriter()) {
+      writer.write("# Generated by " + getClass().getName() + "\n");
+      if (rootPackage != null) {
+        writer.write(ComponentIndex.ROOT + "\t" + rootPackage + "\n");
+      }
+      if (creationOrder != null) {
+        writer.write(ComponentIndex.VALIDATED + "\n");
+      }
+      for (String indexEntry : entries.values()) {
+        writer.write(indexEntry);
+      }
+    }
+  }
+
+  private static void line(StringBuilder entry, String... columns) {
+    entry.append(String.join("\t", columns)).append('\n');
+  }
+
+  private String binaryName(TypeElement typeElement) {
+    return processingEnv.getElementUtils().getBinaryName(typeElement).toString();
+  }
+}
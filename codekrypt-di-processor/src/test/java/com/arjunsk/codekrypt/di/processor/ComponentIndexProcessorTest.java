@@ -0,0 +1,187 @@
+package com.arjunsk.codekrypt.di.processor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.arjunsk.codekrypt.di.core.ComponentIndex;
+import com.arjunsk.codekrypt.di.core.ComponentIndex.IndexedComponent;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaCompiler.CompilationTask;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ComponentIndexProcessorTest {
+
+  @TempDir Path root;
+
+  private Path sourceDir;
+  private Path classesDir;
+
+  // Diagnostics of the last compilation.
+  private DiagnosticCollector<JavaFileObject> diagnostics;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    sourceDir = Files.createDirectories(root.resolve("src"));
+    classesDir = Files.createDirectories(root.resolve("classes"));
+    write("Engine", "public interface Engine {}");
+    write("V8Engine", "@Component\npublic class V8Engine implements Engine {}");
+    write("Car", "@Component\npublic class Car {\n  @Autowire Engine engine;\n}");
+  }
+
+  @Test
+  void incrementalCompilationKeepsTheOtherComponents() throws IOException {
+    assertTrue(compile("Engine", "V8Engine", "Car"));
+
+    write("Car", "@Component\npublic class Car {\n  @Autowire Engine engine;\n  int speed;\n}");
+    assertTrue(compile("Car"));
+
+    assertEquals(Arrays.asList("test.Car", "test.V8Engine"), componentNames());
+  }
+
+  @Test
+  void incrementalCompilationDropsTheClassesNoLongerAnnotated() throws IOException {
+    assertTrue(compile("Engine", "V8Engine", "Car"));
+
+    write("Car", "public class Car {}");
+    assertTrue(compile("Car"));
+
+    assertEquals(Collections.singletonList("test.V8Engine"), componentNames());
+  }
+
+  @Test
+  void incrementalCompilationValidatesTheMergedGraph() throws IOException {
+    assertTrue(compile("Engine", "V8Engine", "Car"));
+
+    assertTrue(compile("Car"));
+
+    ComponentIndex index = index();
+    assertTrue(index.isValidated("test"));
+    assertEquals("test.V8Engine", index.getComponents().get(0).getClassName());
+    assertEquals("test.Car", index.getComponents().get(1).getClassName());
+  }
+
+  @Test
+  void incrementalCompilationReportsTheKeptComponents() throws IOException {
+    assertTrue(compile("Engine", "V8Engine", "Car"));
+
+    write("V8Engine", "public class V8Engine implements Engine {}");
+
+    assertFalse(compile("V8Engine"));
+    assertTrue(hasError("No impl found for test.Engine"));
+  }
+
+  @Test
+  void indexCoversThePackageOfTheCompiledClasses() throws IOException {
+    assertTrue(compile("Engine", "V8Engine", "Car"));
+    assertTrue(compile("Car"));
+
+    assertTrue(index().covers("test"));
+    assertTrue(index().covers("test.service"));
+    assertFalse(index().covers("other"));
+  }
+
+  @Test
+  void missingImplementationFailsTheCompilation() throws IOException {
+    write("Car", "@Component\npublic class Car {\n  @Autowire Runnable task;\n}");
+
+    assertFalse(compile("Engine", "V8Engine", "Car"));
+    assertTrue(hasError("No impl found for java.lang.Runnable"));
+  }
+
+  @Test
+  void scopedBeanIsInjectedThroughAProxy() throws IOException {
+    write(
+        "V8Engine", "@Component\n@Scope(Scope.THREAD)\npublic class V8Engine implements Engine {}");
+
+    assertTrue(compile("Engine", "V8Engine", "Car"));
+    assertTrue(index().isValidated("test"));
+  }
+
+  @Test
+  void scopedBeanOfAFinalClassFailsTheCompilation() throws IOException {
+    write(
+        "V8Engine",
+        "@Component\n@Scope(Scope.CONTEXT)\npublic final class V8Engine implements Engine {}");
+    write("Car", "@Component\npublic class Car {\n  @Autowire V8Engine engine;\n}");
+
+    assertFalse(compile("Engine", "V8Engine", "Car"));
+    assertTrue(hasError("test.V8Engine cannot be proxied"));
+  }
+
+  private void write(String className, String body) throws IOException {
+    String content =
+        "package test;\n\n"
+            + "import com.arjunsk.codekrypt.di.annotation.*;\n\n"
+            + body
+            + "\n";
+    Files.write(
+        sourceDir.resolve(className + ".java"), content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /** Compiles the classes with the processor, the previous output being on the class path. */
+  private boolean compile(String... classNames) throws IOException {
+    List<File> sources = new ArrayList<>();
+    for (String className : classNames) {
+      sources.add(sourceDir.resolve(className + ".java").toFile());
+    }
+    String classPath = classesDir + File.pathSeparator + System.getProperty("java.class.path");
+    List<String> options = Arrays.asList("-d", classesDir.toString(), "-classpath", classPath);
+
+    diagnostics = new DiagnosticCollector<>();
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    try (StandardJavaFileManager fileManager =
+        compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+      CompilationTask task =
+          compiler.getTask(
+              null,
+              fileManager,
+              diagnostics,
+              options,
+              null,
+              fileManager.getJavaFileObjectsFromFiles(sources));
+      task.setProcessors(Collections.singletonList(new ComponentIndexProcessor()));
+      return task.call();
+    }
+  }
+
+  private boolean hasError(String message) {
+    for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+      if (diagnostic.getKind() == Diagnostic.Kind.ERROR
+          && diagnostic.getMessage(null).contains(message)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private List<String> componentNames() throws IOException {
+    List<String> names = new ArrayList<>();
+    for (IndexedComponent component : index().getComponents()) {
+      names.add(component.getClassName());
+    }
+    Collections.sort(names);
+    return names;
+  }
+
+  private ComponentIndex index() throws IOException {
+    Path index = classesDir.resolve(ComponentIndex.INDEX_LOCATION);
+    return ComponentIndex.load(Collections.singletonList(index.toUri().toURL()));
+  }
+}